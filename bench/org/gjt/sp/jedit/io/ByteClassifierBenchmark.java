@@ -0,0 +1,85 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * Throughput of the byte classifier on a 32 MB corpus of UTF-8 source
+ * lines, against the way text was told from binary data before, decoding
+ * every char with an InputStreamReader. Run it with the benchmark target.
+ */
+public class ByteClassifierBenchmark
+{
+	public static void main(String[] args) throws IOException
+	{
+		byte[] corpus = new byte[32 << 20];
+		byte[] line = "\tpublic static final String s = \"café €\"; // comment\n"
+			.getBytes("UTF-8");
+		for (int i = 0; i < corpus.length; i++)
+			corpus[i] = line[i % line.length];
+		int rounds = 5;
+
+		ByteClassifier.classify(corpus);
+		long classifier = System.nanoTime();
+		for (int k = 0; k < rounds; k++)
+		{
+			if (ByteClassifier.classify(corpus).isBinary(100, 1))
+				throw new AssertionError("text classified as binary");
+		}
+		classifier = System.nanoTime() - classifier;
+
+		long reader = System.nanoTime();
+		for (int k = 0; k < rounds; k++)
+		{
+			if (containsNul(corpus))
+				throw new AssertionError("NUL found in text");
+		}
+		reader = System.nanoTime() - reader;
+
+		long mb = (long) corpus.length * rounds >> 20;
+		System.out.println("Byte classifier, " + (corpus.length >> 20)
+			+ " MB: " + mb * 1000000000L / Math.max(classifier, 1L)
+			+ " MB/s, InputStreamReader scan "
+			+ mb * 1000000000L / Math.max(reader, 1L) + " MB/s");
+	}
+
+	/** The way text was told from binary data, decoding every char. */
+	private static boolean containsNul(byte[] corpus) throws IOException
+	{
+		Reader reader = new InputStreamReader(new ByteArrayInputStream(corpus), "UTF-8");
+		char[] buf = new char[8192];
+		int n;
+		while ((n = reader.read(buf)) != -1)
+		{
+			for (int i = 0; i < n; i++)
+			{
+				if (buf[i] == 0)
+					return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.textarea;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.util.Random;
+
+/**
+ * Benchmark of typing into the first column of a 50k-line tab-separated
+ * file: every keystroke changes one cell, which used to make the whole
+ * column block measured again. Run it with the benchmark target.
+ */
+public class ElasticTabstopsBenchmark
+{
+	private static final int LINES = 50000;
+
+	public static void main(String[] args)
+	{
+		Font font = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+		FontRenderContext frc = new FontRenderContext(null, false, false);
+		StringBuilder[] cells = new StringBuilder[LINES];
+		float[] widths = new float[LINES];
+		for (int i = 0; i < LINES; i++)
+		{
+			cells[i] = new StringBuilder("cell" + i);
+			widths[i] = measure(cells[i], font, frc);
+		}
+		Random random = new Random(42L);
+
+		int fullKeystrokes = 5;
+		long fullTime = System.nanoTime();
+		for (int k = 0; k < fullKeystrokes; k++)
+		{
+			cells[random.nextInt(LINES)].append('x');
+			for (int i = 0; i < LINES; i++)
+				widths[i] = measure(cells[i], font, frc);
+			max(widths);
+		}
+		fullTime = System.nanoTime() - fullTime;
+
+		ColumnWidthTree tree = new ColumnWidthTree(widths);
+		int keystrokes = 5000;
+		long incrementalTime = System.nanoTime();
+		for (int k = 0; k < keystrokes; k++)
+		{
+			int line = random.nextInt(LINES);
+			cells[line].append('x');
+			widths[line] = measure(cells[line], font, frc);
+			tree.setWidth(line, widths[line]);
+		}
+		incrementalTime = System.nanoTime() - incrementalTime;
+
+		if (tree.getMaxWidth() != max(widths))
+			throw new AssertionError("incremental width differs from full scan");
+		System.out.println("Elastic tabstops, " + LINES + " lines: full rescan "
+			+ fullTime / fullKeystrokes / 1000L + " us/keystroke, incremental "
+			+ incrementalTime / keystrokes / 1000L + " us/keystroke");
+	}
+
+	private static float measure(CharSequence text, Font font, FontRenderContext frc)
+	{
+		return new TextLayout(text.toString(), font, frc).getAdvance();
+	}
+
+	private static float max(float[] widths)
+	{
+		float max = 0f;
+		for (float width : widths)
+			max = Math.max(max, width);
+		return max;
+	}
+}
@@ -23,6 +23,7 @@
 package org.gjt.sp.jedit;
 
 //{{{ Imports
+import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
@@ -31,8 +32,10 @@ import org.gjt.sp.jedit.bsh.BshMethod;
 import org.gjt.sp.jedit.bsh.EvalError;
 import org.gjt.sp.jedit.bsh.Interpreter;
 import org.gjt.sp.jedit.bsh.NameSpace;
+import org.gjt.sp.jedit.bsh.ParsedScript;
 import org.gjt.sp.jedit.bsh.UtilEvalError;
 import org.gjt.sp.jedit.gui.BeanShellErrorDialog;
+import org.gjt.sp.jedit.io.FileVFS;
 import org.gjt.sp.jedit.io.VFSManager;
 import org.gjt.sp.jedit.textarea.JEditTextArea;
 import org.gjt.sp.jedit.textarea.Selection;
@@ -302,7 +305,10 @@ public class BeanShell
 	 * by <code>path</code>.<p>
 	 *
 	 * The <code>scriptPath</code> BeanShell variable is set to the path
-	 * name of the script.
+	 * name of the script.<p>
+	 *
+	 * A local script file read from disk is only parsed again when it
+	 * changed.
 	 *
 	 * @param view The view. Within the script, references to
 	 * <code>buffer</code>, <code>textArea</code> and <code>editPane</code>
@@ -323,16 +329,33 @@ public class BeanShell
 
 		try
 		{
+			ParsedScript script = null;
 			if(in == null)
 			{
-				Buffer buffer = jEdit.openTemporary(null,
-					null,path,false);
-
-				if(!buffer.isLoaded())
-					TaskManager.instance.waitForIoTasks();
-
-				in = new StringReader(buffer.getText(0,
-					buffer.getLength()));
+				File file = getScriptFile(path);
+				// before reading, so a later change is seen
+				long length = file == null ? 0L : file.length();
+				long modTime = file == null ? 0L : file.lastModified();
+				if(file != null)
+					script = scriptCache.get(file);
+				if(script == null)
+				{
+					Buffer buffer = jEdit.openTemporary(null,
+						null,path,false);
+
+					if(!buffer.isLoaded())
+						TaskManager.instance.waitForIoTasks();
+
+					String text = buffer.getText(0,
+						buffer.getLength());
+					if(file != null)
+					{
+						script = scriptCache.parse(file,
+							length,modTime,text);
+					}
+					else
+						in = new StringReader(text);
+				}
 			}
 
 			bsh.setupDefaultVariables(namespace,view);
@@ -340,7 +363,10 @@ public class BeanShell
 
 			running = true;
 
-			interp.eval(in,namespace,path);
+			if(script != null)
+				interp.eval(script,namespace);
+			else
+				interp.eval(in,namespace,path);
 		}
 		catch(Exception e)
 		{
@@ -477,8 +503,25 @@ public class BeanShell
 
 	//{{{ Static variables
 	private static boolean running;
+	private static final BeanShellScriptCache scriptCache = new BeanShellScriptCache();
 	//}}}
 
+	//{{{ getScriptFile() method
+	/**
+	 * Returns the file of a script whose parsed form can be cached: a
+	 * local file that is not open with unsaved changes.
+	 */
+	private static File getScriptFile(String path)
+	{
+		if(!(VFSManager.getVFSForPath(path) instanceof FileVFS))
+			return null;
+		Buffer buffer = jEdit.getBuffer(path);
+		if(buffer != null && buffer.isDirty())
+			return null;
+		File file = new File(path);
+		return file.isFile() ? file : null;
+	} //}}}
+
 	//}}}
 
 	/**
@@ -0,0 +1,111 @@
+/*
+ * BeanShellScriptCache.java - Parsed BeanShell scripts
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+//{{{ Imports
+import java.io.File;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.gjt.sp.jedit.bsh.EvalError;
+import org.gjt.sp.jedit.bsh.ParsedScript;
+//}}}
+
+/**
+ * The BeanShell scripts run lately, parsed, so that running a script
+ * again does not parse it again while it is unchanged.<p>
+ *
+ * A script is identified by its path, length and modification time. The
+ * parsed scripts are not kept on disk: reading a parsed script back with
+ * Java serialization takes longer than parsing it again.
+ *
+ * @since jEdit 5.4pre1
+ */
+class BeanShellScriptCache
+{
+	static final int MAX_SCRIPTS = 32;
+
+	//{{{ get() method
+	/**
+	 * Returns the parsed script, or null if there is none for the file as
+	 * it is now.
+	 */
+	synchronized ParsedScript get(File file)
+	{
+		Script entry = scripts.get(file.getPath());
+		if(entry != null && entry.length == file.length()
+			&& entry.modTime == file.lastModified())
+		{
+			return entry.script;
+		}
+		return null;
+	} //}}}
+
+	//{{{ parse() method
+	/**
+	 * Parses a script and keeps it.
+	 * @param file the script file
+	 * @param length the length of the file before it was read
+	 * @param modTime the modification time of the file before it was read
+	 * @param text the text of the file
+	 * @throws EvalError on syntax errors
+	 */
+	ParsedScript parse(File file, long length, long modTime, String text)
+		throws EvalError
+	{
+		String path = file.getPath();
+		ParsedScript script = ParsedScript.parse(new StringReader(text),path);
+		synchronized(this)
+		{
+			scripts.put(path,new Script(length,modTime,script));
+		}
+		return script;
+	} //}}}
+
+	//{{{ Private members
+	private final Map<String,Script> scripts = new LinkedHashMap<String,Script>(16,0.75f,true)
+	{
+		protected boolean removeEldestEntry(Map.Entry<String,Script> eldest)
+		{
+			return size() > MAX_SCRIPTS;
+		}
+	};
+
+	//{{{ Script class
+	private static class Script
+	{
+		final long length;
+		final long modTime;
+		final ParsedScript script;
+
+		Script(long length, long modTime, ParsedScript script)
+		{
+			this.length = length;
+			this.modTime = modTime;
+			this.script = script;
+		}
+	} //}}}
+
+	//}}}
+}
@@ -31,6 +31,7 @@ import java.net.Socket;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Vector;
 
 import javax.swing.*;
@@ -41,13 +42,16 @@ import org.gjt.sp.jedit.browser.VFSBrowser;
 import org.gjt.sp.jedit.buffer.BufferUndoListener;
 import org.gjt.sp.jedit.buffer.FoldHandler;
 import org.gjt.sp.jedit.buffer.JEditBuffer;
+import org.gjt.sp.jedit.bufferio.AutosaveJournal;
 import org.gjt.sp.jedit.bufferio.BufferAutosaveRequest;
 import org.gjt.sp.jedit.bufferio.BufferIORequest;
+import org.gjt.sp.jedit.bufferio.BufferJournalRequest;
 import org.gjt.sp.jedit.bufferio.IoTask;
 import org.gjt.sp.jedit.bufferio.MarkersSaveRequest;
 import org.gjt.sp.jedit.bufferset.BufferSet;
 import org.gjt.sp.jedit.gui.DockableWindowManager;
 import org.gjt.sp.jedit.io.FileVFS;
+import org.gjt.sp.jedit.io.FileWatcher;
 import org.gjt.sp.jedit.io.VFS;
 import org.gjt.sp.jedit.io.VFSFile;
 import org.gjt.sp.jedit.io.VFSManager;
@@ -155,6 +159,12 @@ public class Buffer extends JEditBuffer
 	{
 		if (getFlag(UNTITLED))
 			return;
+		// never loaded, nothing to reload
+		if(getFlag(LOAD_DEFERRED))
+		{
+			loadIfDeferred(view);
+			return;
+		}
 		if(isDirty())
 		{
 			String[] args = { path };
@@ -207,8 +217,7 @@ public class Buffer extends JEditBuffer
 				loadAutosave = recoverAutosave(view);
 			else
 			{
-				if(autosaveFile != null)
-					autosaveFile.delete();
+				deleteAutosaveFile();
 				loadAutosave = false;
 			}
 
@@ -250,6 +259,8 @@ public class Buffer extends JEditBuffer
 					getProperty(BufferIORequest.END_OFFSETS);
 
 				loadText(seg,endOffsets);
+				if(loadAutosave)
+					replayAutosaveJournal();
 
 				unsetProperty(BufferIORequest.LOAD_DATA);
 				unsetProperty(BufferIORequest.END_OFFSETS);
@@ -355,9 +366,24 @@ public class Buffer extends JEditBuffer
 
 		setFlag(AUTOSAVE_DIRTY,false);
 
-		ThreadUtilities.runInBackground(new BufferAutosaveRequest(
-			null,this,null,VFSManager.getFileVFS(),
-			autosaveFile.getPath()));
+		if(jEdit.getBooleanProperty("autosave.journal"))
+		{
+			if(autosaveJournal == null)
+			{
+				autosaveJournal = new AutosaveJournal(autosaveFile);
+				addBufferListener(autosaveJournal);
+			}
+			ThreadUtilities.runInBackground(new BufferJournalRequest(
+				null,this,null,VFSManager.getFileVFS(),
+				autosaveFile.getPath(),autosaveJournal));
+		}
+		else
+		{
+			closeAutosaveJournal();
+			ThreadUtilities.runInBackground(new BufferAutosaveRequest(
+				null,this,null,VFSManager.getFileVFS(),
+				autosaveFile.getPath()));
+		}
 	} //}}}
 
 	//{{{ saveAs() method
@@ -645,31 +671,43 @@ public class Buffer extends JEditBuffer
 		// - only supported on local file system
 		if(!isPerformingIO() && file != null && !getFlag(NEW_FILE))
 		{
-			boolean newReadOnly = file.exists() && !file.canWrite();
-			if(newReadOnly != isFileReadOnly())
-			{
-				setFileReadOnly(newReadOnly);
-				EditBus.send(new BufferUpdate(this,null,
-					BufferUpdate.DIRTY_CHANGED));
-			}
+			return checkFileStatus(file.exists(),file.canWrite(),
+				file.lastModified());
+		}
 
-			long oldModTime = modTime;
-			long newModTime = file.lastModified();
+		return FILE_NOT_CHANGED;
+	}
 
-			if(newModTime != oldModTime)
-			{
-				modTime = newModTime;
+	/**
+	 * Same as {@link #checkFileStatus(View)}, with the state of the
+	 * file on disk already looked up, possibly in another thread.
+	 * Must be called in the event dispatch thread.
+	 */
+	int checkFileStatus(boolean exists, boolean canWrite, long lastModified)
+	{
+		boolean newReadOnly = exists && !canWrite;
+		if(newReadOnly != isFileReadOnly())
+		{
+			setFileReadOnly(newReadOnly);
+			EditBus.send(new BufferUpdate(this,null,
+				BufferUpdate.DIRTY_CHANGED));
+		}
 
-				if(!file.exists())
-				{
-					setFlag(NEW_FILE,true);
-					setDirty(true);
-					return FILE_DELETED;
-				}
-				else
-				{
-					return FILE_CHANGED;
-				}
+		long oldModTime = modTime;
+
+		if(lastModified != oldModTime)
+		{
+			modTime = lastModified;
+
+			if(!exists)
+			{
+				setFlag(NEW_FILE,true);
+				setDirty(true);
+				return FILE_DELETED;
+			}
+			else
+			{
+				return FILE_CHANGED;
 			}
 		}
 
@@ -788,7 +826,7 @@ public class Buffer extends JEditBuffer
 	{
 		if (autosaveFile != null)
 		{
-			autosaveFile.delete();
+			deleteAutosaveFile();
 			setFlag(AUTOSAVE_DIRTY,true);
 		}
 	} //}}}
@@ -860,7 +898,61 @@ public class Buffer extends JEditBuffer
 	 */
 	public boolean isLoaded()
 	{
-		return !isLoading();
+		return !isLoading() && !getFlag(LOAD_DEFERRED);
+	} //}}}
+
+	//{{{ isPerformingIO() method
+	/**
+	 * @return true if the buffer is currently performing I/O, or if its
+	 * loading was deferred. This method is thread-safe.
+	 */
+	@Override
+	public boolean isPerformingIO()
+	{
+		return super.isPerformingIO() || getFlag(LOAD_DEFERRED);
+	} //}}}
+
+	//{{{ isLoadDeferred() method
+	/**
+	 * Returns true if the buffer was restored from the previous session
+	 * but not loaded yet. Such a buffer is in the buffer list, but it is
+	 * empty and read only until it is shown in an edit pane, opened
+	 * again, or loaded in the background.
+	 * This method is thread-safe.
+	 * @since jEdit 5.4pre1
+	 */
+	public boolean isLoadDeferred()
+	{
+		return getFlag(LOAD_DEFERRED);
+	} //}}}
+
+	//{{{ loadIfDeferred() method
+	/**
+	 * Starts loading the buffer if its loading was deferred. As with
+	 * {@link jEdit#openFile(View,String)}, the buffer is loaded in the
+	 * background; <code>TaskManager.instance.waitForIoTasks()</code>
+	 * waits for it.
+	 * @param view The view, may be null
+	 * @since jEdit 5.4pre1
+	 */
+	public void loadIfDeferred(final View view)
+	{
+		if(!getFlag(LOAD_DEFERRED))
+			return;
+
+		ThreadUtilities.runInDispatchThreadAndWait(new Runnable()
+		{
+			public void run()
+			{
+				loadDeferred(view);
+			}
+
+			@Override
+			public String toString()
+			{
+				return "Loading " + path;
+			}
+		});
 	} //}}}
 
 	//{{{ isNewFile() method
@@ -921,8 +1013,7 @@ public class Buffer extends JEditBuffer
 		{
 			setFlag(AUTOSAVE_DIRTY,false);
 
-			if(autosaveFile != null)
-				autosaveFile.delete();
+			deleteAutosaveFile();
 		}
 
 		if(d != old_d && editable)
@@ -1675,10 +1766,34 @@ public class Buffer extends JEditBuffer
 		undoListeners = new Vector<BufferUndoListener>();
 	} //}}}
 
+	//{{{ deferLoad() method
+	/**
+	 * Marks a buffer that is not loaded yet.
+	 * @see #isLoadDeferred()
+	 */
+	void deferLoad()
+	{
+		setFlag(LOAD_DEFERRED,true);
+	} //}}}
+
+	//{{{ loadDeferred() method
+	/**
+	 * Starts loading a buffer whose loading was deferred. Must be called
+	 * from the event dispatch thread.
+	 */
+	private void loadDeferred(View view)
+	{
+		if(!getFlag(LOAD_DEFERRED) || getFlag(CLOSED))
+			return;
+		setFlag(LOAD_DEFERRED,false);
+		load(view,false);
+	} //}}}
+
 	//{{{ commitTemporary() method
 	void commitTemporary()
 	{
 		setFlag(TEMPORARY,false);
+		updateFileWatch();
 
 		finishLoading();
 	} //}}}
@@ -1687,9 +1802,13 @@ public class Buffer extends JEditBuffer
 	void close()
 	{
 		setFlag(CLOSED,true);
+		updateFileWatch();
 
-		if(autosaveFile != null)
-			autosaveFile.delete();
+		// a buffer that was never loaded did not offer to recover
+		// its autosave file yet
+		if(!getFlag(LOAD_DEFERRED))
+			deleteAutosaveFile();
+		closeAutosaveJournal();
 
 		// notify clients with -wait
 		if(waitSocket != null)
@@ -1834,6 +1953,7 @@ public class Buffer extends JEditBuffer
 	private static final int AUTORELOAD_DIALOG = 7;
 	private static final int TEMPORARY = 10;
 	private static final int MARKERS_CHANGED = 12;
+	private static final int LOAD_DEFERRED = 13;
 	//}}}
 
 	private int flags;
@@ -1851,6 +1971,8 @@ public class Buffer extends JEditBuffer
 	private String directory;
 	private File file;
 	private File autosaveFile;
+	private AutosaveJournal autosaveJournal;
+	private String watchedDirectory;
 	private long modTime;
 	private byte[] md5hash;
 	private int initialLength;
@@ -1891,8 +2013,8 @@ public class Buffer extends JEditBuffer
 
 			// if we don't do this, the autosave file won't be
 			// deleted after a save as
-			if(autosaveFile != null)
-				autosaveFile.delete();
+			deleteAutosaveFile();
+			closeAutosaveJournal();
 			autosaveFile = new File(file.getParent(),'#' + name + '#');
 		}
 		else
@@ -1900,9 +2022,12 @@ public class Buffer extends JEditBuffer
 			// I wonder if the lack of this broke anything in the
 			// past?
 			file = null;
+			closeAutosaveJournal();
 			autosaveFile = null;
 			symlinkPath = path;
 		}
+
+		updateFileWatch();
 	} //}}}
 
 
@@ -1939,6 +2064,79 @@ public class Buffer extends JEditBuffer
 			return false;
 	} //}}}
 
+	//{{{ replayAutosaveJournal() method
+	/**
+	 * Applies the autosave journal, if any, to the content just loaded
+	 * from the autosave file.
+	 */
+	private void replayAutosaveJournal()
+	{
+		try
+		{
+			int count = AutosaveJournal.replay(autosaveFile,this);
+			if(count != -1)
+			{
+				Log.log(Log.NOTICE,this,"Replayed " + count
+					+ " edits from the autosave journal of " + path);
+			}
+		}
+		catch(IOException e)
+		{
+			Log.log(Log.ERROR,this,e);
+		}
+	} //}}}
+
+	//{{{ deleteAutosaveFile() method
+	/**
+	 * Deletes the autosave file and its journal.
+	 */
+	private void deleteAutosaveFile()
+	{
+		if(autosaveFile == null)
+			return;
+		autosaveFile.delete();
+		if(autosaveJournal != null)
+			autosaveJournal.delete();
+		else
+			AutosaveJournal.getJournalFile(autosaveFile).delete();
+	} //}}}
+
+	//{{{ closeAutosaveJournal() method
+	/**
+	 * Stops recording edits for the autosave journal, when journal mode
+	 * is turned off or the autosave file changes.
+	 */
+	private void closeAutosaveJournal()
+	{
+		if(autosaveJournal == null)
+			return;
+		removeBufferListener(autosaveJournal);
+		autosaveJournal.delete();
+		autosaveJournal = null;
+	} //}}}
+
+	//{{{ updateFileWatch() method
+	/**
+	 * Watches the directory of the file for changes made by other
+	 * programs, so that {@link BufferStatusChecker} doesn't have to ask
+	 * the file system. Temporary and closed buffers are not watched.
+	 */
+	private void updateFileWatch()
+	{
+		String dir = null;
+		if(file != null && !getFlag(TEMPORARY) && !getFlag(CLOSED))
+			dir = new File(symlinkPath).getParent();
+		if(Objects.equals(dir,watchedDirectory))
+			return;
+
+		FileWatcher watcher = FileWatcher.getInstance();
+		if(watchedDirectory != null)
+			watcher.unwatch(watchedDirectory);
+		if(dir != null)
+			watcher.watch(dir);
+		watchedDirectory = dir;
+	} //}}}
+
 	//{{{ checkFileForLoad() method
 	private boolean checkFileForLoad(View view, VFS vfs, String path)
 	{
@@ -2167,8 +2365,7 @@ public class Buffer extends JEditBuffer
 				{
 					writeLock();
 
-					if(autosaveFile != null)
-						autosaveFile.delete();
+					deleteAutosaveFile();
 
 					setFlag(AUTOSAVE_DIRTY,false);
 					setFileReadOnly(false);
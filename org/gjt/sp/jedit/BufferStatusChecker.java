@@ -0,0 +1,387 @@
+/*
+ * BufferStatusChecker.java - Checks open files for changes on disk
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+//{{{ Imports
+import java.awt.EventQueue;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.gjt.sp.jedit.EditBus.EBHandler;
+import org.gjt.sp.jedit.gui.FilesChangedDialog;
+import org.gjt.sp.jedit.io.FileVFS;
+import org.gjt.sp.jedit.io.FileWatcher;
+import org.gjt.sp.jedit.msg.VFSUpdate;
+import org.gjt.sp.jedit.visitors.SaveCaretInfoVisitor;
+import org.gjt.sp.util.Log;
+import org.gjt.sp.util.ThreadUtilities;
+//}}}
+
+/**
+ * Implements {@link jEdit#checkBufferStatus(View,boolean)} without
+ * blocking the event dispatch thread.<p>
+ *
+ * Files in directories reported by the {@link FileWatcher} are only
+ * looked at if the watcher saw them change. The others are queried in
+ * parallel by a small pool of threads, since each query may take long on
+ * a network file system. The answers are then handed to
+ * {@link Buffer#checkFileStatus(boolean,boolean,long)} in the event
+ * dispatch thread, which reloads buffers and shows the
+ * {@link FilesChangedDialog} as before.<p>
+ *
+ * Only one check runs at a time. Checks requested meanwhile are merged
+ * into one that runs after it.<p>
+ *
+ * The {@link ChangeHandler} also starts a check when the watcher reports
+ * a change to the file of an open buffer while jEdit has the focus, so
+ * that changes made by a build or a version control command run from
+ * jEdit show up right away.
+ *
+ * @since jEdit 5.4pre1
+ */
+class BufferStatusChecker
+{
+	//{{{ check() method
+	/**
+	 * Starts a check. Must be called in the event dispatch thread.
+	 * @param view The view
+	 * @param currentBuffer indicates whether to check only the current buffer
+	 */
+	static void check(View view, boolean currentBuffer)
+	{
+		if(running)
+		{
+			// a check of all buffers covers the current one
+			if(pendingView == null || !currentBuffer)
+				pendingCurrentBuffer = currentBuffer;
+			pendingView = view;
+			return;
+		}
+
+		FileWatcher watcher = FileWatcher.getInstance();
+		changes.addAll(watcher.takeChanges());
+
+		final List<Buffer> buffers = new ArrayList<Buffer>();
+		final List<File> files = new ArrayList<File>();
+		// changes not looked at yet are kept for the next check
+		Set<String> unchecked = new HashSet<String>();
+		for(Buffer buffer : jEdit.getBuffers())
+		{
+			if(!(buffer.getVFS() instanceof FileVFS))
+				continue;
+
+			File file = new File(buffer.getSymlinkPath());
+			String dir = file.getParent();
+			if((currentBuffer && buffer != view.getBuffer())
+				|| buffer.isNewFile() || buffer.isPerformingIO())
+			{
+				unchecked.add(file.getPath());
+				unchecked.add(dir);
+				continue;
+			}
+
+			if(dir != null && watcher.isWatched(dir)
+				&& !changes.contains(dir)
+				&& !changes.contains(file.getPath()))
+			{
+				continue;
+			}
+			buffers.add(buffer);
+			files.add(new File(buffer.getPath()));
+		}
+		changes.retainAll(unchecked);
+
+		if(buffers.isEmpty())
+			return;
+
+		running = true;
+		final View v = view;
+		ThreadUtilities.runInBackground(new Runnable()
+		{
+			public void run()
+			{
+				final FileState[] states = queryFiles(files);
+				ThreadUtilities.runInDispatchThread(new Runnable()
+				{
+					public void run()
+					{
+						try
+						{
+							finish(v,buffers,states);
+						}
+						finally
+						{
+							running = false;
+							runPending();
+						}
+					}
+				});
+			}
+
+			@Override
+			public String toString()
+			{
+				return "Checking " + files.size() + " files for changes";
+			}
+		});
+	} //}}}
+
+	//{{{ ChangeHandler class
+	/**
+	 * Checks the buffers when their files change on disk.
+	 */
+	static class ChangeHandler
+	{
+		@EBHandler
+		public void handleVFSUpdate(VFSUpdate msg)
+		{
+			if(scheduled || !jEdit.isStartupDone()
+				|| jEdit.getIntegerProperty("checkFileStatus") == 0)
+			{
+				return;
+			}
+
+			View view = jEdit.getActiveView();
+			if(view == null || !view.isActive())
+				return;
+
+			String path = msg.getPath();
+			for(Buffer buffer : jEdit.getBuffers())
+			{
+				if(path.equals(buffer.getSymlinkPath())
+					|| path.equals(buffer.getPath()))
+				{
+					// updates come in batches, check once for all
+					scheduled = true;
+					EventQueue.invokeLater(new Runnable()
+					{
+						public void run()
+						{
+							scheduled = false;
+							View view = jEdit.getActiveView();
+							if(view != null)
+								check(view,false);
+						}
+					});
+					return;
+				}
+			}
+		}
+
+		private boolean scheduled;
+	} //}}}
+
+	//{{{ Private members
+
+	/** Number of files queried at the same time. */
+	private static final int POOL_SIZE = 8;
+
+	private static final ThreadPoolExecutor pool;
+
+	/** Accessed in the event dispatch thread only. */
+	private static final Set<String> changes = new HashSet<String>();
+	private static boolean running;
+	private static View pendingView;
+	private static boolean pendingCurrentBuffer;
+
+	static
+	{
+		final AtomicInteger threadIDs = new AtomicInteger();
+		pool = new ThreadPoolExecutor(POOL_SIZE,POOL_SIZE,
+			30L,TimeUnit.SECONDS,new LinkedBlockingQueue<Runnable>(),
+			new ThreadFactory()
+			{
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r,"jEdit File Status #"
+						+ threadIDs.getAndIncrement());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		pool.allowCoreThreadTimeOut(true);
+	}
+
+	private BufferStatusChecker() {}
+
+	//{{{ queryFiles() method
+	/**
+	 * Looks up the state of the given files in parallel. Runs in a
+	 * background thread.
+	 */
+	private static FileState[] queryFiles(List<File> files)
+	{
+		List<Future<FileState>> futures = new ArrayList<Future<FileState>>(
+			files.size());
+		for(final File file : files)
+		{
+			futures.add(pool.submit(new Callable<FileState>()
+			{
+				public FileState call()
+				{
+					return new FileState(file);
+				}
+			}));
+		}
+
+		FileState[] states = new FileState[files.size()];
+		for(int i = 0; i < states.length; i++)
+		{
+			try
+			{
+				states[i] = futures.get(i).get();
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+			catch(ExecutionException e)
+			{
+				Log.log(Log.ERROR,BufferStatusChecker.class,e);
+			}
+		}
+		return states;
+	} //}}}
+
+	//{{{ finish() method
+	/**
+	 * Updates the buffers from the state of their files, in the event
+	 * dispatch thread.
+	 */
+	private static void finish(View view, List<Buffer> checked,
+		FileState[] fileStates)
+	{
+		if(view.isClosed())
+			view = jEdit.getActiveView();
+
+		// buffers may have been opened or closed meanwhile
+		Map<Buffer, FileState> byBuffer = new IdentityHashMap<Buffer, FileState>();
+		for(int i = 0; i < fileStates.length; i++)
+		{
+			if(fileStates[i] != null)
+				byBuffer.put(checked.get(i),fileStates[i]);
+		}
+
+		// still need to call the status check even if the option is
+		// off, so that the write protection is updated if it changes
+		// on disk
+
+		// auto reload changed buffers?
+		boolean autoReload = jEdit.getBooleanProperty("autoReload");
+
+		// the problem with this is that if we have two edit panes
+		// looking at the same buffer and the file is reloaded both
+		// will jump to the same location
+		jEdit.visit(new SaveCaretInfoVisitor());
+
+		Buffer[] buffers = jEdit.getBuffers();
+		int[] states = new int[buffers.length];
+		boolean notifyFileChanged = false;
+		for(int i = 0; i < buffers.length; i++)
+		{
+			Buffer buffer = buffers[i];
+			FileState state = byBuffer.get(buffer);
+			// the buffer may have been saved or reloaded meanwhile
+			if(state == null || !(buffer.getVFS() instanceof FileVFS)
+				|| buffer.isNewFile() || buffer.isPerformingIO())
+			{
+				continue;
+			}
+
+			states[i] = buffer.checkFileStatus(state.exists,
+				state.canWrite,state.lastModified);
+
+			switch(states[i])
+			{
+			case Buffer.FILE_CHANGED:
+				if(buffer.getAutoReload())
+				{
+					if(buffer.isDirty())
+						notifyFileChanged = true;
+					else
+						buffer.load(view,true);
+				}
+				else	// no automatic reload even if general setting is true
+					autoReload = false;
+				// don't notify user if "do nothing" was chosen
+				if(buffer.getAutoReloadDialog())
+					notifyFileChanged = true;
+				break;
+			case Buffer.FILE_DELETED:
+				notifyFileChanged = true;
+				break;
+			}
+		}
+
+		if(notifyFileChanged && view != null)
+			new FilesChangedDialog(view,states,autoReload);
+	} //}}}
+
+	//{{{ runPending() method
+	private static void runPending()
+	{
+		View view = pendingView;
+		if(view == null)
+			return;
+		pendingView = null;
+		if(view.isClosed())
+			view = jEdit.getActiveView();
+		if(view != null)
+			check(view,pendingCurrentBuffer);
+	} //}}}
+
+	//}}}
+
+	//{{{ FileState class
+	/**
+	 * What {@link Buffer#checkFileStatus(View)} needs to know about a
+	 * file.
+	 */
+	private static class FileState
+	{
+		final boolean exists;
+		final boolean canWrite;
+		final long lastModified;
+
+		FileState(File file)
+		{
+			lastModified = file.lastModified();
+			exists = file.exists();
+			canWrite = exists && file.canWrite();
+		}
+	} //}}}
+}
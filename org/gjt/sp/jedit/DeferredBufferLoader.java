@@ -0,0 +1,131 @@
+/*
+ * DeferredBufferLoader.java - Loads restored buffers in the background
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+//{{{ Imports
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.gjt.sp.jedit.EditBus.EBHandler;
+import org.gjt.sp.jedit.msg.BufferUpdate;
+import org.gjt.sp.util.Log;
+//}}}
+
+/**
+ * Loads the buffers of a restored session that are not shown in an edit
+ * pane.<p>
+ *
+ * When the perspective is restored lazily, the buffers are added to the
+ * buffer list by {@link jEdit#openDeferred(String)} without being
+ * loaded. The buffers shown in the edit panes are loaded when they are
+ * shown, the others when they are opened again, or by this loader once
+ * startup is done. It loads at most <code>restore.lazy.loads</code>
+ * buffers at a time, and starts the next one when one is loaded, so the
+ * user may work with the visible buffers meanwhile.<p>
+ *
+ * All the methods must be called from the event dispatch thread.
+ *
+ * @since jEdit 5.4pre1
+ */
+class DeferredBufferLoader
+{
+	//{{{ add() method
+	/**
+	 * Queues a buffer whose loading was deferred.
+	 */
+	static void add(Buffer buffer)
+	{
+		if(instance == null)
+			instance = new DeferredBufferLoader();
+		instance.queue.add(buffer);
+	} //}}}
+
+	//{{{ start() method
+	/**
+	 * Starts loading the queued buffers.
+	 */
+	static void start()
+	{
+		if(instance == null || instance.started)
+			return;
+		instance.started = true;
+		Log.log(Log.DEBUG,DeferredBufferLoader.class,"Loading "
+			+ instance.queue.size() + " restored buffers");
+		EditBus.addToBus(instance);
+		instance.loadNext();
+	} //}}}
+
+	//{{{ handleBufferUpdate() method
+	@EBHandler
+	public void handleBufferUpdate(BufferUpdate msg)
+	{
+		Object what = msg.getWhat();
+		if((what == BufferUpdate.LOADED || what == BufferUpdate.CLOSED)
+			&& loading.remove(msg.getBuffer()))
+		{
+			// let the user's events run in between
+			EventQueue.invokeLater(new Runnable()
+			{
+				public void run()
+				{
+					loadNext();
+				}
+			});
+		}
+	} //}}}
+
+	//{{{ Private members
+	private static DeferredBufferLoader instance;
+
+	private final LinkedList<Buffer> queue = new LinkedList<Buffer>();
+	private final List<Buffer> loading = new ArrayList<Buffer>();
+	private boolean started;
+
+	//{{{ loadNext() method
+	private void loadNext()
+	{
+		int max = Math.max(1,jEdit.getIntegerProperty("restore.lazy.loads",2));
+		while(loading.size() < max && !queue.isEmpty())
+		{
+			Buffer buffer = queue.removeFirst();
+			// shown or opened meanwhile
+			if(!buffer.isLoadDeferred() || buffer.isClosed())
+				continue;
+			loading.add(buffer);
+			buffer.loadIfDeferred(null);
+			// the load could not start
+			if(!buffer.isPerformingIO())
+				loading.remove(buffer);
+		}
+
+		if(queue.isEmpty() && loading.isEmpty())
+		{
+			EditBus.removeFromBus(this);
+			instance = null;
+		}
+	} //}}}
+
+	//}}}
+}
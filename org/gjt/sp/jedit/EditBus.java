@@ -24,10 +24,20 @@ package org.gjt.sp.jedit;
 
 import java.awt.*;
 import java.lang.annotation.*;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.gjt.sp.util.Log;
 import org.gjt.sp.util.ThreadUtilities;
@@ -56,6 +66,14 @@ import org.gjt.sp.util.ThreadUtilities;
  * EBComponent#handleMessage(EBMessage)}. If a handler exists for a
  * specific message type, the default handler will not be called.<p>
  *
+ * Messages are delivered in the AWT thread, so a slow handler holds up
+ * the user interface. A handler that can be called from any thread can
+ * say so with {@link EBHandler#threadSafe()}; it then receives the
+ * messages in a background lane of its own, in the order they were sent,
+ * and the sender does not wait for it.<p>
+ *
+ * The time each handler takes is recorded by {@link EditBusMetrics}.<p>
+ *
  * A plugin core class that extends the
  * {@link EBPlugin} abstract class (and whose name ends with
  * <code>Plugin</code> for identification purposes) will automatically be
@@ -117,6 +135,17 @@ public class EditBus
 		 * the parameter, instead of a compatible type.
 		 */
 		boolean exact() default false;
+
+		/**
+		 * @return Whether the handler can be called from any thread. Such
+		 * a handler is called in a background lane shared by the thread
+		 * safe handlers of its component, one message after the other in
+		 * the order they were sent, and the sender does not wait for it.
+		 * The handler must not change the message, which the AWT thread
+		 * handlers may have changed by the time it is received.
+		 * @since jEdit 5.4pre1
+		 */
+		boolean threadSafe() default false;
 	} //}}}
 
 	//{{{ addToBus() method
@@ -148,7 +177,7 @@ public class EditBus
 	 */
 	public static void addToBus(Object comp)
 	{
-		components.addComponent(comp);
+		addComponent(comp);
 	} //}}}
 
 	//{{{ removeFromBus() method
@@ -163,13 +192,15 @@ public class EditBus
 
 	//{{{ removeFromBus() method
 	/**
-	 * Removes a component from the bus.
+	 * Removes a component from the bus. The messages not yet received
+	 * by its thread safe handlers are dropped; one being handled at the
+	 * time still completes.
 	 * @param comp The component to remove
 	 * @since 4.3pre19
 	 */
 	public static void removeFromBus(Object comp)
 	{
-		components.removeComponent(comp);
+		removeComponent(comp);
 	} //}}}
 
 	//{{{ send() method
@@ -227,19 +258,201 @@ public class EditBus
 		EventQueue.invokeLater(new SendMessage(message));
 	} //}}}
 
+	//{{{ sendTo() method
+	/**
+	 * Sends a message to a single component on the bus, such as a
+	 * plugin started after the message was sent to all the others. Must
+	 * be called from the event dispatch thread.
+	 * @since jEdit 5.4pre1
+	 */
+	static void sendTo(Object comp, EBMessage message)
+	{
+		new SendMessage(message,comp).run();
+	} //}}}
+
 	//{{{ Private members
-	private static final HandlerList components = new HandlerList();
+	private static final Object registryLock = new Object();
+	private static volatile Registry registry = new Registry(
+		Collections.<Class<?>,EBMessageHandler[]>emptyMap());
+	private static final ExecutorService lanes = Executors.newCachedThreadPool(
+		new LaneThreadFactory());
 
 	// can't create new instances
 	private EditBus() {}
 
+	//{{{ addComponent() method
+	private static void addComponent(Object comp)
+	{
+		Map<Class<?>,List<EBMessageHandler>> added
+			= new LinkedHashMap<Class<?>,List<EBMessageHandler>>();
+		Lane lane = null;
+		for (Method m : comp.getClass().getMethods())
+		{
+			EBHandler source = m.getAnnotation(EBHandler.class);
+			if (source == null)
+				continue;
+
+			Class[] params = m.getParameterTypes();
+
+			if (params.length != 1)
+			{
+				Log.log(Log.ERROR, EditBus.class,
+					"Invalid EBHandler method " + m.getName() +
+					" in class " + comp.getClass().getName() +
+					": too many parameters.");
+				continue;
+			}
+
+			if (!EBMessage.class.isAssignableFrom(params[0]))
+			{
+				Log.log(Log.ERROR, EditBus.class,
+					"Invalid parameter " + params[0].getName() +
+					" in method " + m.getName() +
+					" of class " + comp.getClass().getName());
+				continue;
+			}
+
+			MethodHandle handle;
+			try
+			{
+				handle = getHandle(comp, m);
+			}
+			catch (Exception e)
+			{
+				Log.log(Log.ERROR, EditBus.class,
+					"Cannot call EBHandler method " + m.getName() +
+					" of class " + comp.getClass().getName());
+				Log.log(Log.ERROR, EditBus.class, e);
+				continue;
+			}
+
+			if (source.threadSafe() && lane == null)
+				lane = new Lane();
+			getList(added, params[0]).add(new EBMessageHandler(comp,
+				handle, source, source.threadSafe() ? lane : null));
+		}
+
+		/*
+		 * If the component implements EBComponent, then add the
+		 * default handler for backwards compatibility.
+		 */
+		if (comp instanceof EBComponent)
+		{
+			getList(added, EBMessage.class).add(
+				new EBMessageHandler(comp, null, null, null));
+		}
+
+		if (added.isEmpty())
+			return;
+
+		synchronized (registryLock)
+		{
+			Map<Class<?>,EBMessageHandler[]> handlers
+				= new HashMap<Class<?>,EBMessageHandler[]>(
+				registry.handlers);
+			for (Map.Entry<Class<?>,List<EBMessageHandler>> entry
+				: added.entrySet())
+			{
+				EBMessageHandler[] old = handlers.get(entry.getKey());
+				List<EBMessageHandler> list = entry.getValue();
+				EBMessageHandler[] array;
+				if (old == null)
+					array = list.toArray(new EBMessageHandler[list.size()]);
+				else
+				{
+					array = Arrays.copyOf(old, old.length + list.size());
+					for (int i = 0; i < list.size(); i++)
+						array[old.length + i] = list.get(i);
+				}
+				handlers.put(entry.getKey(), array);
+			}
+			registry = new Registry(handlers);
+		}
+	} //}}}
+
+	//{{{ removeComponent() method
+	private static void removeComponent(Object comp)
+	{
+		synchronized (registryLock)
+		{
+			Map<Class<?>,EBMessageHandler[]> handlers
+				= new HashMap<Class<?>,EBMessageHandler[]>();
+			boolean changed = false;
+			for (Map.Entry<Class<?>,EBMessageHandler[]> entry
+				: registry.handlers.entrySet())
+			{
+				EBMessageHandler[] old = entry.getValue();
+				List<EBMessageHandler> kept
+					= new ArrayList<EBMessageHandler>(old.length);
+				for (EBMessageHandler emh : old)
+				{
+					if (emh.comp != comp)
+						kept.add(emh);
+					else if (emh.lane != null)
+						emh.lane.close();
+				}
+				if (kept.size() == old.length)
+					handlers.put(entry.getKey(), old);
+				else
+				{
+					changed = true;
+					if (!kept.isEmpty())
+					{
+						handlers.put(entry.getKey(), kept.toArray(
+							new EBMessageHandler[kept.size()]));
+					}
+				}
+			}
+			if (changed)
+				registry = new Registry(handlers);
+		}
+	} //}}}
+
+	//{{{ getList() method
+	private static List<EBMessageHandler> getList(
+		Map<Class<?>,List<EBMessageHandler>> map, Class<?> type)
+	{
+		List<EBMessageHandler> list = map.get(type);
+		if (list == null)
+		{
+			list = new ArrayList<EBMessageHandler>();
+			map.put(type, list);
+		}
+		return list;
+	} //}}}
+
+	//{{{ getHandle() method
+	/**
+	 * Returns a method handle that calls the handler method of the
+	 * component with a message.
+	 */
+	private static MethodHandle getHandle(Object comp, Method m)
+		throws IllegalAccessException
+	{
+		MethodHandle handle;
+		try
+		{
+			handle = MethodHandles.publicLookup().unreflect(m);
+		}
+		catch (IllegalAccessException e)
+		{
+			// a public method of a class that is not public
+			m.setAccessible(true);
+			handle = MethodHandles.lookup().unreflect(m);
+		}
+		if (!Modifier.isStatic(m.getModifiers()))
+			handle = handle.bindTo(comp);
+		return handle.asType(MethodType.methodType(void.class,
+			EBMessage.class));
+	} //}}}
+
 	//{{{ dispatch() method
 	private static void dispatch(EBMessageHandler emh,
 				     EBMessage msg)
-		throws Exception
+		throws Throwable
 	{
-		if (emh.handler != null && emh.comp != null)
-			emh.handler.invoke(emh.comp, msg);
+		if (emh.handle != null)
+			emh.handle.invokeExact(msg);
 		else
 		{
 			assert (emh.comp instanceof EBComponent);
@@ -247,55 +460,41 @@ public class EditBus
 		}
 	} //}}}
 
+	//{{{ deliver() method
+	private static void deliver(Receiver receiver, EBMessage message)
+	{
+		EBMessageHandler emh = receiver.handler;
+		long start = System.nanoTime();
+		try
+		{
+			dispatch(emh, message);
+		}
+		catch(Throwable t)
+		{
+			Log.log(Log.ERROR,EditBus.class,"Exception"
+				+ " while sending message on EditBus:");
+			Log.log(Log.ERROR,EditBus.class,t);
+		}
+		long time = System.nanoTime() - start;
+		receiver.stats.record(time, emh.lane == null);
+		if(Debug.EB_TIMER && time >= 1000000)
+		{
+			Log.log(Log.DEBUG,EditBus.class,emh.comp + ": " + time + " ns");
+		}
+	} //}}}
+
 	//{{{ sendImpl() method
-	private static void sendImpl(EBMessage message)
+	private static void sendImpl(EBMessage message, Object target)
 	{
-		boolean isExact = true;
-		Class<?> type = message.getClass();
-		while (!type.equals(Object.class))
+		for (Receiver receiver : registry.get(message.getClass()))
 		{
-			List<EBMessageHandler> handlers = components.get(type);
-			if (handlers != null)
-			{
-				try
-				{
-					for (EBMessageHandler emh : handlers)
-					{
-						if (!isExact &&
-						    emh.source != null &&
-						    emh.source.exact())
-						{
-							continue;
-						}
-						if(Debug.EB_TIMER)
-						{
-							long start = System.nanoTime();
-							dispatch(emh, message);
-							long time = System.nanoTime() - start;
-							if(time >= 1000000)
-							{
-								Log.log(Log.DEBUG,EditBus.class,emh.comp + ": " + time + " ns");
-							}
-						}
-						else
-							dispatch(emh, message);
-					}
-				}
-				catch (InvocationTargetException t)
-				{
-					Log.log(Log.ERROR,EditBus.class,"Exception"
-						+ " while sending message on EditBus:");
-					Log.log(Log.ERROR, EditBus.class, t.getCause());
-				}
-				catch(Throwable t)
-				{
-					Log.log(Log.ERROR,EditBus.class,"Exception"
-						+ " while sending message on EditBus:");
-					Log.log(Log.ERROR,EditBus.class,t);
-				}
-			}
-			type = type.getSuperclass();
-			isExact = false;
+			EBMessageHandler emh = receiver.handler;
+			if (target != null && emh.comp != target)
+				continue;
+			if (emh.lane != null)
+				emh.lane.add(receiver, message);
+			else
+				deliver(receiver, message);
 		}
 	} //}}}
 
@@ -306,139 +505,166 @@ public class EditBus
 	{
 
 		EBMessageHandler(Object comp,
-				 Method handler,
-				 EBHandler source)
+				 MethodHandle handle,
+				 EBHandler source,
+				 Lane lane)
 		{
 			this.comp = comp;
-			this.handler = handler;
+			this.handle = handle;
 			this.source = source;
+			this.lane = lane;
 		}
 
-		Object comp;
-		Method handler;
-		EBHandler source;
+		final Object comp;
+		final MethodHandle handle;
+		final EBHandler source;
+		final Lane lane;
 	} //}}}
 
-	//{{{ HandlerList class
+	//{{{ Receiver class
 	/**
-	 * A "special" hash map that has some optimizations for use by
-	 * the EditBus. Notably, it allows setting a "read only" mode
-	 * where modifications to the map are postponed until the map
-	 * is unlocked.
+	 * A handler receiving a message class, with the statistics of its
+	 * deliveries.
 	 */
-	private static class HandlerList
-		extends HashMap<Class<?>, List<EBMessageHandler>>
+	private static class Receiver
 	{
-
-		public List<EBMessageHandler> safeGet(Class<?> type)
+		Receiver(EBMessageHandler handler, EditBusMetrics.Stats stats)
 		{
-			List<EBMessageHandler> lst = super.get(type);
-			if (lst == null) {
-				lst = new LinkedList<EBMessageHandler>();
-				super.put(type, lst);
-			}
-			return lst;
+			this.handler = handler;
+			this.stats = stats;
 		}
 
+		final EBMessageHandler handler;
+		final EditBusMetrics.Stats stats;
+	} //}}}
 
-		public synchronized void lock()
+	//{{{ Registry class
+	/**
+	 * The handlers on the bus. A registry is never changed once built:
+	 * adding or removing a component replaces it, so that messages are
+	 * sent without locking, and a component added or removed while a
+	 * message is being sent does not change who receives it.
+	 */
+	private static class Registry
+	{
+		Registry(Map<Class<?>,EBMessageHandler[]> handlers)
 		{
-			lock++;
+			this.handlers = handlers;
 		}
 
-
-		public synchronized void unlock()
+		/**
+		 * Returns the handlers of a message class, for the class and
+		 * then for each of its super-classes, in the order they were
+		 * added. The handlers are looked up once per message class.
+		 */
+		Receiver[] get(Class<?> messageClass)
 		{
-			lock--;
-			if (lock == 0)
+			Receiver[] array = byMessage.get(messageClass);
+			if (array != null)
+				return array;
+
+			List<Receiver> list = new ArrayList<Receiver>();
+			boolean isExact = true;
+			for (Class<?> type = messageClass; type != Object.class;
+				type = type.getSuperclass())
 			{
-				for (Object comp : add)
-					addComponent(comp);
-				for (Object comp : remove)
-					removeComponent(comp);
-				add.clear();
-				remove.clear();
+				EBMessageHandler[] declared = handlers.get(type);
+				if (declared != null)
+				{
+					for (EBMessageHandler emh : declared)
+					{
+						if (isExact || emh.source == null
+							|| !emh.source.exact())
+						{
+							list.add(new Receiver(emh, EditBusMetrics.get(
+								messageClass, emh.comp)));
+						}
+					}
+				}
+				isExact = false;
 			}
+			array = list.toArray(new Receiver[list.size()]);
+			byMessage.put(messageClass, array);
+			return array;
 		}
 
+		/** The handlers by the message class they declare. */
+		final Map<Class<?>,EBMessageHandler[]> handlers;
+		/** The handlers by the message class they receive. */
+		private final Map<Class<?>,Receiver[]> byMessage
+			= new ConcurrentHashMap<Class<?>,Receiver[]>();
+	} //}}}
 
-		public synchronized void removeComponent(Object comp)
+	//{{{ Lane class
+	/**
+	 * Delivers messages to the thread safe handlers of a component, one
+	 * after the other, out of the AWT thread.
+	 */
+	private static class Lane implements Runnable
+	{
+		void add(Receiver receiver, EBMessage message)
 		{
-			if (lock != 0)
-			{
-				remove.add(comp);
+			if (closed)
 				return;
-			}
-
-			for (Map.Entry<Class<?>, List<EBMessageHandler>> entry: entrySet())
-			{
-				Class<?> msg = entry.getKey();
-				List<EBMessageHandler> handlers = entry.getValue();
-				if (handlers == null)
-					continue;
-				for (Iterator<EBMessageHandler> it = handlers.iterator();
-				     it.hasNext(); )
-				{
-					EBMessageHandler emh = it.next();
-					if (emh.comp == comp)
-						it.remove();
-				}
-			}
+			queue.add(new Delivery(receiver, message));
+			if (scheduled.compareAndSet(false, true))
+				lanes.execute(this);
 		}
 
+		/**
+		 * Drops the messages not delivered yet, once the component
+		 * was removed from the bus.
+		 */
+		void close()
+		{
+			closed = true;
+			queue.clear();
+		}
 
-		public synchronized void addComponent(Object comp)
+		public void run()
 		{
-			if (lock != 0)
+			for (;;)
 			{
-				add.add(comp);
-				return;
+				Delivery delivery;
+				while (!closed && (delivery = queue.poll()) != null)
+					deliver(delivery.receiver, delivery.message);
+				scheduled.set(false);
+				// a message may have been added after the last poll
+				if (queue.isEmpty() || !scheduled.compareAndSet(false, true))
+					return;
 			}
+		}
 
-			for (Method m : comp.getClass().getMethods())
-			{
-				EBHandler source = m.getAnnotation(EBHandler.class);
-				if (source == null)
-					continue;
-
-				Class[] params = m.getParameterTypes();
-
-				if (params.length != 1)
-				{
-					Log.log(Log.ERROR, EditBus.class,
-						"Invalid EBHandler method " + m.getName() +
-						" in class " + comp.getClass().getName() +
-						": too many parameters.");
-					continue;
-				}
+		private final Queue<Delivery> queue = new ConcurrentLinkedQueue<Delivery>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean closed;
+	} //}}}
 
-				if (!EBMessage.class.isAssignableFrom(params[0]))
-				{
-					Log.log(Log.ERROR, EditBus.class,
-						"Invalid parameter " + params[0].getName() +
-						" in method " + m.getName() +
-						" of class " + comp.getClass().getName());
-					continue;
-				}
+	//{{{ Delivery class
+	private static class Delivery
+	{
+		Delivery(Receiver receiver, EBMessage message)
+		{
+			this.receiver = receiver;
+			this.message = message;
+		}
 
-				synchronized (components)
-				{
-					safeGet(params[0]).add(new EBMessageHandler(comp, m, source));
-				}
-			}
+		final Receiver receiver;
+		final EBMessage message;
+	} //}}}
 
-			/*
-			 * If the component implements EBComponent, then add the
-			 * default handler for backwards compatibility.
-			 */
-			if (comp instanceof EBComponent)
-				safeGet(EBMessage.class).add(new EBMessageHandler(comp, null, null));
+	//{{{ LaneThreadFactory class
+	private static class LaneThreadFactory implements ThreadFactory
+	{
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, "EditBus lane #"
+				+ threadIDs.getAndIncrement());
+			t.setDaemon(true);
+			return t;
 		}
 
-
-		private int lock;
-		private List<Object> add = new LinkedList<Object>();
-		private List<Object> remove = new LinkedList<Object>();
+		private final AtomicInteger threadIDs = new AtomicInteger();
 	} //}}}
 
 	//{{{ SendMessage class
@@ -446,27 +672,25 @@ public class EditBus
 	{
 
 		public SendMessage(EBMessage message)
+		{
+			this(message,null);
+		}
+
+		SendMessage(EBMessage message, Object target)
 		{
 			this.message = message;
+			this.target = target;
 		}
 
 
 		public void run()
 		{
 			Log.log(Log.DEBUG,EditBus.class,message.toString());
-
-			components.lock();
-			try
-			{
-				sendImpl(message);
-			}
-			finally
-			{
-				components.unlock();
-			}
+			sendImpl(message,target);
 		}
 
 		private EBMessage message;
+		private Object target;
 	} //}}}
 
 }
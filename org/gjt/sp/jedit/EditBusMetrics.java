@@ -0,0 +1,417 @@
+/*
+ * EditBusMetrics.java - Records how long EditBus handlers take
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+//{{{ Imports
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.gjt.sp.util.Log;
+//}}}
+
+/**
+ * Records how long the EditBus handlers take, per message type and per
+ * component class.<p>
+ *
+ * Every message delivery is timed, and the time is added to a histogram
+ * of the message type and the class of the receiving component. The
+ * histograms are written without locking and have a fixed size, so the
+ * recording is always on; a percentile is known within a quarter of its
+ * value. This is where the <i>EditBus Monitor</i> dockable gets its data.<p>
+ *
+ * A handler that keeps the AWT thread busy for longer than the budget,
+ * set by the <code>editbus.budget</code> property, is logged as a warning
+ * with the plugin it comes from, at most once a minute per message type
+ * and component class.
+ *
+ * @since jEdit 5.4pre1
+ */
+public final class EditBusMetrics
+{
+	//{{{ getBudget() method
+	/**
+	 * Returns the time, in nanoseconds, a handler may keep the AWT thread
+	 * busy before it is counted and logged as over budget.
+	 */
+	public static long getBudget()
+	{
+		return budget;
+	} //}}}
+
+	//{{{ setBudget() method
+	/**
+	 * Sets the handler budget.
+	 * @param nanos the budget in nanoseconds
+	 */
+	public static void setBudget(long nanos)
+	{
+		budget = nanos;
+	} //}}}
+
+	//{{{ getStats() method
+	/**
+	 * Returns the statistics of every message type and component class
+	 * pair that has received a message since the last {@link #reset()}.
+	 */
+	public static List<Stats> getStats()
+	{
+		List<Stats> list = new ArrayList<Stats>(stats.size());
+		for(Stats s : stats.values())
+		{
+			if(s.getCount() != 0L)
+				list.add(s);
+		}
+		return list;
+	} //}}}
+
+	//{{{ reset() method
+	/**
+	 * Clears all the statistics.
+	 */
+	public static void reset()
+	{
+		for(Stats s : stats.values())
+			s.clear();
+	} //}}}
+
+	//{{{ unloadPlugin() method
+	/**
+	 * Forgets the statistics of the components and messages of a plugin
+	 * being unloaded, so a reloaded plugin starts with its own.
+	 * @param jar the plugin JAR
+	 */
+	public static void unloadPlugin(PluginJAR jar)
+	{
+		ClassLoader loader = jar.getClassLoader();
+		Iterator<Key> keys = stats.keySet().iterator();
+		while(keys.hasNext())
+		{
+			Key key = keys.next();
+			if(key.messageClass.getClassLoader() == loader
+				|| key.compClass.getClassLoader() == loader)
+			{
+				keys.remove();
+			}
+		}
+	} //}}}
+
+	//{{{ Stats class
+	/**
+	 * The deliveries of one message type to the components of one class.
+	 * All times are in nanoseconds.
+	 */
+	public static final class Stats
+	{
+		//{{{ getMessageType() method
+		/** Returns the message class name. */
+		public String getMessageType()
+		{
+			return messageType;
+		} //}}}
+
+		//{{{ getComponent() method
+		/** Returns the component class name. */
+		public String getComponent()
+		{
+			return component;
+		} //}}}
+
+		//{{{ getPlugin() method
+		/**
+		 * Returns the name of the plugin the component comes from, or
+		 * null for a jEdit component.
+		 */
+		public String getPlugin()
+		{
+			return plugin;
+		} //}}}
+
+		//{{{ getCount() method
+		/** Returns the number of messages delivered. */
+		public long getCount()
+		{
+			return count.get();
+		} //}}}
+
+		//{{{ getOverBudgetCount() method
+		/**
+		 * Returns the number of messages that kept the AWT thread busy
+		 * for longer than the budget.
+		 */
+		public long getOverBudgetCount()
+		{
+			return overBudget.get();
+		} //}}}
+
+		//{{{ getTotal() method
+		/** Returns the time spent in all the deliveries. */
+		public long getTotal()
+		{
+			return total.get();
+		} //}}}
+
+		//{{{ getMax() method
+		/** Returns the longest delivery. */
+		public long getMax()
+		{
+			return max.get();
+		} //}}}
+
+		//{{{ getPercentile() method
+		/**
+		 * Returns the time within which the given part of the deliveries
+		 * were done, rounded up to the end of its histogram bucket.
+		 * @param percent between 0 and 100
+		 */
+		public long getPercentile(double percent)
+		{
+			long n = 0L;
+			long[] counts = new long[BUCKETS];
+			for(int i = 0; i < BUCKETS; i++)
+			{
+				counts[i] = buckets.get(i);
+				n += counts[i];
+			}
+			if(n == 0L)
+				return 0L;
+			long rank = Math.max(1L, (long)Math.ceil(n * percent / 100.0));
+			long seen = 0L;
+			for(int i = 0; i < BUCKETS; i++)
+			{
+				seen += counts[i];
+				if(seen >= rank)
+					return Math.min(getUpperBound(i), getMax());
+			}
+			return getMax();
+		} //}}}
+
+		//{{{ Package-private members
+		Stats(String messageType, String component, String plugin)
+		{
+			this.messageType = messageType;
+			this.component = component;
+			this.plugin = plugin;
+		}
+
+		//{{{ record() method
+		/**
+		 * Records a delivery.
+		 * @param nanos the time the handler took
+		 * @param blocking true if the handler ran in the AWT thread
+		 */
+		void record(long nanos, boolean blocking)
+		{
+			count.incrementAndGet();
+			total.addAndGet(nanos);
+			buckets.incrementAndGet(getBucket(nanos));
+			long current;
+			while(nanos > (current = max.get()))
+			{
+				if(max.compareAndSet(current, nanos))
+					break;
+			}
+
+			if(blocking && nanos > budget)
+			{
+				overBudget.incrementAndGet();
+				long now = System.currentTimeMillis();
+				long last = lastWarning.get();
+				if(now - last >= WARNING_INTERVAL
+					&& lastWarning.compareAndSet(last, now))
+				{
+					warn(nanos);
+				}
+			}
+		} //}}}
+
+		//{{{ clear() method
+		void clear()
+		{
+			count.set(0L);
+			overBudget.set(0L);
+			total.set(0L);
+			max.set(0L);
+			for(int i = 0; i < BUCKETS; i++)
+				buckets.set(i, 0L);
+		} //}}}
+
+		//}}}
+
+		//{{{ Private members
+		private final String messageType;
+		private final String component;
+		private final String plugin;
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong overBudget = new AtomicLong();
+		private final AtomicLong total = new AtomicLong();
+		private final AtomicLong max = new AtomicLong();
+		private final AtomicLong lastWarning = new AtomicLong(
+			-WARNING_INTERVAL);
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+		//{{{ warn() method
+		private void warn(long nanos)
+		{
+			Log.log(Log.WARNING, EditBus.class, component
+				+ (plugin == null ? "" : " (plugin " + plugin + ')')
+				+ " kept the AWT thread busy for " + nanos / 1000000L
+				+ " ms handling " + messageType + ", over the budget of "
+				+ budget / 1000000L + " ms");
+		} //}}}
+
+		//}}}
+	} //}}}
+
+	//{{{ Package-private members
+
+	//{{{ get() method
+	/**
+	 * Returns the statistics of a message type and component, creating
+	 * them the first time.
+	 */
+	static Stats get(Class<?> messageClass, Object comp)
+	{
+		Class<?> compClass = comp.getClass();
+		Key key = new Key(messageClass, compClass);
+		Stats s = stats.get(key);
+		if(s == null)
+		{
+			s = new Stats(messageClass.getName(), compClass.getName(),
+				getPluginName(compClass));
+			Stats existing = stats.putIfAbsent(key, s);
+			if(existing != null)
+				s = existing;
+		}
+		return s;
+	} //}}}
+
+	//{{{ getBucket() method
+	/**
+	 * Returns the histogram bucket of a time. A bucket is 1024 ns wide
+	 * up to 4 such units; after that each power of two is split in four.
+	 */
+	static int getBucket(long nanos)
+	{
+		long units = Math.min(nanos >>> UNIT_SHIFT, MAX_UNITS);
+		if(units < SUB_BUCKETS)
+			return (int)units;
+		int exp = 63 - Long.numberOfLeadingZeros(units);
+		return (exp - 1) * SUB_BUCKETS
+			+ (int)((units >>> (exp - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+	} //}}}
+
+	//{{{ getUpperBound() method
+	/**
+	 * Returns the longest time, in nanoseconds, counted in a bucket.
+	 */
+	static long getUpperBound(int bucket)
+	{
+		long units;
+		if(bucket < SUB_BUCKETS)
+			units = bucket + 1;
+		else
+		{
+			int exp = bucket / SUB_BUCKETS + 1;
+			int sub = bucket % SUB_BUCKETS;
+			units = (long)(SUB_BUCKETS + sub + 1) << (exp - SUB_BUCKET_BITS);
+		}
+		return (units << UNIT_SHIFT) - 1;
+	} //}}}
+
+	//}}}
+
+	//{{{ Private members
+	private static final int UNIT_SHIFT = 10;
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// about 4.9 hours
+	private static final long MAX_UNITS = (1L << 34) - 1;
+	private static final int BUCKETS = getBucket(MAX_UNITS << UNIT_SHIFT) + 1;
+	private static final long WARNING_INTERVAL = 60L * 1000L;
+
+	private static volatile long budget = 50L * 1000L * 1000L;
+	// by class and not by class name, since a reloaded plugin has new
+	// classes with the same names
+	private static final ConcurrentMap<Key, Stats> stats
+		= new ConcurrentHashMap<Key, Stats>();
+
+	private EditBusMetrics()
+	{
+	}
+
+	//{{{ getPluginName() method
+	private static String getPluginName(Class<?> clazz)
+	{
+		ClassLoader loader = clazz.getClassLoader();
+		if(!(loader instanceof JARClassLoader))
+			return null;
+		PluginJAR jar = ((JARClassLoader)loader).getPluginJAR();
+		if(jar == null)
+			return null;
+		EditPlugin plugin = jar.getPlugin();
+		if(plugin != null)
+		{
+			String name = jEdit.getProperty("plugin."
+				+ plugin.getClassName() + ".name");
+			if(name != null)
+				return name;
+		}
+		return jar.getFile().getName();
+	} //}}}
+
+	//{{{ Key class
+	private static final class Key
+	{
+		final Class<?> messageClass;
+		final Class<?> compClass;
+
+		Key(Class<?> messageClass, Class<?> compClass)
+		{
+			this.messageClass = messageClass;
+			this.compClass = compClass;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if(!(o instanceof Key))
+				return false;
+			Key other = (Key)o;
+			return messageClass == other.messageClass
+				&& compClass == other.compClass;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * messageClass.hashCode() + compClass.hashCode();
+		}
+	} //}}}
+
+	//}}}
+}
@@ -171,6 +171,8 @@ public class EditPane extends JPanel implements BufferSetListener
 			saveCaretInfo();
 		this.buffer = buffer;
 
+		// the visible buffers of a restored session are loaded first
+		buffer.loadIfDeferred(view);
 		textArea.setBuffer(buffer);
 
 		if(!init)
@@ -976,6 +978,8 @@ public class EditPane extends JPanel implements BufferSetListener
 		textArea.setCtrlForRectangularSelection(jEdit.getBooleanProperty(
 			"view.ctrlForRectangularSelection"));
 
+		textArea.setMinimapEnabled(jEdit.getBooleanProperty("view.minimap"));
+
 		textArea.propertiesChanged();
 
 		if (bufferSwitcher != null)
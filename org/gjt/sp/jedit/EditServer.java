@@ -221,6 +221,8 @@ public class EditServer extends Thread
 			else if(buffer != null)
 				view.setBuffer(buffer);
 
+			// the restored buffers that are not shown
+			DeferredBufferLoader.start();
 			return buffer;
 		}
 		else if(newPlainView)
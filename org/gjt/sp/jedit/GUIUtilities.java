@@ -2098,6 +2098,7 @@ public class GUIUtilities
 	//{{{ advanceSplashProgress() method
 	static void advanceSplashProgress(String label)
 	{
+		StartupScheduler.phase(label);
 		if(splash != null)
 			splash.advance(label);
 	} //}}}
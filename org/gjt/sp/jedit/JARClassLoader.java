@@ -28,6 +28,7 @@ import java.io.InputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import org.gjt.sp.util.Log;
@@ -41,12 +42,25 @@ import java.util.jar.Attributes.Name;
 
 /**
  * A class loader implementation that loads classes from JAR files. All
- * instances share the same set of classes.
+ * instances share the same set of classes.<p>
+ *
+ * The classes and resources of the activated JARs are found through an
+ * index from each package, or resource directory, to the loaders of the
+ * JARs that have entries in it, built from the JAR directories. The
+ * names that could not be found are remembered until a JAR is activated
+ * or deactivated. The loader is parallel capable: a class is loaded under
+ * a lock on its name, so that classes are loaded from several threads at
+ * once.
  * @author Slava Pestov
  * @version $Id: JARClassLoader.java 23224 2013-09-30 20:51:42Z shlomy $
  */
 public class JARClassLoader extends ClassLoader
 {
+	static
+	{
+		registerAsParallelCapable();
+	}
+
 	//{{{ JARClassLoader constructor
 	/**
 	 * This constructor creates a class loader for loading classes from all
@@ -93,23 +107,23 @@ public class JARClassLoader extends ClassLoader
 			}
 		}
 
-		Object obj = classHash.get(clazz);
-		if(obj == NO_CLASS)
+		if(missingClasses.containsKey(clazz))
 		{
 			// we remember which classes we don't exist
 			// because BeanShell tries loading all possible
 			// <imported prefix>.<class name> combinations
 			throw new ClassNotFoundException(clazz);
 		}
-		else if(obj instanceof JARClassLoader)
+		JARClassLoader classLoader = findLoader(classIndex,
+			getPackageName(clazz),clazz,true);
+		if(classLoader != null)
 		{
-			JARClassLoader classLoader = (JARClassLoader)obj;
 			try
 			{
 				return classLoader._loadClass(clazz,resolveIt);
 			} catch (ClassNotFoundException cnf2)
 			{
-				classHash.put(clazz,NO_CLASS);
+				missingClasses.put(clazz,Boolean.TRUE);
 				throw cnf2;
 			}
 		}
@@ -140,14 +154,16 @@ public class JARClassLoader extends ClassLoader
 				}
 			}
 			// then try from another jar
-			Object obj = resourcesHash.get(name);
-			if(obj instanceof JARClassLoader)
-			{
-				JARClassLoader classLoader = (JARClassLoader)obj;
+			JARClassLoader classLoader = findResourceLoader(name);
+			if(classLoader != null)
 				return classLoader.getResourceAsStream(name);
-			}
 			// finally try from the system class loader
-			return getSystemResourceAsStream(name);
+			if(missingResources.containsKey(name))
+				return null;
+			InputStream in = getSystemResourceAsStream(name);
+			if(in == null)
+				missingResources.put(name,Boolean.TRUE);
+			return in;
 		}
 		catch(IOException io)
 		{
@@ -176,15 +192,18 @@ public class JARClassLoader extends ClassLoader
 				}
 			}
 			
-			Object obj = resourcesHash.get(name);
-			if(obj instanceof JARClassLoader)
+			JARClassLoader classLoader = findResourceLoader(name);
+			if(classLoader != null)
 			{
-				JARClassLoader classLoader = (JARClassLoader)obj;
 				return classLoader.getResource(name);
 			} else
 			{
-				URL ret = getSystemResource(name); 
-				if(ret != null)
+				if(missingResources.containsKey(name))
+					return null;
+				URL ret = getSystemResource(name);
+				if(ret == null)
+					missingResources.put(name,Boolean.TRUE);
+				else
 				{
 					Log.log(Log.DEBUG,JARClassLoader.class,"Would have returned null for getResource("+name+")");
 					Log.log(Log.DEBUG,JARClassLoader.class,"returning("+ret+")");
@@ -234,17 +253,11 @@ public class JARClassLoader extends ClassLoader
 			"Total instances created: " + INDEX);
 		Log.log(Log.DEBUG,JARClassLoader.class,
 			"Live instances: " + live);
-		synchronized(classHash)
+		for (Map.Entry<String, JARClassLoader[]> entry : classIndex.entrySet())
 		{
-			for (Map.Entry<String, Object> entry : classHash.entrySet())
-			{
-				if (entry.getValue() != NO_CLASS)
-				{
-					Log.log(Log.DEBUG, JARClassLoader.class,
-						entry.getKey() + " ==> "
-							+ entry.getValue());
-				}
-			}
+			Log.log(Log.DEBUG, JARClassLoader.class,
+				entry.getKey() + ".* ==> "
+					+ Arrays.toString(entry.getValue()));
 		}
 	} //}}}
 
@@ -322,77 +335,186 @@ public class JARClassLoader extends ClassLoader
 			delegateFirst = _delegate == null || "true".equals(_delegate);
 		}
 
+		Set<String> classNames = new HashSet<String>();
+		Set<String> classPackages = new HashSet<String>();
 		String[] classes = jar.getClasses();
 		if(classes != null)
 		{
 			for (String aClass : classes)
-				classHash.put(aClass, this);
+			{
+				classNames.add(aClass);
+				classPackages.add(getPackageName(aClass));
+			}
 		}
 
+		Set<String> resourceNames = new HashSet<String>();
+		Set<String> resourceDirs = new HashSet<String>();
 		String[] resources = jar.getResources();
 		if(resources != null)
 		{
 			for (String resource : resources)
-				resourcesHash.put(resource, this);
+			{
+				resourceNames.add(resource);
+				resourceDirs.add(getResourceDir(resource));
+			}
+		}
+
+		synchronized(classIndex)
+		{
+			this.classNames = classNames;
+			this.resourceNames = resourceNames;
+			this.classPackages = classPackages;
+			this.resourceDirs = resourceDirs;
+			// the JAR activated last is looked up first
+			for (String pkg : classPackages)
+				addToIndex(classIndex, pkg);
+			for (String dir : resourceDirs)
+				addToIndex(resourceIndex, dir);
+			missingClasses.clear();
+			missingResources.clear();
 		}
 	} //}}}
 
 	//{{{ deactivate() method
 	void deactivate()
 	{
-		String[] classes = jar.getClasses();
-		if(classes != null)
+		synchronized(classIndex)
 		{
-			for (String aClass : classes)
-			{
-				Object loader = classHash.get(aClass);
-				if (loader == this)
-					classHash.remove(aClass);
-				else
-					/* two plugins provide same class! */;
-			}
+			for (String pkg : classPackages)
+				removeFromIndex(classIndex, pkg);
+			for (String dir : resourceDirs)
+				removeFromIndex(resourceIndex, dir);
+			classNames = Collections.emptySet();
+			resourceNames = Collections.emptySet();
+			classPackages = Collections.emptySet();
+			resourceDirs = Collections.emptySet();
+			missingClasses.clear();
+			missingResources.clear();
 		}
+	} //}}}
 
-		String[] resources = jar.getResources();
-		if(resources == null)
-			return;
-
-		for (String resource : resources)
-		{
-			Object loader = resourcesHash.get(resource);
-			if (loader == this)
-				resourcesHash.remove(resource);
-			else
-				/* two plugins provide same resource! */;
-		}
+	//{{{ getPluginJAR() method
+	/**
+	 * Returns the JAR of this loader, or null for an anonymous loader.
+	 */
+	PluginJAR getPluginJAR()
+	{
+		return jar;
 	} //}}}
 
 	//}}}
 
 	//{{{ Private members
 
-	// used to mark non-existent classes in class hash
-	private static final Object NO_CLASS = new Object();
+	private static final JARClassLoader[] NO_LOADERS = new JARClassLoader[0];
 
 	private static int INDEX;
 	private static int live;
-	private static Map<String, Object> classHash = new Hashtable<String, Object>();
-	private static Map<String, Object> resourcesHash = new HashMap<String, Object>();
+
+	// package or resource directory -> loaders of the activated JARs
+	// with entries in it, updated under the lock of classIndex
+	private static final Map<String, JARClassLoader[]> classIndex
+		= new ConcurrentHashMap<String, JARClassLoader[]>();
+	private static final Map<String, JARClassLoader[]> resourceIndex
+		= new ConcurrentHashMap<String, JARClassLoader[]>();
+	// names found in no JAR, cleared when the JARs change
+	private static final Map<String, Boolean> missingClasses
+		= new ConcurrentHashMap<String, Boolean>();
+	private static final Map<String, Boolean> missingResources
+		= new ConcurrentHashMap<String, Boolean>();
 
 	private int id;
 	private boolean delegateFirst;
 	private PluginJAR jar;
+	private volatile Set<String> classNames = Collections.emptySet();
+	private volatile Set<String> resourceNames = Collections.emptySet();
+	private Set<String> classPackages = Collections.emptySet();
+	private Set<String> resourceDirs = Collections.emptySet();
+
+	//{{{ findLoader() method
+	/**
+	 * Returns the loader of the JAR activated last that has the given
+	 * class or resource, or null.
+	 */
+	private static JARClassLoader findLoader(Map<String, JARClassLoader[]> index,
+		String key, String name, boolean isClass)
+	{
+		JARClassLoader[] loaders = index.get(key);
+		if(loaders == null)
+			return null;
+		for (JARClassLoader loader : loaders)
+		{
+			Set<String> names = isClass ? loader.classNames
+				: loader.resourceNames;
+			if(names.contains(name))
+				return loader;
+		}
+		return null;
+	} //}}}
+
+	//{{{ findResourceLoader() method
+	private static JARClassLoader findResourceLoader(String name)
+	{
+		return findLoader(resourceIndex,getResourceDir(name),name,false);
+	} //}}}
+
+	//{{{ addToIndex() method
+	private void addToIndex(Map<String, JARClassLoader[]> index, String key)
+	{
+		JARClassLoader[] loaders = index.get(key);
+		if(loaders == null)
+			loaders = NO_LOADERS;
+		JARClassLoader[] newLoaders = new JARClassLoader[loaders.length + 1];
+		newLoaders[0] = this;
+		int i = 1;
+		for (JARClassLoader loader : loaders)
+		{
+			if(loader != this)
+				newLoaders[i++] = loader;
+		}
+		index.put(key, i == newLoaders.length ? newLoaders
+			: Arrays.copyOf(newLoaders, i));
+	} //}}}
+
+	//{{{ removeFromIndex() method
+	private void removeFromIndex(Map<String, JARClassLoader[]> index, String key)
+	{
+		JARClassLoader[] loaders = index.get(key);
+		if(loaders == null)
+			return;
+		List<JARClassLoader> newLoaders = new ArrayList<JARClassLoader>(
+			Arrays.asList(loaders));
+		newLoaders.remove(this);
+		if(newLoaders.isEmpty())
+			index.remove(key);
+		else
+			index.put(key, newLoaders.toArray(NO_LOADERS));
+	} //}}}
+
+	//{{{ getPackageName() method
+	private static String getPackageName(String clazz)
+	{
+		int idx = clazz.lastIndexOf('.');
+		return idx == -1 ? "" : clazz.substring(0, idx);
+	} //}}}
+
+	//{{{ getResourceDir() method
+	private static String getResourceDir(String resource)
+	{
+		int idx = resource.lastIndexOf('/');
+		return idx == -1 ? "" : resource.substring(0, idx);
+	} //}}}
 
 	//{{{ _loadClass() method
 	/**
 	 * Load class from this JAR only.
 	 */
-	private synchronized Class _loadClass(String clazz, boolean resolveIt)
+	private Class _loadClass(String clazz, boolean resolveIt)
 		throws ClassNotFoundException
 	{
 		jar.activatePlugin();
 
-		synchronized(this)
+		synchronized(getClassLoadingLock(clazz))
 		{
 			Class cls = findLoadedClass(clazz);
 			if(cls != null)
@@ -455,7 +577,18 @@ public class JARClassLoader extends ClassLoader
 		if (idx != -1)
 		{
 			String name = clazz.substring(0, idx);
-			if (getPackage(name) == null) definePackage(name, new JarFile(jar.getFile()).getManifest());
+			if (getPackage(name) == null)
+			{
+				try
+				{
+					definePackage(name, new JarFile(jar.getFile()).getManifest());
+				}
+				catch (IllegalArgumentException e)
+				{
+					// defined meanwhile by a thread loading
+					// another class of the package
+				}
+			}
 		}
 	} //}}}
 
@@ -484,6 +484,7 @@ public class Macros
 	 */
 	public static Vector getMacroHierarchy()
 	{
+		StartupScheduler.runNow(LOAD_TASK);
 		return macroHierarchy;
 	} //}}}
 
@@ -505,6 +506,7 @@ public class Macros
 	 */
 	public static Macro getMacro(String macro)
 	{
+		StartupScheduler.runNow(LOAD_TASK);
 		return macroHash.get(macro);
 	} //}}}
 
@@ -739,6 +741,11 @@ public class Macros
 		}
 	} //}}}
 
+	//{{{ Package-private members
+	/** The startup task scanning the macros, once plugins are activated. */
+	static final String LOAD_TASK = "load macros";
+	//}}}
+
 	//{{{ Private members
 
 	//{{{ Static variables
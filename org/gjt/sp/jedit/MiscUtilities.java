@@ -31,7 +31,6 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.charset.MalformedInputException;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -914,10 +913,11 @@ public class MiscUtilities
 	 * Check if an InputStream is binary.
 	 * First this tries encoding auto detection. If an encoding is
 	 * detected, the stream should be a text stream. Otherwise, this
-	 * will check the first characters 100
-	 * (jEdit property vfs.binaryCheck.length) in the system default
-	 * encoding. If more than 1 (jEdit property vfs.binaryCheck.count)
-	 * NUL(\u0000) was found, the stream is declared binary.
+	 * will check the first 100 bytes
+	 * (jEdit property vfs.binaryCheck.length). If more than 1 (jEdit
+	 * property vfs.binaryCheck.count) NUL byte was found, or if there
+	 * are many control bytes, the stream is declared binary, unless it
+	 * looks like UTF-16 text. See {@link ByteClassifier}.
 	 *
 	 * This is not 100% because sometimes the autodetection could fail.
 	 *
@@ -930,24 +930,7 @@ public class MiscUtilities
 	 */
 	public static boolean isBinary(InputStream in) throws IOException
 	{
-		AutoDetection.Result detection = new AutoDetection.Result(in);
-		// If an encoding is detected, this is a text stream
-		if (detection.getDetectedEncoding() != null)
-		{
-			return false;
-		}
-		// Read the stream in system default encoding. The encoding
-		// might be wrong. But enough for binary detection.
-		try
-		{
-			return containsNullCharacter(
-				new InputStreamReader(detection.getRewindedStream()));
-		}
-		catch (MalformedInputException mie)
-		{
-			// This error probably means the input is binary.
-			return true;
-		}
+		return new AutoDetection.Result(in).isBinary();
 	} //}}}
 
 	//{{{ isBackup() method
@@ -1459,27 +1442,6 @@ loop:		for(;;)
 			return 0;
 	} //}}}
 
-	//{{{ containsNullCharacter() method
-	private static boolean containsNullCharacter(Reader reader)
-		throws IOException
-	{
-		int nbChars = jEdit.getIntegerProperty("vfs.binaryCheck.length",100);
-		int authorized = jEdit.getIntegerProperty("vfs.binaryCheck.count",1);
-		for (long i = 0L;i < nbChars;i++)
-		{
-			int c = reader.read();
-			if (c == -1)
-				return false;
-			if (c == 0)
-			{
-				authorized--;
-				if (authorized == 0)
-					return true;
-			}
-		}
-		return false;
-	} //}}}
-
 	//{{{ replaceNonPathChars
 	/**
 	 * Replaces the characters which are usually invalid as part of pathname.
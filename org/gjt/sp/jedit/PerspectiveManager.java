@@ -263,12 +263,14 @@ public class PerspectiveManager
 		View.ViewConfig config;
 		boolean restoreFiles;
 		boolean restoreSplits;
+		boolean restoreLazily;
 		String autoReload, autoReloadDialog;
 
 		PerspectiveHandler(boolean restoreFiles)
 		{
 			this.restoreFiles = restoreFiles;
 			restoreSplits = jEdit.getBooleanProperty("restore.splits", true);
+			restoreLazily = jEdit.getBooleanProperty("restore.lazy", true);
 			config = new View.ViewConfig();
 			charData = new StringBuilder();
 			config.docking = View.getDockingFrameworkProvider().createDockingLayout();
@@ -335,7 +337,10 @@ public class PerspectiveManager
 			{
 				if (restoreFiles && !skipRemote(charData.toString()))
 				{
-					Buffer restored = jEdit.openTemporary(null,null, charData.toString(), false);
+					// the buffers not shown are loaded later
+					Buffer restored = restoreLazily
+						? jEdit.openDeferred(charData.toString())
+						: jEdit.openTemporary(null,null, charData.toString(), false);
 					// if the autoReload attributes are not present, don't set anything
 					// it's sufficient to check whether they are present on the first BUFFER element
 					if (restored != null)
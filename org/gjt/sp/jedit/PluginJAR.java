@@ -24,15 +24,12 @@ package org.gjt.sp.jedit;
 
 //{{{ Imports
 import java.awt.EventQueue;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -173,6 +170,14 @@ public class PluginJAR
 	private URL servicesURI;
 	private boolean activated;
 
+	private static PluginSummaryIndex summaryIndex;
+
+	/** What scan() read, used once by init(). */
+	private boolean scanned;
+	private PluginCacheEntry scannedCache;
+	private PluginCacheEntry scannedContents;
+	private IOException scanError;
+
 	// Lists of jarPaths
 	/** These plugins require this plugin */
 	private final Set<String> theseRequireMe = new LinkedHashSet<String>();
@@ -417,13 +422,16 @@ public class PluginJAR
 
 	//{{{ getCachePath() method
 	/**
-	 * Returns the full path name of this plugin's summary file.
-	 * The summary file is used to store certain information which allows
+	 * Returns the full path name this plugin's summary file had.
+	 * The summary is used to store certain information which allows
 	 * loading of the plugin's resources and core class to be deferred
 	 * until the plugin is first used. As long as a plugin is using the
 	 * jEdit 4.2 plugin API, no extra effort is required to take advantage
 	 * of the summary cache.
+	 * @deprecated The summaries of all the plugins are now kept in
+	 * a single index file of the JAR cache directory.
 	 */
+	@Deprecated
 	public String getCachePath()
 	{
 		return cachePath;
@@ -898,6 +906,7 @@ public class PluginJAR
 	 */
 	public void activatePlugin()
 	{
+		long start = System.nanoTime();
 		synchronized (this)
 		{
 			if (activated)
@@ -956,6 +965,7 @@ public class PluginJAR
 			startPluginLater();
 		}
 
+		StartupScheduler.pluginStarted(className,System.nanoTime() - start);
 		EditBus.sendAsync(new PluginUpdate(this,PluginUpdate.ACTIVATED,false));
 	} //}}}
 
@@ -965,12 +975,25 @@ public class PluginJAR
 	 * @since jEdit 4.2pre2
 	 */
 	public void activatePluginIfNecessary()
+	{
+		if(isActivationNecessary())
+			activatePlugin();
+	} //}}}
+
+	//{{{ isActivationNecessary() method
+	/**
+	 * Returns true if the plugin must be activated as soon as it is
+	 * loaded: if it is a jEdit 4.1 plugin, or if one of the properties
+	 * listed by its <code>activate</code> property is true.
+	 * @since jEdit 5.4pre1
+	 */
+	boolean isActivationNecessary()
 	{
 		String filename = MiscUtilities.getFileName(getPath());
 		jEdit.unsetProperty("plugin-blacklist." + filename);
 		if(!(plugin instanceof EditPlugin.Deferred && plugin != null))
 		{
-			return;
+			return false;
 		}
 
 		String className = plugin.getClassName();
@@ -988,10 +1011,11 @@ public class PluginJAR
 				breakPlugin();
 
 				jEdit.pluginError(path,"plugin-error.not-42",null);
+				return false;
 			}
 			else
 			{
-				activatePlugin();
+				return true;
 			}
 		}
 		else
@@ -1016,13 +1040,27 @@ public class PluginJAR
 				}
 			}
 
-			if(load)
-			{
-				activatePlugin();
-			}
+			return load;
 		}
 	} //}}}
 
+	//{{{ canDeferActivation() method
+	/**
+	 * Returns true if the activation of the plugin at startup may wait
+	 * until the first view is shown. jEdit 4.1 plugins, and plugins whose
+	 * <code>activate.eager</code> property is true, are activated before.
+	 * @since jEdit 5.4pre1
+	 */
+	boolean canDeferActivation()
+	{
+		if(plugin == null)
+			return false;
+		String className = plugin.getClassName();
+		return jEdit.getProperty("plugin." + className + ".activate") != null
+			&& !jEdit.getBooleanProperty("plugin." + className
+				+ ".activate.eager");
+	} //}}}
+
 	//{{{ deactivatePlugin() method
 	/**
 	 * Unloads the plugin core class. Does nothing if the plugin core class
@@ -1136,19 +1174,20 @@ public class PluginJAR
 	//{{{ getPluginCache() method
 	public static PluginCacheEntry getPluginCache(PluginJAR plugin)
 	{
-		String jarCachePath = plugin.getCachePath();
-		if(jarCachePath == null)
+		PluginSummaryIndex index = getSummaryIndex();
+		if(index == null)
+			return null;
+		byte[] summary = index.get(plugin.getFile());
+		if(summary == null)
 			return null;
 
-		DataInputStream din = null;
 		try
 		{
 			PluginCacheEntry cache = new PluginCacheEntry();
 			cache.plugin = plugin;
 			cache.modTime = plugin.getFile().lastModified();
-			din = new DataInputStream(
-				new BufferedInputStream(
-				new FileInputStream(jarCachePath)));
+			DataInputStream din = new DataInputStream(
+				new ByteArrayInputStream(summary));
 			if(cache.read(din))
 				return cache;
 			else
@@ -1157,45 +1196,73 @@ public class PluginJAR
 				return null;
 			}
 		}
-		catch(FileNotFoundException fnf)
-		{
-			return null;
-		}
 		catch(IOException io)
 		{
 			Log.log(Log.ERROR,PluginJAR.class,io);
 			return null;
 		}
-		finally
-		{
-			IOUtilities.closeQuietly((Closeable)din);
-		}
 	} //}}}
 
 	//{{{ setPluginCache() method
 	static void setPluginCache(PluginJAR plugin, PluginCacheEntry cache)
 	{
-		String jarCachePath = plugin.getCachePath();
-		if(jarCachePath == null)
+		PluginSummaryIndex index = getSummaryIndex();
+		if(index == null)
 			return;
 
-		Log.log(Log.DEBUG,PluginJAR.class,"Writing " + jarCachePath);
+		Log.log(Log.DEBUG,PluginJAR.class,"Writing the summary of "
+			+ plugin.getPath());
 
-		DataOutputStream dout = null;
 		try
 		{
-			dout = new DataOutputStream(
-				new BufferedOutputStream(
-				new FileOutputStream(jarCachePath)));
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream dout = new DataOutputStream(bytes);
 			cache.write(dout);
-			dout.close();
+			dout.flush();
+			index.put(plugin.getFile(),bytes.toByteArray());
 		}
 		catch(IOException io)
 		{
 			Log.log(Log.ERROR,PluginJAR.class,io);
-			IOUtilities.closeQuietly((Closeable)dout);
-			new File(jarCachePath).delete();
+			index.remove(plugin.getFile());
+		}
+		// the summary file of older versions
+		if(plugin.cachePath != null)
+			new File(plugin.cachePath).delete();
+		if(jEdit.isStartupDone())
+			index.save();
+	} //}}}
+
+	//{{{ saveSummaryIndex() method
+	/**
+	 * Writes the summaries of the plugins if they changed. Called once
+	 * the plugins are loaded at startup; later changes are written right
+	 * away.
+	 * @since jEdit 5.4pre1
+	 */
+	static void saveSummaryIndex()
+	{
+		PluginSummaryIndex index = getSummaryIndex();
+		if(index != null)
+			index.save();
+	} //}}}
+
+	//{{{ getSummaryIndex() method
+	/**
+	 * Returns the summaries of the plugins, read the first time this is
+	 * called, or null if there is no JAR cache directory.
+	 */
+	private static synchronized PluginSummaryIndex getSummaryIndex()
+	{
+		if(summaryIndex == null)
+		{
+			String jarCacheDir = jEdit.getJARCacheDirectory();
+			if(jarCacheDir == null)
+				return null;
+			summaryIndex = new PluginSummaryIndex(new File(jarCacheDir,
+				PluginSummaryIndex.FILE_NAME));
 		}
+		return summaryIndex;
 	} //}}}
 
 	//{{{ getPluginCacheEntry() method
@@ -1256,12 +1323,40 @@ public class PluginJAR
 		actions = new ActionSet();
 	} //}}}
 
+	//{{{ scan() method
+	/**
+	 * Reads what {@link #init()} needs from the plugin summary, or from
+	 * the JAR if the summary is missing or outdated: its properties,
+	 * classes and resources. Nothing is registered, so this may be called
+	 * from any thread, and for many JARs at the same time, before they
+	 * are initialized one by one in the usual order.
+	 * @since jEdit 5.4pre1
+	 */
+	void scan()
+	{
+		scannedCache = getPluginCache(this);
+		if(scannedCache == null)
+		{
+			try
+			{
+				scannedContents = readContents();
+			}
+			catch(IOException io)
+			{
+				scanError = io;
+			}
+		}
+		scanned = true;
+	} //}}}
+
 	//{{{ init() method
 	public boolean init()
 	{
-		PluginCacheEntry cache = getPluginCache(this);
+		PluginCacheEntry cache = scanned ? scannedCache : getPluginCache(this);
+		scannedCache = null;
 		if(cache != null)
 		{
+			scanned = false;
 			if (!loadCache(cache))
 				return false;
 			classLoader.activate();
@@ -1270,7 +1365,7 @@ public class PluginJAR
 		{
 			try
 			{
-				cache = generateCache();
+				cache = generateCache(getScannedContents());
 				if(cache != null)
 				{
 					setPluginCache(this,cache);
@@ -1296,6 +1391,24 @@ public class PluginJAR
 		return true;
 	} //}}}
 
+	//{{{ getScannedContents() method
+	/**
+	 * Returns the contents read by scan(), or reads them now.
+	 */
+	private PluginCacheEntry getScannedContents() throws IOException
+	{
+		if(!scanned)
+			return readContents();
+		scanned = false;
+		PluginCacheEntry contents = scannedContents;
+		scannedContents = null;
+		IOException error = scanError;
+		scanError = null;
+		if(error != null)
+			throw error;
+		return contents;
+	} //}}}
+
 	//{{{ uninit() method
 	public void uninit(boolean exit)
 	{
@@ -1328,6 +1441,7 @@ public class PluginJAR
 			DockableWindowFactory.getInstance()
 				.unloadDockableWindows(this);
 			ServiceManager.unloadServices(this);
+			EditBusMetrics.unloadPlugin(this);
 
 			jEdit.removePluginProps(properties);
 			if (localizationProperties != null)
@@ -1496,16 +1610,24 @@ public class PluginJAR
 	//{{{ generateCache() method
 	public PluginCacheEntry generateCache() throws IOException
 	{
-		properties = new Properties();
-		localizationProperties = new HashMap<String, Properties>();
+		return generateCache(readContents());
+	} //}}}
+
+	//{{{ readContents() method
+	/**
+	 * Reads the properties, the classes, the resources and the URIs of
+	 * the XML files of the JAR, without registering anything.
+	 */
+	private PluginCacheEntry readContents() throws IOException
+	{
+		Properties properties = new Properties();
+		Map<String, Properties> localizationProperties = new HashMap<String, Properties>();
 
 		List<String> classes = new LinkedList<String>();
 		List<String> resources = new LinkedList<String>();
 
 		ZipFile zipFile = getZipFile();
 
-		List<String> plugins = new LinkedList<String>();
-
 		PluginCacheEntry cache = new PluginCacheEntry();
 		cache.modTime = file.lastModified();
 
@@ -1527,13 +1649,11 @@ public class PluginJAR
 			}
 			else if("dockables.xml".equals(lname))
 			{
-				dockablesURI = classLoader.getResource(name);
-				cache.dockablesURI = dockablesURI;
+				cache.dockablesURI = classLoader.getResource(name);
 			}
 			else if("services.xml".equals(lname))
 			{
-				servicesURI = classLoader.getResource(name);
-				cache.servicesURI = servicesURI;
+				cache.servicesURI = classLoader.getResource(name);
 			}
 			else if(lname.endsWith(".props"))
 			{
@@ -1552,10 +1672,6 @@ public class PluginJAR
 			{
 				String className = MiscUtilities
 					.fileToClass(name);
-				if(className.endsWith("Plugin"))
-				{
-					plugins.add(className);
-				}
 				classes.add(className);
 			}
 			else
@@ -1586,6 +1702,22 @@ public class PluginJAR
 
 		cache.cachedProperties = properties;
 		cache.localizationProperties = localizationProperties;
+		cache.classes = classes.toArray(new String[classes.size()]);
+		cache.resources = resources.toArray(new String[resources.size()]);
+		return cache;
+	} //}}}
+
+	//{{{ generateCache() method
+	/**
+	 * Registers the contents of the JAR, and completes them into a
+	 * summary.
+	 */
+	private PluginCacheEntry generateCache(PluginCacheEntry cache)
+	{
+		properties = cache.cachedProperties;
+		localizationProperties = cache.localizationProperties;
+		dockablesURI = cache.dockablesURI;
+		servicesURI = cache.servicesURI;
 
 		// this must be done before loading cachedProperties
 		if (cache.localizationProperties != null)
@@ -1601,17 +1733,15 @@ public class PluginJAR
 
 		jEdit.addPluginProps(properties);
 
-		this.classes = cache.classes =
-			classes.toArray(
-			new String[classes.size()]);
-		this.resources = cache.resources =
-			resources.toArray(
-			new String[resources.size()]);
+		this.classes = cache.classes;
+		this.resources = cache.resources;
 
 		String label = null;
 
-		for (String className : plugins)
+		for (String className : classes)
 		{
+			if(!className.endsWith("Plugin"))
+				continue;
 			String _label = jEdit.getProperty("plugin."
 				+ className + ".name");
 			String version = jEdit.getProperty("plugin."
@@ -1814,8 +1944,12 @@ public class PluginJAR
 	//{{{ removePluginCache() method
 	private void removePluginCache()
 	{
-		if(cachePath != null)
-			new File(cachePath).delete();
+		PluginSummaryIndex index = getSummaryIndex();
+		if(index == null)
+			return;
+		index.remove(file);
+		if(jEdit.isStartupDone())
+			index.save();
 	} //}}}
 
 	//}}}
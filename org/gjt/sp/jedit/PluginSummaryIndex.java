@@ -0,0 +1,269 @@
+/*
+ * PluginSummaryIndex.java - The summaries of all the plugin JARs
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+//{{{ Imports
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.gjt.sp.util.IOUtilities;
+import org.gjt.sp.util.Log;
+//}}}
+
+/**
+ * The summaries of all the plugin JARs, in a single file of the JAR cache
+ * directory.<p>
+ *
+ * Each summary used to be a <code>.summary</code> file of its own, so
+ * every startup opened as many small files as there are plugins. The
+ * index is read with a single read, and written again only when a
+ * summary changed.<p>
+ *
+ * Each entry holds the path, length and modification time of its JAR,
+ * and is only used while they match the JAR. It also holds the CRC-32 of
+ * the summary: an entry whose summary is damaged is dropped, and an index
+ * that can't be read at all is ignored, so the summaries are generated
+ * again from the JARs. The index is written to a temporary file first,
+ * which then replaces it, so it is never left half written.
+ *
+ * @since jEdit 5.4pre1
+ */
+class PluginSummaryIndex
+{
+	static final String FILE_NAME = "plugins.index";
+	static final int MAGIC = 0x4A504C49;
+	static final int VERSION = 1;
+
+	//{{{ PluginSummaryIndex constructor
+	/**
+	 * @param file the index file, which is read right away
+	 */
+	PluginSummaryIndex(File file)
+	{
+		this.file = file;
+		load();
+	} //}}}
+
+	//{{{ get() method
+	/**
+	 * Returns the summary of a JAR, as written by
+	 * {@link PluginJAR.PluginCacheEntry#write}, or null if the index has
+	 * none for the JAR as it is now.
+	 */
+	synchronized byte[] get(File jar)
+	{
+		Entry entry = entries.get(jar.getPath());
+		if(entry == null || entry.length != jar.length()
+			|| entry.modTime != jar.lastModified())
+		{
+			return null;
+		}
+		return entry.summary;
+	} //}}}
+
+	//{{{ put() method
+	synchronized void put(File jar, byte[] summary)
+	{
+		entries.put(jar.getPath(),new Entry(jar.length(),
+			jar.lastModified(),summary));
+		dirty = true;
+	} //}}}
+
+	//{{{ remove() method
+	synchronized void remove(File jar)
+	{
+		if(entries.remove(jar.getPath()) != null)
+			dirty = true;
+	} //}}}
+
+	//{{{ size() method
+	synchronized int size()
+	{
+		return entries.size();
+	} //}}}
+
+	//{{{ save() method
+	/**
+	 * Writes the index if it changed, leaving out the JARs that no
+	 * longer exist.
+	 */
+	synchronized void save()
+	{
+		for(Iterator<String> iter = entries.keySet().iterator(); iter.hasNext(); )
+		{
+			if(!new File(iter.next()).exists())
+			{
+				iter.remove();
+				dirty = true;
+			}
+		}
+		if(!dirty)
+			return;
+
+		File temp = new File(file.getPath() + ".tmp");
+		DataOutputStream out = null;
+		try
+		{
+			FileOutputStream fileOut = new FileOutputStream(temp);
+			out = new DataOutputStream(new BufferedOutputStream(fileOut));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(entries.size());
+			CRC32 crc = new CRC32();
+			for(Map.Entry<String,Entry> mapEntry : entries.entrySet())
+			{
+				Entry entry = mapEntry.getValue();
+				out.writeUTF(mapEntry.getKey());
+				out.writeLong(entry.length);
+				out.writeLong(entry.modTime);
+				crc.reset();
+				crc.update(entry.summary);
+				out.writeLong(crc.getValue());
+				out.writeInt(entry.summary.length);
+				out.write(entry.summary);
+			}
+			out.flush();
+			fileOut.getFD().sync();
+			out.close();
+			out = null;
+
+			try
+			{
+				Files.move(temp.toPath(),file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch(AtomicMoveNotSupportedException e)
+			{
+				Files.move(temp.toPath(),file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+			}
+			dirty = false;
+		}
+		catch(IOException io)
+		{
+			Log.log(Log.ERROR,this,"Cannot write " + file);
+			Log.log(Log.ERROR,this,io);
+			IOUtilities.closeQuietly(out);
+			temp.delete();
+		}
+	} //}}}
+
+	//{{{ Private members
+	private final File file;
+	private final Map<String,Entry> entries = new LinkedHashMap<String,Entry>();
+	private boolean dirty;
+
+	//{{{ load() method
+	private void load()
+	{
+		byte[] bytes;
+		try
+		{
+			bytes = Files.readAllBytes(file.toPath());
+		}
+		catch(NoSuchFileException e)
+		{
+			return;
+		}
+		catch(IOException io)
+		{
+			Log.log(Log.ERROR,this,io);
+			return;
+		}
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+		int dropped = 0;
+		try
+		{
+			if(in.readInt() != MAGIC || in.readInt() != VERSION)
+			{
+				Log.log(Log.WARNING,this,file + " has an unknown format");
+				dirty = true;
+				return;
+			}
+			int count = in.readInt();
+			CRC32 crc = new CRC32();
+			for(int i = 0; i < count; i++)
+			{
+				String path = in.readUTF();
+				long length = in.readLong();
+				long modTime = in.readLong();
+				long checksum = in.readLong();
+				int size = in.readInt();
+				if(size < 0 || size > in.available())
+					throw new IOException("Bad summary size " + size);
+				byte[] summary = new byte[size];
+				in.readFully(summary);
+				crc.reset();
+				crc.update(summary);
+				if(crc.getValue() == checksum)
+					entries.put(path,new Entry(length,modTime,summary));
+				else
+					dropped++;
+			}
+		}
+		catch(IOException io)
+		{
+			// keep what was read before the damage
+			Log.log(Log.WARNING,this,file + " is damaged: " + io);
+			dirty = true;
+		}
+		if(dropped != 0)
+		{
+			Log.log(Log.WARNING,this,"Dropped " + dropped
+				+ " damaged summaries from " + file);
+			dirty = true;
+		}
+	} //}}}
+
+	//{{{ Entry class
+	private static class Entry
+	{
+		final long length;
+		final long modTime;
+		final byte[] summary;
+
+		Entry(long length, long modTime, byte[] summary)
+		{
+			this.length = length;
+			this.modTime = modTime;
+			this.summary = summary;
+		}
+	} //}}}
+
+	//}}}
+}
@@ -22,55 +22,80 @@
 
 package org.gjt.sp.jedit;
 
+import java.awt.Color;
+import java.awt.Font;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.gjt.sp.util.StandardUtilities;
+import org.gjt.sp.util.SyntaxUtilities;
+
+/**
+ * Holds the property tables, from the user properties down to the
+ * defaults of jEdit and of the plugins.<p>
+ *
+ * A property used to be looked up through all the tables on every call.
+ * They are now flattened into a single map, read without locking, which
+ * is patched when a property is set and rebuilt when tables are loaded,
+ * added or removed. Integer, boolean, color and font values are cached
+ * with the string they were parsed from, and the generation counter is
+ * incremented on every change, so that callers may cache what they derive
+ * from the properties.
+ */
 class PropertyManager
 {
 	//{{{ getProperties() method
 	Properties getProperties()
 	{
 		Properties total = new Properties();
-		total.putAll(system);
-		for (Properties plugin : plugins)
-			total.putAll(plugin);
-		total.putAll(site);
-		total.putAll(localization);
-		for (Properties pluginLocalization : pluginLocalizations)
-			total.putAll(pluginLocalization);
-		total.putAll(user);
+		total.putAll(getFlattened());
 		return total;
 	} //}}}
 
+	//{{{ getGeneration() method
+	/**
+	 * Returns a number incremented every time a property may have
+	 * changed.
+	 */
+	long getGeneration()
+	{
+		return generation;
+	} //}}}
+
 	//{{{ loadSystemProps() method
-	void loadSystemProps(Reader in)
+	synchronized void loadSystemProps(Reader in)
 		throws IOException
 	{
 		loadProps(system,in);
+		invalidate();
 	} //}}}
 
 	//{{{ loadSiteProps() method
-	void loadSiteProps(InputStream in)
+	synchronized void loadSiteProps(InputStream in)
 		throws IOException
 	{
 		loadProps(site,in);
+		invalidate();
 	} //}}}
 
 	//{{{ loadLocalizationProps() method
-	void loadLocalizationProps(Reader in)
+	synchronized void loadLocalizationProps(Reader in)
 		throws IOException
 	{
 		if (in == null)
 			localization.clear();
 		else
 			loadProps(localization,in);
+		invalidate();
 	} //}}}
 
 	//{{{ loadUserProps() method
-	void loadUserProps(InputStream in)
+	synchronized void loadUserProps(InputStream in)
 		throws IOException
 	{
 		loadProps(user,in);
+		invalidate();
 	} //}}}
 
 	//{{{ saveUserProps() method
@@ -81,72 +106,139 @@ class PropertyManager
 	} //}}}
 
 	//{{{ loadPluginProps() method
-	Properties loadPluginProps(InputStream in)
+	synchronized Properties loadPluginProps(InputStream in)
 		throws IOException
 	{
 		Properties plugin = new Properties();
 		loadProps(plugin,in);
 		plugins.add(plugin);
+		invalidate();
 		return plugin;
 	} //}}}
 
 	//{{{ addPluginProps() method
-	void addPluginProps(Properties props)
+	synchronized void addPluginProps(Properties props)
 	{
 		plugins.add(props);
+		invalidate();
 	} //}}}
 
 	//{{{ removePluginProps() method
-	void removePluginProps(Properties props)
+	synchronized void removePluginProps(Properties props)
 	{
 		plugins.remove(props);
+		invalidate();
 	} //}}}
 
 	//{{{ loadPluginLocalizationProps() method
-	Properties loadPluginLocalizationProps(Reader in)
+	synchronized Properties loadPluginLocalizationProps(Reader in)
 		throws IOException
 	{
 		Properties pluginLocalization = new Properties();
 		loadProps(pluginLocalization,in);
 		pluginLocalizations.add(pluginLocalization);
+		invalidate();
 		return pluginLocalization;
 	} //}}}
 
 	//{{{ addPluginLocalizationProps() method
-	void addPluginLocalizationProps(Properties props)
+	synchronized void addPluginLocalizationProps(Properties props)
 	{
 		pluginLocalizations.add(props);
+		invalidate();
 	} //}}}
 
 	//{{{ removePluginLocalizationProps() method
-	void removePluginLocalizationProps(Properties props)
+	synchronized void removePluginLocalizationProps(Properties props)
 	{
 		pluginLocalizations.remove(props);
+		invalidate();
 	} //}}}
 
 	//{{{ getProperty() method
 	String getProperty(String name)
 	{
-		String value = user.getProperty(name);
-		if(value != null)
-			return value;
+		return getFlattened().get(name);
+	} //}}}
 
-		for (Properties pluginLocalization : pluginLocalizations)
+	//{{{ getBooleanProperty() method
+	boolean getBooleanProperty(String name, boolean def)
+	{
+		String value = getProperty(name);
+		if(value == null)
+			return def;
+		Parsed parsed = booleans.get(name);
+		if(parsed == null || !parsed.isFrom(value,null,null))
 		{
-			value = pluginLocalization.getProperty(name);
-			if (value != null)
-				return value;
+			boolean b = StandardUtilities.getBoolean(value,false);
+			// unknown values give the default
+			boolean known = b == StandardUtilities.getBoolean(value,true);
+			parsed = new Parsed(known ? Boolean.valueOf(b) : null,
+				value,null,null);
+			booleans.put(name,parsed);
 		}
+		return parsed.value == null ? def : (Boolean)parsed.value;
+	} //}}}
 
-		value = localization.getProperty(name);
-		if (value != null)
-			return value;
+	//{{{ getIntegerProperty() method
+	int getIntegerProperty(String name, int def)
+	{
+		String value = getProperty(name);
+		if(value == null)
+			return def;
+		Parsed parsed = integers.get(name);
+		if(parsed == null || !parsed.isFrom(value,null,null))
+		{
+			parsed = new Parsed(parseInteger(value.trim()),value,null,null);
+			integers.put(name,parsed);
+		}
+		return parsed.value == null ? def : (Integer)parsed.value;
+	} //}}}
 
-		return getDefaultProperty(name);
+	//{{{ getColorProperty() method
+	Color getColorProperty(String name, Color def)
+	{
+		String value = getProperty(name);
+		if(value == null)
+			return def;
+		Parsed parsed = colors.get(name);
+		if(parsed == null || !parsed.isFrom(value,null,null))
+		{
+			parsed = new Parsed(SyntaxUtilities.parseColor(value,null),
+				value,null,null);
+			colors.put(name,parsed);
+		}
+		return parsed.value == null ? def : (Color)parsed.value;
+	} //}}}
+
+	//{{{ getFontProperty() method
+	/**
+	 * Returns a font whose family, size and style are the name,
+	 * <i>name</i>size and <i>name</i>style properties.
+	 */
+	Font getFontProperty(String name, Font def)
+	{
+		String family = getProperty(name);
+		String size = getProperty(name + "size");
+		String style = getProperty(name + "style");
+		if(family == null || size == null || style == null)
+			return def;
+		Parsed parsed = fonts.get(name);
+		if(parsed == null || !parsed.isFrom(family,size,style))
+		{
+			Integer sizeValue = parseInteger(size);
+			Integer styleValue = parseInteger(style);
+			Font font = null;
+			if(sizeValue != null && styleValue != null)
+				font = new Font(family,styleValue,sizeValue);
+			parsed = new Parsed(font,family,size,style);
+			fonts.put(name,parsed);
+		}
+		return parsed.value == null ? def : (Font)parsed.value;
 	} //}}}
 
 	//{{{ setProperty() method
-	void setProperty(String name, String value)
+	synchronized void setProperty(String name, String value)
 	{
 		String prop = getDefaultProperty(name);
 
@@ -171,28 +263,32 @@ class PropertyManager
 			else
 				user.setProperty(name,value);
 		}
+		changed(name);
 	} //}}}
 
 	//{{{ setTemporaryProperty() method
-	public void setTemporaryProperty(String name, String value)
+	public synchronized void setTemporaryProperty(String name, String value)
 	{
 		user.remove(name);
 		system.setProperty(name,value);
+		changed(name);
 	} //}}}
 
 	//{{{ unsetProperty() method
-	void unsetProperty(String name)
+	synchronized void unsetProperty(String name)
 	{
 		if(getDefaultProperty(name) != null)
 			user.setProperty(name,"");
 		else
 			user.remove(name);
+		changed(name);
 	} //}}}
 
 	//{{{ resetProperty() method
-	public void resetProperty(String name)
+	public synchronized void resetProperty(String name)
 	{
 		user.remove(name);
+		changed(name);
 	} //}}}
 
 	//{{{ Private members
@@ -203,6 +299,129 @@ class PropertyManager
 	private final List<Properties> pluginLocalizations = new LinkedList<Properties>();
 	private final Properties user = new Properties();
 
+	/** All the properties, null when it has to be rebuilt. */
+	private volatile Map<String,String> flattened;
+	private volatile long generation;
+
+	private final Map<String,Parsed> booleans = new ConcurrentHashMap<String,Parsed>();
+	private final Map<String,Parsed> integers = new ConcurrentHashMap<String,Parsed>();
+	private final Map<String,Parsed> colors = new ConcurrentHashMap<String,Parsed>();
+	private final Map<String,Parsed> fonts = new ConcurrentHashMap<String,Parsed>();
+
+	//{{{ getFlattened() method
+	private Map<String,String> getFlattened()
+	{
+		Map<String,String> values = flattened;
+		if(values != null)
+			return values;
+		synchronized(this)
+		{
+			if(flattened == null)
+			{
+				// from the lowest priority up, each table
+				// overriding the previous ones, in the order
+				// lookup() walks them
+				Map<String,String> all = new ConcurrentHashMap<String,String>(
+					system.size() + localization.size() + 1024);
+				putAll(all,system);
+				for(ListIterator<Properties> iter = plugins.listIterator(plugins.size());
+					iter.hasPrevious(); )
+				{
+					putAll(all,iter.previous());
+				}
+				putAll(all,site);
+				putAll(all,localization);
+				for(ListIterator<Properties> iter = pluginLocalizations.listIterator(
+					pluginLocalizations.size()); iter.hasPrevious(); )
+				{
+					putAll(all,iter.previous());
+				}
+				putAll(all,user);
+				flattened = all;
+			}
+			return flattened;
+		}
+	} //}}}
+
+	//{{{ putAll() method
+	private static void putAll(Map<String,String> into, Properties props)
+	{
+		for(Map.Entry<Object,Object> entry : props.entrySet())
+		{
+			if(entry.getKey() instanceof String
+				&& entry.getValue() instanceof String)
+			{
+				into.put((String)entry.getKey(),(String)entry.getValue());
+			}
+		}
+	} //}}}
+
+	//{{{ invalidate() method
+	/**
+	 * Called with the lock held when a whole table changed.
+	 */
+	private void invalidate()
+	{
+		flattened = null;
+		generation++;
+	} //}}}
+
+	//{{{ changed() method
+	/**
+	 * Called with the lock held when a property changed, to patch the
+	 * flattened properties.
+	 */
+	private void changed(String name)
+	{
+		Map<String,String> values = flattened;
+		if(values != null)
+		{
+			String value = lookup(name);
+			if(value == null)
+				values.remove(name);
+			else
+				values.put(name,value);
+		}
+		generation++;
+	} //}}}
+
+	//{{{ lookup() method
+	/**
+	 * Looks a property up through all the tables.
+	 */
+	private String lookup(String name)
+	{
+		String value = user.getProperty(name);
+		if(value != null)
+			return value;
+
+		for (Properties pluginLocalization : pluginLocalizations)
+		{
+			value = pluginLocalization.getProperty(name);
+			if (value != null)
+				return value;
+		}
+
+		value = localization.getProperty(name);
+		if (value != null)
+			return value;
+
+		return getDefaultProperty(name);
+	} //}}}
+
+	//{{{ parseInteger() method
+	private static Integer parseInteger(String value)
+	{
+		try
+		{
+			return Integer.valueOf(value);
+		}
+		catch(NumberFormatException nf)
+		{
+			return null;
+		}
+	} //}}}
+
 	//{{{ getDefaultProperty() method
 	private String getDefaultProperty(String name)
 	{
@@ -248,5 +467,33 @@ class PropertyManager
 		}
 	} //}}}
 
+	//{{{ Parsed class
+	/**
+	 * A typed value, null if it could not be parsed, and the strings it
+	 * was parsed from.
+	 */
+	private static class Parsed
+	{
+		final Object value;
+		private final String from;
+		private final String from2;
+		private final String from3;
+
+		Parsed(Object value, String from, String from2, String from3)
+		{
+			this.value = value;
+			this.from = from;
+			this.from2 = from2;
+			this.from3 = from3;
+		}
+
+		boolean isFrom(String value, String value2, String value3)
+		{
+			return from.equals(value)
+				&& (from2 == null ? value2 == null : from2.equals(value2))
+				&& (from3 == null ? value3 == null : from3.equals(value3));
+		}
+	} //}}}
+
 	//}}}
 }
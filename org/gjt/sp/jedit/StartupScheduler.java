@@ -0,0 +1,418 @@
+/*
+ * StartupScheduler.java - Runs startup tasks and times the startup
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+//{{{ Imports
+import java.awt.EventQueue;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.gjt.sp.util.Log;
+import org.gjt.sp.util.ThreadUtilities;
+//}}}
+
+/**
+ * Runs the startup tasks that can wait until the first view is shown, and
+ * times the startup.<p>
+ *
+ * A task has a name and the names of the tasks it must run after. The
+ * tasks added before the first view is shown are run once it is, one per
+ * turn of the event queue so the view stays responsive, each one after
+ * the tasks it depends on. A task needed earlier is run on demand with
+ * {@link #runNow(String)}, after its dependencies.<p>
+ *
+ * The splash screen phases, the plugin activations and the tasks are
+ * timed, and a report is logged once all the tasks have run, so that
+ * slow plugins can be spotted. The report also tells whether a class
+ * data sharing archive was given to the JVM, to compare the startup times
+ * with and without it.<p>
+ *
+ * The methods may be called from any thread, since plugins are activated
+ * and macros looked up from any thread. Each task runs once. Until the
+ * first view is shown, it runs in the first thread needing it, and the
+ * other threads needing it wait for it. Afterwards the tasks run in the
+ * event dispatch thread, and {@link #runNow(String)} called from another
+ * thread waits for it there.
+ *
+ * @since jEdit 5.4pre1
+ */
+class StartupScheduler
+{
+	//{{{ phase() method
+	/**
+	 * Starts a new startup phase, ending the previous one.
+	 */
+	static void phase(String label)
+	{
+		synchronized(lock)
+		{
+			if(reported)
+				return;
+			long now = System.nanoTime();
+			if(phaseLabel != null)
+				phases.add(new Timing(phaseLabel,now - phaseStart));
+			phaseLabel = label;
+			phaseStart = now;
+		}
+	} //}}}
+
+	//{{{ pluginStarted() method
+	/**
+	 * Records the time a plugin took to activate.
+	 * @param className the plugin class
+	 * @param nanos the time spent loading and starting it
+	 */
+	static void pluginStarted(String className, long nanos)
+	{
+		synchronized(lock)
+		{
+			if(reported)
+				return;
+			plugins.add(new Timing(className,nanos));
+		}
+	} //}}}
+
+	//{{{ add() method
+	/**
+	 * Adds a task to run once the first view is shown, or right away if
+	 * the tasks are not deferred.
+	 * @param name the task name
+	 * @param task the task
+	 * @param after the names of the tasks to run first; the names of
+	 * tasks never added are ignored
+	 */
+	static void add(String name, Runnable task, Collection<String> after)
+	{
+		synchronized(lock)
+		{
+			tasks.put(name,new Task(name,task,after));
+		}
+	} //}}}
+
+	//{{{ runNow() method
+	/**
+	 * Runs a task that has not run yet, after the tasks it depends on.
+	 */
+	static void runNow(final String name)
+	{
+		Task task;
+		boolean inDispatchThread;
+		synchronized(lock)
+		{
+			task = tasks.get(name);
+			if(task == null || task.done)
+				return;
+			inDispatchThread = viewShownTime != 0
+				&& !EventQueue.isDispatchThread();
+		}
+		if(inDispatchThread)
+		{
+			ThreadUtilities.runInDispatchThreadAndWait(new Runnable()
+			{
+				public void run()
+				{
+					runNow(name);
+				}
+			});
+		}
+		else
+			run(task);
+	} //}}}
+
+	//{{{ runAll() method
+	/**
+	 * Runs all the tasks now, in the order they can run.
+	 */
+	static void runAll()
+	{
+		List<Task> all;
+		synchronized(lock)
+		{
+			all = new ArrayList<Task>(tasks.values());
+		}
+		for(Task task : all)
+			run(task);
+	} //}}}
+
+	//{{{ whenDone() method
+	/**
+	 * Sets what to do once all the tasks have run and the report is
+	 * logged.
+	 */
+	static void whenDone(Runnable task)
+	{
+		synchronized(lock)
+		{
+			done = task;
+		}
+	} //}}}
+
+	//{{{ viewShown() method
+	/**
+	 * Called in the event dispatch thread when the first view is shown.
+	 * Ends the last phase and starts running the deferred tasks.
+	 * @param sinceStartup the time since jEdit started, in milliseconds
+	 */
+	static void viewShown(long sinceStartup)
+	{
+		phase(null);
+		synchronized(lock)
+		{
+			viewShownTime = System.nanoTime();
+			viewShownAfter = sinceStartup;
+		}
+		runNext();
+	} //}}}
+
+	//{{{ Private members
+	/** Guards all the state, including the state of the tasks. */
+	private static final Object lock = new Object();
+	private static final List<Timing> phases = new ArrayList<Timing>();
+	private static final List<Timing> plugins = new ArrayList<Timing>();
+	private static final List<Timing> deferred = new ArrayList<Timing>();
+	private static final Map<String,Task> tasks = new LinkedHashMap<String,Task>();
+	private static String phaseLabel;
+	private static long phaseStart;
+	private static long viewShownTime;
+	private static long viewShownAfter;
+	private static boolean reported;
+	private static Runnable done;
+
+	private StartupScheduler() {}
+
+	//{{{ run() method
+	/**
+	 * Runs a task in the calling thread, unless it was started by
+	 * another thread, in which case this waits for it. The event
+	 * dispatch thread doesn't wait, as the other thread may be waiting
+	 * for it.
+	 */
+	private static void run(Task task)
+	{
+		synchronized(lock)
+		{
+			if(task.runner != null)
+			{
+				// done, or a cycle of dependencies
+				if(task.done || task.runner == Thread.currentThread()
+					|| EventQueue.isDispatchThread())
+				{
+					return;
+				}
+				boolean interrupted = false;
+				while(!task.done)
+				{
+					try
+					{
+						lock.wait();
+					}
+					catch(InterruptedException e)
+					{
+						interrupted = true;
+					}
+				}
+				if(interrupted)
+					Thread.currentThread().interrupt();
+				return;
+			}
+			task.runner = Thread.currentThread();
+		}
+
+		for(String name : task.after)
+			runNow(name);
+		long start = System.nanoTime();
+		try
+		{
+			task.task.run();
+		}
+		catch(Throwable t)
+		{
+			Log.log(Log.ERROR,StartupScheduler.class,"Error in "
+				+ "startup task " + task.name);
+			Log.log(Log.ERROR,StartupScheduler.class,t);
+		}
+
+		synchronized(lock)
+		{
+			task.done = true;
+			if(viewShownTime != 0)
+			{
+				deferred.add(new Timing(task.name,
+					System.nanoTime() - start));
+			}
+			lock.notifyAll();
+		}
+	} //}}}
+
+	//{{{ runNext() method
+	private static void runNext()
+	{
+		Task next = null;
+		synchronized(lock)
+		{
+			for(Task task : tasks.values())
+			{
+				if(task.runner == null)
+				{
+					next = task;
+					break;
+				}
+			}
+			if(next == null)
+				tasks.clear();
+		}
+
+		if(next == null)
+		{
+			report();
+			return;
+		}
+		run(next);
+		EventQueue.invokeLater(new Runnable()
+		{
+			public void run()
+			{
+				runNext();
+			}
+		});
+	} //}}}
+
+	//{{{ report() method
+	private static void report()
+	{
+		StringBuilder buf = new StringBuilder("Startup report:\n");
+		Runnable whenDone;
+		synchronized(lock)
+		{
+			if(reported)
+				return;
+			reported = true;
+
+			for(Timing timing : phases)
+				timing.append(buf,"  ");
+			buf.append("  first view shown after ").append(viewShownAfter)
+				.append(" ms\n");
+			buf.append("  class data archive: ").append(getSharedArchive())
+				.append('\n');
+			if(!deferred.isEmpty())
+			{
+				buf.append("Run after the first view:\n");
+				for(Timing timing : deferred)
+					timing.append(buf,"  ");
+			}
+			if(!plugins.isEmpty())
+			{
+				buf.append("Plugins, slowest first:\n");
+				Collections.sort(plugins,new Comparator<Timing>()
+				{
+					public int compare(Timing t1, Timing t2)
+					{
+						return t1.nanos < t2.nanos ? 1
+							: t1.nanos == t2.nanos ? 0 : -1;
+					}
+				});
+				for(Timing timing : plugins)
+					timing.append(buf,"  ");
+			}
+
+			phases.clear();
+			plugins.clear();
+			deferred.clear();
+			whenDone = done;
+			done = null;
+		}
+		Log.log(Log.MESSAGE,StartupScheduler.class,buf.toString());
+
+		if(whenDone != null)
+			EventQueue.invokeLater(whenDone);
+	} //}}}
+
+	//{{{ getSharedArchive() method
+	/**
+	 * Returns the class data sharing archive given to the JVM. The JVM
+	 * runs without it if it does not match, so this only tells what was
+	 * asked for.
+	 */
+	private static String getSharedArchive()
+	{
+		try
+		{
+			for(String arg : ManagementFactory.getRuntimeMXBean()
+				.getInputArguments())
+			{
+				if(arg.startsWith("-XX:SharedArchiveFile="))
+					return arg.substring(arg.indexOf('=') + 1);
+			}
+		}
+		catch(Exception e)
+		{
+			// the management classes may be missing or denied
+		}
+		return "none";
+	} //}}}
+
+	//{{{ Task class
+	private static class Task
+	{
+		final String name;
+		final Runnable task;
+		final Collection<String> after;
+		/** The thread running the task, once it was started. */
+		Thread runner;
+		boolean done;
+
+		Task(String name, Runnable task, Collection<String> after)
+		{
+			this.name = name;
+			this.task = task;
+			this.after = after;
+		}
+	} //}}}
+
+	//{{{ Timing class
+	private static class Timing
+	{
+		final String label;
+		final long nanos;
+
+		Timing(String label, long nanos)
+		{
+			this.label = label;
+			this.nanos = nanos;
+		}
+
+		void append(StringBuilder buf, String indent)
+		{
+			buf.append(indent).append(label).append(": ")
+				.append(nanos / 1000000L).append(" ms\n");
+		}
+	} //}}}
+
+	//}}}
+}
@@ -165,7 +165,7 @@ class BrowserView extends JPanel
 		final boolean addToHistory, final Runnable delayedAWTTask)
 	{
 		path = MiscUtilities.constructPath(browser.getDirectory(),path);
-		VFS vfs = VFSManager.getVFSForPath(path);
+		VFS vfs = VFSManager.getCachingVFS(VFSManager.getVFSForPath(path));
 
 		Object session = vfs.createVFSSession(path,this);
 		if(session == null)
@@ -182,17 +182,66 @@ class BrowserView extends JPanel
 		}
 
 		final Object[] loadInfo = new Object[2];
+		if(node != null)
+		{
+			Runnable awtRunnable = new Runnable()
+			{
+				public void run()
+				{
+					browser.directoryLoaded(node,loadInfo,addToHistory);
+					if (delayedAWTTask != null)
+						delayedAWTTask.run();
+				}
+			};
+			ThreadUtilities.runInBackground(new ListDirectoryBrowserTask(browser,
+				session, vfs, path, loadInfo, awtRunnable));
+			return;
+		}
+
+		// the root directory is shown while it is listed; the
+		// batches of a listing that was replaced by a newer one
+		// are dropped
+		final int load = ++rootLoads;
+		final boolean[] shown = new boolean[1];
+		VFS.FileListConsumer consumer = new VFS.FileListConsumer()
+		{
+			public boolean filesListed(VFSFile[] files)
+			{
+				if(load != rootLoads)
+					return false;
+				final Object[] batchInfo = { loadInfo[0], files };
+				ThreadUtilities.runInDispatchThread(new Runnable()
+				{
+					public void run()
+					{
+						if(load != rootLoads)
+							return;
+						if(shown[0])
+							browser.directoryBatchLoaded(batchInfo);
+						else
+						{
+							shown[0] = true;
+							browser.directoryLoaded(null,batchInfo,
+								addToHistory);
+						}
+					}
+				});
+				return true;
+			}
+		};
 		Runnable awtRunnable = new Runnable()
 		{
 			public void run()
 			{
-				browser.directoryLoaded(node,loadInfo,addToHistory);
+				// empty directory, or error
+				if(!shown[0] && load == rootLoads)
+					browser.directoryLoaded(null,loadInfo,addToHistory);
 				if (delayedAWTTask != null)
 					delayedAWTTask.run();
 			}
 		};
 		ThreadUtilities.runInBackground(new ListDirectoryBrowserTask(browser,
-			session, vfs, path, loadInfo, awtRunnable));
+			session, vfs, path, loadInfo, consumer, awtRunnable));
 	} //}}}
 
 	//{{{ directoryLoaded() method
@@ -271,6 +320,18 @@ class BrowserView extends JPanel
 			node,directory,tmpExpanded);
 	} //}}}
 
+	//{{{ directoryBatchLoaded() method
+	/**
+	 * Adds entries to the root directory while it is being listed.
+	 *
+	 * @param directory more entries of the root directory
+	 * @since jEdit 5.4pre1
+	 */
+	public void directoryBatchLoaded(java.util.List<VFSFile> directory)
+	{
+		table.addToRoot(directory,tmpExpanded);
+	} //}}}
+
 	//{{{ updateFileView() method
 	public void updateFileView()
 	{
@@ -364,6 +425,8 @@ class BrowserView extends JPanel
 	private final Set<String> tmpExpanded;
 	private BrowserCommandsMenu popup;
 	private boolean showIcons;
+	/** Counts the listings of the root directory, to drop stale ones. */
+	private volatile int rootLoads;
 	//}}}
 
 	//{{{ showFilePopup() method
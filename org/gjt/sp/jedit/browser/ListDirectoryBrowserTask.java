@@ -40,6 +40,8 @@ import java.io.IOException;
 class ListDirectoryBrowserTask extends AbstractBrowserTask
 {
 	private final Object[] loadInfo;
+	private final VFS.FileListConsumer consumer;
+
 	//{{{ BrowserIORequest constructor
 	/**
 	 * Creates a new browser I/O request.
@@ -51,9 +53,30 @@ class ListDirectoryBrowserTask extends AbstractBrowserTask
 	ListDirectoryBrowserTask(VFSBrowser browser,
 		Object session, VFS vfs, String path,
 		Object[] loadInfo, Runnable awtRunnable)
+	{
+		this(browser, session, vfs, path, loadInfo, null, awtRunnable);
+	} //}}}
+
+	//{{{ BrowserIORequest constructor
+	/**
+	 * Creates a new browser I/O request that hands the files to the
+	 * consumer while they are listed.
+	 * @param browser The VFS browser instance
+	 * @param path The first path name to operate on
+	 * @param loadInfo A two-element array filled out by the request;
+	 * element 1 is the canonical path, set before the listing starts,
+	 * element 2 is an empty file list, or null if there was an error.
+	 * @param consumer Receives the files, or null to list them at once
+	 * @since jEdit 5.4pre1
+	 */
+	ListDirectoryBrowserTask(VFSBrowser browser,
+		Object session, VFS vfs, String path,
+		Object[] loadInfo, VFS.FileListConsumer consumer,
+		Runnable awtRunnable)
 	{
 		super(browser, session, vfs, path, awtRunnable);
 		this.loadInfo = loadInfo;
+		this.consumer = consumer;
 	} //}}}
 
 	//{{{ run() method
@@ -71,7 +94,14 @@ class ListDirectoryBrowserTask extends AbstractBrowserTask
 			setCancellable(true);
 
 			canonPath = vfs._canonPath(session, path,browser);
-			directory = vfs._listFiles(session,canonPath,browser);
+			if(consumer == null)
+				directory = vfs._listFiles(session,canonPath,browser);
+			else
+			{
+				loadInfo[0] = canonPath;
+				if(vfs._listFiles(session,canonPath,browser,consumer))
+					directory = new VFSFile[0];
+			}
 		}
 		catch(IOException io)
 		{
@@ -416,6 +416,7 @@ public class VFSBrowser extends JPanel implements DefaultFocusComponent,
 	{
 		super.addNotify();
 		EditBus.addToBus(this);
+		updateDirectoryWatch(path);
 	} //}}}
 
 	//{{{ removeNotify() method
@@ -435,6 +436,7 @@ public class VFSBrowser extends JPanel implements DefaultFocusComponent,
 					((GlobVFSFileFilter)selectedFilter).getGlob());
 		}
 		EditBus.removeFromBus(this);
+		updateDirectoryWatch(null);
 	} //}}}
 
 	//{{{ handlePropertiesChanged() method
@@ -661,7 +663,8 @@ public class VFSBrowser extends JPanel implements DefaultFocusComponent,
 	public void reloadDirectory()
 	{
 		// used by FTP plugin to clear directory cache
-		VFSManager.getVFSForPath(path).reloadDirectory(path);
+		VFSManager.getCachingVFS(VFSManager.getVFSForPath(path))
+			.reloadDirectory(path);
 
 		browserView.saveExpansionState();
 		browserView.loadDirectory(null,path,false);
@@ -1340,6 +1343,39 @@ check_selected:
 
 	boolean autoDetectEncoding;
 
+	//{{{ updateDirectoryWatch() method
+	/**
+	 * Watches the shown directory, if it is local, so that the listing
+	 * is reloaded when other programs change it.
+	 */
+	private void updateDirectoryWatch(String dir)
+	{
+		if(dir != null && !(VFSManager.getVFSForPath(dir) instanceof FileVFS))
+			dir = null;
+		if(Objects.equals(dir,watchedDirectory))
+			return;
+
+		FileWatcher watcher = FileWatcher.getInstance();
+		if(watchedDirectory != null)
+			watcher.unwatch(watchedDirectory);
+		if(dir != null)
+			watcher.watch(dir);
+		watchedDirectory = dir;
+	} //}}}
+
+	//{{{ directoryBatchLoaded() method
+	/**
+	 * Shows more files of the root directory while it is listed, after
+	 * {@link #directoryLoaded(Object,Object[],boolean)} was called with
+	 * the first ones.
+	 */
+	void directoryBatchLoaded(Object[] loadInfo)
+	{
+		List<VFSFile> directoryList = filterFiles((VFSFile[])loadInfo[1]);
+		if(!directoryList.isEmpty())
+			browserView.directoryBatchLoaded(directoryList);
+	} //}}}
+
 	//{{{ directoryLoaded() method
 	void directoryLoaded(Object node, Object[] loadInfo,
 		boolean addToHistory)
@@ -1357,6 +1393,8 @@ check_selected:
 		{
 			// This is the new, canonical path
 			VFSBrowser.this.path = path;
+			if(isShowing())
+				updateDirectoryWatch(path);
 			if(!pathField.getText().equals(path))
 				pathField.setText(path);
 			if(path.endsWith("/") ||
@@ -1376,47 +1414,7 @@ check_selected:
 			}
 		}
 
-		boolean filterEnabled = filterCheckbox.isSelected();
-
-		List<VFSFile> directoryList = new ArrayList<VFSFile>();
-
-		int directories = 0;
-		int files = 0;
-		int invisible = 0;
-
-		if(list != null)
-		{
-			VFSFileFilter filter = getVFSFileFilter();
-
-			for (VFSFile file : list)
-			{
-				if (file.isHidden() && !showHiddenFiles)
-				{
-					invisible++;
-					continue;
-				}
-
-				if (filter != null &&
-				    (filterEnabled || filter instanceof DirectoriesOnlyFilter)
-				    && !filter.accept(file))
-				{
-					invisible++;
-					continue;
-				}
-
-				if (file.getType() == VFSFile.FILE)
-					files++;
-				else
-					directories++;
-
-				directoryList.add(file);
-			}
-
-			Collections.sort(directoryList,
-				new VFS.DirectoryEntryCompare(
-				sortMixFilesAndDirs,
-				sortIgnoreCase));
-		}
+		List<VFSFile> directoryList = filterFiles(list);
 
 		browserView.directoryLoaded(node,path,
 			directoryList);
@@ -1489,6 +1487,7 @@ check_selected:
 	private View view;
 	private boolean horizontalLayout;
 	private String path;
+	private String watchedDirectory;
 	private JPanel pathAndFilterPanel;
 	private HistoryTextField pathField;
 	private JComponent defaultFocusComponent;
@@ -1612,6 +1611,41 @@ check_selected:
 		filterEditor.setEnabled(filterCheckbox.isSelected());
 	} //}}}
 
+	//{{{ filterFiles() method
+	/**
+	 * Returns the files of a listing that are shown, sorted.
+	 */
+	private List<VFSFile> filterFiles(VFSFile[] list)
+	{
+		boolean filterEnabled = filterCheckbox.isSelected();
+
+		List<VFSFile> directoryList = new ArrayList<VFSFile>();
+
+		if(list != null)
+		{
+			VFSFileFilter filter = getVFSFileFilter();
+
+			for (VFSFile file : list)
+			{
+				if (file.isHidden() && !showHiddenFiles)
+					continue;
+
+				if (filter != null &&
+				    (filterEnabled || filter instanceof DirectoriesOnlyFilter)
+				    && !filter.accept(file))
+					continue;
+
+				directoryList.add(file);
+			}
+
+			Collections.sort(directoryList,
+				new VFS.DirectoryEntryCompare(
+				sortMixFilesAndDirs,
+				sortIgnoreCase));
+		}
+		return directoryList;
+	} //}}}
+
 	//{{{ maybeReloadDirectory() method
 	private void maybeReloadDirectory(String dir)
 	{
@@ -220,6 +220,32 @@ public class VFSDirectoryEntryTable extends JTable
 		resizeColumns();
 	} //}}}
 
+	//{{{ addToRoot() method
+	/**
+	 * Shows more entries of the root directory while it is listed.
+	 * @param list the entries
+	 * @param tmpExpanded the paths of the directories to expand again
+	 * @since jEdit 5.4pre1
+	 */
+	public void addToRoot(java.util.List<VFSFile> list,
+		Set<String> tmpExpanded)
+	{
+		VFSDirectoryEntryTableModel model = (VFSDirectoryEntryTableModel)getModel();
+		Entry[] added = model.addToRoot(list);
+
+		for(Entry e : added)
+		{
+			String path = e.dirEntry.getPath();
+			if(tmpExpanded.contains(path))
+			{
+				browserView.loadDirectory(e,path,false);
+				tmpExpanded.remove(path);
+			}
+		}
+
+		widenNameColumn(added);
+	} //}}}
+
 	//{{{ maybeReloadDirectory() method
 	public void maybeReloadDirectory(String path)
 	{
@@ -546,6 +572,44 @@ public class VFSDirectoryEntryTable extends JTable
 		doLayout();
 	} //}}}
 
+	//{{{ widenNameColumn() method
+	/**
+	 * Makes the name column wide enough for the given entries, without
+	 * measuring the others again.
+	 */
+	private void widenNameColumn(Entry[] entries)
+	{
+		FontRenderContext fontRenderContext = new FontRenderContext(null,true,false);
+		TableColumn column = getColumnModel().getColumn(0);
+		int width = column.getPreferredWidth() - 10;
+		int newWidth = width;
+		for(Entry entry : entries)
+		{
+			Font font = entry.dirEntry.getType()
+				== VFSFile.FILE
+				? renderer.plainFont : renderer.boldFont;
+
+			newWidth = Math.max(newWidth,renderer.getEntryWidth(
+				entry,font,fontRenderContext));
+		}
+
+		if(newWidth == width)
+			return;
+
+		try
+		{
+			resizingColumns = true;
+			column.setPreferredWidth(newWidth + 10);
+			column.setWidth(newWidth + 10);
+		}
+		finally
+		{
+			resizingColumns = false;
+		}
+
+		doLayout();
+	} //}}}
+
 	//{{{ saveWidths() method
 	private void saveWidths()
 	{
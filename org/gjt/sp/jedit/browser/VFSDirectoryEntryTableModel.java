@@ -71,6 +71,70 @@ public class VFSDirectoryEntryTableModel extends AbstractTableModel
 		fireTableStructureChanged();
 	} //}}}
 
+	//{{{ addToRoot() method
+	/**
+	 * Adds entries to the root directory, while it is being listed.
+	 * They are sorted and merged with the existing ones, so the
+	 * entries don't need to be sorted again. Only the inserted rows are
+	 * reported, so the selection is kept while the directory loads.
+	 * @param list the entries
+	 * @return the new entries, in their sort order
+	 * @since jEdit 5.4pre1
+	 */
+	public Entry[] addToRoot(List<VFSFile> list)
+	{
+		EntryCompare compare = new EntryCompare(
+			getSortAttribute(sortColumn), ascending);
+
+		Entry[] added = new Entry[list.size()];
+		for(int i = 0; i < added.length; i++)
+			added[i] = new Entry(list.get(i),0);
+		Arrays.sort(added,compare);
+
+		// the children of expanded entries compare like their
+		// parents, so they stay with them
+		Entry[] newFiles = new Entry[files.length + added.length];
+		// the first and last rows of each run of added entries
+		List<int[]> inserted = new ArrayList<int[]>();
+		int i = 0, j = 0, k = 0;
+		while(i < files.length && j < added.length)
+		{
+			if(compare.compare(files[i],added[j]) <= 0)
+				newFiles[k++] = files[i++];
+			else
+			{
+				addRow(inserted,k);
+				newFiles[k++] = added[j++];
+			}
+		}
+		System.arraycopy(files,i,newFiles,k,files.length - i);
+		k += files.length - i;
+		System.arraycopy(added,j,newFiles,k,added.length - j);
+		if(j < added.length)
+		{
+			addRow(inserted,k);
+			inserted.get(inserted.size() - 1)[1] = newFiles.length - 1;
+		}
+		files = newFiles;
+
+		// in increasing order, each one as if the ones before were
+		// already inserted
+		for(int[] rows : inserted)
+			fireTableRowsInserted(rows[0],rows[1]);
+		return added;
+	} //}}}
+
+	//{{{ addRow() method
+	private static void addRow(List<int[]> inserted, int row)
+	{
+		int[] last = inserted.isEmpty() ? null
+			: inserted.get(inserted.size() - 1);
+		if(last != null && last[1] == row - 1)
+			last[1] = row;
+		else
+			inserted.add(new int[] { row, row });
+	} //}}}
+
 	//{{{ expand() method
 	public int expand(VFS vfs, Entry entry, List<VFSFile> list)
 	{
@@ -114,6 +114,8 @@ public class BshClassManager
     protected transient Hashtable resolvedStaticMethods = new Hashtable();
 
     protected transient Hashtable definingClasses = new Hashtable();
+    /** Changed each time the caches are cleared, see CallSiteCache */
+    private transient volatile int generation;
     protected transient Hashtable definingClassesBaseNames = new Hashtable();
 
     /**
@@ -344,11 +346,20 @@ public class BshClassManager
         return method;
     }
 
+    /**
+        Return a number that changes each time the cached classes and
+        methods are dropped, e.g. when the class loader changes.
+    */
+    int getGeneration() {
+        return generation;
+    }
+
     /**
         Clear the caches in BshClassManager
     */
     protected void clearCaches()
     {
+        generation++;
         absoluteNonClasses = new Hashtable();
         absoluteClassCache = new Hashtable();
         resolvedObjectMethods = new Hashtable();
@@ -0,0 +1,113 @@
+/*****************************************************************************
+ *                                                                           *
+ *  This file is part of the BeanShell Java Scripting distribution.          *
+ *  Documentation and updates may be found at http://www.beanshell.org/      *
+ *                                                                           *
+ *  Sun Public License Notice:                                               *
+ *                                                                           *
+ *  The contents of this file are subject to the Sun Public License Version  *
+ *  1.0 (the "License"); you may not use this file except in compliance with *
+ *  the License. A copy of the License is available at http://www.sun.com    * 
+ *                                                                           *
+ *  The Original Code is BeanShell. The Initial Developer of the Original    *
+ *  Code is Pat Niemeyer. Portions created by Pat Niemeyer are Copyright     *
+ *  (C) 2000.  All Rights Reserved.                                          *
+ *                                                                           *
+ *  GNU Public License Notice:                                               *
+ *                                                                           *
+ *  Alternatively, the contents of this file may be used under the terms of  *
+ *  the GNU Lesser General Public License (the "LGPL"), in which case the    *
+ *  provisions of LGPL are applicable instead of those above. If you wish to *
+ *  allow use of your version of this file only under the  terms of the LGPL *
+ *  and not to allow others to use your version of this file under the SPL,  *
+ *  indicate your decision by deleting the provisions above and replace      *
+ *  them with the notice and other provisions required by the LGPL.  If you  *
+ *  do not delete the provisions above, a recipient may use your version of  *
+ *  this file under either the SPL or the LGPL.                              *
+ *                                                                           *
+ *  Patrick Niemeyer (pat@pat.net)                                           *
+ *  Author of Learning Java, O'Reilly & Associates                           *
+ *  http://www.pat.net/~pat/                                                 *
+ *                                                                           *
+ *****************************************************************************/
+
+
+package org.gjt.sp.jedit.bsh;
+
+import java.lang.reflect.Method;
+
+/**
+	The Java method last invoked by a method invocation node, with the class
+	and argument types it was resolved for.
+
+	A node mostly invokes the same method of the same class each time it is
+	evaluated, e.g. in a loop, so the node keeps the method instead of
+	resolving it again through the class manager.  The method is only used
+	while the class, the argument types and the class manager are the same,
+	and while the class manager has not dropped its caches, e.g. because
+	classes were reloaded.
+*/
+final class CallSiteCache
+{
+	private final BshClassManager bcm;
+	private final int generation;
+	private final Class clas;
+	private final String name;
+	private final Class [] types;
+	private final boolean staticOnly;
+	private final Method method;
+
+	private CallSiteCache(
+		BshClassManager bcm, Class clas, String name, Class [] types,
+		boolean staticOnly, Method method )
+	{
+		this.bcm = bcm;
+		this.generation = bcm.getGeneration();
+		this.clas = clas;
+		this.name = name;
+		this.types = types;
+		this.staticOnly = staticOnly;
+		this.method = method;
+	}
+
+	/**
+		Return the method last invoked by the node for this class, name and
+		argument types, or null.
+		@param node the node invoking the method, may be null
+	*/
+	static Method get(
+		SimpleNode node, BshClassManager bcm, Class clas, String name,
+		Class [] types, boolean staticOnly )
+	{
+		if ( node == null || bcm == null )
+			return null;
+		CallSiteCache site = node.callSite;
+		if ( site == null || site.bcm != bcm || site.clas != clas
+			|| site.staticOnly != staticOnly
+			|| site.generation != bcm.getGeneration()
+			|| !site.name.equals( name )
+			|| site.types.length != types.length )
+		{
+			return null;
+		}
+		for ( int i = 0; i < types.length; i++ )
+			if ( site.types[i] != types[i] )
+				return null;
+		return site.method;
+	}
+
+	/**
+		Remember the method invoked by the node.
+		@param node the node invoking the method, may be null
+	*/
+	static void put(
+		SimpleNode node, BshClassManager bcm, Class clas, String name,
+		Class [] types, boolean staticOnly, Method method )
+	{
+		if ( node == null || bcm == null )
+			return;
+		// immutable, so other threads see it whole or not at all
+		node.callSite = new CallSiteCache(
+			bcm, clas, name, types, staticOnly, method );
+	}
+}
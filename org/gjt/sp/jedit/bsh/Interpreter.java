@@ -711,6 +711,63 @@ public class Interpreter
 		return Primitive.unwrap( retVal );
     }
 
+	/**
+		Evaluate a script parsed with ParsedScript.parse() in the specified
+		namespace.  Errors are reported as by eval( Reader, NameSpace,
+		String ), but the Parser is not used.
+	*/
+	public Object eval( ParsedScript script, NameSpace nameSpace )
+		throws EvalError
+	{
+		Object retVal = null;
+		String sourceFileInfo = script.sourceFileInfo;
+		Interpreter localInterpreter =
+			new Interpreter(
+				new StringReader(""), out, err, false, nameSpace, this,
+				sourceFileInfo );
+
+		CallStack callstack = new CallStack( nameSpace );
+
+		for ( SimpleNode node : script.statements )
+		{
+			try {
+				if ( TRACE )
+					println( "// " +node.getText() );
+
+				retVal = node.eval( callstack, localInterpreter );
+
+				if ( retVal instanceof ReturnControl ) {
+					retVal = ((ReturnControl)retVal).value;
+					break; // non-interactive, return control now
+				}
+			} catch ( InterpreterError e ) {
+				e.printStackTrace();
+				throw new EvalError(
+					"Sourced file: "+sourceFileInfo+" internal Error: "
+					+ e.getMessage(), node, callstack);
+			} catch ( TargetError e ) {
+				if ( e.getNode()==null )
+					e.setNode( node );
+				e.reThrow("Sourced file: "+sourceFileInfo);
+			} catch ( EvalError e) {
+				if ( e.getNode()==null )
+					e.setNode( node );
+				e.reThrow( "Sourced file: "+sourceFileInfo );
+			} catch ( Exception e) {
+				throw new EvalError(
+					"Sourced file: "+sourceFileInfo+" unknown error: "
+					+ e.getMessage(), node, callstack);
+			} finally {
+				// reinit the callstack
+				if ( callstack.depth() > 1 ) {
+					callstack.clear();
+					callstack.push( nameSpace );
+				}
+			}
+		}
+		return Primitive.unwrap( retVal );
+	}
+
 	/**
 		Evaluate the inputstream in this interpreter's global namespace.
 	*/
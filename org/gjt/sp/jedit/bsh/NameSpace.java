@@ -35,6 +35,7 @@
 package org.gjt.sp.jedit.bsh;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -82,8 +83,13 @@ public class NameSpace
     */
     private String nsName;
     private NameSpace parent;
-    private Hashtable variables;
-    private Hashtable methods;
+    // Concurrent maps: a namespace such as jEdit's global one is shared
+    // by several threads, and its lookups should not take a lock. The
+    // names and classCache caches stay Hashtables, which are cheaper to
+    // fill in the short lived namespaces of blocks. importedClasses is
+    // seen by subclasses, so it keeps its declared type.
+    private ConcurrentHashMap variables;
+    private ConcurrentHashMap methods;
 
     protected Hashtable importedClasses;
     private Vector importedPackages;
@@ -299,7 +305,7 @@ public class NameSpace
         throws UtilEvalError
     {
         if ( variables == null )
-            variables =	new Hashtable();
+            variables =	new ConcurrentHashMap();
 
         // primitives should have been wrapped
         // {{{ jEdit change
@@ -673,7 +679,7 @@ System.out.println("experiment: creating class manager");
         //checkVariableModifiers( name, modifiers );
 
         if ( variables == null )
-            variables =	new Hashtable();
+            variables =	new ConcurrentHashMap();
 
         // Setting a typed variable is always a local operation.
         Variable existing = getVariableImpl( name, false/*recurse*/ );
@@ -739,7 +745,7 @@ System.out.println("experiment: creating class manager");
         //checkMethodModifiers( method );
 
         if ( methods == null )
-            methods = new Hashtable();
+            methods = new ConcurrentHashMap();
 
         Object m = methods.get(name);
 
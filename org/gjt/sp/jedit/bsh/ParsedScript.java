@@ -0,0 +1,115 @@
+/*****************************************************************************
+ *                                                                           *
+ *  This file is part of the BeanShell Java Scripting distribution.          *
+ *  Documentation and updates may be found at http://www.beanshell.org/      *
+ *                                                                           *
+ *  Sun Public License Notice:                                               *
+ *                                                                           *
+ *  The contents of this file are subject to the Sun Public License Version  *
+ *  1.0 (the "License"); you may not use this file except in compliance with *
+ *  the License. A copy of the License is available at http://www.sun.com    * 
+ *                                                                           *
+ *  The Original Code is BeanShell. The Initial Developer of the Original    *
+ *  Code is Pat Niemeyer. Portions created by Pat Niemeyer are Copyright     *
+ *  (C) 2000.  All Rights Reserved.                                          *
+ *                                                                           *
+ *  GNU Public License Notice:                                               *
+ *                                                                           *
+ *  Alternatively, the contents of this file may be used under the terms of  *
+ *  the GNU Lesser General Public License (the "LGPL"), in which case the    *
+ *  provisions of LGPL are applicable instead of those above. If you wish to *
+ *  allow use of your version of this file only under the  terms of the LGPL *
+ *  and not to allow others to use your version of this file under the SPL,  *
+ *  indicate your decision by deleting the provisions above and replace      *
+ *  them with the notice and other provisions required by the LGPL.  If you  *
+ *  do not delete the provisions above, a recipient may use your version of  *
+ *  this file under either the SPL or the LGPL.                              *
+ *                                                                           *
+ *  Patrick Niemeyer (pat@pat.net)                                           *
+ *  Author of Learning Java, O'Reilly & Associates                           *
+ *  http://www.pat.net/~pat/                                                 *
+ *                                                                           *
+ *****************************************************************************/
+
+
+package org.gjt.sp.jedit.bsh;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+	The statements of a parsed script.
+
+	A script is parsed once with parse() and may then be evaluated any
+	number of times with Interpreter.eval( ParsedScript, NameSpace ),
+	without going through the Parser again.  Like the body of a method, the
+	nodes are shared by all the evaluations.
+*/
+public class ParsedScript
+{
+	final SimpleNode[] statements;
+	final String sourceFileInfo;
+
+	private ParsedScript( SimpleNode[] statements, String sourceFileInfo )
+	{
+		this.statements = statements;
+		this.sourceFileInfo = sourceFileInfo;
+	}
+
+	/**
+		Parse all the statements of a script.  Unlike the Interpreter eval()
+		methods, a syntax error anywhere in the script is reported before
+		any statement is evaluated.
+
+		@param sourceFileInfo An informative string holding the filename
+		or other description of the source, used in error messages.
+		@throws ParseException on syntax errors
+		@throws EvalError on token errors
+	*/
+	public static ParsedScript parse( Reader in, String sourceFileInfo )
+		throws EvalError
+	{
+		Parser parser = new Parser( in );
+		List<SimpleNode> statements = new ArrayList<SimpleNode>();
+		try {
+			boolean eof = false;
+			while ( !eof )
+			{
+				eof = parser.Line();
+				if ( parser.jjtree.nodeArity() > 0 )
+				{
+					SimpleNode node = (SimpleNode)parser.jjtree.rootNode();
+					// nodes remember from where they were sourced
+					node.setSourceFile( sourceFileInfo );
+					statements.add( node );
+				}
+				parser.jjtree.reset();
+			}
+		} catch ( ParseException e ) {
+			e.setErrorSourceFile( sourceFileInfo );
+			throw e;
+		} catch ( TokenMgrError e ) {
+			throw new EvalError(
+				"Sourced file: "+sourceFileInfo+" Token Parsing Error: "
+				+ e.getMessage(), null, null );
+		}
+		return new ParsedScript(
+			statements.toArray( new SimpleNode[statements.size()] ),
+			sourceFileInfo );
+	}
+
+	/**
+		The description of the source given to parse().
+	*/
+	public String getSourceFileInfo() {
+		return sourceFileInfo;
+	}
+
+	/**
+		The number of top level statements.
+	*/
+	public int getStatementCount() {
+		return statements.length;
+	}
+}
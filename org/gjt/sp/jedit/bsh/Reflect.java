@@ -75,7 +75,7 @@ class Reflect
 			Class clas = object.getClass();
 
 			Method method = resolveExpectedJavaMethod(
-				bcm, clas, object, methodName, args, false );
+				bcm, clas, object, methodName, args, false, callerInfo );
 
 			return invokeMethod( method, object, args );
 		} catch ( UtilEvalError e ) {
@@ -91,10 +91,23 @@ class Reflect
     public static Object invokeStaticMethod(
 		BshClassManager bcm, Class clas, String methodName, Object [] args )
         throws ReflectError, UtilEvalError, InvocationTargetException
+    {
+		return invokeStaticMethod( bcm, clas, methodName, args, null );
+	}
+
+    /** 
+		Invoke a method known to be static, remembering the method in the
+		node invoking it.
+		@param callerInfo the node invoking the method, may be null
+	*/
+    static Object invokeStaticMethod(
+		BshClassManager bcm, Class clas, String methodName, Object [] args,
+		SimpleNode callerInfo )
+        throws ReflectError, UtilEvalError, InvocationTargetException
     {
         Interpreter.debug("invoke static Method");
         Method method = resolveExpectedJavaMethod( 
-			bcm, clas, null, methodName, args, true );
+			bcm, clas, null, methodName, args, true, callerInfo );
 		return invokeMethod( method, null, args );
     }
 
@@ -372,13 +385,35 @@ class Reflect
 		BshClassManager bcm, Class clas, Object object, 
 		String name, Object[] args, boolean staticOnly )
         throws ReflectError, UtilEvalError
+    {
+		return resolveExpectedJavaMethod(
+			bcm, clas, object, name, args, staticOnly, null );
+	}
+
+	/**
+		As above, first trying the method last invoked by the node invoking
+		it, if the class and argument types are the same.
+		@param callerInfo the node invoking the method, may be null
+	*/
+    static Method resolveExpectedJavaMethod(
+		BshClassManager bcm, Class clas, Object object, 
+		String name, Object[] args, boolean staticOnly, SimpleNode callerInfo )
+        throws ReflectError, UtilEvalError
     {
 		if ( object == Primitive.NULL )
 			throw new UtilTargetError( new NullPointerException(
 				"Attempt to invoke method " +name+" on null value" ) );
 
 		Class [] types = Types.getTypes(args);
-		Method method = resolveJavaMethod( bcm, clas, name, types, staticOnly );
+		Method method = CallSiteCache.get(
+			callerInfo, bcm, clas, name, types, staticOnly );
+		if ( method == null )
+		{
+			method = resolveJavaMethod( bcm, clas, name, types, staticOnly );
+			if ( method != null )
+				CallSiteCache.put(
+					callerInfo, bcm, clas, name, types, staticOnly, method );
+		}
 
 		if ( method == null )
 			throw new ReflectError(
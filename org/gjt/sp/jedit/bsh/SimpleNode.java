@@ -74,6 +74,9 @@ class SimpleNode implements Node
 	/** the source of the text from which this was parsed */
 	String sourceFile;
 
+	/** the method last invoked by this node, if it invokes methods */
+	transient CallSiteCache callSite;
+
 	public SimpleNode(int i) {
 		id = i;
 	}
@@ -801,6 +801,125 @@ public class JEditBuffer
 		}
 	} //}}}
 
+	//{{{ replace() method
+	/**
+	 * Replaces several ranges of the buffer by the same text, for
+	 * example to type at several carets. The content and the lines are
+	 * changed in one pass, and the listeners see one removal and one
+	 * insertion covering all the ranges, instead of one event per
+	 * range. Positions move as if the ranges had been replaced one by
+	 * one, and there is one undo step.
+	 * @param starts The start offsets of the ranges, sorted
+	 * @param ends The end offsets of the ranges; a range doesn't overlap
+	 * the next one
+	 * @param text The text replacing every range, may be null or empty
+	 * to remove them
+	 * @since jEdit 5.4pre1
+	 */
+	public void replace(int[] starts, int[] ends, CharSequence text)
+	{
+		int count = starts.length;
+		int textLength = text == null ? 0 : text.length();
+
+		try
+		{
+			writeLock();
+
+			boolean changed = textLength != 0;
+			for(int i = 0; i < count; i++)
+			{
+				if(starts[i] < (i == 0 ? 0 : ends[i - 1]) || ends[i] < starts[i]
+					|| ends[i] > contentMgr.getLength())
+				{
+					throw new ArrayIndexOutOfBoundsException(starts[i] + ":" + ends[i]);
+				}
+				if(ends[i] != starts[i])
+					changed = true;
+			}
+			if(count == 0 || !changed)
+				return;
+
+			beginCompoundEdit();
+			try
+			{
+				transaction = true;
+
+				int spanStart = starts[0];
+				int spanEnd = ends[count - 1];
+				Segment old = new Segment();
+				contentMgr.getText(spanStart,spanEnd - spanStart,old);
+				StringBuilder buf = new StringBuilder(spanEnd - spanStart
+					+ count * textLength);
+				boolean clearDirty = !dirty;
+				for(int i = 0; i < count; i++)
+				{
+					if(i != 0)
+					{
+						buf.append(old.array,old.offset + ends[i - 1] - spanStart,
+							starts[i] - ends[i - 1]);
+					}
+
+					// the undo history has the ranges one by one, so
+					// that it doesn't keep copies of the whole span
+					int offset = spanStart + buf.length();
+					int length = ends[i] - starts[i];
+					if(!undoInProgress && !loading)
+					{
+						if(length != 0)
+						{
+							undoMgr.contentRemoved(offset,length,
+								new String(old.array,old.offset
+								+ starts[i] - spanStart,length),
+								clearDirty);
+							clearDirty = false;
+						}
+						if(textLength != 0)
+						{
+							undoMgr.contentInserted(offset,textLength,
+								text.toString(),clearDirty);
+							clearDirty = false;
+						}
+					}
+					if(textLength != 0)
+						buf.append(text);
+				}
+
+				int startLine = lineMgr.getLineOfOffset(spanStart);
+				int numLines = lineMgr.getLineOfOffset(spanEnd) - startLine;
+				firePreContentRemoved(startLine,spanStart,numLines,spanEnd - spanStart);
+				contentMgr.remove(spanStart,spanEnd - spanStart);
+				lineMgr.contentRemoved(startLine,spanStart,numLines,spanEnd - spanStart);
+				fireContentRemoved(startLine,spanStart,numLines,spanEnd - spanStart);
+
+				integerArray.clear();
+				for(int i = 0; i < buf.length(); i++)
+				{
+					if(buf.charAt(i) == '\n')
+						integerArray.add(i + 1);
+				}
+				numLines = integerArray.getSize();
+				firePreContentInserted(startLine,spanStart,numLines,buf.length());
+				contentMgr.insert(spanStart,buf);
+				lineMgr.contentInserted(startLine,spanStart,numLines,buf.length(),
+					integerArray);
+				positionMgr.contentReplaced(starts,ends,textLength);
+
+				setDirty(true);
+
+				fireContentInserted(startLine,spanStart,numLines,buf.length());
+			}
+			finally
+			{
+				transaction = false;
+				endCompoundEdit();
+			}
+		}
+		finally
+		{
+			writeUnlock();
+		}
+	} //}}}
+
 	//}}}
 
 	//{{{ Indentation
@@ -1392,6 +1511,29 @@ loop:		for(int i = 0; i < seg.count; i++)
 		}
 	} //}}}
 
+	//{{{ markTokens() method
+	/**
+	 * Returns the syntax tokens for the specified line, marked after the
+	 * given context. Unlike {@link #markTokens(int,TokenHandler)}, the
+	 * line contexts of the buffer are neither used nor updated, so a
+	 * caller can tokenize the buffer with its own contexts, in another
+	 * thread holding the read lock.
+	 * @param lineIndex The line number
+	 * @param prevContext The context at the end of the previous line, or
+	 * null for the first line
+	 * @param tokenHandler The token handler that will receive the syntax
+	 * tokens
+	 * @return the context at the end of the line
+	 * @since jEdit 5.4pre1
+	 */
+	public TokenMarker.LineContext markTokens(int lineIndex,
+		TokenMarker.LineContext prevContext, TokenHandler tokenHandler)
+	{
+		Segment seg = new Segment();
+		getLineText(lineIndex,seg);
+		return markTokens(seg,prevContext,tokenHandler);
+	} //}}}
+
 	//{{{ getTokenMarker() method
 	public TokenMarker getTokenMarker()
 	{
@@ -100,6 +100,50 @@ class PositionManager
 
 	} //}}}
 
+	//{{{ contentReplaced() method
+	/**
+	 * Moves the positions as if the ranges were replaced one by one
+	 * by text of the given length, in one pass.
+	 * @see JEditBuffer#replace(int[],int[],CharSequence)
+	 */
+	public synchronized void contentReplaced(int[] starts, int[] ends, int length)
+	{
+		if(positions.isEmpty())
+			return;
+
+		Iterator<PosBottomHalf> iter = positions.tailMap(new PosBottomHalf(starts[0]))
+			.keySet().iterator();
+
+		iteration = true;
+		int range = 0;
+		int delta = 0;
+		while(iter.hasNext())
+		{
+			PosBottomHalf bh = iter.next();
+			while(range < starts.length && ends[range] < bh.offset)
+			{
+				delta += length - (ends[range] - starts[range]);
+				range++;
+			}
+			if(range < starts.length && starts[range] <= bh.offset)
+			{
+				// the position ends up after the new text, where
+				// the next range starts if the two ranges meet
+				int last = range;
+				int lastDelta = delta;
+				while(last + 1 < starts.length && starts[last + 1] == ends[last])
+				{
+					lastDelta += length - (ends[last] - starts[last]);
+					last++;
+				}
+				bh.offset = starts[last] + lastDelta + length;
+			}
+			else
+				bh.offset += delta;
+		}
+		iteration = false;
+	} //}}}
+
 	boolean iteration;
 
 	//{{{ Private members
@@ -0,0 +1,477 @@
+/*
+ * AutosaveJournal.java - Incremental autosave log of buffer edits
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.bufferio;
+
+//{{{ Imports
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.gjt.sp.jedit.buffer.BufferAdapter;
+import org.gjt.sp.jedit.buffer.JEditBuffer;
+import org.gjt.sp.util.IOUtilities;
+import org.gjt.sp.util.Log;
+//}}}
+
+/**
+ * An append-only log of the edits made to a buffer since its last autosave
+ * snapshot.<p>
+ *
+ * The plain autosave writes the whole buffer every time, which for a large
+ * buffer costs far more than the few keystrokes typed since the previous
+ * autosave. In journal mode, the autosave file <code>#name#</code> is only
+ * written now and then as a full snapshot; in between, the inserts and
+ * removals the buffer reported since the last autosave are appended to
+ * <code>#name#journal#</code>.<p>
+ *
+ * The journal starts with a header identifying the snapshot it applies to,
+ * by its size and CRC-32, so a journal left over from an older snapshot is
+ * never replayed over a newer one. Every record carries its own length and
+ * CRC-32, so a record torn by a crash in the middle of a write is detected
+ * and replay stops before it. New snapshots are written to a temporary file
+ * and moved over the old one before the journal is started again.<p>
+ *
+ * This object is registered as a listener of the buffer. The listener
+ * methods run with the buffer write lock held, and {@link #append()} and
+ * {@link #commitSnapshot(File,long,int)} may run in another thread.
+ * The latter must be called with the buffer read lock held, so that no
+ * edit can happen between the snapshot and the start of the new journal.
+ *
+ * @since jEdit 5.4pre1
+ */
+public class AutosaveJournal extends BufferAdapter
+{
+	//{{{ AutosaveJournal constructor
+	/**
+	 * @param snapshot the autosave file the journal applies to
+	 */
+	public AutosaveJournal(File snapshot)
+	{
+		this.snapshot = snapshot;
+		file = getJournalFile(snapshot);
+		pending = new ArrayList<Edit>();
+	} //}}}
+
+	//{{{ getJournalFile() method
+	/**
+	 * Returns the journal file of an autosave file.
+	 */
+	public static File getJournalFile(File snapshot)
+	{
+		return new File(snapshot.getParentFile(),
+			snapshot.getName() + "journal#");
+	} //}}}
+
+	//{{{ getSnapshotTempFile() method
+	/**
+	 * Returns the file a new snapshot should be written to, before it is
+	 * passed to {@link #commitSnapshot(File,long,int)}.
+	 */
+	public File getSnapshotTempFile()
+	{
+		return new File(snapshot.getParentFile(),
+			snapshot.getName() + "snapshot#");
+	} //}}}
+
+	//{{{ contentInserted() method
+	@Override
+	public void contentInserted(JEditBuffer buffer, int startLine,
+		int offset, int numLines, int length)
+	{
+		if(buffer.isLoading())
+			return;
+		String text = buffer.getText(offset,length);
+		synchronized(pending)
+		{
+			pending.add(new Edit(INSERT,offset,length,text));
+		}
+	} //}}}
+
+	//{{{ contentRemoved() method
+	@Override
+	public void contentRemoved(JEditBuffer buffer, int startLine,
+		int offset, int numLines, int length)
+	{
+		if(buffer.isLoading())
+			return;
+		synchronized(pending)
+		{
+			pending.add(new Edit(REMOVE,offset,length,null));
+		}
+	} //}}}
+
+	//{{{ append() method
+	/**
+	 * Appends the edits made since the last call to the journal.
+	 * @return false if a new snapshot must be written instead, because
+	 * there is none yet or the journal has grown too large
+	 * @throws IOException if the journal could not be written. The
+	 * journal is then discarded, so that the next autosave takes a new
+	 * snapshot.
+	 */
+	public synchronized boolean append() throws IOException
+	{
+		if(!started || size > Math.max(MIN_SNAPSHOT_INTERVAL,snapshotSize)
+			|| appendCount >= MAX_APPENDS)
+		{
+			return false;
+		}
+
+		List<Edit> edits;
+		synchronized(pending)
+		{
+			if(pending.isEmpty())
+				return true;
+			edits = new ArrayList<Edit>(pending);
+			pending.clear();
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for(Edit edit : edits)
+			writeRecord(out,edit);
+		out.flush();
+
+		try
+		{
+			write(bytes.toByteArray(),true);
+		}
+		catch(IOException e)
+		{
+			started = false;
+			throw e;
+		}
+		size += bytes.size();
+		appendCount++;
+		return true;
+	} //}}}
+
+	//{{{ commitSnapshot() method
+	/**
+	 * Replaces the autosave file by a new snapshot, and starts a new
+	 * journal for it. Must be called with the buffer read lock held.
+	 * @param temp the new snapshot, see {@link #getSnapshotTempFile()}
+	 * @param checksum the CRC-32 of the snapshot bytes
+	 * @param length the buffer length when the snapshot was taken
+	 */
+	public synchronized void commitSnapshot(File temp, long checksum,
+		int length) throws IOException
+	{
+		started = false;
+		synchronized(pending)
+		{
+			pending.clear();
+		}
+
+		try
+		{
+			Files.move(temp.toPath(),snapshot.toPath(),
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(AtomicMoveNotSupportedException e)
+		{
+			Files.move(temp.toPath(),snapshot.toPath(),
+				StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		// from here on, the old journal no longer matches the
+		// snapshot, so a crash before the header is complete
+		// only loses the journal, not the snapshot
+		snapshotSize = snapshot.length();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeLong(snapshotSize);
+		out.writeLong(checksum);
+		out.writeInt(length);
+		out.flush();
+		write(bytes.toByteArray(),false);
+
+		size = bytes.size();
+		appendCount = 0;
+		started = true;
+	} //}}}
+
+	//{{{ delete() method
+	/**
+	 * Deletes the journal file and forgets the recorded edits. The next
+	 * autosave writes a new snapshot.
+	 */
+	public synchronized void delete()
+	{
+		started = false;
+		synchronized(pending)
+		{
+			pending.clear();
+		}
+		file.delete();
+	} //}}}
+
+	//{{{ replay() method
+	/**
+	 * Applies the journal of an autosave file to a buffer that was just
+	 * loaded from it. Nothing is done if there is no journal, or if it
+	 * was written for another snapshot. Replay stops at the first
+	 * incomplete or corrupt record.
+	 * @param snapshot the autosave file
+	 * @param buffer the buffer holding the content of the autosave file
+	 * @return the number of edits applied, or -1 if there is no usable
+	 * journal
+	 */
+	public static int replay(File snapshot, JEditBuffer buffer)
+		throws IOException
+	{
+		File file = getJournalFile(snapshot);
+		if(!file.exists())
+			return -1;
+
+		DataInputStream in = new DataInputStream(
+			new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			long snapshotSize;
+			long checksum;
+			int length;
+			try
+			{
+				if(in.readInt() != MAGIC)
+					return -1;
+				snapshotSize = in.readLong();
+				checksum = in.readLong();
+				length = in.readInt();
+			}
+			catch(EOFException e)
+			{
+				return -1;
+			}
+
+			if(snapshot.length() != snapshotSize
+				|| getChecksum(snapshot) != checksum
+				|| buffer.getLength() != length)
+			{
+				Log.log(Log.WARNING,AutosaveJournal.class,
+					file + " does not match " + snapshot);
+				return -1;
+			}
+
+			int count = 0;
+			long remaining = file.length() - HEADER_SIZE;
+			for(;;)
+			{
+				Edit edit = readRecord(in,remaining);
+				if(edit == null)
+					break;
+				remaining -= edit.recordSize;
+
+				if(edit.offset < 0 || edit.offset > buffer.getLength()
+					|| (edit.type == REMOVE && edit.length
+					> buffer.getLength() - edit.offset))
+				{
+					Log.log(Log.WARNING,AutosaveJournal.class,
+						file + ": edit out of bounds");
+					break;
+				}
+
+				if(edit.type == INSERT)
+					buffer.insert(edit.offset,edit.text);
+				else
+					buffer.remove(edit.offset,edit.length);
+				count++;
+			}
+			return count;
+		}
+		finally
+		{
+			IOUtilities.closeQuietly(in);
+		}
+	} //}}}
+
+	//{{{ getChecksum() method
+	/**
+	 * Returns the CRC-32 of a file.
+	 */
+	public static long getChecksum(File file) throws IOException
+	{
+		CRC32 crc = new CRC32();
+		InputStream in = new FileInputStream(file);
+		try
+		{
+			byte[] buf = new byte[BufferIORequest.IOBUFSIZE];
+			int read;
+			while((read = in.read(buf)) != -1)
+				crc.update(buf,0,read);
+		}
+		finally
+		{
+			IOUtilities.closeQuietly(in);
+		}
+		return crc.getValue();
+	} //}}}
+
+	//{{{ Private members
+	private static final int MAGIC = 0x6a454a31; // "jEJ1"
+	private static final int HEADER_SIZE = 4 + 8 + 8 + 4;
+
+	/** Snapshot again once the journal is larger than the snapshot. */
+	private static final long MIN_SNAPSHOT_INTERVAL = 64 * 1024;
+	/** ... or after this many autosaves. */
+	private static final int MAX_APPENDS = 20;
+
+	private static final byte INSERT = 'I';
+	private static final byte REMOVE = 'R';
+
+	private final File snapshot;
+	private final File file;
+	/** Edits not written yet, also the lock for them. */
+	private final List<Edit> pending;
+
+	private boolean started;
+	private long snapshotSize;
+	private long size;
+	private int appendCount;
+
+	//{{{ write() method
+	private void write(byte[] bytes, boolean append) throws IOException
+	{
+		FileOutputStream out = new FileOutputStream(file,append);
+		try
+		{
+			out.write(bytes);
+			out.getChannel().force(false);
+		}
+		finally
+		{
+			out.close();
+		}
+	} //}}}
+
+	//{{{ writeRecord() method
+	/**
+	 * Writes a record: payload length, payload, CRC-32 of the payload.
+	 */
+	private static void writeRecord(DataOutputStream out, Edit edit)
+		throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream payload = new DataOutputStream(bytes);
+		payload.writeByte(edit.type);
+		payload.writeInt(edit.offset);
+		payload.writeInt(edit.length);
+		if(edit.type == INSERT)
+			payload.writeChars(edit.text);
+		payload.flush();
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+		out.writeInt((int)crc.getValue());
+	} //}}}
+
+	//{{{ readRecord() method
+	/**
+	 * Reads a record.
+	 * @param remaining the number of bytes left in the file
+	 * @return the edit, or null at the end of the journal or at a torn or
+	 * corrupt record
+	 */
+	private static Edit readRecord(DataInputStream in, long remaining)
+		throws IOException
+	{
+		try
+		{
+			int payloadLength = in.readInt();
+			if(payloadLength < 9 || payloadLength > remaining - 8)
+				return null;
+			byte[] payload = new byte[payloadLength];
+			in.readFully(payload);
+			int checksum = in.readInt();
+
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			if((int)crc.getValue() != checksum)
+				return null;
+
+			DataInputStream data = new DataInputStream(
+				new ByteArrayInputStream(payload));
+			byte type = data.readByte();
+			int offset = data.readInt();
+			int length = data.readInt();
+			String text = null;
+			if(type == INSERT)
+			{
+				if(payloadLength != 9 + length * 2L)
+					return null;
+				char[] chars = new char[length];
+				for(int i = 0; i < length; i++)
+					chars[i] = data.readChar();
+				text = new String(chars);
+			}
+			else if(type != REMOVE || payloadLength != 9)
+				return null;
+
+			Edit edit = new Edit(type,offset,length,text);
+			edit.recordSize = payloadLength + 8;
+			return edit;
+		}
+		catch(EOFException e)
+		{
+			return null;
+		}
+	} //}}}
+
+	//}}}
+
+	//{{{ Edit class
+	private static class Edit
+	{
+		final byte type;
+		final int offset;
+		final int length;
+		final String text;
+		int recordSize;
+
+		Edit(byte type, int offset, int length, String text)
+		{
+			this.type = type;
+			this.offset = offset;
+			this.length = length;
+			this.text = text;
+		}
+	} //}}}
+}
@@ -25,12 +25,22 @@ package org.gjt.sp.jedit.bufferio;
 //{{{ Imports
 import java.io.BufferedOutputStream;
 import java.io.CharConversionException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.MalformedInputException;
 
 import javax.swing.text.Segment;
 
@@ -40,9 +50,12 @@ import org.gjt.sp.jedit.View;
 import org.gjt.sp.jedit.jEdit;
 import org.gjt.sp.jedit.buffer.JEditBuffer;
 import org.gjt.sp.jedit.io.VFS;
+import org.gjt.sp.jedit.io.CharsetEncoding;
 import org.gjt.sp.jedit.io.Encoding;
+import org.gjt.sp.jedit.io.EncodingWithBOM;
 import org.gjt.sp.jedit.io.EncodingServer;
 import org.gjt.sp.util.IntegerArray;
+import org.gjt.sp.util.ProgressObserver;
 import org.gjt.sp.util.SegmentBuffer;
 //}}}
 
@@ -344,24 +357,227 @@ public abstract class BufferIORequest extends IoTask
 	} //}}}
 
 	//{{{ write() method
+	/**
+	 * Writes the buffer content to the stream, encoded with the buffer
+	 * encoding and with its line separator.<p>
+	 *
+	 * Encodings backed by a {@link java.nio.charset.Charset} are written
+	 * in bulk, see {@link #writeBulk}. Other encodings go through their
+	 * text writer, one line at a time.
+	 */
 	protected void write(Buffer buffer, OutputStream out)
 		throws IOException, InterruptedException
 	{
 		String encodingName
 			= buffer.getStringProperty(JEditBuffer.ENCODING);
 		Encoding encoding = EncodingServer.getEncoding(encodingName);
-		Writer writer = encoding.getTextWriter(
-			new BufferedOutputStream(out, getByteIOBufferSize()));
 
-		Segment lineSegment = new Segment();
 		String newline = buffer.getStringProperty(JEditBuffer.LINESEP);
 		if(newline == null)
 			newline = System.getProperty("line.separator");
+		boolean trailingEOL = jEdit.getBooleanProperty("stripTrailingEOL")
+			&& buffer.getBooleanProperty(Buffer.TRAILING_EOL);
 
-		final int bufferLineCount = buffer.getLineCount();
-		setMaximum(bufferLineCount / PROGRESS_INTERVAL);
+		setMaximum(buffer.getLineCount() / PROGRESS_INTERVAL);
 		setValue(0);
 
+		try
+		{
+			if(encoding instanceof CharsetEncoding)
+			{
+				writeBulk(buffer, out,
+					((CharsetEncoding)encoding).getCharset(), null,
+					newline, trailingEOL, this);
+			}
+			else if(encoding instanceof EncodingWithBOM)
+			{
+				EncodingWithBOM withBOM = (EncodingWithBOM)encoding;
+				writeBulk(buffer, out, withBOM.getCharset(),
+					withBOM.getByteOrderMark(), newline,
+					trailingEOL, this);
+			}
+			else
+			{
+				writeLines(buffer, out, encodingName, encoding,
+					newline, trailingEOL);
+			}
+		}
+		catch(EncodingErrorException e)
+		{
+			throw createEncodingError(buffer, encodingName, encoding,
+				e.getOffset(), e.getCause());
+		}
+	} //}}}
+
+	//{{{ Package-private members
+
+	//{{{ EncodingErrorException class
+	/**
+	 * Thrown by {@link #writeBulk} with the buffer offset of the first
+	 * character that can't be encoded.
+	 */
+	static class EncodingErrorException extends CharConversionException
+	{
+		EncodingErrorException(int offset, CharacterCodingException cause)
+		{
+			this.offset = offset;
+			initCause(cause);
+		}
+
+		int getOffset()
+		{
+			return offset;
+		}
+
+		@Override
+		public CharacterCodingException getCause()
+		{
+			return (CharacterCodingException)super.getCause();
+		}
+
+		private final int offset;
+	} //}}}
+
+	//{{{ writeBulk() method
+	/**
+	 * Writes the buffer without a Writer: chunks of the content are read
+	 * in place from the two halves of the gap buffer, newlines are
+	 * converted per chunk if the line separator isn't a single
+	 * <code>\n</code>, and each chunk is encoded at once with a
+	 * CharsetEncoder into a reused byte buffer, which is written to the
+	 * file channel of the stream, or to a channel wrapping it for other
+	 * streams. Lines are only looked up for progress.
+	 * @throws EncodingErrorException if a character can't be encoded
+	 */
+	static void writeBulk(JEditBuffer buffer, OutputStream out,
+		Charset charset, byte[] bom, String newline, boolean trailingEOL,
+		ProgressObserver progress)
+		throws IOException, InterruptedException
+	{
+		// CodingErrorAction.REPORT is the default
+		CharsetEncoder encoder = charset.newEncoder();
+		WritableByteChannel channel;
+		if(out instanceof FileOutputStream)
+			channel = ((FileOutputStream)out).getChannel();
+		else
+			channel = Channels.newChannel(out);
+		ByteBuffer bytes = byteBuffer.get();
+		bytes.clear();
+
+		try
+		{
+			if(bom != null)
+				bytes.put(bom);
+
+			boolean convert = !"\n".equals(newline);
+			char[] converted = null;
+			Segment seg = new Segment();
+			int length = buffer.getLength();
+			int offset = 0;
+			while(offset < length)
+			{
+				if(Thread.interrupted())
+					throw new InterruptedException();
+
+				buffer.getText(offset, Math.min(CHUNK_SIZE,
+					length - offset), seg);
+				// don't split surrogate pairs between chunks
+				if(offset + seg.count < length && seg.count > 1
+					&& Character.isHighSurrogate(
+					seg.array[seg.offset + seg.count - 1]))
+				{
+					seg.count--;
+				}
+
+				CharBuffer chars;
+				if(convert)
+				{
+					int max = seg.count * newline.length();
+					if(converted == null || converted.length < max)
+						converted = new char[max];
+					int count = convertNewlines(seg, newline,
+						converted);
+					chars = CharBuffer.wrap(converted, 0, count);
+				}
+				else
+				{
+					chars = CharBuffer.wrap(seg.array, seg.offset,
+						seg.count);
+				}
+
+				CoderResult result = encode(encoder, chars, false,
+					bytes, channel);
+				if(result.isError() || chars.hasRemaining())
+				{
+					int errorOffset = convert
+						? offset + getSourceIndex(seg, newline,
+							chars.position())
+						: offset + chars.position() - seg.offset;
+					throw new EncodingErrorException(errorOffset,
+						getException(result));
+				}
+
+				offset += seg.count;
+				progress.setValue(buffer.getLineOfOffset(offset)
+					/ PROGRESS_INTERVAL);
+			}
+
+			CharBuffer end = CharBuffer.wrap(trailingEOL ? newline : "");
+			CoderResult result = encode(encoder, end, true, bytes, channel);
+			if(result.isError())
+			{
+				throw new EncodingErrorException(length,
+					getException(result));
+			}
+			while(encoder.flush(bytes).isOverflow())
+				drain(bytes, channel);
+			drain(bytes, channel);
+		}
+		catch(ClosedByInterruptException e)
+		{
+			throw new InterruptedException();
+		}
+	} //}}}
+
+	//}}}
+
+	//{{{ Private members
+
+	/** Number of characters encoded at once by the bulk save path. */
+	private static final int CHUNK_SIZE = IOBUFSIZE * 2;
+
+	/**
+	 * Byte buffer of each I/O thread, reused from one save to the next.
+	 * It is a heap buffer: the charset encoders only have their fast
+	 * array loops for array-backed buffers, which costs much more than
+	 * the copy the file channel makes into its own direct buffer.
+	 */
+	private static final ThreadLocal<ByteBuffer> byteBuffer
+		= new ThreadLocal<ByteBuffer>()
+	{
+		@Override
+		protected ByteBuffer initialValue()
+		{
+			return ByteBuffer.allocate(getByteIOBufferSize() * 4);
+		}
+	};
+
+	//{{{ writeLines() method
+	/**
+	 * Writes the buffer one line at a time with the text writer of the
+	 * encoding.
+	 */
+	private void writeLines(JEditBuffer buffer, OutputStream out,
+		String encodingName, Encoding encoding, String newline,
+		boolean trailingEOL)
+		throws IOException, InterruptedException
+	{
+		Writer writer = encoding.getTextWriter(
+			new BufferedOutputStream(out, getByteIOBufferSize()));
+
+		Segment lineSegment = new Segment();
+		final int bufferLineCount = buffer.getLineCount();
+
 		int i = 0;
 		while(i < bufferLineCount)
 		{
@@ -374,9 +590,7 @@ public abstract class BufferIORequest extends IoTask
 				writer.write(lineSegment.array,
 					lineSegment.offset,
 					lineSegment.count);
-				if(i < bufferLineCount - 1
-					|| (jEdit.getBooleanProperty("stripTrailingEOL")
-						&& buffer.getBooleanProperty(Buffer.TRAILING_EOL)))
+				if(i < bufferLineCount - 1 || trailingEOL)
 				{
 					writer.write(newline);
 				}
@@ -397,7 +611,119 @@ public abstract class BufferIORequest extends IoTask
 		writer.flush();
 	} //}}}
 
-	//{{{ Private members
+	//{{{ encode() method
+	/**
+	 * Encodes characters, writing the byte buffer to the channel each
+	 * time it is full.
+	 * @return the underflow result, or the error
+	 */
+	private static CoderResult encode(CharsetEncoder encoder,
+		CharBuffer chars, boolean endOfInput, ByteBuffer bytes,
+		WritableByteChannel channel) throws IOException
+	{
+		while(true)
+		{
+			CoderResult result = encoder.encode(chars, bytes, endOfInput);
+			if(!result.isOverflow())
+				return result;
+			drain(bytes, channel);
+		}
+	} //}}}
+
+	//{{{ drain() method
+	private static void drain(ByteBuffer bytes, WritableByteChannel channel)
+		throws IOException
+	{
+		bytes.flip();
+		while(bytes.hasRemaining())
+			channel.write(bytes);
+		bytes.clear();
+	} //}}}
+
+	//{{{ convertNewlines() method
+	/**
+	 * Copies the segment, replacing every <code>\n</code> with the line
+	 * separator.
+	 * @return the number of characters copied
+	 */
+	private static int convertNewlines(Segment seg, String newline,
+		char[] converted)
+	{
+		int count = 0;
+		int end = seg.offset + seg.count;
+		int newlineLength = newline.length();
+		for(int i = seg.offset; i < end; i++)
+		{
+			char c = seg.array[i];
+			if(c == '\n')
+			{
+				for(int j = 0; j < newlineLength; j++)
+					converted[count++] = newline.charAt(j);
+			}
+			else
+				converted[count++] = c;
+		}
+		return count;
+	} //}}}
+
+	//{{{ getSourceIndex() method
+	/**
+	 * Maps an index in the output of
+	 * {@link #convertNewlines(Segment,String,char[])} back to an index
+	 * in the segment.
+	 */
+	private static int getSourceIndex(Segment seg, String newline,
+		int convertedIndex)
+	{
+		int converted = 0;
+		for(int i = 0; i < seg.count; i++)
+		{
+			converted += seg.array[seg.offset + i] == '\n'
+				? newline.length() : 1;
+			if(converted > convertedIndex)
+				return i;
+		}
+		return seg.count;
+	} //}}}
+
+	//{{{ createEncodingError() method
+	/**
+	 * Creates the exception reporting an encoding error at the given
+	 * buffer offset, with the message of the line based save path.
+	 */
+	private static IOException createEncodingError(JEditBuffer buffer,
+		String encodingName, Encoding encoding, int offset,
+		CharacterCodingException cause)
+	{
+		int line = buffer.getLineOfOffset(Math.min(offset,
+			buffer.getLength()));
+		Segment lineSegment = new Segment();
+		buffer.getLineText(line, lineSegment);
+		String message = getWriteEncodingErrorMessage(encodingName,
+			encoding, lineSegment, line);
+		IOException wrapping = new CharConversionException(message);
+		wrapping.initCause(cause);
+		return wrapping;
+	} //}}}
+
+	//{{{ getException() method
+	/**
+	 * Returns the exception of an encoder error, or of the characters it
+	 * left unencoded at the end of the input.
+	 */
+	private static CharacterCodingException getException(CoderResult result)
+	{
+		try
+		{
+			if(result.isError())
+				result.throwException();
+			throw new MalformedInputException(1);
+		}
+		catch(CharacterCodingException e)
+		{
+			return e;
+		}
+	} //}}}
 
 	//{{{ createEncodingErrorMessage() method
 	private static String getWriteEncodingErrorMessage(
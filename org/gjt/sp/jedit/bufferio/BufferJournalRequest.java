@@ -0,0 +1,124 @@
+/*
+ * BufferJournalRequest.java - Journal autosave I/O request
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.bufferio;
+
+//{{{ Imports
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.gjt.sp.jedit.Buffer;
+import org.gjt.sp.jedit.View;
+import org.gjt.sp.jedit.jEdit;
+import org.gjt.sp.jedit.io.VFS;
+import org.gjt.sp.jedit.io.VFSManager;
+import org.gjt.sp.util.IOUtilities;
+import org.gjt.sp.util.Log;
+//}}}
+
+/**
+ * A buffer autosave request in journal mode. Appends the edits made since
+ * the previous autosave to the {@link AutosaveJournal}, or writes a full
+ * snapshot when the journal asks for one.
+ * @since jEdit 5.4pre1
+ */
+public class BufferJournalRequest extends BufferIORequest
+{
+	//{{{ BufferJournalRequest constructor
+	/**
+	 * Creates a new buffer I/O request.
+	 * @param view The view
+	 * @param buffer The buffer
+	 * @param session The VFS session
+	 * @param vfs The VFS
+	 * @param path The path of the autosave file
+	 * @param journal The journal of the buffer
+	 */
+	public BufferJournalRequest(View view, Buffer buffer,
+		Object session, VFS vfs, String path, AutosaveJournal journal)
+	{
+		super(view,buffer,session,vfs,path);
+		this.journal = journal;
+	} //}}}
+
+	//{{{ run() method
+	public void _run()
+	{
+		String[] args = { vfs.getFileName(path) };
+		setStatus(jEdit.getProperty("vfs.status.autosave",args));
+
+		try
+		{
+			if(!journal.append())
+				writeSnapshot();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch(Exception e)
+		{
+			Log.log(Log.ERROR,this,e);
+			String[] pp = { e.toString() };
+			VFSManager.error(view,path,"ioerror.write-error",pp);
+		}
+	} //}}}
+
+	//{{{ Private members
+	private final AutosaveJournal journal;
+
+	//{{{ writeSnapshot() method
+	private void writeSnapshot() throws IOException, InterruptedException
+	{
+		setCancellable(true);
+
+		File temp = journal.getSnapshotTempFile();
+		CheckedOutputStream out = null;
+		boolean done = false;
+		try
+		{
+			buffer.readLock();
+			if(!buffer.isDirty())
+				return;
+			out = new CheckedOutputStream(new FileOutputStream(temp),
+				new CRC32());
+			write(buffer,out);
+			out.close();
+			journal.commitSnapshot(temp,out.getChecksum().getValue(),
+				buffer.getLength());
+			done = true;
+		}
+		finally
+		{
+			buffer.readUnlock();
+			IOUtilities.closeQuietly(out);
+			// incomplete snapshots should not exist
+			if(!done)
+				temp.delete();
+		}
+	} //}}}
+
+	//}}}
+}
@@ -154,19 +154,6 @@ public class BufferLoadRequest extends BufferIORequest
 		throw new IOException("Unable to get a Stream for " + path);
 	} //}}}
 
-	//{{{ getContentLength() method
-	/**
-	 * Returns content length of this load request.
-	 */
-	private long getContentLength() throws IOException
-	{
-		VFSFile entry = vfs._getFile(session,path,view);
-		if(entry != null)
-			return entry.getLength();
-		else
-			return 0L;
-	} //}}}
-
 	//{{{ rewindContentsStream() method
 	/**
 	 * Returns rewinded contents stream.
@@ -220,38 +207,34 @@ public class BufferLoadRequest extends BufferIORequest
 	 */
 	private void readContents() throws IOException, InterruptedException
 	{
-		long length = getContentLength();
+		VFSFile entry = vfs._getFile(session,path,view);
+		long length = entry == null ? 0L : entry.getLength();
+		long modified = entry == null ? 0L : entry.getModified();
 
 		BufferedInputStream markedStream
 			= AutoDetection.getMarkedStream(getNakedStream());
 		try
 		{
 			boolean gzipped = false;
-			// encodingProviders is consist of given
-			// encodings as String or contents-aware
-			// detectors as EncodingDetector.
-			List<Object> encodingProviders
-				= new ArrayList<Object>();
+			List<String> encodings = new ArrayList<String>();
 
 			boolean autodetect = buffer.getBooleanProperty(Buffer.ENCODING_AUTODETECT);
-			if(autodetect)
+			// a search may have sniffed the file already
+			AutoDetection.Summary summary = autodetect
+				? AutoDetection.getCachedSummary(path,length,modified)
+				: null;
+			if(summary != null)
+			{
+				gzipped = summary.isGzipped();
+			}
+			else if(autodetect)
 			{
 				gzipped = AutoDetection.isGzipped(markedStream);
 				markedStream.reset();
-
-				encodingProviders.addAll(AutoDetection.getEncodingDetectors());
-				// If the detected encoding fail, fallback to
-				// the original encoding.
-				encodingProviders.add(buffer.getStringProperty(JEditBuffer.ENCODING));
-
-				String fallbackEncodings = jEdit.getProperty("fallbackEncodings");
-				if(fallbackEncodings != null && fallbackEncodings.length() > 0)
-					Collections.addAll(encodingProviders, fallbackEncodings.split("\\s+"));
 			}
 			else
 			{
 				gzipped = buffer.getBooleanProperty(Buffer.GZIPPED);
-				encodingProviders.add(buffer.getStringProperty(JEditBuffer.ENCODING));
 			}
 
 			if(gzipped)
@@ -261,25 +244,40 @@ public class BufferLoadRequest extends BufferIORequest
 					new GZIPInputStream(markedStream));
 			}
 
-			Set<String> failedEncodings = new HashSet<String>();
-			Exception encodingError = null;
-			for(Object encodingProvider: encodingProviders)
+			if(autodetect)
 			{
-				String encoding = null;
-				if (encodingProvider instanceof String)
+				if(summary == null)
 				{
-					encoding = (String)encodingProvider;
-				}
-				else if(encodingProvider instanceof EncodingDetector)
-				{
-					markedStream = rewindContentsStream(markedStream, gzipped);
-					encoding = ((EncodingDetector)encodingProvider).detectEncoding(new BufferedInputStream(markedStream));
-				}
-				else
-				{
-					Log.log(Log.DEBUG, this, "Strange encodingProvider: " + encodingProvider);
+					summary = new AutoDetection.Summary(gzipped,
+						AutoDetection.readSample(markedStream));
+					AutoDetection.cacheSummary(path,length,modified,summary);
 				}
+				encodings.addAll(summary.getDetectedEncodings());
+				// If the detected encoding fail, fallback to
+				// the original encoding.
+				encodings.add(buffer.getStringProperty(JEditBuffer.ENCODING));
 
+				String fallbackEncodings = jEdit.getProperty("fallbackEncodings");
+				if(fallbackEncodings != null && fallbackEncodings.length() > 0)
+					Collections.addAll(encodings, fallbackEncodings.split("\\s+"));
+				// The guess from the raw bytes is only tried when
+				// all of these failed.
+				encodings.add(summary.getGuessedEncoding());
+			}
+			else
+			{
+				encodings.add(buffer.getStringProperty(JEditBuffer.ENCODING));
+			}
+
+			// the other detectors only run if the first detected
+			// encoding fails
+			boolean detectAgain = autodetect
+				&& !summary.getDetectedEncodings().isEmpty();
+			Set<String> failedEncodings = new HashSet<String>();
+			Exception encodingError = null;
+			for(int i = 0; i < encodings.size(); i++)
+			{
+				String encoding = encodings.get(i);
 				if(encoding == null || encoding.length() <= 0
 					|| failedEncodings.contains(encoding))
 				{
@@ -321,6 +319,14 @@ public class BufferLoadRequest extends BufferIORequest
 				Log.log(Log.NOTICE, this, path + ": " + encoding
 					+ ": " + encodingError);
 				failedEncodings.add(encoding);
+				if(detectAgain)
+				{
+					detectAgain = false;
+					markedStream = rewindContentsStream(markedStream, gzipped);
+					encodings.addAll(i + 1, AutoDetection.getDetectedEncodings(
+						AutoDetection.readSample(markedStream),
+						AutoDetection.getEncodingDetectors(), true));
+				}
 			}
 			// All possible detectors and encodings failed.
 			Object[] pp = { TextUtilities.join(failedEncodings,","), "" };
@@ -0,0 +1,232 @@
+/*
+ * EditBusMonitor.java - Shows EditBus handler timings
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.gui;
+
+//{{{ Imports
+import org.gjt.sp.jedit.EditBusMetrics;
+import org.gjt.sp.jedit.GUIUtilities;
+import org.gjt.sp.jedit.jEdit;
+
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+//}}}
+
+/** EditBus Monitor dockable panel, showing how long the EditBus handlers
+ * take, per message type and component, to find the plugins that slow
+ * down the user interface.
+ * @see EditBusMetrics
+ * @since jEdit 5.4pre1
+ */
+public class EditBusMonitor extends JPanel
+{
+	private final StatsTableModel model;
+	private final JTable table;
+	private final JSpinner budget;
+	private final Timer timer;
+
+	//{{{ EditBusMonitor constructor
+	public EditBusMonitor()
+	{
+		super(new BorderLayout());
+		JPanel caption = new JPanel();
+		caption.setLayout(new BoxLayout(caption, BoxLayout.X_AXIS));
+		caption.setBorder(BorderFactory.createEmptyBorder(6, 3, 6, 3));
+
+		caption.add(new JLabel(jEdit.getProperty("editbus-monitor.budget")));
+		int budgetMillis = (int) (EditBusMetrics.getBudget() / 1000000L);
+		budget = new JSpinner(new SpinnerNumberModel(budgetMillis, 1, 10000, 1));
+		budget.addChangeListener(new ChangeListener()
+		{
+			public void stateChanged(ChangeEvent e)
+			{
+				int value = ((Number) budget.getValue()).intValue();
+				jEdit.setIntegerProperty("editbus.budget", value);
+				EditBusMetrics.setBudget(value * 1000000L);
+			}
+		});
+		budget.setMaximumSize(budget.getPreferredSize());
+		caption.add(budget);
+		caption.add(Box.createHorizontalGlue());
+
+		JButton reset = new JButton(jEdit.getProperty("editbus-monitor.reset"));
+		reset.addActionListener(new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				EditBusMetrics.reset();
+				update();
+			}
+		});
+		caption.add(reset);
+		add(caption, BorderLayout.NORTH);
+
+		model = new StatsTableModel();
+		table = new JTable(model);
+		table.setRowHeight(GUIUtilities.defaultRowHeight());
+		table.setAutoCreateRowSorter(true);
+		add(new JScrollPane(table));
+
+		timer = new Timer(1000, new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				update();
+			}
+		});
+		update();
+	} //}}}
+
+	//{{{ addNotify() method
+	@Override
+	public void addNotify()
+	{
+		super.addNotify();
+		timer.start();
+	} //}}}
+
+	//{{{ removeNotify() method
+	@Override
+	public void removeNotify()
+	{
+		timer.stop();
+		super.removeNotify();
+	} //}}}
+
+	//{{{ update() method
+	private void update()
+	{
+		List<EditBusMetrics.Stats> stats = EditBusMetrics.getStats();
+		if(model.update(stats))
+			return;
+
+		// new rows, select the same statistics again
+		List<EditBusMetrics.Stats> selected
+			= new ArrayList<EditBusMetrics.Stats>();
+		for(int row : table.getSelectedRows())
+			selected.add(model.stats.get(table.convertRowIndexToModel(row)));
+		model.replace(stats);
+		for(EditBusMetrics.Stats s : selected)
+		{
+			int index = stats.indexOf(s);
+			if(index != -1)
+			{
+				int row = table.convertRowIndexToView(index);
+				table.addRowSelectionInterval(row, row);
+			}
+		}
+	} //}}}
+
+	//{{{ StatsTableModel class
+	private static class StatsTableModel extends AbstractTableModel
+	{
+		private List<EditBusMetrics.Stats> stats
+			= new ArrayList<EditBusMetrics.Stats>();
+
+		//{{{ update() method
+		/**
+		 * Refreshes the values if the rows are the same statistics,
+		 * which keeps the selection.
+		 * @return false if the rows changed, and nothing was done
+		 */
+		boolean update(List<EditBusMetrics.Stats> newStats)
+		{
+			if(!newStats.equals(stats))
+				return false;
+			if(!stats.isEmpty())
+				fireTableRowsUpdated(0, stats.size() - 1);
+			return true;
+		} //}}}
+
+		//{{{ replace() method
+		void replace(List<EditBusMetrics.Stats> newStats)
+		{
+			stats = newStats;
+			fireTableDataChanged();
+		} //}}}
+
+		//{{{ getRowCount() method
+		public int getRowCount()
+		{
+			return stats.size();
+		} //}}}
+
+		//{{{ getColumnCount() method
+		public int getColumnCount()
+		{
+			return 10;
+		} //}}}
+
+		//{{{ getColumnName() method
+		@Override
+		public String getColumnName(int column)
+		{
+			return jEdit.getProperty("editbus-monitor.column." + column);
+		} //}}}
+
+		//{{{ getColumnClass() method
+		@Override
+		public Class<?> getColumnClass(int column)
+		{
+			return column < 3 ? String.class : Long.class;
+		} //}}}
+
+		//{{{ getValueAt() method
+		public Object getValueAt(int rowIndex, int columnIndex)
+		{
+			EditBusMetrics.Stats s = stats.get(rowIndex);
+			switch (columnIndex)
+			{
+				case 0:
+					return s.getMessageType();
+				case 1:
+					return s.getComponent();
+				case 2:
+					String plugin = s.getPlugin();
+					return plugin == null
+						? jEdit.getProperty("editbus-monitor.core")
+						: plugin;
+				case 3:
+					return s.getCount();
+				case 4:
+					return s.getOverBudgetCount();
+				case 5:
+					return s.getTotal() / Math.max(1L, s.getCount()) / 1000L;
+				case 6:
+					return s.getPercentile(50.0) / 1000L;
+				case 7:
+					return s.getPercentile(99.0) / 1000L;
+				case 8:
+					return s.getMax() / 1000L;
+				default:
+					return s.getTotal() / 1000L;
+			}
+		} //}}}
+	} //}}}
+}
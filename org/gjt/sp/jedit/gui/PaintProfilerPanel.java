@@ -0,0 +1,248 @@
+/*
+ * PaintProfilerPanel.java - Shows text area paint timings
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.gui;
+
+//{{{ Imports
+import org.gjt.sp.jedit.GUIUtilities;
+import org.gjt.sp.jedit.jEdit;
+import org.gjt.sp.jedit.textarea.PaintProfiler;
+
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+//}}}
+
+/** Paint Profiler dockable panel, showing where text area repaints spend
+ * their time.
+ * @see PaintProfiler
+ * @since jEdit 5.4pre1
+ */
+public class PaintProfilerPanel extends JPanel
+{
+	private final SectionTableModel model;
+	private final JCheckBox enabled;
+	private final JSpinner budget;
+	private final JLabel frames;
+	private final Timer timer;
+	private long sequence;
+
+	//{{{ PaintProfilerPanel constructor
+	public PaintProfilerPanel()
+	{
+		super(new BorderLayout());
+		JPanel caption = new JPanel();
+		caption.setLayout(new BoxLayout(caption, BoxLayout.X_AXIS));
+		caption.setBorder(BorderFactory.createEmptyBorder(6, 3, 6, 3));
+
+		enabled = new JCheckBox(jEdit.getProperty("paint-profiler.enabled"),
+			PaintProfiler.isEnabled());
+		enabled.addActionListener(new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				PaintProfiler.setEnabled(enabled.isSelected());
+			}
+		});
+		caption.add(enabled);
+		caption.add(Box.createHorizontalStrut(12));
+
+		caption.add(new JLabel(jEdit.getProperty("paint-profiler.budget.label")));
+		int budgetMillis = (int) (PaintProfiler.getFrameBudget() / 1000000L);
+		budget = new JSpinner(new SpinnerNumberModel(budgetMillis, 1, 1000, 1));
+		budget.addChangeListener(new ChangeListener()
+		{
+			public void stateChanged(ChangeEvent e)
+			{
+				int value = ((Number) budget.getValue()).intValue();
+				jEdit.setIntegerProperty("paint-profiler.budget", value);
+				PaintProfiler.setFrameBudget(value * 1000000L);
+			}
+		});
+		budget.setMaximumSize(budget.getPreferredSize());
+		caption.add(budget);
+		caption.add(Box.createHorizontalStrut(12));
+
+		frames = new JLabel();
+		caption.add(frames);
+		caption.add(Box.createHorizontalGlue());
+
+		JButton reset = new JButton(jEdit.getProperty("paint-profiler.reset"));
+		reset.addActionListener(new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				PaintProfiler.reset();
+				model.clear();
+				updateFrames();
+			}
+		});
+		caption.add(reset);
+		add(caption, BorderLayout.NORTH);
+
+		model = new SectionTableModel();
+		JTable table = new JTable(model);
+		table.setRowHeight(GUIUtilities.defaultRowHeight());
+		table.setAutoCreateRowSorter(true);
+		add(new JScrollPane(table));
+
+		timer = new Timer(1000, new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				sequence = PaintProfiler.readSamples(sequence, model);
+				model.fireTableDataChanged();
+				updateFrames();
+			}
+		});
+		updateFrames();
+	} //}}}
+
+	//{{{ addNotify() method
+	@Override
+	public void addNotify()
+	{
+		super.addNotify();
+		timer.start();
+	} //}}}
+
+	//{{{ removeNotify() method
+	@Override
+	public void removeNotify()
+	{
+		timer.stop();
+		super.removeNotify();
+	} //}}}
+
+	//{{{ updateFrames() method
+	private void updateFrames()
+	{
+		frames.setText(jEdit.getProperty("paint-profiler.frames",
+			new Object[]{PaintProfiler.getFrameCount(),
+				PaintProfiler.getOverBudgetFrameCount(),
+				PaintProfiler.getRequestedLineCount(),
+				PaintProfiler.getDamagedLineCount(),
+				PaintProfiler.getPaintedLineCount()}));
+	} //}}}
+
+	//{{{ Section class
+	private static class Section
+	{
+		final String name;
+		long count;
+		long total;
+		long max;
+		long last;
+
+		Section(String name)
+		{
+			this.name = name;
+		}
+	} //}}}
+
+	//{{{ SectionTableModel class
+	private static class SectionTableModel extends AbstractTableModel
+		implements PaintProfiler.SampleVisitor
+	{
+		private final List<Section> sections = new ArrayList<Section>();
+		private final Map<String, Section> sectionMap = new HashMap<String, Section>();
+
+		//{{{ visit() method
+		public void visit(long sequence, String name, long nanos, long time)
+		{
+			Section section = sectionMap.get(name);
+			if (section == null)
+			{
+				section = new Section(name);
+				sectionMap.put(name, section);
+				sections.add(section);
+			}
+			section.count++;
+			section.total += nanos;
+			section.max = Math.max(section.max, nanos);
+			section.last = nanos;
+		} //}}}
+
+		//{{{ clear() method
+		void clear()
+		{
+			sections.clear();
+			sectionMap.clear();
+			fireTableDataChanged();
+		} //}}}
+
+		//{{{ getRowCount() method
+		public int getRowCount()
+		{
+			return sections.size();
+		} //}}}
+
+		//{{{ getColumnCount() method
+		public int getColumnCount()
+		{
+			return 6;
+		} //}}}
+
+		//{{{ getColumnName() method
+		@Override
+		public String getColumnName(int column)
+		{
+			return jEdit.getProperty("paint-profiler.column." + column);
+		} //}}}
+
+		//{{{ getColumnClass() method
+		@Override
+		public Class<?> getColumnClass(int column)
+		{
+			return column == 0 ? String.class : Long.class;
+		} //}}}
+
+		//{{{ getValueAt() method
+		public Object getValueAt(int rowIndex, int columnIndex)
+		{
+			Section section = sections.get(rowIndex);
+			switch (columnIndex)
+			{
+				case 0:
+					return section.name;
+				case 1:
+					return section.count;
+				case 2:
+					return section.total / 1000L;
+				case 3:
+					return section.total / section.count / 1000L;
+				case 4:
+					return section.max / 1000L;
+				default:
+					return section.last / 1000L;
+			}
+		} //}}}
+	} //}}}
+}
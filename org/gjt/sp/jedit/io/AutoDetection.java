@@ -24,9 +24,14 @@ package org.gjt.sp.jedit.io;
 //{{{ Imports
 import java.io.InputStream;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 import java.util.zip.GZIPInputStream;
 
 import org.gjt.sp.jedit.jEdit;
@@ -36,7 +41,13 @@ import org.gjt.sp.util.Log;
 //}}}
 
 /**
- * Some functions for auto detection of I/O stream properties.
+ * Some functions for auto detection of I/O stream properties.<p>
+ *
+ * The detections look at a sample of the beginning of the stream, read
+ * once, so every detector and the binary check see the same bytes
+ * without rewinding the stream. Their results are remembered by path,
+ * length and modification time, so a file found by a search is not
+ * sniffed again when it is opened.
  */
 public class AutoDetection
 {
@@ -84,6 +95,17 @@ public class AutoDetection
 		String propName = "encodingDetectors";
 		String selectedDetectors
 			= jEdit.getProperty(propName);
+		synchronized(summaries)
+		{
+			// the cached results came from other detectors
+			if(selectedDetectors == null
+				? lastDetectors != null
+				: !selectedDetectors.equals(lastDetectors))
+			{
+				summaries.clear();
+				lastDetectors = selectedDetectors;
+			}
+		}
 		if (selectedDetectors != null
 			&& selectedDetectors.length() > 0)
 		{
@@ -116,24 +138,196 @@ public class AutoDetection
 	public static String getDetectedEncoding(BufferedInputStream markedStream)
 		throws IOException
 	{
-		List<EncodingDetector> detectors = getEncodingDetectors();
+		List<String> detected = getDetectedEncodings(
+			readSample(markedStream),getEncodingDetectors(),false);
+		return detected.isEmpty() ? null : detected.get(0);
+	} //}}}
+
+	//{{{ getDetectedEncodings() method
+	/**
+	 * Returns the encodings detected in a sample by the detectors, in
+	 * the order of the detectors, without duplicates.
+	 * @param sample the beginning of the contents
+	 * @param detectors the detectors to run
+	 * @param all false to stop at the first detector which finds an
+	 * encoding, true to run all of them
+	 * @since jEdit 5.4pre1
+	 */
+	public static List<String> getDetectedEncodings(byte[] sample,
+		List<EncodingDetector> detectors, boolean all) throws IOException
+	{
+		List<String> encodings = new ArrayList<String>(2);
 		for (EncodingDetector detector: detectors)
 		{
-			// FIXME: Here the method reset() can fail if the
-			// previous detector read more than buffer size of
-			// markedStream.
-			markedStream.reset();
-			// Wrap once more so that calling mark()
-			// or reset() in detectEncoding() don't
-			// alter the mark position of markedStream.
 			String detected = detector.detectEncoding(
-				new BufferedInputStream(markedStream));
-			if (detected != null)
+				new ByteArrayInputStream(sample));
+			if (detected != null && detected.length() > 0
+				&& !encodings.contains(detected))
+			{
+				encodings.add(detected);
+				if (!all)
+					break;
+			}
+		}
+		return encodings;
+	} //}}}
+
+	//{{{ readSample() method
+	/**
+	 * Returns the beginning of the contents of markedStream, as much as
+	 * its mark allows, and rewinds it.
+	 * This method assumes that markedStream is wrapped by
+	 * getMarkedStream() method.
+	 * @since jEdit 5.4pre1
+	 */
+	public static byte[] readSample(BufferedInputStream markedStream)
+		throws IOException
+	{
+		markedStream.reset();
+		byte[] sample = new byte[BufferIORequest.getByteIOBufferSize()];
+		int length = 0;
+		while (length < sample.length)
+		{
+			int read = markedStream.read(sample, length,
+				sample.length - length);
+			if (read == -1)
+				break;
+			length += read;
+		}
+		markedStream.reset();
+		return length == sample.length ? sample
+			: Arrays.copyOf(sample, length);
+	} //}}}
+
+	//{{{ getCachedSummary() method
+	/**
+	 * Returns the detections of a file, if it was already sniffed with
+	 * the same length and modification time, or null.
+	 * @param path the path of the file
+	 * @param length its length
+	 * @param modified its modification time, 0 if unknown
+	 * @since jEdit 5.4pre1
+	 */
+	public static Summary getCachedSummary(String path, long length,
+		long modified)
+	{
+		if (modified == 0L)
+			return null;
+		synchronized (summaries)
+		{
+			CachedSummary cached = summaries.get(path);
+			if (cached == null || cached.length != length
+				|| cached.modified != modified)
 			{
-				return detected;
+				return null;
 			}
+			return cached.summary;
+		}
+	} //}}}
+
+	//{{{ cacheSummary() method
+	/**
+	 * Remembers the detections of a file, for
+	 * {@link #getCachedSummary(String,long,long)}.
+	 * @param path the path of the file
+	 * @param length its length
+	 * @param modified its modification time. Nothing is cached if it is
+	 * 0, since changes could not be noticed
+	 * @param summary the detections
+	 * @since jEdit 5.4pre1
+	 */
+	public static void cacheSummary(String path, long length,
+		long modified, Summary summary)
+	{
+		if (modified == 0L)
+			return;
+		synchronized (summaries)
+		{
+			summaries.put(path,
+				new CachedSummary(length, modified, summary));
 		}
-		return null;
+	} //}}}
+
+	//{{{ class Summary
+	/**
+	 * The results of the auto detections of a stream, which don't
+	 * depend on the stream anymore.
+	 * @since jEdit 5.4pre1
+	 */
+	public static class Summary
+	{
+		//{{{ Summary constructor
+		/**
+		 * Runs the configured encoding detectors, until one of
+		 * them finds an encoding, and a {@link ByteClassifier} on a
+		 * sample.
+		 * @param gzipped true if the stream is gzipped
+		 * @param sample the beginning of the contents, gunzipped
+		 * @see #readSample(BufferedInputStream)
+		 */
+		public Summary(boolean gzipped, byte[] sample) throws IOException
+		{
+			this.gzipped = gzipped;
+			encodings = Collections.unmodifiableList(
+				AutoDetection.getDetectedEncodings(sample,
+					getEncodingDetectors(), false));
+			ByteClassifier classifier = ByteClassifier.classify(sample);
+			guessedEncoding = classifier.getGuessedEncoding();
+			// If an encoding is detected, this is a text stream
+			binary = encodings.isEmpty() && classifier.isBinary(
+				jEdit.getIntegerProperty("vfs.binaryCheck.length",100),
+				jEdit.getIntegerProperty("vfs.binaryCheck.count",1));
+		} //}}}
+
+		//{{{ Summary constructor
+		public Summary(boolean gzipped, List<String> encodings,
+			String guessedEncoding, boolean binary)
+		{
+			this.gzipped = gzipped;
+			this.encodings = Collections.unmodifiableList(
+				new ArrayList<String>(encodings));
+			this.guessedEncoding = guessedEncoding;
+			this.binary = binary;
+		} //}}}
+
+		//{{{ isGzipped() method
+		public boolean isGzipped()
+		{
+			return gzipped;
+		} //}}}
+
+		//{{{ getDetectedEncodings() method
+		/**
+		 * Returns the encoding found by the first detector which
+		 * found one. The list is empty if no encoding was detected.
+		 */
+		public List<String> getDetectedEncodings()
+		{
+			return encodings;
+		} //}}}
+
+		//{{{ getGuessedEncoding() method
+		/**
+		 * Returns the encoding guessed from the bytes, or null.
+		 * @see ByteClassifier#getGuessedEncoding()
+		 */
+		public String getGuessedEncoding()
+		{
+			return guessedEncoding;
+		} //}}}
+
+		//{{{ isBinary() method
+		public boolean isBinary()
+		{
+			return binary;
+		} //}}}
+
+		//{{{ Private members
+		private final boolean gzipped;
+		private final List<String> encodings;
+		private final String guessedEncoding;
+		private final boolean binary;
+		//}}}
 	} //}}}
 
 	//{{{ class Result
@@ -152,7 +346,7 @@ public class AutoDetection
 		{
 			BufferedInputStream marked = getMarkedStream(in);
 
-			gzipped = isGzipped(marked);
+			boolean gzipped = isGzipped(marked);
 			if (gzipped)
 			{
 				marked.reset();
@@ -160,9 +354,7 @@ public class AutoDetection
 					new GZIPInputStream(marked));
 			}
 
-			marked.reset();
-			encoding = AutoDetection.getDetectedEncoding(marked);
-
+			summary = new Summary(gzipped, readSample(marked));
 			markedStream = marked;
 		} //}}}
 
@@ -186,7 +378,7 @@ public class AutoDetection
 		 */
 		public boolean streamIsGzipped()
 		{
-			return gzipped;
+			return summary.isGzipped();
 		} //}}}
 
 		//{{{ getDetectedEncoding()
@@ -196,17 +388,56 @@ public class AutoDetection
 		 */
 		public String getDetectedEncoding()
 		{
-			return encoding;
+			List<String> encodings = summary.getDetectedEncodings();
+			return encodings.isEmpty() ? null : encodings.get(0);
+		} //}}}
+
+		//{{{ isBinary()
+		/**
+		 * Returns true if no encoding was detected, and the
+		 * beginning of the stream looks like binary data.
+		 * @see ByteClassifier#isBinary(int,int)
+		 * @since jEdit 5.4pre1
+		 */
+		public boolean isBinary()
+		{
+			return summary.isBinary();
+		} //}}}
+
+		//{{{ getSummary()
+		/**
+		 * Returns the detections, without the stream.
+		 * @since jEdit 5.4pre1
+		 */
+		public Summary getSummary()
+		{
+			return summary;
 		} //}}}
 
 		//{{{ Private members
 		private final BufferedInputStream markedStream;
-		private final boolean gzipped;
-		private final String encoding;
+		private final Summary summary;
 		//}}}
 	} //}}}
 
 	//{{{ Private members
+	private static final int CACHE_SIZE = 1024;
+
+	/** The detections of the last files sniffed, by path. */
+	private static final Map<String, CachedSummary> summaries
+		= new LinkedHashMap<String, CachedSummary>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(
+			Map.Entry<String, CachedSummary> eldest)
+		{
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/** The detectors the cached summaries were made with. */
+	private static String lastDetectors;
+
 	/**
 	 * Returns a service of EncodingDetector for name.
 	 */
@@ -223,5 +454,20 @@ public class AutoDetection
 			return null;
 		}
 	}
+
+	//{{{ CachedSummary class
+	private static class CachedSummary
+	{
+		final long length;
+		final long modified;
+		final Summary summary;
+
+		CachedSummary(long length, long modified, Summary summary)
+		{
+			this.length = length;
+			this.modified = modified;
+			this.summary = summary;
+		}
+	} //}}}
 	//}}}
 }
@@ -0,0 +1,365 @@
+/*
+ * ByteClassifier.java - Classifies raw bytes as text or binary
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+//{{{ Imports
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+//}}}
+
+/**
+ * Classifies a sample of raw bytes without decoding it: byte order mark,
+ * ASCII, valid UTF-8, NUL and control bytes, and a guess between UTF-16
+ * and ISO-8859-1.<p>
+ *
+ * The bytes are scanned eight at a time, as a <code>long</code>: words
+ * of printable ASCII are checked with a few arithmetic operations, and
+ * only the words holding other bytes are looked at byte by byte. NUL
+ * bytes are counted separately at even and odd offsets, which tells
+ * UTF-16 text without byte order mark from binary data.
+ *
+ * @since jEdit 5.4pre1
+ */
+public class ByteClassifier
+{
+	//{{{ classify() methods
+	/**
+	 * Classifies the bytes of a sample.
+	 */
+	public static ByteClassifier classify(byte[] sample)
+	{
+		return classify(sample, 0, sample.length);
+	}
+
+	/**
+	 * Classifies a range of bytes.
+	 * @param buf the bytes
+	 * @param off the offset of the first byte
+	 * @param len the number of bytes
+	 */
+	public static ByteClassifier classify(byte[] buf, int off, int len)
+	{
+		ByteClassifier c = new ByteClassifier(buf, off, len);
+		c.scan();
+		return c;
+	} //}}}
+
+	//{{{ getLength() method
+	public int getLength()
+	{
+		return len;
+	} //}}}
+
+	//{{{ getBOMEncoding() method
+	/**
+	 * Returns the encoding whose byte order mark starts the bytes, with
+	 * the names of {@link EncodingWithBOM.Detector}, or null.
+	 */
+	public String getBOMEncoding()
+	{
+		return bomEncoding;
+	} //}}}
+
+	//{{{ isASCII() method
+	/**
+	 * Returns true if no byte has its high bit set.
+	 */
+	public boolean isASCII()
+	{
+		return highBytes == 0;
+	} //}}}
+
+	//{{{ isValidUTF8() method
+	/**
+	 * Returns true if the bytes are well formed UTF-8. A sequence cut
+	 * by the end of the sample is accepted.
+	 */
+	public boolean isValidUTF8()
+	{
+		return validUTF8;
+	} //}}}
+
+	//{{{ getNulCount() method
+	public int getNulCount()
+	{
+		return evenNuls + oddNuls;
+	} //}}}
+
+	//{{{ getControlCount() method
+	/**
+	 * Returns the number of control bytes other than NUL, tab, line
+	 * feed, form feed, carriage return and escape.
+	 */
+	public int getControlCount()
+	{
+		return controls;
+	} //}}}
+
+	//{{{ getGuessedEncoding() method
+	/**
+	 * Returns the encoding the bytes most probably are in, or null if
+	 * they are ASCII or binary. This is the encoding of the byte order
+	 * mark if there is one, otherwise UTF-16LE or UTF-16BE if most of
+	 * the bytes at odd, or even, offsets are NUL, UTF-8 if the bytes
+	 * are valid UTF-8, and ISO-8859-1 if there are other bytes above
+	 * 0x7F.
+	 */
+	public String getGuessedEncoding()
+	{
+		if(bomEncoding != null)
+			return bomEncoding;
+		String utf16 = getUTF16Encoding();
+		if(utf16 != null)
+			return utf16;
+		if(highBytes == 0 || getNulCount() != 0)
+			return null;
+		return validUTF8 ? "UTF-8" : "ISO-8859-1";
+	} //}}}
+
+	//{{{ isBinary() method
+	/**
+	 * Returns true if the bytes are probably not text: at least count
+	 * NUL bytes are in the first checkLength bytes, or more than one
+	 * byte in eight is a control byte, with at least four of them, so
+	 * that a few bytes with a bell or a backspace are still text. Bytes
+	 * with a byte order mark, or looking like UTF-16, are text.
+	 * @param checkLength the number of bytes looked at for NULs
+	 * @param count the number of NUL bytes making binary data, 0 to
+	 * not look for them
+	 */
+	public boolean isBinary(int checkLength, int count)
+	{
+		if(bomEncoding != null || getUTF16Encoding() != null)
+			return false;
+		if(count > 0 && getNulCount() >= count)
+		{
+			int end = off + Math.min(checkLength, len);
+			int nuls = 0;
+			for(int i = off; i < end; i++)
+			{
+				if(buf[i] == 0 && ++nuls >= count)
+					return true;
+			}
+		}
+		return controls >= MIN_CONTROLS && controls > len / 8;
+	} //}}}
+
+	//{{{ Private members
+	/** The fewest control bytes making binary data. */
+	private static final int MIN_CONTROLS = 4;
+	private static final long ONES = 0x0101010101010101L;
+	private static final long HIGHS = 0x8080808080808080L;
+	private static final long LOWS = 0x7F7F7F7F7F7F7F7FL;
+	/** The high bits of the bytes at even offsets of a little endian word. */
+	private static final long EVEN = 0x0080008000800080L;
+	/** The high bits of the bytes at odd offsets of a little endian word. */
+	private static final long ODD = 0x8000800080008000L;
+
+	private final byte[] buf;
+	private final int off;
+	private final int len;
+
+	private String bomEncoding;
+	private int highBytes;
+	private int evenNuls;
+	private int oddNuls;
+	private int controls;
+	private boolean validUTF8 = true;
+	/** The continuation bytes expected by the UTF-8 validation. */
+	private int pending;
+	/** The bounds of the next continuation byte. */
+	private int nextMin = 0x80;
+	private int nextMax = 0xBF;
+
+	//{{{ ByteClassifier constructor
+	private ByteClassifier(byte[] buf, int off, int len)
+	{
+		this.buf = buf;
+		this.off = off;
+		this.len = len;
+	} //}}}
+
+	//{{{ scan() method
+	private void scan()
+	{
+		bomEncoding = EncodingWithBOM.getBOMEncoding(buf, off, len);
+
+		ByteBuffer words = ByteBuffer.wrap(buf, off, len)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		int i = off;
+		int wordsEnd = off + (len & ~7);
+		for(; i < wordsEnd; i += 8)
+		{
+			long word = words.getLong(i);
+			long below = below(word, 0x20);
+			if((word & HIGHS) == 0 && below == 0 && pending == 0)
+				continue;
+
+			long nuls = zeros(word);
+			if(nuls != 0)
+			{
+				// offsets of the sample, not of the word
+				boolean evenStart = ((i - off) & 1) == 0;
+				int even = Long.bitCount(nuls & EVEN);
+				int odd = Long.bitCount(nuls & ODD);
+				evenNuls += evenStart ? even : odd;
+				oddNuls += evenStart ? odd : even;
+			}
+			if(below != 0)
+			{
+				long allowed = zeros(word ^ 0x09 * ONES)
+					| zeros(word ^ 0x0A * ONES)
+					| zeros(word ^ 0x0C * ONES)
+					| zeros(word ^ 0x0D * ONES)
+					| zeros(word ^ 0x1B * ONES);
+				controls += Long.bitCount(below & ~allowed & ~nuls);
+			}
+			if((word & HIGHS) != 0 || pending != 0)
+			{
+				highBytes += Long.bitCount(word & HIGHS);
+				if(validUTF8)
+				{
+					for(int j = i; j < i + 8; j++)
+						checkUTF8(buf[j] & 0xFF);
+				}
+			}
+		}
+
+		int end = off + len;
+		for(; i < end; i++)
+		{
+			int b = buf[i] & 0xFF;
+			if(b == 0)
+			{
+				if(((i - off) & 1) == 0)
+					evenNuls++;
+				else
+					oddNuls++;
+			}
+			else if(b < 0x20 && b != 0x09 && b != 0x0A && b != 0x0C
+				&& b != 0x0D && b != 0x1B)
+			{
+				controls++;
+			}
+			if(b >= 0x80)
+				highBytes++;
+			if(validUTF8)
+				checkUTF8(b);
+		}
+	} //}}}
+
+	//{{{ zeros() method
+	/**
+	 * Returns a word with the high bit set in each byte of the word that
+	 * is zero, and only in those.
+	 */
+	private static long zeros(long word)
+	{
+		long t = ((word & LOWS) + LOWS) | word;
+		return ~(t | LOWS);
+	} //}}}
+
+	//{{{ below() method
+	/**
+	 * Returns a word with the high bit set in each byte of the word that
+	 * is below n, and only in those.
+	 * @param n at most 0x80
+	 */
+	private static long below(long word, int n)
+	{
+		// the high bit is set if the low 7 bits are at least n
+		long t = (word & LOWS) + (0x80 - n) * ONES;
+		return ~t & ~word & HIGHS;
+	} //}}}
+
+	//{{{ checkUTF8() method
+	private void checkUTF8(int b)
+	{
+		if(pending != 0)
+		{
+			if(b < nextMin || b > nextMax)
+			{
+				validUTF8 = false;
+				pending = 0;
+				return;
+			}
+			pending--;
+			nextMin = 0x80;
+			nextMax = 0xBF;
+			return;
+		}
+
+		if(b < 0x80)
+			return;
+		// the bounds of the second byte exclude overlong forms,
+		// surrogates and code points above U+10FFFF
+		if(b >= 0xC2 && b <= 0xDF)
+			pending = 1;
+		else if(b == 0xE0)
+		{
+			pending = 2;
+			nextMin = 0xA0;
+		}
+		else if(b == 0xED)
+		{
+			pending = 2;
+			nextMax = 0x9F;
+		}
+		else if(b >= 0xE1 && b <= 0xEF)
+			pending = 2;
+		else if(b == 0xF0)
+		{
+			pending = 3;
+			nextMin = 0x90;
+		}
+		else if(b == 0xF4)
+		{
+			pending = 3;
+			nextMax = 0x8F;
+		}
+		else if(b >= 0xF1 && b <= 0xF3)
+			pending = 3;
+		else
+			validUTF8 = false;
+	} //}}}
+
+	//{{{ getUTF16Encoding() method
+	/**
+	 * Returns UTF-16LE or UTF-16BE if at least a quarter of the
+	 * characters have a NUL byte at the same offset, and hardly any at
+	 * the other one, as text with mostly ASCII characters.
+	 */
+	private String getUTF16Encoding()
+	{
+		int chars = len / 2;
+		if(chars == 0)
+			return null;
+		if(oddNuls >= chars / 4 + 1 && evenNuls <= oddNuls / 16)
+			return "UTF-16LE";
+		if(evenNuls >= chars / 4 + 1 && oddNuls <= evenNuls / 16)
+			return "UTF-16BE";
+		return null;
+	} //}}}
+
+	//}}}
+}
@@ -0,0 +1,753 @@
+/*
+ * CachingVFS.java - Caches the metadata of another VFS
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+//{{{ Imports
+import java.awt.Component;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.gjt.sp.jedit.Buffer;
+import org.gjt.sp.jedit.View;
+//}}}
+
+/**
+ * A VFS that remembers the directory listings, files and canonical paths
+ * returned by another VFS for a while, so that the file system browser,
+ * the file name completion and HyperSearch asking about the same paths
+ * don't go to the file system, or to the network, every time. Everything
+ * else is passed on to the other VFS, and the sessions are those of the
+ * other VFS.<p>
+ *
+ * An entry is dropped when it is older than the time to live, when a
+ * {@link VFSManager#sendVFSUpdate(VFS,String,boolean)} reports a change
+ * to its path or to a file of its directory, when the file system
+ * browser reloads its directory, when it is changed through this VFS, and
+ * when the cache is full, the least recently used first. For the local
+ * file system, the directories of the entries are watched by the
+ * {@link FileWatcher}, whose notifications become updates; the entries
+ * of a watched directory are kept for five minutes, or for the time to
+ * live if it is longer, unless they change.<p>
+ *
+ * A directory is watched before it is listed, and a listing or a file
+ * is not cached if its directory changed while it was fetched, so a
+ * change made meanwhile is never hidden by the cache.<p>
+ *
+ * The cached {@link VFSFile} instances are shared by the callers, that
+ * must not change them.<p>
+ *
+ * Instances are obtained from {@link VFSManager#getCachingVFS(VFS)}.
+ * This class is thread safe.
+ *
+ * @since jEdit 5.4pre1
+ */
+public class CachingVFS extends VFS
+{
+	//{{{ CachingVFS constructor
+	/**
+	 * @param vfs the VFS whose metadata is cached
+	 * @param timeToLive how long entries are kept, in milliseconds
+	 * @param maxSize the estimated memory use, in bytes, above which
+	 * the least recently used entries are dropped
+	 */
+	public CachingVFS(VFS vfs, long timeToLive, long maxSize)
+	{
+		super(vfs.getName(),vfs.getCapabilities(),
+			vfs.getExtendedAttributes());
+		this.vfs = vfs;
+		this.timeToLive = timeToLive;
+		this.maxSize = maxSize;
+		entries = new LinkedHashMap<String, Entry>(64,0.75f,true);
+		directories = new TreeMap<String, Directory>();
+		watchDirectories = vfs instanceof FileVFS;
+	} //}}}
+
+	//{{{ getVFS() method
+	/**
+	 * Returns the VFS whose metadata is cached.
+	 */
+	public VFS getVFS()
+	{
+		return vfs;
+	} //}}}
+
+	//{{{ invalidate() method
+	/**
+	 * Forgets what is known about a path: its listing, the file itself,
+	 * and the listing of its parent directory, that holds the file too.
+	 * The listings of a directory's subdirectories are forgotten too,
+	 * since it may have been moved or deleted.
+	 * @param path the path that changed
+	 */
+	public synchronized void invalidate(String path)
+	{
+		path = normalize(path);
+		String parent = getDirectory(path);
+		Directory dir = directories.get(parent);
+		if(dir != null)
+		{
+			dir.generation++;
+			remove(LISTING + parent);
+			remove(FILE + path);
+			remove(CANON + path);
+		}
+
+		// the directory itself and its subdirectories
+		String prefix = path.endsWith(String.valueOf(vfs.getFileSeparator()))
+			|| path.endsWith("/") ? path : path + vfs.getFileSeparator();
+		List<Directory> changed = new ArrayList<Directory>();
+		dir = directories.get(path);
+		if(dir != null)
+			changed.add(dir);
+		changed.addAll(directories.subMap(prefix,prefix + Character.MAX_VALUE)
+			.values());
+		for(Directory d : changed)
+		{
+			d.generation++;
+			for(String key : d.keys.toArray(new String[d.keys.size()]))
+				remove(key);
+		}
+	} //}}}
+
+	//{{{ clear() method
+	/**
+	 * Forgets everything.
+	 */
+	public synchronized void clear()
+	{
+		for(String key : entries.keySet().toArray(new String[entries.size()]))
+			remove(key);
+		// listings being fetched are not cached
+		for(Directory dir : directories.values())
+			dir.generation++;
+	} //}}}
+
+	//{{{ Cached methods
+
+	//{{{ _canonPath() method
+	@Override
+	public String _canonPath(Object session, String path, Component comp)
+		throws IOException
+	{
+		String key = CANON + normalize(path);
+		Entry entry = get(key);
+		if(entry != null)
+			return (String)entry.value;
+
+		String dir = getDirectory(normalize(path));
+		int generation = startFetch(dir);
+		try
+		{
+			String canonPath = vfs._canonPath(session,path,comp);
+			if(canonPath != null)
+			{
+				put(key,dir,generation,canonPath,
+					2 * canonPath.length());
+			}
+			return canonPath;
+		}
+		finally
+		{
+			endFetch(dir);
+		}
+	} //}}}
+
+	//{{{ _listFiles() method
+	@Override
+	public VFSFile[] _listFiles(Object session, String directory,
+		Component comp)
+		throws IOException
+	{
+		String dir = normalize(directory);
+		Entry entry = get(LISTING + dir);
+		if(entry != null)
+			return ((VFSFile[])entry.value).clone();
+
+		int generation = startFetch(dir);
+		try
+		{
+			VFSFile[] files = vfs._listFiles(session,directory,comp);
+			if(files != null)
+				putListing(dir,generation,files.clone());
+			return files;
+		}
+		finally
+		{
+			endFetch(dir);
+		}
+	} //}}}
+
+	//{{{ _listFiles() method
+	@Override
+	public boolean _listFiles(Object session, String directory,
+		Component comp, final FileListConsumer consumer)
+		throws IOException
+	{
+		String dir = normalize(directory);
+		Entry entry = get(LISTING + dir);
+		if(entry != null)
+		{
+			consumer.filesListed(((VFSFile[])entry.value).clone());
+			return true;
+		}
+
+		final List<VFSFile> listed = new ArrayList<VFSFile>();
+		final boolean[] stopped = new boolean[1];
+		int generation = startFetch(dir);
+		try
+		{
+			boolean ok = vfs._listFiles(session,directory,comp,
+				new FileListConsumer()
+				{
+					public boolean filesListed(VFSFile[] files)
+					{
+						Collections.addAll(listed,files);
+						if(consumer.filesListed(files))
+							return true;
+						stopped[0] = true;
+						return false;
+					}
+				});
+			if(ok && !stopped[0])
+			{
+				putListing(dir,generation,
+					listed.toArray(new VFSFile[listed.size()]));
+			}
+			return ok;
+		}
+		finally
+		{
+			endFetch(dir);
+		}
+	} //}}}
+
+	//{{{ _getFile() method
+	@Override
+	public VFSFile _getFile(Object session, String path,
+		Component comp)
+		throws IOException
+	{
+		String key = FILE + normalize(path);
+		Entry entry = get(key);
+		if(entry != null)
+			return (VFSFile)entry.value;
+
+		String dir = getDirectory(normalize(path));
+		int generation = startFetch(dir);
+		try
+		{
+			VFSFile file = vfs._getFile(session,path,comp);
+			// files that don't exist are remembered too
+			put(key,dir,generation,file,
+				file == null ? 0 : estimateSize(file));
+			return file;
+		}
+		finally
+		{
+			endFetch(dir);
+		}
+	} //}}}
+
+	//}}}
+
+	//{{{ Forwarded methods
+
+	//{{{ getCapabilities() method
+	@Override
+	public int getCapabilities()
+	{
+		return vfs.getCapabilities();
+	} //}}}
+
+	//{{{ getExtendedAttributes() method
+	@Override
+	public String[] getExtendedAttributes()
+	{
+		return vfs.getExtendedAttributes();
+	} //}}}
+
+	//{{{ isMarkersFileSupported() method
+	@Override
+	public boolean isMarkersFileSupported()
+	{
+		return vfs.isMarkersFileSupported();
+	} //}}}
+
+	//{{{ getFileName() method
+	@Override
+	public String getFileName(String path)
+	{
+		return vfs.getFileName(path);
+	} //}}}
+
+	//{{{ getFilePath() method
+	@Override
+	public String getFilePath(String vfsPath)
+	{
+		return vfs.getFilePath(vfsPath);
+	} //}}}
+
+	//{{{ getParentOfPath() method
+	@Override
+	public String getParentOfPath(String path)
+	{
+		return vfs.getParentOfPath(path);
+	} //}}}
+
+	//{{{ constructPath() method
+	@Override
+	public String constructPath(String parent, String path)
+	{
+		return vfs.constructPath(parent,path);
+	} //}}}
+
+	//{{{ getFileSeparator() method
+	@Override
+	public char getFileSeparator()
+	{
+		return vfs.getFileSeparator();
+	} //}}}
+
+	//{{{ getTwoStageSaveName() method
+	@Override
+	public String getTwoStageSaveName(String path)
+	{
+		return vfs.getTwoStageSaveName(path);
+	} //}}}
+
+	//{{{ reloadDirectory() method
+	@Override
+	public void reloadDirectory(String path)
+	{
+		invalidate(path);
+		vfs.reloadDirectory(path);
+	} //}}}
+
+	//{{{ createVFSSession() method
+	@Override
+	public Object createVFSSession(String path, Component comp)
+	{
+		return vfs.createVFSSession(path,comp);
+	} //}}}
+
+	//{{{ load() method
+	@Override
+	public boolean load(View view, Buffer buffer, String path)
+	{
+		return vfs.load(view,buffer,path);
+	} //}}}
+
+	//{{{ save() method
+	@Override
+	public boolean save(View view, Buffer buffer, String path)
+	{
+		invalidate(path);
+		return vfs.save(view,buffer,path);
+	} //}}}
+
+	//{{{ insert() method
+	@Override
+	public boolean insert(View view, Buffer buffer, String path)
+	{
+		return vfs.insert(view,buffer,path);
+	} //}}}
+
+	//{{{ _delete() method
+	@Override
+	public boolean _delete(Object session, String path, Component comp)
+		throws IOException
+	{
+		try
+		{
+			return vfs._delete(session,path,comp);
+		}
+		finally
+		{
+			invalidate(path);
+		}
+	} //}}}
+
+	//{{{ _rename() method
+	@Override
+	public boolean _rename(Object session, String from, String to,
+		Component comp)
+		throws IOException
+	{
+		try
+		{
+			return vfs._rename(session,from,to,comp);
+		}
+		finally
+		{
+			invalidate(from);
+			invalidate(to);
+		}
+	} //}}}
+
+	//{{{ _mkdir() method
+	@Override
+	public boolean _mkdir(Object session, String directory, Component comp)
+		throws IOException
+	{
+		try
+		{
+			return vfs._mkdir(session,directory,comp);
+		}
+		finally
+		{
+			invalidate(directory);
+		}
+	} //}}}
+
+	//{{{ _backup() method
+	@Override
+	public void _backup(Object session, String path, Component comp)
+		throws IOException
+	{
+		try
+		{
+			vfs._backup(session,path,comp);
+		}
+		finally
+		{
+			invalidate(vfs.getParentOfPath(path));
+		}
+	} //}}}
+
+	//{{{ _createInputStream() method
+	@Override
+	public InputStream _createInputStream(Object session,
+		String path, boolean ignoreErrors, Component comp)
+		throws IOException
+	{
+		return vfs._createInputStream(session,path,ignoreErrors,comp);
+	} //}}}
+
+	//{{{ _createOutputStream() method
+	@Override
+	public OutputStream _createOutputStream(Object session,
+		String path, Component comp)
+		throws IOException
+	{
+		invalidate(path);
+		return vfs._createOutputStream(session,path,comp);
+	} //}}}
+
+	//{{{ _saveComplete() method
+	@Override
+	public void _saveComplete(Object session, Buffer buffer, String path,
+		Component comp) throws IOException
+	{
+		try
+		{
+			vfs._saveComplete(session,buffer,path,comp);
+		}
+		finally
+		{
+			invalidate(path);
+		}
+	} //}}}
+
+	//{{{ _finishTwoStageSave() method
+	@Override
+	public void _finishTwoStageSave(Object session, Buffer buffer, String path,
+		Component comp) throws IOException
+	{
+		try
+		{
+			vfs._finishTwoStageSave(session,buffer,path,comp);
+		}
+		finally
+		{
+			invalidate(path);
+		}
+	} //}}}
+
+	//{{{ _endVFSSession() method
+	@Override
+	public void _endVFSSession(Object session, Component comp)
+		throws IOException
+	{
+		vfs._endVFSSession(session,comp);
+	} //}}}
+
+	//}}}
+
+	//{{{ Private members
+
+	/** Key prefixes of the three kinds of entries. */
+	private static final char LISTING = 'L';
+	private static final char FILE = 'F';
+	private static final char CANON = 'C';
+
+	/** Estimated memory use of an entry, besides its strings. */
+	private static final int ENTRY_OVERHEAD = 96;
+	/** Estimated memory use of a VFSFile, besides its strings. */
+	private static final int FILE_OVERHEAD = 160;
+	/**
+	 * Directories watched at most, since each one uses resources of
+	 * the operating system; the entries of the others expire.
+	 */
+	private static final int MAX_WATCHED = 256;
+	/**
+	 * How long the entries of a watched directory are kept at least,
+	 * in case a change notification was missed.
+	 */
+	private static final long WATCHED_TIME_TO_LIVE = 5L * 60L * 1000L;
+
+	private final VFS vfs;
+	private final long timeToLive;
+	private final long maxSize;
+	private final boolean watchDirectories;
+	/** Least recently used first. */
+	private final LinkedHashMap<String, Entry> entries;
+	/**
+	 * The directories that have entries or are being fetched, sorted so
+	 * that the subdirectories of a directory follow it.
+	 */
+	private final TreeMap<String, Directory> directories;
+	private long size;
+	/** Number of watched directories. */
+	private int watched;
+
+	//{{{ get() method
+	/**
+	 * Returns an entry that didn't expire, or null.
+	 */
+	private synchronized Entry get(String key)
+	{
+		Entry entry = entries.get(key);
+		if(entry == null)
+			return null;
+		long ttl = entry.directory.watched && isWatched(entry.directory.path)
+			? Math.max(timeToLive,WATCHED_TIME_TO_LIVE) : timeToLive;
+		if(System.currentTimeMillis() - entry.created > ttl)
+		{
+			remove(key);
+			return null;
+		}
+		return entry;
+	} //}}}
+
+	//{{{ startFetch() method
+	/**
+	 * Called before asking the other VFS about a directory or one of its
+	 * files: watches the directory if possible, and keeps it until
+	 * {@link #endFetch(String)}.
+	 * @return the generation of the directory, to pass to
+	 * {@link #put(String,String,int,Object,int)}
+	 */
+	private synchronized int startFetch(String path)
+	{
+		Directory dir = directories.get(path);
+		if(dir == null)
+		{
+			dir = new Directory(path);
+			directories.put(path,dir);
+			if(watchDirectories && watched < MAX_WATCHED)
+			{
+				FileWatcher.getInstance().watch(path);
+				dir.watched = true;
+				watched++;
+			}
+		}
+		dir.fetches++;
+		return dir.generation;
+	} //}}}
+
+	//{{{ endFetch() method
+	private synchronized void endFetch(String path)
+	{
+		Directory dir = directories.get(path);
+		dir.fetches--;
+		release(dir);
+	} //}}}
+
+	//{{{ putListing() method
+	private void putListing(String directory, int generation,
+		VFSFile[] files)
+	{
+		int size = 0;
+		for(VFSFile file : files)
+			size += estimateSize(file);
+		put(LISTING + directory,directory,generation,files,size);
+	} //}}}
+
+	//{{{ put() method
+	/**
+	 * Caches a value, unless its directory changed since
+	 * {@link #startFetch(String)}.
+	 * @param directory the directory whose changes invalidate the entry
+	 * @param generation the generation returned by startFetch
+	 */
+	private synchronized void put(String key, String directory,
+		int generation, Object value, int valueSize)
+	{
+		Directory dir = directories.get(directory);
+		if(dir.generation != generation)
+			return;
+		remove(key);
+
+		Entry entry = new Entry(value,dir,System.currentTimeMillis(),
+			ENTRY_OVERHEAD + 2 * key.length() + valueSize);
+		entries.put(key,entry);
+		dir.keys.add(key);
+		size += entry.size;
+
+		// the new entry is the most recently used one
+		Iterator<Map.Entry<String, Entry>> iter = entries.entrySet().iterator();
+		while(size > maxSize && entries.size() > 1)
+		{
+			Map.Entry<String, Entry> eldest = iter.next();
+			iter.remove();
+			removed(eldest.getKey(),eldest.getValue());
+		}
+	} //}}}
+
+	//{{{ remove() method
+	private void remove(String key)
+	{
+		Entry entry = entries.remove(key);
+		if(entry != null)
+			removed(key,entry);
+	} //}}}
+
+	//{{{ removed() method
+	private void removed(String key, Entry entry)
+	{
+		size -= entry.size;
+		entry.directory.keys.remove(key);
+		release(entry.directory);
+	} //}}}
+
+	//{{{ release() method
+	/**
+	 * Forgets a directory, and stops watching it, once it has no entries
+	 * and isn't being fetched.
+	 */
+	private void release(Directory dir)
+	{
+		if(dir.fetches != 0 || !dir.keys.isEmpty())
+			return;
+		directories.remove(dir.path);
+		if(dir.watched)
+		{
+			FileWatcher.getInstance().unwatch(dir.path);
+			watched--;
+		}
+	} //}}}
+
+	//{{{ isWatched() method
+	private static boolean isWatched(String directory)
+	{
+		return FileWatcher.getInstance().isWatched(directory);
+	} //}}}
+
+	//{{{ getDirectory() method
+	/**
+	 * Returns the directory whose changes invalidate what is known about
+	 * a path: its parent, or the path itself for a root.
+	 */
+	private String getDirectory(String path)
+	{
+		String parent = vfs.getParentOfPath(path);
+		return parent == null ? path : normalize(parent);
+	} //}}}
+
+	//{{{ normalize() method
+	/**
+	 * Removes the trailing separator, like
+	 * {@link VFSManager#sendVFSUpdate(VFS,String,boolean)} does.
+	 */
+	private static String normalize(String path)
+	{
+		if(path.length() != 1 && (path.endsWith("/")
+			|| path.endsWith(java.io.File.separator)))
+			return path.substring(0,path.length() - 1);
+		return path;
+	} //}}}
+
+	//{{{ estimateSize() method
+	private static int estimateSize(VFSFile file)
+	{
+		int size = FILE_OVERHEAD;
+		String path = file.getPath();
+		if(path != null)
+			size += 2 * path.length();
+		String name = file.getName();
+		if(name != null)
+			size += 2 * name.length();
+		return size;
+	} //}}}
+
+	//}}}
+
+	//{{{ Entry class
+	private static class Entry
+	{
+		final Object value;
+		/** The directory whose changes invalidate the entry. */
+		final Directory directory;
+		final long created;
+		final int size;
+
+		Entry(Object value, Directory directory, long created, int size)
+		{
+			this.value = value;
+			this.directory = directory;
+			this.created = created;
+			this.size = size;
+		}
+	} //}}}
+
+	//{{{ Directory class
+	private static class Directory
+	{
+		final String path;
+		/**
+		 * Keys of the entries of the directory: its listing, and its
+		 * files.
+		 */
+		final Set<String> keys = new HashSet<String>();
+		/** Incremented each time the directory changes. */
+		int generation;
+		/** Number of fetches in progress. */
+		int fetches;
+		boolean watched;
+
+		Directory(String path)
+		{
+			this.path = path;
+		}
+	} //}}}
+}
@@ -79,6 +79,18 @@ public class CharsetEncoding implements Encoding
 	}
 	//}}}
 
+	//{{{ getCharset() method
+	/**
+	 * Returns the charset of this encoding, for callers that encode
+	 * buffers themselves with a CharsetEncoder.
+	 * @since jEdit 5.4pre1
+	 */
+	@Nonnull
+	public Charset getCharset()
+	{
+		return body;
+	} //}}}
+
 	//{{{ Private members
 	private final Charset body;
 	//}}}
@@ -0,0 +1,474 @@
+/*
+ * DirectoryWalker.java - Lists directory trees
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+//{{{ Imports
+import java.awt.Component;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.gjt.sp.jedit.MiscUtilities;
+import org.gjt.sp.util.IOUtilities;
+import org.gjt.sp.util.Log;
+import org.gjt.sp.util.StandardUtilities;
+//}}}
+
+/**
+ * Implements {@link VFS#_listDirectory(Object,String,VFSFileFilter,boolean,Component,boolean,boolean,boolean,VFS.FileListConsumer)}.<p>
+ *
+ * Each directory is listed by a fork/join task, that forks a task for
+ * each subdirectory, so the directories of a tree are listed in parallel
+ * when the VFS has the {@link VFS#CONCURRENT_SESSION_CAP}. Otherwise,
+ * the tasks run one after the other in the calling thread. Directories
+ * are listed with
+ * {@link VFS#_listFiles(Object,String,Component,VFS.FileListConsumer)},
+ * so the attributes read by the listing are not asked for again.<p>
+ *
+ * The entries of each directory are sorted, and the files are handed to
+ * the consumer, one batch at a time, in the order of
+ * the sorted paths, whatever the order in which the directories were
+ * listed. A directory listed early waits for the ones before it.
+ *
+ * @since jEdit 5.4pre1
+ */
+class DirectoryWalker
+{
+	//{{{ DirectoryWalker constructor
+	DirectoryWalker(VFS vfs, Object session, VFSFileFilter filter,
+		boolean recursive, Component comp, boolean skipBinary,
+		boolean skipHidden, boolean skipIgnored,
+		VFS.FileListConsumer consumer)
+	{
+		this.vfs = vfs;
+		this.session = session;
+		this.filter = filter;
+		this.recursive = recursive;
+		this.comp = comp;
+		this.skipBinary = skipBinary;
+		this.skipHidden = skipHidden;
+		this.skipIgnored = skipIgnored;
+		this.consumer = consumer;
+		visited = Collections.newSetFromMap(
+			new ConcurrentHashMap<String, Boolean>());
+	} //}}}
+
+	//{{{ walk() method
+	/**
+	 * Lists the directory and returns the paths of the files found, in
+	 * the order they were handed to the consumer. If the thread is
+	 * interrupted, or if the consumer stops the walk, returns the files
+	 * found so far.
+	 */
+	List<String> walk(String directory) throws IOException
+	{
+		Listing root = new Listing();
+		waiting = root;
+		DirectoryTask task = new DirectoryTask(directory,null,root);
+		if(recursive
+			&& (vfs.getCapabilities() & VFS.CONCURRENT_SESSION_CAP) != 0)
+		{
+			ForkJoinTask<Void> future = getPool().submit(task);
+			try
+			{
+				future.get();
+			}
+			catch(InterruptedException e)
+			{
+				stopped = true;
+				Thread.currentThread().interrupt();
+			}
+			catch(ExecutionException e)
+			{
+				Throwable cause = e.getCause();
+				if(cause instanceof RuntimeException)
+					throw (RuntimeException)cause;
+				throw new RuntimeException(cause);
+			}
+		}
+		else
+			task.invoke();
+
+		if(error != null)
+			throw error;
+		List<String> files = new ArrayList<String>(100);
+		root.addFiles(files);
+		return files;
+	} //}}}
+
+	//{{{ Private members
+	private static ForkJoinPool pool;
+
+	private final VFS vfs;
+	private final Object session;
+	private final VFSFileFilter filter;
+	private final boolean recursive;
+	private final Component comp;
+	private final boolean skipBinary;
+	private final boolean skipHidden;
+	private final boolean skipIgnored;
+	private final VFS.FileListConsumer consumer;
+	/** The resolved paths of the symbolic links followed. */
+	private final Set<String> visited;
+	private volatile boolean stopped;
+	private volatile IOException error;
+
+	/**
+	 * The entries of the listings being handed to the consumer, the
+	 * innermost first, and the next listing to hand over.
+	 */
+	private final Deque<Iterator<Object>> cursor
+		= new ArrayDeque<Iterator<Object>>();
+	private Listing waiting;
+	private boolean delivering;
+	private boolean redeliver;
+
+	//{{{ getPool() method
+	private static synchronized ForkJoinPool getPool()
+	{
+		if(pool == null)
+			pool = new ForkJoinPool();
+		return pool;
+	} //}}}
+
+	//{{{ isStopped() method
+	private boolean isStopped()
+	{
+		return stopped || error != null
+			|| Thread.currentThread().isInterrupted();
+	} //}}}
+
+	//{{{ list() method
+	private VFSFile[] list(String directory) throws IOException
+	{
+		final List<VFSFile> listed = new ArrayList<VFSFile>();
+		boolean ok = vfs._listFiles(session,directory,comp,
+			new VFS.FileListConsumer()
+			{
+				public boolean filesListed(VFSFile[] files)
+				{
+					Collections.addAll(listed,files);
+					return !isStopped();
+				}
+			});
+		if(!ok)
+			return null;
+		return listed.toArray(new VFSFile[listed.size()]);
+	} //}}}
+
+	//{{{ sort() method
+	/**
+	 * Sorts the entries of a directory like the full paths, a
+	 * subdirectory standing for the paths that start with its name.
+	 */
+	private void sort(VFSFile[] list)
+	{
+		final String separator = String.valueOf(vfs.getFileSeparator());
+		Arrays.sort(list,new Comparator<VFSFile>()
+		{
+			public int compare(VFSFile file1, VFSFile file2)
+			{
+				return StandardUtilities.compareStrings(
+					getKey(file1),getKey(file2),true);
+			}
+
+			private String getKey(VFSFile file)
+			{
+				return isDirectory(file)
+					? file.getName() + separator
+					: file.getName();
+			}
+		});
+	} //}}}
+
+	//{{{ isDirectory() method
+	private static boolean isDirectory(VFSFile file)
+	{
+		return file.getType() == VFSFile.DIRECTORY
+			|| file.getType() == VFSFile.FILESYSTEM;
+	} //}}}
+
+	//{{{ deliver() method
+	/**
+	 * Hands the files that are next in order to the consumer, if their
+	 * directories were listed. A single thread delivers at a time; the
+	 * others only ask it for another pass.
+	 */
+	private void deliver()
+	{
+		synchronized(cursor)
+		{
+			if(delivering)
+			{
+				redeliver = true;
+				return;
+			}
+			delivering = true;
+		}
+		for(;;)
+		{
+			List<VFSFile> batch = new ArrayList<VFSFile>();
+			for(;;)
+			{
+				if(waiting != null)
+				{
+					if(!waiting.listed)
+						break;
+					cursor.push(waiting.entries.iterator());
+					waiting = null;
+				}
+				Iterator<Object> entries = cursor.peek();
+				if(entries == null)
+					break;
+				if(!entries.hasNext())
+				{
+					cursor.pop();
+					continue;
+				}
+				Object entry = entries.next();
+				if(entry instanceof Listing)
+					waiting = (Listing)entry;
+				else
+					batch.add((VFSFile)entry);
+			}
+
+			if(!batch.isEmpty() && !isStopped()
+				&& !consumer.filesListed(batch.toArray(
+				new VFSFile[batch.size()])))
+			{
+				stopped = true;
+			}
+
+			synchronized(cursor)
+			{
+				if(!redeliver)
+				{
+					delivering = false;
+					return;
+				}
+				redeliver = false;
+			}
+		}
+	} //}}}
+
+	//{{{ readIgnoreRules() method
+	private IgnoreRules readIgnoreRules(IgnoreRules parent,
+		String directory, VFSFile[] list)
+	{
+		for(VFSFile file : list)
+		{
+			if(!file.getName().equals(IgnoreRules.FILE_NAME)
+				|| file.getType() != VFSFile.FILE)
+				continue;
+
+			InputStream in = null;
+			try
+			{
+				in = vfs._createInputStream(session,file.getPath(),
+					true,comp);
+				if(in == null)
+					return parent;
+				return new IgnoreRules(parent,directory,
+					vfs.getFileSeparator(),
+					new InputStreamReader(in,"UTF-8"));
+			}
+			catch(IOException e)
+			{
+				Log.log(Log.WARNING,this,file.getPath() + ": " + e);
+				return parent;
+			}
+			finally
+			{
+				IOUtilities.closeQuietly(in);
+			}
+		}
+		return parent;
+	} //}}}
+
+	//}}}
+
+	//{{{ DirectoryTask class
+	private class DirectoryTask extends RecursiveAction
+	{
+		private final String directory;
+		private final IgnoreRules ignoreRules;
+		private final Listing listing;
+
+		DirectoryTask(String directory, IgnoreRules ignoreRules,
+			Listing listing)
+		{
+			this.directory = directory;
+			this.ignoreRules = ignoreRules;
+			this.listing = listing;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(isStopped())
+				return;
+			List<DirectoryTask> subdirectories = null;
+			try
+			{
+				subdirectories = listDirectory();
+			}
+			catch(IOException e)
+			{
+				if(error == null)
+					error = e;
+			}
+			finally
+			{
+				listing.listed = true;
+			}
+			if(consumer != null)
+				deliver();
+			if(subdirectories != null)
+				invokeAll(subdirectories);
+		}
+
+		/**
+		 * Adds the files and subdirectories of the directory to its
+		 * listing, and returns the tasks of the subdirectories.
+		 */
+		private List<DirectoryTask> listDirectory() throws IOException
+		{
+			if(recursive && !MiscUtilities.isURL(directory))
+			{
+				String resolvedPath = MiscUtilities.resolveSymlinks(directory);
+				/*
+				 * If looking at a symlink, do not traverse the
+				 * resolved path more than once.
+				 */
+				if(!directory.equals(resolvedPath)
+					&& !visited.add(resolvedPath))
+				{
+					Log.log(Log.ERROR,this,
+						"Recursion in listFiles(): "
+						+ directory);
+					return null;
+				}
+			}
+
+			VFSFile[] _files = list(directory);
+			if(_files == null || _files.length == 0)
+				return null;
+			sort(_files);
+
+			IgnoreRules rules = skipIgnored
+				? readIgnoreRules(ignoreRules,directory,_files)
+				: null;
+
+			List<DirectoryTask> subdirectories = new ArrayList<DirectoryTask>();
+			List<Object> entries = new ArrayList<Object>(_files.length);
+			for(VFSFile file : _files)
+			{
+				if(isStopped())
+					break;
+				if(skipHidden && (file.isHidden() || MiscUtilities.isBackup(file.getName())))
+					continue;
+				boolean isDirectory = isDirectory(file);
+				if(skipIgnored && (rules != null && rules.isIgnored(
+					file.getPath(),isDirectory)
+					|| isDirectory && file.getName().equals(".git")))
+					continue;
+				if(!filter.accept(file))
+					continue;
+				if(isDirectory)
+				{
+					if(recursive)
+					{
+						String canonPath = vfs._canonPath(session,
+							file.getPath(),comp);
+						Listing subdirectory = new Listing();
+						entries.add(subdirectory);
+						subdirectories.add(new DirectoryTask(
+							canonPath,rules,subdirectory));
+					}
+				}
+				else // It's a regular file
+				{
+					if (skipBinary)
+					{
+						try
+						{
+							if (file.isBinary(session))
+							{
+								Log.log(Log.NOTICE,this
+									,file.getPath() + ": skipped as a binary file");
+								continue;
+							}
+						}
+						catch(IOException e)
+						{
+							Log.log(Log.ERROR,this,e);
+							// may be not binary...
+						}
+					}
+					entries.add(file);
+				}
+			}
+			listing.entries = entries;
+			return subdirectories;
+		}
+	} //}}}
+
+	//{{{ Listing class
+	/**
+	 * The accepted entries of a directory, in order: its files, and the
+	 * listings of its subdirectories.
+	 */
+	private static class Listing
+	{
+		List<Object> entries = Collections.emptyList();
+		/** Set once the entries are complete. */
+		volatile boolean listed;
+
+		void addFiles(List<String> files)
+		{
+			if(!listed)
+				return;
+			for(Object entry : entries)
+			{
+				if(entry instanceof Listing)
+					((Listing)entry).addFiles(files);
+				else
+					files.add(((VFSFile)entry).getPath());
+			}
+		}
+	} //}}}
+}
@@ -28,6 +28,7 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.SequenceInputStream;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.nio.charset.MalformedInputException;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.Arrays;
@@ -94,6 +95,28 @@ public class EncodingWithBOM implements Encoding
 	}
 	//}}}
 
+	//{{{ getCharset() method
+	/**
+	 * Returns the charset used after the byte order mark.
+	 * @since jEdit 5.4pre1
+	 */
+	@Nonnull
+	public Charset getCharset()
+	{
+		return plain.getCharset();
+	} //}}}
+
+	//{{{ getByteOrderMark() method
+	/**
+	 * Returns a copy of the byte order mark written before the text.
+	 * @since jEdit 5.4pre1
+	 */
+	@Nonnull
+	public byte[] getByteOrderMark()
+	{
+		return bom.clone();
+	} //}}}
+
 	//{{{ class Detector
 	public static class Detector implements EncodingDetector
 	{
@@ -101,57 +124,69 @@ public class EncodingWithBOM implements Encoding
 		{
 			byte[] mark = new byte[4];
 			int count = sample.read(mark);
+			return getBOMEncoding(mark, 0, count);
+		}
+	} //}}}
 
-			byte low = (byte)(BOM16 & 0xff);
-			byte high = (byte)((BOM16 >> 8) & 0xff);
-			if (count >= 4)
+	//{{{ getBOMEncoding() method
+	/**
+	 * Returns the name of the encoding whose byte order mark starts the
+	 * bytes, or null.
+	 * @param buf the bytes
+	 * @param off the offset of the first byte
+	 * @param count the number of bytes
+	 */
+	static String getBOMEncoding(byte[] buf, int off, int count)
+	{
+		byte low = (byte)(BOM16 & 0xff);
+		byte high = (byte)((BOM16 >> 8) & 0xff);
+		if (count >= 4)
+		{
+			if (buf[off] == low && buf[off + 1] == high
+				&& buf[off + 2] == 0x00 && buf[off + 3] == 0x00)
 			{
-				if (mark[0] == low && mark[1] == high
-					&& mark[2] == 0x00 && mark[3] == 0x00)
-				{
-					return "X-UTF-32LE-BOM";
-				}
-				else if (mark[0] == 0x00 && mark[1] == 0x00
-					&& mark[2] == high && mark[3] == low)
-				{
-					return "X-UTF-32BE-BOM";
-				}
+				return "X-UTF-32LE-BOM";
 			}
-			if (count >= 2)
+			else if (buf[off] == 0x00 && buf[off + 1] == 0x00
+				&& buf[off + 2] == high && buf[off + 3] == low)
 			{
-				if (mark[0] == low && mark[1] == high)
-				{
-					return "x-UTF-16LE-BOM";
-				}
-				else if (mark[0] == high && mark[1] == low)
-				{
-					// "x-UTF-16BE-BOM" does not available.
-					// But an encoder for "UTF-16" actually uses
-					// big endian with corresponding BOM. It just
-					// works as "UTF-16BE with BOM".
-					return "UTF-16";
-				}
+				return "X-UTF-32BE-BOM";
+			}
+		}
+		if (count >= 2)
+		{
+			if (buf[off] == low && buf[off + 1] == high)
+			{
+				return "x-UTF-16LE-BOM";
+			}
+			else if (buf[off] == high && buf[off + 1] == low)
+			{
+				// "x-UTF-16BE-BOM" does not available.
+				// But an encoder for "UTF-16" actually uses
+				// big endian with corresponding BOM. It just
+				// works as "UTF-16BE with BOM".
+				return "UTF-16";
 			}
+		}
 
-			if (count >= UTF8BOM.length)
+		if (count >= UTF8BOM.length)
+		{
+			int i = 0;
+			while (i < UTF8BOM.length)
 			{
-				int i = 0;
-				while (i < UTF8BOM.length)
-				{
-					if (mark[i] != UTF8BOM[i])
-					{
-						break;
-					}
-					++i;
-				}
-				if (i == UTF8BOM.length)
+				if (buf[off + i] != UTF8BOM[i])
 				{
-					return "UTF-8Y";
+					break;
 				}
+				++i;
+			}
+			if (i == UTF8BOM.length)
+			{
+				return "UTF-8Y";
 			}
-
-			return null;
 		}
+
+		return null;
 	} //}}}
 
 	//{{{ Private members
@@ -32,8 +32,17 @@ import javax.swing.*;
 
 import java.awt.Component;
 import java.io.*;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
 import java.text.*;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import org.gjt.sp.jedit.*;
 import org.gjt.sp.util.IOUtilities;
@@ -54,7 +63,7 @@ public class FileVFS extends VFS
 	{
 		super("file",READ_CAP | WRITE_CAP | BROWSE_CAP | DELETE_CAP
 			| RENAME_CAP | MKDIR_CAP | LOW_LATENCY_CAP
-			| NON_AWT_SESSION_CAP
+			| NON_AWT_SESSION_CAP | CONCURRENT_SESSION_CAP
 			| (OperatingSystem.isCaseInsensitiveFS()
 			? CASE_INSENSITIVE_CAP : 0),
 			new String[] { EA_SIZE, EA_MODIFIED, EA_STATUS,
@@ -231,11 +240,40 @@ public class FileVFS extends VFS
 				: VFSFile.FILE);
 		} //}}}
 
+		//{{{ LocalFile() class
+		/**
+		 * Creates a file whose attributes were read in bulk while listing
+		 * its directory, so that its type, size and modification time
+		 * don't need to be asked for again.
+		 * @param file the file
+		 * @param attrs its attributes
+		 * @param hidden true if the file is hidden
+		 * @since jEdit 5.4pre1
+		 */
+		public LocalFile(File file, BasicFileAttributes attrs, boolean hidden)
+		{
+			this.file = file;
+
+			setName(file.getName());
+			String path = file.getPath();
+			setPath(path);
+			setDeletePath(path);
+			setHidden(hidden);
+			setType(attrs.isDirectory()
+				? VFSFile.DIRECTORY
+				: VFSFile.FILE);
+			setLength(attrs.size());
+			setModified(attrs.lastModifiedTime().toMillis());
+			sized = true;
+		} //}}}
+
 		//{{{ getExtendedAttribute() method
 		@Override
 		public String getExtendedAttribute(String name)
 		{
-			fetchAttrs();
+			if(!sized || !(name.equals(EA_MODIFIED)
+				|| name.equals(EA_SIZE) || name.equals(EA_TYPE)))
+				fetchAttrs();
 			if (name.equals(EA_MODIFIED))
 			{
 				return DATE_FORMAT.format(new Date(modified));
@@ -260,8 +298,11 @@ public class FileVFS extends VFS
 				file.getPath()));
 			setReadable(file.canRead());
 			setWriteable(file.canWrite());
-			setLength(file.length());
-			setModified(file.lastModified());
+			if(!sized)
+			{
+				setLength(file.length());
+				setModified(file.lastModified());
+			}
 		} //}}}
 
 		//{{{ getIcon() method
@@ -298,7 +339,8 @@ public class FileVFS extends VFS
 		@Override
 		public long getLength()
 		{
-			fetchAttrs();
+			if(!sized)
+				fetchAttrs();
 			return super.getLength();
 		} //}}}
 
@@ -322,7 +364,8 @@ public class FileVFS extends VFS
 		@Override
 		public long getModified()
 		{
-			fetchAttrs();
+			if(!sized)
+				fetchAttrs();
 			return modified;
 		} //}}}
 
@@ -332,6 +375,8 @@ public class FileVFS extends VFS
 			this.modified = modified;
 		} //}}}
 
+		/** True if the length and modification time are known. */
+		private boolean sized;
 		private transient FileSystemView fsView;
 		private transient Icon icon;
 	} //}}}
@@ -377,6 +422,79 @@ public class FileVFS extends VFS
 		return list2;
 	} //}}}
 
+	//{{{ _listFiles() method
+	/**
+	 * Reads the directory with a {@link DirectoryStream}, and the
+	 * attributes of each entry with one call. The first entries are
+	 * handed over as soon as there are enough to fill a window, the
+	 * rest at a steady pace.
+	 */
+	@Override
+	public boolean _listFiles(Object session, String path,
+		Component comp, FileListConsumer consumer)
+	{
+		// see the Windows work around above
+		if(OperatingSystem.isWindows())
+		{
+			if(path.length() == 2 && path.charAt(1) == ':')
+				path = path.concat(File.separator);
+		}
+
+		DirectoryStream<Path> stream;
+		try
+		{
+			stream = Files.newDirectoryStream(new File(path).toPath());
+		}
+		catch(Exception e)
+		{
+			// IOException, InvalidPathException
+			Log.log(Log.DEBUG,this,e);
+			VFSManager.error(comp,path,"ioerror.directory-error-nomsg",null);
+			return false;
+		}
+
+		boolean dos = OperatingSystem.isWindows();
+		List<VFSFile> batch = new ArrayList<VFSFile>(FIRST_BATCH_SIZE);
+		boolean first = true;
+		long published = System.nanoTime();
+		try
+		{
+			for(Path entry : stream)
+			{
+				VFSFile file = createLocalFile(entry,dos);
+				if(file != null)
+					batch.add(file);
+
+				if(first ? batch.size() >= FIRST_BATCH_SIZE
+					: System.nanoTime() - published
+					>= BATCH_DELAY)
+				{
+					if(Thread.currentThread().isInterrupted()
+						|| !consumer.filesListed(batch.toArray(
+						new VFSFile[batch.size()])))
+						return true;
+					batch.clear();
+					first = false;
+					published = System.nanoTime();
+				}
+			}
+		}
+		catch(DirectoryIteratorException e)
+		{
+			Log.log(Log.ERROR,this,e);
+			VFSManager.error(comp,path,"ioerror.directory-error-nomsg",null);
+			return false;
+		}
+		finally
+		{
+			IOUtilities.closeQuietly(stream);
+		}
+
+		if(!batch.isEmpty())
+			consumer.filesListed(batch.toArray(new VFSFile[batch.size()]));
+		return true;
+	} //}}}
+
 	//{{{ _getFile() method
 	@Override
 	public VFSFile _getFile(Object session, String path,
@@ -642,6 +760,46 @@ public class FileVFS extends VFS
 	//}}}
 
 	//{{{ Private members
+	/** Number of entries handed over first by a streaming listing. */
+	private static final int FIRST_BATCH_SIZE = 256;
+	/** Time between the next batches of a listing, in ns. */
+	private static final long BATCH_DELAY = 100000000L;
+
 	private static FileSystemView fsView = null;
+
+	//{{{ createLocalFile() method
+	/**
+	 * Creates the entry of a listing from its attributes, or returns
+	 * null if it was removed meanwhile.
+	 * @param dos true to read the hidden attribute of Windows
+	 */
+	private static VFSFile createLocalFile(Path entry, boolean dos)
+	{
+		Class<? extends BasicFileAttributes> type = dos
+			? DosFileAttributes.class : BasicFileAttributes.class;
+		BasicFileAttributes attrs;
+		try
+		{
+			attrs = Files.readAttributes(entry,type);
+		}
+		catch(IOException e)
+		{
+			// a broken symbolic link is listed as a file
+			try
+			{
+				attrs = Files.readAttributes(entry,type,
+					LinkOption.NOFOLLOW_LINKS);
+			}
+			catch(IOException e2)
+			{
+				return null;
+			}
+		}
+
+		File file = entry.toFile();
+		boolean hidden = dos ? ((DosFileAttributes)attrs).isHidden()
+			: file.getName().startsWith(".");
+		return new LocalFile(file,attrs,hidden);
+	} //}}}
 	//}}}
 }
@@ -0,0 +1,394 @@
+/*
+ * FileWatcher.java - Native change notifications for local directories
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+//{{{ Imports
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.gjt.sp.util.Log;
+//}}}
+
+/**
+ * Keeps track of the files that changed in a set of local directories,
+ * using the native change notifications of the operating system.<p>
+ *
+ * Directories are registered with {@link #watch(String)} and
+ * {@link #unwatch(String)}, which count references, so several buffers
+ * can share a directory. Directories whose changes are not reported
+ * reliably are accepted but not watched, and {@link #isWatched(String)}
+ * returns false for them: those on network file systems, whose remote
+ * changes are not notified, and all of them when the Java runtime only
+ * has a polling implementation, which reports changes seconds late.
+ * Callers must keep checking such files themselves.<p>
+ *
+ * A single watcher thread waits for the notifications. It lets them
+ * settle for 200 milliseconds, so that a program
+ * rewriting many files or one file in many steps causes one update, and
+ * then sends a {@link org.gjt.sp.jedit.msg.VFSUpdate} for every changed
+ * file and its directory through
+ * {@link VFSManager#sendVFSUpdate(VFS,String,boolean)}. The file system
+ * browser reloads directories on these messages, and open buffers are
+ * checked for changes. The autosave, journal and backup files jEdit
+ * writes itself are left out.<p>
+ *
+ * This class is thread safe.
+ *
+ * @since jEdit 5.4pre1
+ */
+public class FileWatcher
+{
+	//{{{ getInstance() method
+	public static synchronized FileWatcher getInstance()
+	{
+		if(instance == null)
+			instance = new FileWatcher();
+		return instance;
+	} //}}}
+
+	//{{{ watch() method
+	/**
+	 * Starts watching a directory, or adds a reference to it if it is
+	 * already watched.
+	 * @param directory the directory path
+	 */
+	public synchronized void watch(String directory)
+	{
+		directory = new File(directory).getPath();
+		Directory dir = directories.get(directory);
+		if(dir == null)
+		{
+			dir = new Directory(directory);
+			directories.put(directory,dir);
+			register(dir);
+		}
+		dir.refCount++;
+	} //}}}
+
+	//{{{ unwatch() method
+	/**
+	 * Removes a reference to a directory, and stops watching it when it
+	 * was the last one.
+	 * @param directory the directory path
+	 */
+	public synchronized void unwatch(String directory)
+	{
+		directory = new File(directory).getPath();
+		Directory dir = directories.get(directory);
+		if(dir == null || --dir.refCount > 0)
+			return;
+		directories.remove(directory);
+		if(dir.key != null)
+		{
+			List<Directory> dirs = keys.get(dir.key);
+			dirs.remove(dir);
+			if(dirs.isEmpty())
+			{
+				dir.key.cancel();
+				keys.remove(dir.key);
+			}
+		}
+		changes.remove(directory);
+	} //}}}
+
+	//{{{ isWatched() method
+	/**
+	 * Returns true if every change to the files of the given directory
+	 * is reported by {@link #takeChanges()}.
+	 * @param directory the directory path
+	 */
+	public synchronized boolean isWatched(String directory)
+	{
+		Directory dir = directories.get(new File(directory).getPath());
+		return dir != null && dir.key != null;
+	} //}}}
+
+	//{{{ takeChanges() method
+	/**
+	 * Returns the paths of the files created, modified or deleted in the
+	 * watched directories since the previous call, as far as the watcher
+	 * thread has seen them. When the operating
+	 * system lost track of the changes in a directory, or when more files
+	 * changed than are kept between two calls, the path of the directory
+	 * itself is returned, meaning that any of its files may have changed.
+	 */
+	public synchronized Set<String> takeChanges()
+	{
+		Set<String> taken = changes;
+		changes = new HashSet<String>();
+		return taken;
+	} //}}}
+
+	//{{{ setBackupNames() method
+	/**
+	 * Sets the prefix and suffix of the backup file names, whose changes
+	 * are not reported.
+	 * @param prefix the <code>backup.prefix</code> property
+	 * @param suffix the <code>backup.suffix</code> property
+	 */
+	public synchronized void setBackupNames(String prefix, String suffix)
+	{
+		backupPrefix = prefix == null ? "" : prefix;
+		backupSuffix = suffix == null ? "" : suffix;
+	} //}}}
+
+	//{{{ Private members
+	private static FileWatcher instance;
+
+	/**
+	 * File system types that don't report the changes made by other
+	 * hosts.
+	 */
+	private static final Set<String> NETWORK_TYPES = new HashSet<String>(
+		Arrays.asList("nfs", "nfs4", "cifs", "smbfs", "smb2", "smb3",
+		"afs", "ncpfs", "9p", "davfs", "fuse.sshfs", "sshfs",
+		"fuse.rclone"));
+
+	/** Time without events after which changes are sent, in ms. */
+	private static final long DEBOUNCE_DELAY = 200L;
+	/** Longest time changes are held back under constant activity. */
+	private static final long MAX_DEBOUNCE_DELAY = 1000L;
+	/**
+	 * Number of changed files kept until {@link #takeChanges()} is
+	 * called. Beyond it, only the directories are kept.
+	 */
+	private static final int MAX_CHANGES = 4096;
+
+	private final WatchService service;
+	private Thread thread;
+	private final Map<String, Directory> directories;
+	private final Map<WatchKey, List<Directory>> keys;
+	private Set<String> changes;
+	private String backupPrefix = "";
+	private String backupSuffix = "~";
+
+	//{{{ FileWatcher constructor
+	private FileWatcher()
+	{
+		directories = new HashMap<String, Directory>();
+		keys = new HashMap<WatchKey, List<Directory>>();
+		changes = new HashSet<String>();
+
+		WatchService ws = null;
+		try
+		{
+			ws = FileSystems.getDefault().newWatchService();
+			if(ws.getClass().getName().endsWith("PollingWatchService"))
+			{
+				Log.log(Log.DEBUG,this,"Only a polling watch service is"
+					+ " available, file changes are checked by hand");
+				ws.close();
+				ws = null;
+			}
+		}
+		catch(IOException e)
+		{
+			Log.log(Log.WARNING,this,"Cannot watch files: " + e);
+		}
+		catch(UnsupportedOperationException e)
+		{
+			Log.log(Log.WARNING,this,"Cannot watch files: " + e);
+		}
+		service = ws;
+	} //}}}
+
+	//{{{ register() method
+	private void register(Directory dir)
+	{
+		if(service == null)
+			return;
+		try
+		{
+			Path path = new File(dir.path).toPath();
+			if(NETWORK_TYPES.contains(Files.getFileStore(path).type()))
+				return;
+			dir.key = path.register(service,
+				StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_DELETE,
+				StandardWatchEventKinds.ENTRY_MODIFY);
+			// two paths of the same directory share a key
+			List<Directory> dirs = keys.get(dir.key);
+			if(dirs == null)
+			{
+				dirs = new ArrayList<Directory>(1);
+				keys.put(dir.key,dirs);
+			}
+			dirs.add(dir);
+			if(thread == null)
+			{
+				thread = new Thread(new Runnable()
+				{
+					public void run()
+					{
+						watchLoop();
+					}
+				},"jEdit File Watcher");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+		catch(Exception e)
+		{
+			// InvalidPathException, IOException, ...
+			Log.log(Log.DEBUG,this,"Cannot watch " + dir.path + ": " + e);
+		}
+	} //}}}
+
+	//{{{ watchLoop() method
+	/**
+	 * Body of the watcher thread.
+	 */
+	private void watchLoop()
+	{
+		Set<String> batch = new HashSet<String>();
+		for(;;)
+		{
+			try
+			{
+				WatchKey key = service.take();
+				long deadline = System.currentTimeMillis()
+					+ MAX_DEBOUNCE_DELAY;
+				do
+				{
+					synchronized(this)
+					{
+						processEvents(key,batch);
+					}
+					if(System.currentTimeMillis() > deadline)
+						break;
+					key = service.poll(DEBOUNCE_DELAY,
+						TimeUnit.MILLISECONDS);
+				}
+				while(key != null);
+			}
+			catch(InterruptedException e)
+			{
+				return;
+			}
+			catch(ClosedWatchServiceException e)
+			{
+				return;
+			}
+
+			VFS vfs = VFSManager.getFileVFS();
+			for(String path : batch)
+				VFSManager.sendVFSUpdate(vfs,path,true);
+			batch.clear();
+		}
+	} //}}}
+
+	//{{{ processEvents() method
+	/**
+	 * Adds the paths of the events of a key to {@link #changes} and to
+	 * the given set.
+	 */
+	private void processEvents(WatchKey key, Set<String> batch)
+	{
+		List<Directory> dirs = keys.get(key);
+		List<WatchEvent<?>> events = key.pollEvents();
+		if(dirs == null)
+			return;
+		boolean valid = key.reset();
+		for(Directory dir : dirs)
+		{
+			for(WatchEvent<?> event : events)
+			{
+				String path;
+				if(event.kind() == StandardWatchEventKinds.OVERFLOW)
+					path = dir.path;
+				else
+				{
+					String name = event.context().toString();
+					if(isOwnFile(name))
+						continue;
+					path = new File(dir.path,name).getPath();
+				}
+				// nobody took the changes for a while
+				if(changes.size() >= MAX_CHANGES)
+					changes.add(dir.path);
+				else
+					changes.add(path);
+				batch.add(path);
+			}
+			if(!valid)
+			{
+				// the directory is gone, or can't be watched
+				// anymore
+				dir.key = null;
+				changes.add(dir.path);
+				batch.add(dir.path);
+			}
+		}
+		if(!valid)
+			keys.remove(key);
+	} //}}}
+
+	//{{{ isOwnFile() method
+	/**
+	 * Returns true if the file name is one of an autosave file, of its
+	 * journal, or of a backup file.
+	 */
+	private boolean isOwnFile(String name)
+	{
+		if(name.length() > 1 && name.charAt(0) == '#'
+			&& name.charAt(name.length() - 1) == '#')
+		{
+			return true;
+		}
+		return (backupPrefix.length() != 0 || backupSuffix.length() != 0)
+			&& name.length() > backupPrefix.length() + backupSuffix.length()
+			&& name.startsWith(backupPrefix)
+			&& name.endsWith(backupSuffix);
+	} //}}}
+
+	//}}}
+
+	//{{{ Directory class
+	private static class Directory
+	{
+		final String path;
+		int refCount;
+		WatchKey key;
+
+		Directory(String path)
+		{
+			this.path = path;
+		}
+	} //}}}
+}
@@ -0,0 +1,260 @@
+/*
+ * IgnoreRules.java - .gitignore style exclusion of files
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+//{{{ Imports
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+//}}}
+
+/**
+ * The exclusion rules of a <code>.gitignore</code> file, chained to those
+ * of the parent directories.<p>
+ *
+ * The usual syntax is supported: blank lines and lines starting with
+ * <code>#</code> are skipped, <code>!</code> negates a pattern, a pattern
+ * ending with <code>/</code> only matches directories, a pattern with a
+ * <code>/</code> elsewhere is relative to the directory of the file, and
+ * other patterns match names at any depth. Patterns may use
+ * <code>*</code>, <code>?</code>, <code>[...]</code> and <code>**</code>.
+ * The last matching line of the deepest file decides. As with git,
+ * files in an ignored directory can't be included again, since the
+ * directory is not looked into.
+ *
+ * @since jEdit 5.4pre1
+ */
+class IgnoreRules
+{
+	/** The name of the files holding the rules. */
+	static final String FILE_NAME = ".gitignore";
+
+	//{{{ IgnoreRules constructor
+	/**
+	 * @param parent the rules of the parent directories, or null
+	 * @param directory the directory holding the rules file
+	 * @param separator the file separator of the paths
+	 * @param in the rules file
+	 */
+	IgnoreRules(IgnoreRules parent, String directory, char separator,
+		Reader in) throws IOException
+	{
+		this.parent = parent;
+		this.separator = separator;
+		prefix = directory.endsWith(String.valueOf(separator))
+			? directory : directory + separator;
+		rules = new ArrayList<Rule>();
+
+		BufferedReader reader = new BufferedReader(in);
+		String line;
+		while((line = reader.readLine()) != null)
+		{
+			Rule rule = parseRule(line);
+			if(rule != null)
+				rules.add(rule);
+		}
+	} //}}}
+
+	//{{{ isIgnored() method
+	/**
+	 * Returns true if a file or directory is excluded.
+	 * @param path its path, below the directory of the rules
+	 * @param directory true if it is a directory
+	 */
+	boolean isIgnored(String path, boolean directory)
+	{
+		for(IgnoreRules r = this; r != null; r = r.parent)
+		{
+			Boolean ignored = r.match(path,directory);
+			if(ignored != null)
+				return ignored;
+		}
+		return false;
+	} //}}}
+
+	//{{{ Private members
+	private final IgnoreRules parent;
+	private final char separator;
+	/** The directory of the rules, with a trailing separator. */
+	private final String prefix;
+	private final List<Rule> rules;
+
+	//{{{ match() method
+	/**
+	 * Returns whether the last matching rule ignores the path, or null
+	 * if no rule of this file matches.
+	 */
+	private Boolean match(String path, boolean directory)
+	{
+		if(!path.startsWith(prefix))
+			return null;
+		String relative = path.substring(prefix.length());
+		if(separator != '/')
+			relative = relative.replace(separator,'/');
+		String name = relative.substring(relative.lastIndexOf('/') + 1);
+
+		for(int i = rules.size() - 1; i >= 0; i--)
+		{
+			Rule rule = rules.get(i);
+			if(rule.directoryOnly && !directory)
+				continue;
+			if(rule.pattern.matcher(rule.anchored ? relative : name)
+				.matches())
+			{
+				return !rule.negated;
+			}
+		}
+		return null;
+	} //}}}
+
+	//{{{ parseRule() method
+	private static Rule parseRule(String line)
+	{
+		// trailing spaces are ignored unless escaped
+		int end = line.length();
+		while(end > 0 && line.charAt(end - 1) == ' '
+			&& (end < 2 || line.charAt(end - 2) != '\\'))
+			end--;
+		line = line.substring(0,end);
+
+		if(line.length() == 0 || line.charAt(0) == '#')
+			return null;
+
+		Rule rule = new Rule();
+		if(line.charAt(0) == '!')
+		{
+			rule.negated = true;
+			line = line.substring(1);
+		}
+		else if(line.startsWith("\\#") || line.startsWith("\\!"))
+			line = line.substring(1);
+
+		if(line.endsWith("/"))
+		{
+			rule.directoryOnly = true;
+			line = line.substring(0,line.length() - 1);
+		}
+		if(line.length() == 0)
+			return null;
+
+		rule.anchored = line.indexOf('/') != -1;
+		if(line.charAt(0) == '/')
+			line = line.substring(1);
+		rule.pattern = Pattern.compile(globToRegex(line));
+		return rule;
+	} //}}}
+
+	//{{{ globToRegex() method
+	/**
+	 * Converts a pattern to a regular expression matching paths
+	 * separated by <code>/</code>.
+	 */
+	static String globToRegex(String glob)
+	{
+		StringBuilder buf = new StringBuilder(glob.length() * 2);
+		int i = 0;
+		int length = glob.length();
+		while(i < length)
+		{
+			char c = glob.charAt(i);
+			switch(c)
+			{
+			case '*':
+				if(i + 1 < length && glob.charAt(i + 1) == '*'
+					&& (i == 0 || glob.charAt(i - 1) == '/'))
+				{
+					if(i + 2 == length)
+					{
+						// trailing "**": everything inside
+						buf.append(".*");
+						i += 2;
+						continue;
+					}
+					if(glob.charAt(i + 2) == '/')
+					{
+						// "**/": any number of directories
+						buf.append("(?:.*/)?");
+						i += 3;
+						continue;
+					}
+				}
+				buf.append("[^/]*");
+				break;
+			case '?':
+				buf.append("[^/]");
+				break;
+			case '[':
+				int close = glob.indexOf(']',i + 2);
+				if(close == -1)
+				{
+					buf.append("\\[");
+					break;
+				}
+				buf.append('[');
+				int j = i + 1;
+				if(glob.charAt(j) == '!' || glob.charAt(j) == '^')
+				{
+					buf.append('^');
+					j++;
+				}
+				for(; j < close; j++)
+				{
+					char d = glob.charAt(j);
+					if(d == '\\' || d == '[' || d == '&')
+						buf.append('\\');
+					buf.append(d);
+				}
+				buf.append(']');
+				i = close;
+				break;
+			case '\\':
+				if(i + 1 < length)
+					c = glob.charAt(++i);
+				buf.append(Pattern.quote(String.valueOf(c)));
+				break;
+			default:
+				if(Character.isLetterOrDigit(c) || c == '/')
+					buf.append(c);
+				else
+					buf.append('\\').append(c);
+			}
+			i++;
+		}
+		return buf.toString();
+	} //}}}
+
+	//}}}
+
+	//{{{ Rule class
+	private static class Rule
+	{
+		Pattern pattern;
+		boolean negated;
+		boolean directoryOnly;
+		/** True if the pattern is matched against the relative path. */
+		boolean anchored;
+	} //}}}
+}
@@ -177,6 +177,14 @@ public abstract class VFS
 	 */
 	public static final int NON_AWT_SESSION_CAP = 1 << 8;
 
+	/**
+	 * Concurrent session capability. Set for the file systems whose
+	 * sessions can be used by several threads at the same time, so that
+	 * directory trees are listed in parallel.
+	 * @since jEdit 5.4pre1
+	 */
+	public static final int CONCURRENT_SESSION_CAP = 1 << 9;
+
 	//}}}
 
 	//{{{ Extended attributes
@@ -845,10 +853,51 @@ public abstract class VFS
 		boolean skipBinary, boolean skipHidden)
 		throws IOException
 	{
-		List<String> files = new ArrayList<String>(100);
+		return _listDirectory(session, directory, filter,
+				      recursive, comp, skipBinary,
+				      skipHidden, false, null);
+	} //}}}
 
-		listFiles(session,new HashSet<String>(), files,directory,filter,
-			recursive, comp, skipBinary, skipHidden);
+	//{{{ _listDirectory() method
+	/**
+	 * Filters the directory listing like
+	 * {@link #_listDirectory(Object,String,VFSFileFilter,boolean,Component,boolean,boolean)},
+	 * and optionally skips the files excluded by <code>.gitignore</code>
+	 * files and hands the files to a consumer as soon as they are found,
+	 * so that they can be used before the whole tree was listed.<p>
+	 *
+	 * If the VFS has the {@link #CONCURRENT_SESSION_CAP}, the
+	 * subdirectories are listed in parallel. The consumer is still
+	 * called by one thread at a time, and gets the files in the order
+	 * of the returned array.
+	 *
+	 * @param session The session
+	 * @param directory The directory, as a full URL
+	 * @param filter The {@link VFSFileFilter} to use for filtering.
+	 * @param recursive If true, subdirectories will also be listed.
+	 * @param comp The component that will parent error dialog boxes
+	 * @param skipBinary ignore binary files (do not return them).
+	 * @param skipHidden skips hidden files, directories, and
+	 *        backup files.
+	 * @param skipIgnored skips the files and directories excluded by
+	 *        the <code>.gitignore</code> files of the tree, and
+	 *        <code>.git</code> directories
+	 * @param consumer Receives the files in batches, in order, or null.
+	 *        Returning false stops the listing.
+	 * @return the files found, sorted
+	 * @exception IOException if an I/O error occurred
+	 *
+	 * @since jEdit 5.4pre1
+	 */
+	public String[] _listDirectory(Object session, String directory,
+		VFSFileFilter filter, boolean recursive, Component comp,
+		boolean skipBinary, boolean skipHidden, boolean skipIgnored,
+		FileListConsumer consumer)
+		throws IOException
+	{
+		List<String> files = new DirectoryWalker(this, session, filter,
+			recursive, comp, skipBinary, skipHidden, skipIgnored,
+			consumer).walk(directory);
 
 		String[] retVal = files.toArray(new String[files.size()]);
 
@@ -877,6 +926,34 @@ public abstract class VFS
 		return null;
 	} //}}}
 
+	//{{{ _listFiles() method
+	/**
+	 * Lists the specified directory, handing the entries to the consumer
+	 * in batches as they are read, so that the caller can show them
+	 * before the whole directory was read. The batches are not sorted.
+	 * The default implementation calls
+	 * {@link #_listFiles(Object,String,Component)} and delivers one
+	 * batch.
+	 * @param session The session
+	 * @param directory The directory, as a full URL
+	 * @param comp The component that will parent error dialog boxes
+	 * @param consumer Receives the entries
+	 * @return false if the directory could not be listed, in which case
+	 * the error was already reported
+	 * @exception IOException if an I/O error occurred
+	 * @since jEdit 5.4pre1
+	 */
+	public boolean _listFiles(Object session, String directory,
+		Component comp, FileListConsumer consumer)
+		throws IOException
+	{
+		VFSFile[] files = _listFiles(session,directory,comp);
+		if(files == null)
+			return false;
+		consumer.filesListed(files);
+		return true;
+	} //}}}
+
 	//{{{ _getFile() method
 	/**
 	 * Returns the specified directory entry.
@@ -1124,6 +1201,23 @@ public abstract class VFS
 		}
 	} //}}}
 
+	//{{{ FileListConsumer interface
+	/**
+	 * Receives the entries of a directory listed by
+	 * {@link VFS#_listFiles(Object,String,Component,FileListConsumer)}.
+	 * @since jEdit 5.4pre1
+	 */
+	public interface FileListConsumer
+	{
+		/**
+		 * Called in the listing thread with the next entries.
+		 * @param files the entries, that the consumer may keep
+		 * @return false to stop the listing, if the entries are no
+		 * longer needed
+		 */
+		boolean filesListed(VFSFile[] files);
+	} //}}}
+
 	//{{{ DirectoryEntryCompare class
 	/**
 	 * Implementation of {@link Comparator}
@@ -1186,81 +1280,6 @@ public abstract class VFS
 		});
 	} //}}}
 
-	//{{{ recursive listFiles() method
-	private void listFiles(Object session, Collection<String> stack,
-		List<String> files, String directory, VFSFileFilter filter, boolean recursive,
-		Component comp, boolean skipBinary, boolean skipHidden) throws IOException
-	{
-		if (recursive && !MiscUtilities.isURL(directory))
-		{
-			String resolvedPath = MiscUtilities.resolveSymlinks(directory);
-			/*
-			 * If looking at a symlink, do not traverse the
-			 * resolved path more than once.
-			 */
-			if (!directory.equals(resolvedPath))
-			{
-				if (stack.contains(resolvedPath))
-				{
-					Log.log(Log.ERROR,this,
-						"Recursion in listFiles(): "
-						+ directory);
-					return;
-				}
-				stack.add(resolvedPath);
-			}
-		}
-
-		VFSFile[] _files = _listFiles(session,directory,
-			comp);
-		if(_files == null || _files.length == 0)
-			return;
-
-		for(int i = 0; i < _files.length; i++)
-		{
-			if (Thread.currentThread().isInterrupted())
-				break;
-			VFSFile file = _files[i];
-			if (skipHidden && (file.isHidden() || MiscUtilities.isBackup(file.getName())))
-				continue;
-			if(!filter.accept(file))
-				continue;
-			if(file.getType() == VFSFile.DIRECTORY
-				|| file.getType() == VFSFile.FILESYSTEM)
-			{
-				if(recursive)
-				{
-					String canonPath = _canonPath(session,
-						file.getPath(),comp);
-					listFiles(session,stack,files,
-						canonPath,filter,recursive,
-						comp, skipBinary, skipHidden);
-				}
-			}
-			else // It's a regular file
-			{
-				if (skipBinary)
-				{
-					try
-					{
-						if (file.isBinary(session))
-						{
-							Log.log(Log.NOTICE,this
-								,file.getPath() + ": skipped as a binary file");
-							continue;
-						}
-					}
-					catch(IOException e)
-					{
-						Log.log(Log.ERROR,this,e);
-						// may be not binary...
-					}
-				}
-				files.add(file.getPath());
-			}
-		}
-	} //}}}
-
 	//{{{ loadColors() method
 	private static void loadColors()
 	{
@@ -285,6 +285,15 @@ public class VFSFile implements Serializable
 	public boolean isBinary(Object session)
 		throws IOException
 	{
+		// the file may have been sniffed already, by a search or
+		// when it was opened
+		long length = getLength();
+		long modified = getModified();
+		AutoDetection.Summary summary = AutoDetection.getCachedSummary(
+			getPath(),length,modified);
+		if(summary != null)
+			return summary.isBinary();
+
 		InputStream in = getVFS()._createInputStream(session,getPath(),
 			false,jEdit.getActiveView());
 		if(in == null)
@@ -292,7 +301,9 @@ public class VFSFile implements Serializable
 
 		try
 		{
-			return MiscUtilities.isBinary(in);
+			summary = new AutoDetection.Result(in).getSummary();
+			AutoDetection.cacheSummary(getPath(),length,modified,summary);
+			return summary.isBinary();
 		}
 		finally
 		{
@@ -139,6 +139,37 @@ public class VFSManager
 			return fileVFS;
 	} //}}}
 
+	//{{{ getCachingVFS() method
+	/**
+	 * Returns a VFS that caches the directory listings and file
+	 * attributes of the given one for a while, see {@link CachingVFS}.
+	 * Returns the given VFS itself if caching is off, that is if the
+	 * <code>vfs.cache.ttl</code> property is 0.
+	 * @param vfs The VFS
+	 * @since jEdit 5.4pre1
+	 */
+	public static VFS getCachingVFS(VFS vfs)
+	{
+		if(vfs instanceof CachingVFS)
+			return vfs;
+		long ttl = jEdit.getIntegerProperty("vfs.cache.ttl",0);
+		if(ttl <= 0)
+			return vfs;
+
+		synchronized(cachingVFSs)
+		{
+			CachingVFS cache = cachingVFSs.get(vfs);
+			if(cache == null)
+			{
+				long maxSize = jEdit.getIntegerProperty(
+					"vfs.cache.size",16) * 1024L * 1024L;
+				cache = new CachingVFS(vfs,ttl,maxSize);
+				cachingVFSs.put(vfs,cache);
+			}
+			return cache;
+		}
+	} //}}}
+
 	//{{{ getVFSs() method
 	/**
 	 * Returns a list of all registered filesystems.
@@ -329,6 +360,21 @@ public class VFSManager
 				|| path.endsWith(java.io.File.separator)))
 				path = path.substring(0,path.length() - 1);
 
+			// forget the cached state right away, before anyone
+			// handles the update
+			CachingVFS cache;
+			if(vfs instanceof CachingVFS)
+				cache = (CachingVFS)vfs;
+			else
+			{
+				synchronized(cachingVFSs)
+				{
+					cache = cachingVFSs.get(vfs);
+				}
+			}
+			if(cache != null)
+				cache.invalidate(path);
+
 			synchronized(vfsUpdateLock)
 			{
 				for (VFSUpdate msg : vfsUpdates)
@@ -387,6 +433,8 @@ public class VFSManager
 	private static final Vector<ErrorListDialog.ErrorEntry> errors;
 	private static final Object vfsUpdateLock = new Object();
 	private static final List<VFSUpdate> vfsUpdates;
+	private static final Map<VFS, CachingVFS> cachingVFSs
+		= new IdentityHashMap<VFS, CachingVFS>();
 	// An indicator of whether ErrorDisplayer is active
 	// Should be accessed with synchronized(errorLock)
 	private static boolean errorDisplayerActive = false;
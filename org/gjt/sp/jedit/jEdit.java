@@ -51,6 +51,13 @@ import java.text.MessageFormat;
 import java.util.*;
 import java.util.List;
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.xml.sax.SAXParseException;
 
@@ -179,6 +186,7 @@ public class jEdit
 		boolean runStartupScripts = true;
 		boolean quit = false;
 		boolean wait = false;
+		boolean exitAfterStartup = false;
 		boolean shouldRelocateSettings = true;
 		String userDir = System.getProperty("user.dir");
 		boolean splash = true;
@@ -267,6 +275,8 @@ public class jEdit
 					quit = true;
 				else if(arg.equals("-nosplash"))
 					splash = false;
+				else if(arg.equals("-exitafterstartup"))
+					exitAfterStartup = true;
 				else
 				{
 					System.err.println("Unknown option: "
@@ -544,9 +554,33 @@ public class jEdit
 		//}}}
 
 		//{{{ Activate plugins that must be activated at startup
+		// unless told otherwise, 4.2 plugins are activated once the
+		// first view is shown, after the plugins they require
+		boolean deferStartup = getBooleanProperty("startup.defer");
+		List<String> activations = new ArrayList<String>();
 		for(int i = 0; i < jars.size(); i++)
 		{
-			jars.elementAt(i).activatePluginIfNecessary();
+			final PluginJAR jar = jars.elementAt(i);
+			if(!jar.isActivationNecessary())
+				continue;
+			if(deferStartup && jar.canDeferActivation())
+			{
+				String task = "activate " + jar.getPath();
+				List<String> after = new ArrayList<String>();
+				for(String required : jar.getRequiredJars())
+					after.add("activate " + required);
+				StartupScheduler.add(task,new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						activateDeferredPlugin(jar);
+					}
+				},after);
+				activations.add(task);
+			}
+			else
+				jar.activatePlugin();
 		} //}}}
 
 		String[] serviceNames = ServiceManager.getServiceNames(JEditTransferableService.class);
@@ -557,9 +591,20 @@ public class jEdit
 		}
 
 		//{{{ Load macros and run startup scripts, after plugins and settings are loaded
+		// plugins may register macro handlers, so the macros are
+		// scanned after they are activated
 		GUIUtilities.advanceSplashProgress("init macros");
-		Macros.loadMacros();
-		Macros.getMacroActionSet().initKeyBindings();
+		StartupScheduler.add(Macros.LOAD_TASK,new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				Macros.loadMacros();
+				Macros.getMacroActionSet().initKeyBindings();
+			}
+		},activations);
+		if(!deferStartup)
+			StartupScheduler.runAll();
 
 		if(runStartupScripts && jEditHome != null)
 		{
@@ -626,7 +671,7 @@ public class jEdit
 
 		// Open files, create the view and hide the splash screen.
 		SyntaxUtilities.propertyManager = jEdit.propertyManager;
-		finishStartup(gui,restore,newPlainView,userDir,args);
+		finishStartup(gui,restore,newPlainView,userDir,args,exitAfterStartup);
 		logTime("main done");
 	} //}}}
 
@@ -741,8 +786,7 @@ public class jEdit
 	 */
 	public static boolean getBooleanProperty(String name, boolean def)
 	{
-		String value = getProperty(name);
-		return StandardUtilities.getBoolean(value, def);
+		return propMgr.getBooleanProperty(name,def);
 	} //}}}
 
 	//{{{ getIntegerProperty() method
@@ -764,20 +808,7 @@ public class jEdit
 	 */
 	public static int getIntegerProperty(String name, int def)
 	{
-		String value = getProperty(name);
-		if(value == null)
-			return def;
-		else
-		{
-			try
-			{
-				return Integer.parseInt(value.trim());
-			}
-			catch(NumberFormatException nf)
-			{
-				return def;
-			}
-		}
+		return propMgr.getIntegerProperty(name,def);
 	} //}}}
 
 	//{{{ getDoubleProperty() method
@@ -836,36 +867,7 @@ public class jEdit
 	 */
 	public static Font getFontProperty(String name, Font def)
 	{
-		String family = getProperty(name);
-		String sizeString = getProperty(name + "size");
-		String styleString = getProperty(name + "style");
-
-		if(family == null || sizeString == null || styleString == null)
-			return def;
-		else
-		{
-			int size, style;
-
-			try
-			{
-				size = Integer.parseInt(sizeString);
-			}
-			catch(NumberFormatException nf)
-			{
-				return def;
-			}
-
-			try
-			{
-				style = Integer.parseInt(styleString);
-			}
-			catch(NumberFormatException nf)
-			{
-				return def;
-			}
-
-			return new Font(family,style,size);
-		}
+		return propMgr.getFontProperty(name,def);
 	} //}}}
 
 	//{{{ getColorProperty() method
@@ -888,11 +890,20 @@ public class jEdit
 	 */
 	public static Color getColorProperty(String name, Color def)
 	{
-		String value = getProperty(name);
-		if(value == null)
-			return def;
-		else
-			return SyntaxUtilities.parseColor(value, def);
+		return propMgr.getColorProperty(name,def);
+	} //}}}
+
+	//{{{ getPropertyGeneration() method
+	/**
+	 * Returns a number that changes every time a property may have
+	 * changed: set, unset, or loaded with a plugin or a localization.
+	 * Code deriving state from many properties may keep the generation
+	 * it was derived at, and derive it again only when it changed.
+	 * @since jEdit 5.4pre1
+	 */
+	public static long getPropertyGeneration()
+	{
+		return propMgr.getGeneration();
 	} //}}}
 
 	//{{{ setColorProperty() method
@@ -1050,6 +1061,10 @@ public class jEdit
 		KillRing.getInstance().propertiesChanged(getIntegerProperty("history",25));
 		Chunk.propertiesChanged(propertyManager);
 		Log.setBeepOnOutput(jEdit.getBooleanProperty("debug.beepOnOutput"));
+		EditBusMetrics.setBudget(getIntegerProperty("editbus.budget",50) * 1000000L);
+		PaintProfiler.setFrameBudget(getIntegerProperty("paint-profiler.budget",16) * 1000000L);
+		FileWatcher.getInstance().setBackupNames(getProperty("backup.prefix"),
+			getProperty("backup.suffix"));
 
 		if (getBooleanProperty("systrayicon"))
 		{
@@ -1230,7 +1245,13 @@ public class jEdit
 	 */
 	public static void addPluginJAR(String path)
 	{
-		PluginJAR jar = new PluginJAR(new File(path));
+		addPluginJAR(new PluginJAR(new File(path)));
+	} //}}}
+
+	//{{{ addPluginJAR() method
+	private static void addPluginJAR(PluginJAR jar)
+	{
+		String path = jar.getPath();
 		jars.addElement(jar);
 		if (jar.init())
 		{
@@ -1251,13 +1272,13 @@ public class jEdit
 		}
 	} //}}}
 
-	//{{{ addPluginJARsFromDirectory() method
+	//{{{ findPluginJARs() method
 	/**
-	 * Loads all plugins in a directory.
+	 * Finds the plugins in a directory, which are not blacklisted.
 	 * @param directory The directory
-	 * @since jEdit 4.2pre1
+	 * @param found The list to add the plugins to
 	 */
-	private static void addPluginJARsFromDirectory(String directory)
+	private static void findPluginJARs(String directory, List<PluginJAR> found)
 	{
 		Log.log(Log.NOTICE,jEdit.class,"Loading plugins from "
 			+ directory);
@@ -1278,8 +1299,96 @@ public class jEdit
 			if (jEdit.getBooleanProperty("plugin-blacklist." + plugin))
 				continue;
 
-			addPluginJAR(path);
+			found.add(new PluginJAR(new File(path)));
+		}
+	} //}}}
+
+	//{{{ scanPluginJARs() method
+	/**
+	 * Opens the plugin JARs and reads their summaries, or their contents
+	 * if the summaries are outdated, on several threads. They are then
+	 * added one by one, in the order they were found, so the dependency
+	 * checks and the activation order do not depend on the threads.
+	 * The JARs that could not be scanned are read by
+	 * {@link PluginJAR#init()}, once no scan is running.
+	 */
+	private static void scanPluginJARs(List<PluginJAR> found)
+	{
+		int threads = Math.min(found.size(),
+			Math.min(Runtime.getRuntime().availableProcessors(),8));
+		if(threads <= 1)
+			return;
+
+		long start = System.nanoTime();
+		ExecutorService pool = Executors.newFixedThreadPool(threads,
+			new ThreadFactory()
+			{
+				private final AtomicInteger threadIDs = new AtomicInteger();
+
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r,"jEdit Plugin Scanner #"
+						+ threadIDs.getAndIncrement());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		List<Future<?>> futures = new ArrayList<Future<?>>(found.size());
+		try
+		{
+			for (final PluginJAR jar : found)
+			{
+				futures.add(pool.submit(new Runnable()
+				{
+					public void run()
+					{
+						jar.scan();
+					}
+				}));
+			}
+			for (Future<?> future : futures)
+			{
+				try
+				{
+					future.get();
+				}
+				catch(ExecutionException e)
+				{
+					// this JAR is read again by init()
+					Log.log(Log.ERROR,jEdit.class,e.getCause());
+				}
+			}
+		}
+		catch(InterruptedException e)
+		{
+			// the JARs not scanned yet are read by init()
+			for (Future<?> future : futures)
+				future.cancel(false);
+			Thread.currentThread().interrupt();
 		}
+		finally
+		{
+			pool.shutdown();
+			// init() must not read a JAR that is still being scanned
+			boolean interrupted = Thread.interrupted();
+			for(;;)
+			{
+				try
+				{
+					if(pool.awaitTermination(1L,TimeUnit.SECONDS))
+						break;
+				}
+				catch(InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+			if(interrupted)
+				Thread.currentThread().interrupt();
+		}
+		Log.log(Log.DEBUG,jEdit.class,"Scanned " + found.size()
+			+ " plugin JARs on " + threads + " threads in "
+			+ (System.nanoTime() - start) / 1000000L + " ms");
 	} //}}}
 
 	//{{{ removePluginJAR() method
@@ -1656,33 +1765,43 @@ public class jEdit
 		composeBufferPropsFromHistory(props, path);
 
 		Buffer newBuffer;
+		Buffer existing;
+		View view = editPane == null ? null : editPane.getView();
 
 		synchronized (editBusOrderingLock)
 		{
-			View view = editPane == null ? null : editPane.getView();
 			synchronized(bufferListLock)
 			{
-				Buffer buffer = getBuffer(path);
-				if(buffer != null)
+				existing = getBuffer(path);
+				if(existing != null)
 				{
 					if(editPane != null)
-						editPane.setBuffer(buffer,true);
-
-					return buffer;
+						editPane.setBuffer(existing,true);
+					newBuffer = null;
 				}
-
-				newBuffer = new Buffer(path,newFile,false,props);
-
-				if(!newBuffer.load(view,false))
-					return null;
-				addBufferToList(newBuffer);
-				if (editPane != null)
-					bufferSetManager.addBuffer(editPane, newBuffer);
 				else
-					bufferSetManager.addBuffer(jEdit.getActiveView(), newBuffer);
+				{
+					newBuffer = new Buffer(path,newFile,false,props);
+
+					if(!newBuffer.load(view,false))
+						return null;
+					addBufferToList(newBuffer);
+					if (editPane != null)
+						bufferSetManager.addBuffer(editPane, newBuffer);
+					else
+						bufferSetManager.addBuffer(jEdit.getActiveView(), newBuffer);
+				}
 			}
 
-			EditBus.send(new BufferUpdate(newBuffer,view,BufferUpdate.CREATED));
+			if(newBuffer != null)
+				EditBus.send(new BufferUpdate(newBuffer,view,BufferUpdate.CREATED));
+		}
+
+		if(existing != null)
+		{
+			// a buffer restored from the previous session
+			existing.loadIfDeferred(view);
+			return existing;
 		}
 
 		if(editPane != null)
@@ -1748,19 +1867,65 @@ public class jEdit
 			props = new Hashtable<String, Object>();
 		composeBufferPropsFromHistory(props, path);
 
+		Buffer buffer;
+		synchronized(bufferListLock)
+		{
+			buffer = getBuffer(path);
+			if(buffer == null)
+			{
+				buffer = new Buffer(path,newFile,true,props);
+				buffer.setBooleanProperty(Buffer.ENCODING_AUTODETECT, true);
+				if(!buffer.load(view,false))
+					return null;
+				else
+					return buffer;
+			}
+		}
+
+		// a buffer restored from the previous session
+		buffer.loadIfDeferred(view);
+		return buffer;
+	} //}}}
+
+	//{{{ openDeferred() method
+	/**
+	 * Adds a buffer to the buffer list without loading it. It is loaded
+	 * when it is shown in an edit pane, when it is opened again, or in
+	 * the background by the {@link DeferredBufferLoader}.
+	 * @param path The path name of the file
+	 * @return the buffer
+	 * @since jEdit 5.4pre1
+	 * @see Buffer#isLoadDeferred()
+	 */
+	static Buffer openDeferred(String path)
+	{
+		if(MiscUtilities.isURL(path))
+		{
+			if("file".equals(MiscUtilities.getProtocolOfURL(path)))
+				path = path.substring(5);
+		}
+
+		path = MiscUtilities.constructPath(null,path);
+
+		Hashtable<String, Object> props = new Hashtable<String, Object>();
+		composeBufferPropsFromHistory(props, path);
+
+		Buffer buffer;
 		synchronized(bufferListLock)
 		{
-			Buffer buffer = getBuffer(path);
+			buffer = getBuffer(path);
 			if(buffer != null)
 				return buffer;
 
-			buffer = new Buffer(path,newFile,true,props);
+			buffer = new Buffer(path,false,false,props);
 			buffer.setBooleanProperty(Buffer.ENCODING_AUTODETECT, true);
-			if(!buffer.load(view,false))
-				return null;
-			else
-				return buffer;
+			buffer.deferLoad();
+			addBufferToList(buffer);
 		}
+
+		EditBus.send(new BufferUpdate(buffer,null,BufferUpdate.CREATED));
+		DeferredBufferLoader.add(buffer);
+		return buffer;
 	} //}}}
 
 	//{{{ commitTemporary() method
@@ -2034,7 +2199,8 @@ public class jEdit
 
 		PerspectiveManager.setPerspectiveDirty(true);
 
-		if(!buffer.isNewFile())
+		// the history of a buffer that was never loaded did not change
+		if(!buffer.isNewFile() && !buffer.isLoadDeferred())
 		{
 			if(view != null)
 				view.getEditPane().saveCaretInfo();
@@ -2131,7 +2297,10 @@ public class jEdit
 
 		while(buffer != null)
 		{
-			if(!buffer.isNewFile() && saveRecent)
+			// the history of a buffer that was never loaded did
+			// not change
+			if(!buffer.isNewFile() && !buffer.isLoadDeferred()
+				&& saveRecent)
 			{
 				Integer _caret = (Integer)buffer.getProperty(Buffer.CARET);
 				int caret = _caret == null ? 0 : _caret.intValue();
@@ -2413,6 +2582,8 @@ public class jEdit
 	/**
 	 * Checks buffer status on disk and shows the dialog box
 	 * informing the user that buffers changed on disk, if necessary.
+	 * Since jEdit 5.4pre1, the files are looked at in the background,
+	 * and the buffers are reloaded later in the event dispatch thread.
 	 * @param view The view
 	 * @param currentBuffer indicates whether to check only the current buffer
 	 * @since jEdit 4.2pre1
@@ -2422,61 +2593,7 @@ public class jEdit
 		Log.log(Log.DEBUG, jEdit.class, "checkBufferStatus for " +
 			(currentBuffer ? "current buffer: " + view.getBuffer() : "all buffers"));
 
-		// still need to call the status check even if the option is
-		// off, so that the write protection is updated if it changes
-		// on disk
-
-		// auto reload changed buffers?
-		boolean autoReload = getBooleanProperty("autoReload");
-
-		// the problem with this is that if we have two edit panes
-		// looking at the same buffer and the file is reloaded both
-		// will jump to the same location
-		visit(new SaveCaretInfoVisitor());
-
-		Buffer buffer = buffersFirst;
-
-		int[] states = new int[bufferCount];
-		int i = 0;
-		boolean notifyFileChanged = false;
-		while(buffer != null)
-		{
-			if(currentBuffer && buffer != view.getBuffer())
-			{
-				buffer = buffer.next;
-				i++;
-				continue;
-			}
-
-			states[i] = buffer.checkFileStatus(view);
-
-			switch(states[i])
-			{
-			case Buffer.FILE_CHANGED:
-				if(buffer.getAutoReload())
-				{
-					if(buffer.isDirty())
-						notifyFileChanged = true;
-					else
-						buffer.load(view,true);
-				}
-				else	// no automatic reload even if general setting is true
-					autoReload = false;
-				// don't notify user if "do nothing" was chosen
-				if(buffer.getAutoReloadDialog())
-					notifyFileChanged = true;
-				break;
-			case Buffer.FILE_DELETED:
-				notifyFileChanged = true;
-				break;
-			}
-
-			buffer = buffer.next;
-			i++;
-		}
-
-		if(notifyFileChanged)
-			new FilesChangedDialog(view,states,autoReload);
+		BufferStatusChecker.check(view,currentBuffer);
 	} //}}}
 
 	//}}}
@@ -3290,6 +3407,8 @@ public class jEdit
 			+ " at line number <line> and column number <column>");
 		System.out.println("	--: End of options");
 		System.out.println("	-background: Run in background mode");
+		System.out.println("	-exitafterstartup: Exit once the startup is over, to time it or to");
+		System.out.println("	 record the classes it loads");
 		System.out.println("	-nobackground: Disable background mode (default)");
 		System.out.println("	-gui: Only if running in background mode; open initial view (default)");
 		System.out.println("	-nogui: Only if running in background mode; don't open initial view");
@@ -3534,6 +3653,9 @@ public class jEdit
 		// macros if they are changed from within the editor
 		EditBus.addToBus(new SettingsReloader());
 
+		// Check buffers when the file watcher reports changes
+		EditBus.addToBus(new BufferStatusChecker.ChangeHandler());
+
 		// Set the ContextClassLoader for the main jEdit thread.
 		// This way, the ContextClassLoader will be a JARClassLoader
 		// even at plugin activation and the EventQueue can also pick
@@ -3685,10 +3807,11 @@ public class jEdit
 	 */
 	private static void initPlugins()
 	{
+		List<PluginJAR> found = new ArrayList<PluginJAR>();
 		if(jEditHome != null)
 		{
-			addPluginJARsFromDirectory(MiscUtilities.constructPath(
-				jEditHome,"jars"));
+			findPluginJARs(MiscUtilities.constructPath(
+				jEditHome,"jars"),found);
 		}
 
 		if(settingsDirectory != null)
@@ -3696,9 +3819,14 @@ public class jEdit
 			File jarsDirectory = new File(settingsDirectory,"jars");
 			if(!jarsDirectory.exists())
 				jarsDirectory.mkdir();
-			addPluginJARsFromDirectory(jarsDirectory.getPath());
+			findPluginJARs(jarsDirectory.getPath(),found);
 		}
 
+		scanPluginJARs(found);
+		for (PluginJAR jar : found)
+			addPluginJAR(jar);
+		PluginJAR.saveSummaryIndex();
+
 		PluginJAR[] jars = getPluginJARs();
 		for (PluginJAR jar : jars)
 			jar.checkDependencies();
@@ -4164,13 +4292,15 @@ public class jEdit
 
 	//{{{ finishStartup() method
 	private static void finishStartup(final boolean gui, final boolean restore,
-		final boolean newPlainView, final String userDir, final String[] args)
+		final boolean newPlainView, final String userDir, final String[] args,
+		final boolean exitAfterStartup)
 	{
 		EventQueue.invokeLater(new Runnable()
 		{
 			@Override
 			public void run()
 			{
+				StartupScheduler.phase("create the view");
 				int count = getBufferCount();
 
 				boolean restoreFiles = restore
@@ -4237,6 +4367,23 @@ public class jEdit
 
 				startupDone.set(0, true);
 
+				// activate the plugins and load the macros
+				// that could wait, then the rest of the
+				// restored buffers
+				if(exitAfterStartup)
+				{
+					StartupScheduler.whenDone(new Runnable()
+					{
+						public void run()
+						{
+							exit(null,true);
+						}
+					});
+				}
+				StartupScheduler.viewShown(System.currentTimeMillis()
+					- startupTime);
+				DeferredBufferLoader.start();
+
 				// in one case not a single AWT class will
 				// have been touched (splash screen off +
 				// -nogui -nobackground switches on command
@@ -4246,6 +4393,24 @@ public class jEdit
 		});
 	} //}}}
 
+	//{{{ activateDeferredPlugin() method
+	/**
+	 * Activates a plugin whose activation waited for the first view.
+	 */
+	private static void activateDeferredPlugin(PluginJAR jar)
+	{
+		if(jars.indexOf(jar) == -1)
+			return;
+		jar.activatePlugin();
+		// the plugin missed the message sent to the others
+		EditPlugin plugin = jar.getPlugin();
+		if(plugin != null && !(plugin instanceof EditPlugin.Deferred)
+			&& !(plugin instanceof EditPlugin.Broken))
+		{
+			EditBus.sendTo(plugin,new EditorStarted(null));
+		}
+	} //}}}
+
 	//{{{ showPluginErrorDialog() method
 	private static void showPluginErrorDialog()
 	{
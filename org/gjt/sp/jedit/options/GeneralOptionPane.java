@@ -66,6 +66,7 @@ public class GeneralOptionPane extends AbstractOptionPane
 	private JCheckBox persistentMarkers;
 	private JCheckBox restore;
 	private JCheckBox restoreRemote;
+	private JCheckBox restoreLazy;
 	private JCheckBox restoreCLI;
 	private JCheckBox restoreSplits;
 
@@ -170,6 +171,7 @@ public class GeneralOptionPane extends AbstractOptionPane
 			{
 				restoreCLI.setEnabled(restore.isSelected());
 				restoreRemote.setEnabled(restore.isSelected());
+				restoreLazy.setEnabled(restore.isSelected());
 			}
 		});
 
@@ -187,6 +189,12 @@ public class GeneralOptionPane extends AbstractOptionPane
 		restoreCLI.setEnabled(restore.isSelected());
 		addComponent(restoreCLI);
 
+		restoreLazy = new JCheckBox(jEdit.getProperty(
+				"options.general.restore.lazy"));
+		restoreLazy.setSelected(jEdit.getBooleanProperty("restore.lazy", true));
+		restoreLazy.setEnabled(restore.isSelected());
+		addComponent(restoreLazy);
+
 		restoreSplits = new JCheckBox(jEdit.getProperty(
 				"options.general.restore.splits", "Restore split configuration"));
 		restoreSplits.setSelected(jEdit.getBooleanProperty("restore.splits", true));
@@ -260,6 +268,7 @@ public class GeneralOptionPane extends AbstractOptionPane
 		jEdit.setBooleanProperty("restore",restore.isSelected());
 		jEdit.setBooleanProperty("restore.cli",restoreCLI.isSelected());
 		jEdit.setBooleanProperty("restore.remote", restoreRemote.isSelected());
+		jEdit.setBooleanProperty("restore.lazy", restoreLazy.isSelected());
 		jEdit.setBooleanProperty("restore.splits", restoreSplits.isSelected());
 		{
 			int maxWarnResults = (Integer) hypersearchResultsWarning.getModel().getValue();
@@ -87,6 +87,14 @@ public class SaveBackupOptionPane extends AbstractOptionPane
 		autosaveUntitled.setSelected(jEdit.getBooleanProperty("autosaveUntitled"));
 		addComponent(autosaveUntitled);
 
+		/* Journal autosave */
+		autosaveJournal = new JCheckBox(jEdit.getProperty(
+			"options.save-back.autosaveJournal"));
+		autosaveJournal.setToolTipText(jEdit.getProperty(
+			"options.save-back.autosaveJournal.tooltip"));
+		autosaveJournal.setSelected(jEdit.getBooleanProperty("autosave.journal"));
+		addComponent(autosaveJournal);
+
 		suppressNotSavedConfirmUntitled = new JCheckBox(jEdit.getProperty(
 			"options.save-back.suppressNotSavedConfirmUntitled"));
 		suppressNotSavedConfirmUntitled.setToolTipText(jEdit.getProperty(
@@ -155,6 +163,7 @@ public class SaveBackupOptionPane extends AbstractOptionPane
 		boolean newAutosave = autosaveUntitled.isSelected();
 		boolean oldAutosave = jEdit.getBooleanProperty("autosaveUntitled");
 		jEdit.setBooleanProperty("autosaveUntitled", newAutosave);
+		jEdit.setBooleanProperty("autosave.journal", autosaveJournal.isSelected());
 		jEdit.setBooleanProperty("suppressNotSavedConfirmUntitled",
 				suppressNotSavedConfirmUntitled.isSelected());
 		jEdit.setBooleanProperty("useMD5forDirtyCalculation",
@@ -178,6 +187,7 @@ public class SaveBackupOptionPane extends AbstractOptionPane
 	private JCheckBox confirmSaveAll;
 	private JTextField autosave;
 	private JCheckBox autosaveUntitled;
+	private JCheckBox autosaveJournal;
 	private JCheckBox suppressNotSavedConfirmUntitled;
 	private JCheckBox useMD5forDirtyCalculation;
 	private JTextField backups;
@@ -222,6 +222,12 @@ public class TextAreaOptionPane extends AbstractOptionPane
 			jEdit.getColorProperty("view.wrapGuideColor")),
 			GridBagConstraints.VERTICAL);
 
+		/* Minimap */
+		minimap = new JCheckBox(jEdit.getProperty("options.textarea"
+			+ ".minimap"));
+		minimap.setSelected(jEdit.getBooleanProperty("view.minimap"));
+		addComponent(minimap);
+
 		addSeparator();
 
 		/* Electric borders */
@@ -289,6 +295,7 @@ public class TextAreaOptionPane extends AbstractOptionPane
 			.isSelected());
 		jEdit.setColorProperty("view.wrapGuideColor",
 			wrapGuideColor.getSelectedColor());
+		jEdit.setBooleanProperty("view.minimap",minimap.isSelected());
 		jEdit.setIntegerProperty("view.electricBorders",electricBorders
 			.isSelected() ? 3 : 0);
 		AntiAlias nv = new AntiAlias(jEdit.getProperty("view.antiAlias"));
@@ -310,6 +317,7 @@ public class TextAreaOptionPane extends AbstractOptionPane
 	private ColorWellButton foregroundColor;
 	private ColorWellButton backgroundColor;
 	private JCheckBox blinkCaret;
+	private JCheckBox minimap;
 	private JCheckBox blockCaret;
 	private JCheckBox thickCaret;
 	private ColorWellButton caretColor;
@@ -103,6 +103,17 @@ public abstract class BufferListSet implements SearchFileSet
 		return null;
 	} //}}}
 
+	//{{{ isListed() method
+	/**
+	 * Returns true if the files of the set are known, so that
+	 * {@link #getFiles(View)} returns at once.
+	 * @since jEdit 5.4pre1
+	 */
+	public synchronized boolean isListed()
+	{
+		return files != null;
+	} //}}}
+
 	//{{{ invalidateCachedList() method
 	public void invalidateCachedList()
 	{
@@ -186,6 +197,17 @@ public abstract class BufferListSet implements SearchFileSet
 		}
 	} //}}}
 	
+	//{{{ setFiles() method
+	/**
+	 * Sets the files of the set, for subclasses that list them by other
+	 * means than {@link #_getFiles(Component)}.
+	 * @since jEdit 5.4pre1
+	 */
+	protected synchronized void setFiles(String[] files)
+	{
+		this.files = files;
+	} //}}}
+
 	/**
 	 * Note that the paths in the returned list must be
 	 * fully canonicalized.
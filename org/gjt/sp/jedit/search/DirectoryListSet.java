@@ -104,14 +104,47 @@ public class DirectoryListSet extends BufferListSet
 			+ recurse + ')';
 	} //}}}
 
+	//{{{ getFiles() method
+	/**
+	 * Lists the files, handing them to the consumer as soon as they are
+	 * found, so that they can be searched while the rest of the tree is
+	 * listed. The consumer may be called by several threads, one at a
+	 * time. The list is then kept, as by {@link #getFiles(View)}.
+	 * @param comp The component that will parent error dialog boxes
+	 * @param consumer Receives the files, in the order of the list
+	 * @return the files, or null if there was an error
+	 * @since jEdit 5.4pre1
+	 */
+	public String[] getFiles(Component comp, VFS.FileListConsumer consumer)
+	{
+		String[] files = listFiles(comp,consumer);
+		// an interrupted listing is not complete
+		if(!Thread.currentThread().isInterrupted())
+			setFiles(files);
+		return files;
+	} //}}}
+
 	//{{{ _getFiles() method
 	@Override
 	protected String[] _getFiles(final Component comp)
 	{
-		boolean skipBinary, skipHidden;
+		return listFiles(comp,null);
+	} //}}}
+
+	//{{{ Private members
+	private String directory;
+	private String glob;
+	private boolean recurse;
+
+	//{{{ listFiles() method
+	private String[] listFiles(Component comp, VFS.FileListConsumer consumer)
+	{
+		boolean skipBinary, skipHidden, skipIgnored;
 		skipBinary = jEdit.getBooleanProperty("search.skipBinary.toggle");
 		skipHidden = jEdit.getBooleanProperty("search.skipHidden.toggle");
-		final VFS vfs = VFSManager.getVFSForPath(directory);
+		skipIgnored = jEdit.getBooleanProperty("search.skipIgnored.toggle");
+		final VFS vfs = VFSManager.getCachingVFS(
+			VFSManager.getVFSForPath(directory));
 		Object session;
 		session = vfs.createVFSSessionSafe(directory, comp);
 
@@ -119,7 +152,9 @@ public class DirectoryListSet extends BufferListSet
 		{
 			try
 			{
-				return vfs._listDirectory(session,directory,glob,recurse,comp, skipBinary, skipHidden);
+				return vfs._listDirectory(session,directory,
+					new GlobVFSFileFilter(glob),recurse,comp,
+					skipBinary,skipHidden,skipIgnored,consumer);
 			}
 			finally
 			{
@@ -133,10 +168,6 @@ public class DirectoryListSet extends BufferListSet
 			return null;
 		}
 	} //}}}
-
 	//{{{ Private members
-	private String directory;
-	private String glob;
-	private boolean recurse;
 	//}}}
 }
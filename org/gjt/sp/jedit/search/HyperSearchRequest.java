@@ -32,7 +32,13 @@ import org.gjt.sp.jedit.Buffer;
 import org.gjt.sp.jedit.GUIUtilities;
 import org.gjt.sp.jedit.jEdit;
 import org.gjt.sp.jedit.View;
+import org.gjt.sp.jedit.io.VFS;
+import org.gjt.sp.jedit.io.VFSFile;
 import org.gjt.sp.util.*;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 //}}}
 
 /**
@@ -63,21 +69,25 @@ class HyperSearchRequest extends Task
 		setStatus(jEdit.getProperty("hypersearch-status"));
 
 		SearchFileSet fileset = SearchAndReplace.getSearchFileSet();
-		String[] files = fileset.getFiles(view);
-		if(files == null || files.length == 0)
+		String[] files = null;
+		StreamedFiles streamed = null;
+		if(selection == null && fileset instanceof DirectoryListSet
+			&& !((DirectoryListSet)fileset).isListed())
 		{
-			ThreadUtilities.runInDispatchThread(new Runnable()
-			{
-				public void run()
-				{
-					GUIUtilities.error(view,"empty-fileset",null);
-					results.searchDone(rootSearchNode);
-				}
-			});
-			return;
+			// search the files while the tree is being listed
+			streamed = new StreamedFiles((DirectoryListSet)fileset);
 		}
+		else
+		{
+			files = fileset.getFiles(view);
+			if(files == null || files.length == 0)
+			{
+				showEmptyFileset();
+				return;
+			}
 
-		setMaximum(fileset.getFileCount(view));
+			setMaximum(fileset.getFileCount(view));
+		}
 
 		// to minimize synchronization and stuff like that, we only
 		// show a status message at most twice a second
@@ -101,8 +111,15 @@ class HyperSearchRequest extends Task
 				int resultCount = 0;
 				boolean asked = false;
 				int maxResults = jEdit.getIntegerProperty("hypersearch.maxWarningResults");
-				for(int i = 0; i < files.length; i++)
+				for(int i = 0; ; i++)
 				{
+					String file;
+					if(streamed == null)
+						file = i < files.length ? files[i] : null;
+					else
+						file = streamed.next();
+					if(file == null)
+						break;
 					if(Thread.currentThread().isInterrupted())
 					{
 						Log.log(Log.MESSAGE, this, "Search stopped by user action (stop button)");
@@ -123,12 +140,13 @@ class HyperSearchRequest extends Task
 							break;
 						}
 					}
-					String file = files[i];
 					current++;
 
 					long currentTime = System.currentTimeMillis();
 					if(currentTime - lastStatusTime > 250L)
 					{
+						if(streamed != null)
+							setMaximum(streamed.getCount());
 						setValue(current);
 						lastStatusTime = currentTime;
 						results.setSearchStatus(searchingCaption + file);
@@ -145,6 +163,11 @@ class HyperSearchRequest extends Task
 					}
 				}
 				Log.log(Log.MESSAGE, this, resultCount +" OCCURENCES");
+				if(streamed != null && current == 0
+					&& !Thread.currentThread().isInterrupted())
+				{
+					showEmptyFileset();
+				}
 			}
 		}
 		catch(final Exception e)
@@ -160,6 +183,8 @@ class HyperSearchRequest extends Task
 		}
 		finally
 		{
+			if(streamed != null)
+				streamed.stop();
 			ThreadUtilities.runInDispatchThread(new Runnable()
 			{
 				public void run()
@@ -182,6 +207,19 @@ class HyperSearchRequest extends Task
 	private DefaultMutableTreeNode selectNode;
 	//}}}
 
+	//{{{ showEmptyFileset() method
+	private void showEmptyFileset()
+	{
+		ThreadUtilities.runInDispatchThread(new Runnable()
+		{
+			public void run()
+			{
+				GUIUtilities.error(view,"empty-fileset",null);
+				results.searchDone(rootSearchNode);
+			}
+		});
+	} //}}}
+
 	//{{{ searchInSelection() method
 	private int searchInSelection(Buffer buffer) throws Exception
 	{
@@ -309,4 +347,87 @@ class HyperSearchRequest extends Task
 	} //}}}
 
 	//}}}
+
+	//{{{ StreamedFiles class
+	/**
+	 * Lists the files of a directory set in another thread, and hands
+	 * them over as they are found, in the order of the sorted listing,
+	 * so that the results are in the same order from one search to the
+	 * next.
+	 */
+	private class StreamedFiles implements VFS.FileListConsumer, Runnable
+	{
+		StreamedFiles(DirectoryListSet fileset)
+		{
+			this.fileset = fileset;
+			queue = new LinkedBlockingQueue<String>();
+			thread = new Thread(this,"HyperSearch file listing");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		public void run()
+		{
+			try
+			{
+				fileset.getFiles(view,this);
+			}
+			finally
+			{
+				queue.add(END);
+			}
+		}
+
+		public boolean filesListed(VFSFile[] files)
+		{
+			for(VFSFile file : files)
+				queue.add(file.getPath());
+			count.addAndGet(files.length);
+			return !stopped;
+		}
+
+		/**
+		 * Returns the next file, waiting for it if needed, or null
+		 * when there are no more files or the thread is interrupted.
+		 */
+		String next()
+		{
+			try
+			{
+				String file = queue.take();
+				if(file != END)
+					return file;
+				// for the next calls
+				queue.add(END);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			return null;
+		}
+
+		/**
+		 * Returns the number of files found so far.
+		 */
+		int getCount()
+		{
+			return count.get();
+		}
+
+		void stop()
+		{
+			stopped = true;
+			thread.interrupt();
+		}
+
+		private final DirectoryListSet fileset;
+		private final BlockingQueue<String> queue;
+		private final Thread thread;
+		private final AtomicInteger count = new AtomicInteger();
+		private volatile boolean stopped;
+	} //}}}
+
+	/** Marks the end of the streamed files. */
+	private static final String END = new String("");
 }
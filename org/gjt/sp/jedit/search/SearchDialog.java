@@ -304,6 +304,7 @@ public class SearchDialog extends EnhancedDialog
 		focusOrder.add(choose);
 		focusOrder.add(searchSubDirectories);
 		focusOrder.add(skipHidden);
+		focusOrder.add(skipIgnored);
 		focusOrder.add(skipBinaryFiles);
 	} //}}}
 	
@@ -340,6 +341,7 @@ public class SearchDialog extends EnhancedDialog
 	private JCheckBox searchSubDirectories;
 	private JCheckBox skipBinaryFiles;
 	private JCheckBox skipHidden;
+	private JCheckBox skipIgnored;
 	
 	private JButton choose;
 	private JButton synchronize;
@@ -687,10 +689,14 @@ public class SearchDialog extends EnhancedDialog
 		searchSubDirectories.setSelected(jEdit.getBooleanProperty("search.subdirs.toggle"));
 		skipHidden = new JCheckBox(jEdit.getProperty("search.skipHidden"));
 		skipHidden.setSelected(jEdit.getBooleanProperty("search.skipHidden.toggle", true));
+		skipIgnored = new JCheckBox(jEdit.getProperty("search.skipIgnored"));
+		skipIgnored.setToolTipText(jEdit.getProperty("search.skipIgnored.tooltip"));
+		skipIgnored.setSelected(jEdit.getBooleanProperty("search.skipIgnored.toggle"));
 		skipBinaryFiles = new JCheckBox(jEdit.getProperty("search.skipBinary"));
 		skipBinaryFiles.setSelected(jEdit.getBooleanProperty("search.skipBinary.toggle", true));
 		dirCheckBoxPanel.add(searchSubDirectories);
 		dirCheckBoxPanel.add(skipHidden);
+		dirCheckBoxPanel.add(skipIgnored);
 		dirCheckBoxPanel.add(skipBinaryFiles);
 
 		cons.insets = new Insets(0, 0, 0, 0);
@@ -771,6 +777,7 @@ public class SearchDialog extends EnhancedDialog
 		choose.setEnabled(searchDirs);
 		searchSubDirectories.setEnabled(searchDirs);
 		skipHidden.setEnabled(searchDirs);
+		skipIgnored.setEnabled(searchDirs);
 		skipBinaryFiles.setEnabled(searchDirs);
 		
 		synchronize.setEnabled(searchAllBuffers.isSelected()
@@ -802,6 +809,7 @@ public class SearchDialog extends EnhancedDialog
 			SearchAndReplace.setAutoWrapAround(wrap.isSelected());
 			jEdit.setBooleanProperty("search.subdirs.toggle", searchSubDirectories.isSelected());
 			jEdit.setBooleanProperty("search.skipHidden.toggle", skipHidden.isSelected());
+			jEdit.setBooleanProperty("search.skipIgnored.toggle", skipIgnored.isSelected());
 			jEdit.setBooleanProperty("search.skipBinary.toggle", skipBinaryFiles.isSelected());
 
 			String filter = this.filter.getText();
@@ -62,6 +62,31 @@ public class DisplayTokenHandler extends DefaultTokenHandler
 		this.out = out;
 		this.wrapMargin = wrapMargin;
 		this.physicalLineOffset = physicalLineOffset;
+		layoutTime = 0L;
+	} //}}}
+
+	//{{{ setLayoutTimed() method
+	/**
+	 * Sets if the time spent laying out chunks should be measured.
+	 * @param layoutTimed true to measure
+	 * @see #getLayoutTime()
+	 * @since jEdit 5.4pre1
+	 */
+	public void setLayoutTimed(boolean layoutTimed)
+	{
+		this.layoutTimed = layoutTimed;
+	} //}}}
+
+	//{{{ getLayoutTime() method
+	/**
+	 * Returns the time in nanoseconds spent laying out chunks since the
+	 * last call to {@link #init(SyntaxStyle[],FontRenderContext,TabExpander,List,float,int)},
+	 * if layout timing is enabled.
+	 * @since jEdit 5.4pre1
+	 */
+	public long getLayoutTime()
+	{
+		return layoutTime;
 	} //}}}
 
 	//{{{ getChunkList() method
@@ -93,7 +118,14 @@ public class DisplayTokenHandler extends DefaultTokenHandler
 	{
 		if(id == Token.END)
 		{
-			makeScreenLine(seg);
+			if(layoutTimed)
+			{
+				long time = System.nanoTime();
+				makeScreenLine(seg);
+				layoutTime += System.nanoTime() - time;
+			}
+			else
+				makeScreenLine(seg);
 			return;
 		}
 
@@ -158,6 +190,8 @@ public class DisplayTokenHandler extends DefaultTokenHandler
 	private List<Chunk> out;
 	private float wrapMargin;
 	private int physicalLineOffset;
+	private boolean layoutTimed;
+	private long layoutTime;
 	//}}}
 
 	//{{{ createChunk() method
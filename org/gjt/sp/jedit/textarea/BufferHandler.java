@@ -115,6 +115,11 @@ class BufferHandler implements BufferListener
 				delayedUpdateEnd += numLines;
 			delayUpdate(startLine,endLine);
 
+			// a batched multi-caret edit updates the selections
+			// and the caret itself once it is done
+			if(textArea.batchEdit)
+				return;
+
 			//{{{ resize selections if necessary
 			
 			Iterator<Selection> iter = textArea.getSelectionIterator();
@@ -273,6 +278,9 @@ class BufferHandler implements BufferListener
 			firstLine.contentRemoved(startLine,start,numLines);
 			scrollLineCount.contentRemoved(startLine,start,numLines);
 
+			if(textArea.batchEdit)
+				return;
+
 			//{{{ resize selections if necessary
 			int nSel = textArea.getSelectionCount();
 			Iterator<Selection> iter = textArea.getSelectionIterator();
@@ -486,6 +486,25 @@ class ChunkCache
 		}
 	} //}}}
 
+	//{{{ recordPaintProfile() method
+	/**
+	 * Records the tokenization and chunk layout time spent since the
+	 * previous call into the {@link PaintProfiler}, so that a frame's
+	 * samples include the lines it had to chunk.
+	 */
+	void recordPaintProfile()
+	{
+		if(profiledLines == 0)
+			return;
+		PaintProfiler.record(PaintProfiler.TOKENIZATION,
+			profiledTokenizationTime);
+		PaintProfiler.record(PaintProfiler.CHUNK_LAYOUT,
+			profiledLayoutTime);
+		profiledTokenizationTime = 0L;
+		profiledLayoutTime = 0L;
+		profiledLines = 0;
+	} //}}}
+
 	//{{{ needFullRepaint() method
 	/**
 	 * The needFullRepaint variable becomes true when the number of screen
@@ -553,6 +572,11 @@ class ChunkCache
 	private boolean needFullRepaint;
 
 	private final DisplayTokenHandler tokenHandler;
+
+	/** Time spent chunking lines while the paint profiler is enabled. */
+	private long profiledTokenizationTime;
+	private long profiledLayoutTime;
+	private int profiledLines;
 	//}}}
 
 	//{{{ getLineInfosForPhysicalLine() method
@@ -824,7 +848,20 @@ class ChunkCache
 					? textArea.wrapMargin : 0.0f, buffer.getLineStartOffset(physicalLine));
 
 			outFull.clear();
-			buffer.markTokens(physicalLine,tokenHandler);
+			if(PaintProfiler.isEnabled())
+			{
+				tokenHandler.setLayoutTimed(true);
+				long time = System.nanoTime();
+				buffer.markTokens(physicalLine,tokenHandler);
+				time = System.nanoTime() - time;
+				tokenHandler.setLayoutTimed(false);
+				long layoutTime = tokenHandler.getLayoutTime();
+				profiledTokenizationTime += time - layoutTime;
+				profiledLayoutTime += layoutTime;
+				profiledLines++;
+			}
+			else
+				buffer.markTokens(physicalLine,tokenHandler);
 			outFullPhysicalLine = physicalLine;
 		}
 	} //}}}
@@ -36,6 +36,16 @@ public class ColumnBlock extends Rect implements Node
 
 	float columnBlockWidth;
 
+	/** Widths of the lines, valid when the tab sizes are not dirty. */
+	ColumnWidthTree widthTree;
+
+	/**
+	 * True if the last line width update changed the block width. The
+	 * text areas showing the buffer share the block, and the first one
+	 * to handle an edit updates it, so the others read this.
+	 */
+	boolean widthChanged;
+
 	private boolean tabSizesDirty = true;
 
 	private JEditBuffer buffer;
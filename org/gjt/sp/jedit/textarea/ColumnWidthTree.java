@@ -0,0 +1,110 @@
+/*
+ * ColumnWidthTree.java - Widest cell of a column block
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.textarea;
+
+/**
+ * Keeps the cell widths of a {@link ColumnBlock} in a binary tree where
+ * each node holds the widest cell below it, so that the width of the block
+ * can be updated after one cell changed without measuring the other
+ * lines again.<p>
+ *
+ * Changing a cell only walks from its leaf to the root, and stops as soon
+ * as a node's width doesn't change.
+ *
+ * @since jEdit 5.4pre1
+ */
+class ColumnWidthTree
+{
+	//{{{ ColumnWidthTree constructor
+	/**
+	 * @param widths the width of each line of the column block
+	 */
+	ColumnWidthTree(float[] widths)
+	{
+		int size = 1;
+		while(size < widths.length)
+			size <<= 1;
+		leafCount = size;
+		lineCount = widths.length;
+		tree = new float[size << 1];
+		System.arraycopy(widths, 0, tree, size, widths.length);
+		for(int i = size - 1; i >= 1; i--)
+			tree[i] = Math.max(tree[i << 1], tree[(i << 1) + 1]);
+	} //}}}
+
+	//{{{ getLineCount() method
+	int getLineCount()
+	{
+		return lineCount;
+	} //}}}
+
+	//{{{ getWidth() method
+	/**
+	 * Returns the width of a line.
+	 * @param index the line index, relative to the block start
+	 */
+	float getWidth(int index)
+	{
+		return tree[leafCount + index];
+	} //}}}
+
+	//{{{ getMaxWidth() method
+	/**
+	 * Returns the width of the widest line.
+	 */
+	float getMaxWidth()
+	{
+		return tree[1];
+	} //}}}
+
+	//{{{ setWidth() method
+	/**
+	 * Changes the width of one line.
+	 * @param index the line index, relative to the block start
+	 * @param width the new width
+	 * @return true if the width of the widest line changed
+	 */
+	boolean setWidth(int index, float width)
+	{
+		int node = leafCount + index;
+		if(tree[node] == width)
+			return false;
+		float oldMax = tree[1];
+		tree[node] = width;
+		for(node >>= 1; node >= 1; node >>= 1)
+		{
+			float max = Math.max(tree[node << 1], tree[(node << 1) + 1]);
+			if(tree[node] == max)
+				break;
+			tree[node] = max;
+		}
+		return tree[1] != oldMax;
+	} //}}}
+
+	//{{{ Private members
+	/** tree[1] is the root, the children of n are 2n and 2n + 1. */
+	private final float[] tree;
+	private final int leafCount;
+	private final int lineCount;
+	//}}}
+}
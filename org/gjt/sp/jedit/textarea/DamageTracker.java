@@ -0,0 +1,161 @@
+/*
+ * DamageTracker.java - Screen lines waiting for a repaint
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.textarea;
+
+/**
+ * Keeps the screen line spans of a text area that were already handed to
+ * Swing for repainting but not painted yet.<p>
+ *
+ * Edits, caret moves and extensions often invalidate the same lines
+ * several times before the next frame. The text area asks the tracker
+ * before each <code>repaint()</code> call, and skips the call if the lines
+ * are already damaged. The painter removes the spans it paints, so the
+ * damage is flushed once per painted frame.<p>
+ *
+ * The spans are kept sorted, disjoint and non adjacent, so there are
+ * never more of them than half the visible lines.
+ *
+ * @since jEdit 5.4pre1
+ */
+class DamageTracker
+{
+	//{{{ add() method
+	/**
+	 * Adds a span of damaged screen lines.
+	 * @param start the first screen line
+	 * @param end the last screen line, inclusive
+	 * @return false if all those lines were already damaged, in which
+	 * case there is no need to request a repaint
+	 */
+	boolean add(int start, int end)
+	{
+		// first span that ends at or after start - 1
+		int first = 0;
+		while(first < count && ends[first] < start - 1)
+			first++;
+
+		if(first < count && starts[first] <= start && ends[first] >= end)
+			return false;
+
+		// spans overlapping or adjacent to [start, end] are merged
+		int last = first;
+		while(last < count && starts[last] <= end + 1)
+		{
+			start = Math.min(start, starts[last]);
+			end = Math.max(end, ends[last]);
+			last++;
+		}
+
+		replace(first, last, start, end);
+		return true;
+	} //}}}
+
+	//{{{ painted() method
+	/**
+	 * Removes the painted lines from the damage.
+	 * @param start the first painted screen line
+	 * @param end the last painted screen line, inclusive
+	 */
+	void painted(int start, int end)
+	{
+		for(int i = 0; i < count; i++)
+		{
+			if(ends[i] < start)
+				continue;
+			if(starts[i] > end)
+				break;
+
+			if(starts[i] < start && ends[i] > end)
+			{
+				// the painted lines split this span
+				int oldEnd = ends[i];
+				ends[i] = start - 1;
+				replace(i + 1, i + 1, end + 1, oldEnd);
+				return;
+			}
+			else if(starts[i] < start)
+				ends[i] = start - 1;
+			else if(ends[i] > end)
+				starts[i] = end + 1;
+			else
+			{
+				replace(i, i + 1, -1, -1);
+				i--;
+			}
+		}
+	} //}}}
+
+	//{{{ clear() method
+	/**
+	 * Forgets all the damage, for example because the whole text area
+	 * is going to be repainted anyway.
+	 */
+	void clear()
+	{
+		count = 0;
+	} //}}}
+
+	//{{{ getSpanCount() method
+	int getSpanCount()
+	{
+		return count;
+	} //}}}
+
+	//{{{ Private members
+	private int[] starts = new int[8];
+	private int[] ends = new int[8];
+	private int count;
+
+	//{{{ replace() method
+	/**
+	 * Replaces the spans from <code>from</code> (inclusive) to
+	 * <code>to</code> (exclusive) by the span [start, end], or removes
+	 * them if start is negative.
+	 */
+	private void replace(int from, int to, int start, int end)
+	{
+		int newCount = count - (to - from) + (start < 0 ? 0 : 1);
+		if(newCount > starts.length)
+		{
+			int[] newStarts = new int[starts.length * 2];
+			int[] newEnds = new int[ends.length * 2];
+			System.arraycopy(starts, 0, newStarts, 0, count);
+			System.arraycopy(ends, 0, newEnds, 0, count);
+			starts = newStarts;
+			ends = newEnds;
+		}
+
+		int tail = count - to;
+		int dest = start < 0 ? from : from + 1;
+		System.arraycopy(starts, to, starts, dest, tail);
+		System.arraycopy(ends, to, ends, dest, tail);
+		if(start >= 0)
+		{
+			starts[from] = start;
+			ends[from] = end;
+		}
+		count = newCount;
+	} //}}}
+
+	//}}}
+}
@@ -106,6 +106,25 @@ public class DisplayManager
 		}
 	} //}}}
 
+	//{{{ isRangeVisible() method
+	/**
+	 * Returns true if the lines from start to end, inclusive, are
+	 * visible in every text area showing the buffer.
+	 */
+	static boolean isRangeVisible(JEditBuffer buffer, int start, int end)
+	{
+		List<DisplayManager> l = bufferMap.get(buffer);
+		if(l == null)
+			return true;
+		for(DisplayManager dmgr : l)
+		{
+			int index = dmgr.folds.search(start);
+			if(index % 2 != 0 || end >= dmgr.folds.lookup(index + 1))
+				return false;
+		}
+		return true;
+	} //}}}
+
 	private static final Map<JEditBuffer, List<DisplayManager>> bufferMap = new HashMap<JEditBuffer, List<DisplayManager>>();
 	//}}}
 
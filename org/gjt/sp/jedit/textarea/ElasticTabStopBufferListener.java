@@ -37,6 +37,9 @@ public class ElasticTabStopBufferListener extends BufferAdapter
 	private boolean handledInsertion = true;
 	private boolean handledDeletion = true;
 	private boolean singleTabDeleted = false;
+	/** Lines to repaint, set by {@link #updateLineWidth(JEditBuffer,ColumnBlock,int)}. */
+	private int invalidStartLine;
+	private int invalidEndLine;
 	
 	//{{{ ElasticTabStopBufferListener() method
 	public ElasticTabStopBufferListener(TextArea textArea)
@@ -44,6 +47,27 @@ public class ElasticTabStopBufferListener extends BufferAdapter
 		this.textArea = textArea;
 	}//}}}
 	
+	//{{{ updateLineWidth() method
+	/**
+	 * Updates the width of a column block after a character was typed or
+	 * removed in one of its cells, and sets the range of lines to repaint:
+	 * only the edited line if the block width did not change, otherwise
+	 * the whole block.
+	 */
+	private void updateLineWidth(JEditBuffer buffer, ColumnBlock block, int line)
+	{
+		if(textArea.elasticTabstopsExpander.updateLineWidth(buffer, block, line))
+		{
+			invalidStartLine = block.startLine;
+			invalidEndLine = block.endLine;
+		}
+		else
+		{
+			invalidStartLine = line;
+			invalidEndLine = line;
+		}
+	}//}}}
+
 	//{{{ fullyUpdateColumnBlocks() method
 	private void fullyUpdateColumnBlocks(JEditBuffer buffer)
 	{
@@ -135,9 +159,9 @@ public class ElasticTabStopBufferListener extends BufferAdapter
 					if(!singleTabInserted)
 					{	
 						innerContainingBlock.updateColumnBlockLineOffset(startLine, length, false);
-						startingLine = innerContainingBlock.startLine;
-						innerContainingBlock.setTabSizeDirtyStatus(true,false);
-						endLine = innerContainingBlock.endLine;
+						updateLineWidth(buffer, innerContainingBlock, startLine);
+						startingLine = invalidStartLine;
+						endLine = invalidEndLine;
 					}
 					else
 					{
@@ -450,9 +474,9 @@ public class ElasticTabStopBufferListener extends BufferAdapter
 				if(!singleTabDeleted)
 				{	
 					innerContainingBlock.updateColumnBlockLineOffset(startLine, -1*length, false);
-					startingLine = innerContainingBlock.startLine;
-					endLine = innerContainingBlock.endLine;
-					innerContainingBlock.setTabSizeDirtyStatus(true,false);
+					updateLineWidth(buffer, innerContainingBlock, startLine);
+					startingLine = invalidStartLine;
+					endLine = invalidEndLine;
 				}
 				else
 				{
@@ -25,6 +25,8 @@ import java.util.Vector;
 
 import javax.swing.text.TabExpander;
 
+import org.gjt.sp.jedit.buffer.JEditBuffer;
+
 /** A Swing TabExpander for Elastic Tabstops. */
 
 public class ElasticTabstopsTabExpander implements TabExpander 
@@ -56,6 +58,45 @@ public class ElasticTabstopsTabExpander implements TabExpander
 		return (x+_tabSize);
 	}//}}}
 	
+	//{{{ updateLineWidth() method
+	/**
+	 * Measures again one line of a column block after its cell was
+	 * edited, and updates the block width incrementally.
+	 * @param buffer the edited buffer
+	 * @param columnBlock the column block
+	 * @param line the edited line
+	 * @return true if the width of the block changed, or is not known
+	 * yet, so that all its lines need a repaint. When another text area
+	 * showing the buffer already measured the line, this is what that
+	 * update returned; a line whose width did not change therefore
+	 * repaints the block again after an edit that changed its width
+	 */
+	boolean updateLineWidth(JEditBuffer buffer, ColumnBlock columnBlock, int line)
+	{
+		ColumnWidthTree widthTree = columnBlock.widthTree;
+		Vector<ColumnBlockLine> lines = columnBlock.getLines();
+		// the buffer may be edited while another one is shown in
+		// this text area
+		if(buffer != textArea.buffer || columnBlock.areTabSizesDirty()
+			|| widthTree == null
+			|| widthTree.getLineCount() != lines.size())
+		{
+			columnBlock.setTabSizeDirtyStatus(true, false);
+			return true;
+		}
+		int index = line - columnBlock.startLine;
+		ColumnBlockLine colBlockLine = lines.get(index);
+		float width = measureLine(colBlockLine);
+		// the block is shared by the text areas showing the buffer
+		if(width == colBlockLine.lineLength)
+			return columnBlock.widthChanged;
+		colBlockLine.lineLength = width;
+		boolean changed = widthTree.setWidth(index, width);
+		columnBlock.columnBlockWidth = widthTree.getMaxWidth();
+		columnBlock.widthChanged = changed;
+		return changed;
+	}//}}}
+
 	//{{{ getTabSize() method
 	private float getTabSize(ColumnBlock columnBlock, int line) 
 	{
@@ -65,26 +106,17 @@ public class ElasticTabstopsTabExpander implements TabExpander
 			Vector<ColumnBlockLine> lines = columnBlock.getLines();
 			if(columnBlock.areTabSizesDirty())
 			{
-				float colBlockWidth = -1;
+				float[] widths = new float[lines.size()];
 				for(int i= 0;i<lines.size();i++)
 				{
 					ColumnBlockLine colBlockLine = (ColumnBlockLine)lines.elementAt(i);
-					int startOffset = colBlockLine.getColumnStartIndex()+textArea.buffer.getLineStartOffset(colBlockLine.getLine());
-					String str = textArea.buffer.getText(startOffset,colBlockLine.getColumnEndIndex()-colBlockLine.getColumnStartIndex());
-					float width = 0;
-					if(str.length()!=0)
-					{	
-						TextLayout layout = new TextLayout(str,textArea.painter.getFont(),textArea.painter.getFontRenderContext());
-						width = layout.getAdvance();
-					}
-					colBlockLine.lineLength = width;
+					colBlockLine.lineLength = measureLine(colBlockLine);
 					//colBlockLine.lineLength = textArea.painter.getFontMetrics().stringWidth(str);
-					if((colBlockWidth<0)||(colBlockLine.lineLength>colBlockWidth))
-					{
-						colBlockWidth = colBlockLine.lineLength;
-					}
+					widths[i] = colBlockLine.lineLength;
 				}
-				columnBlock.columnBlockWidth = colBlockWidth;
+				columnBlock.widthTree = new ColumnWidthTree(widths);
+				columnBlock.columnBlockWidth = widths.length == 0 ? -1
+					: columnBlock.widthTree.getMaxWidth();
 				columnBlock.setTabSizeDirtyStatus(false, false);
 			}
 			ret = columnBlock.columnBlockWidth-((ColumnBlockLine)lines.get(line-columnBlock.startLine)).lineLength;
@@ -92,4 +124,15 @@ public class ElasticTabstopsTabExpander implements TabExpander
 		return ret;
 	}//}}}
 
+	//{{{ measureLine() method
+	private float measureLine(ColumnBlockLine colBlockLine)
+	{
+		int startOffset = colBlockLine.getColumnStartIndex()+textArea.buffer.getLineStartOffset(colBlockLine.getLine());
+		String str = textArea.buffer.getText(startOffset,colBlockLine.getColumnEndIndex()-colBlockLine.getColumnStartIndex());
+		if(str.length()==0)
+			return 0;
+		TextLayout layout = new TextLayout(str,textArea.painter.getFont(),textArea.painter.getFontRenderContext());
+		return layout.getAdvance();
+	}//}}}
+
 }
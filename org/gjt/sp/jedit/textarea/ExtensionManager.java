@@ -148,14 +148,22 @@ class ExtensionManager
 		int lastLine, int[] physicalLines, int[] start, int[] end,
 		int y, int lineHeight)
 	{
+		boolean profile = PaintProfiler.isEnabled();
 		Iterator<Entry> iter = extensions.iterator();
 		while(iter.hasNext())
 		{
-			TextAreaExtension ext = iter.next().ext;
+			Entry entry = iter.next();
+			TextAreaExtension ext = entry.ext;
 			try
 			{
+				long time = profile ? System.nanoTime() : 0L;
 				ext.paintScreenLineRange(gfx,firstLine,lastLine,
 					physicalLines,start,end,y,lineHeight);
+				if(profile)
+				{
+					PaintProfiler.record(entry.section,
+						System.nanoTime() - time);
+				}
 			}
 			catch(Throwable t)
 			{
@@ -176,11 +184,14 @@ class ExtensionManager
 	{
 		int layer;
 		TextAreaExtension ext;
+		/** The name under which paint timings are recorded. */
+		String section;
 
 		Entry(int layer, TextAreaExtension ext)
 		{
 			this.layer = layer;
 			this.ext = ext;
+			section = ext.getClass().getName();
 		}
 	} //}}}
 }
@@ -145,6 +145,20 @@ public class Gutter extends JComponent implements SwingConstants
 	public void paintComponent(Graphics _gfx)
 	{
 		Graphics2D gfx = (Graphics2D)_gfx;
+		if(PaintProfiler.isEnabled())
+		{
+			long time = System.nanoTime();
+			paintGutter(gfx);
+			PaintProfiler.recordFrame(PaintProfiler.GUTTER_FRAME,
+				System.nanoTime() - time);
+		}
+		else
+			paintGutter(gfx);
+	} //}}}
+
+	//{{{ paintGutter() method
+	private void paintGutter(Graphics2D gfx)
+	{
 		gfx.setRenderingHints(textArea.getPainter().renderingHints);
 		// fill the background
 		Rectangle clip = gfx.getClipBounds();
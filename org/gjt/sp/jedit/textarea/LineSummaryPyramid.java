@@ -0,0 +1,590 @@
+/*
+ * LineSummaryPyramid.java - Downsampled line styles and lengths
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.textarea;
+
+//{{{ Imports
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.gjt.sp.jedit.syntax.Token;
+import org.gjt.sp.jedit.syntax.TokenMarker;
+//}}}
+
+/**
+ * A multi-resolution summary of the lines of a buffer, used by the
+ * {@link Minimap}.<p>
+ *
+ * Every line has the dominant token type, the length and the context at
+ * the end of the line, as last tokenized by the minimap. The lines are
+ * held by leaves of at most {@link #LEAF_SIZE} lines, under inner nodes
+ * of at most {@link #FACTOR} children. Each node keeps the number of its
+ * lines of each token type and its longest line, so that any range of
+ * lines is summarized by visiting a few nodes per level, and inserting,
+ * removing or changing lines only updates the nodes above them.<p>
+ *
+ * This class is not thread safe. The minimap builds new pyramids in the
+ * background, and only changes the installed one in the event dispatch
+ * thread.
+ *
+ * @since jEdit 5.4pre1
+ */
+class LineSummaryPyramid
+{
+	/** Most lines held by a leaf. */
+	static final int LEAF_SIZE = 64;
+
+	/** Most children of an inner node. */
+	static final int FACTOR = 16;
+
+	//{{{ LineSummaryPyramid constructor
+	/**
+	 * Creates the summary of a number of empty lines.
+	 */
+	LineSummaryPyramid(int lineCount)
+	{
+		List<Node> leaves = new ArrayList<Node>();
+		int line = 0;
+		do
+		{
+			int lines = Math.min(LEAF_SIZE, lineCount - line);
+			leaves.add(Node.leaf(lines));
+			line += lines;
+		}
+		while(line < lineCount);
+		root = group(leaves);
+	} //}}}
+
+	//{{{ getLineCount() method
+	int getLineCount()
+	{
+		return root.lines;
+	} //}}}
+
+	//{{{ setLine() method
+	/**
+	 * Sets the summary of a line, without updating the nodes above it.
+	 * Call {@link #rebuild()} once all the lines are set, or use
+	 * {@link #updateLine(int,byte,int,TokenMarker.LineContext)}.
+	 */
+	void setLine(int line, byte style, int length,
+		TokenMarker.LineContext context)
+	{
+		Node node = root;
+		while(!node.isLeaf())
+		{
+			for(int i = 0; ; i++)
+			{
+				Node child = node.children[i];
+				if(line < child.lines)
+				{
+					node = child;
+					break;
+				}
+				line -= child.lines;
+			}
+		}
+		node.styles[line] = style;
+		node.lengths[line] = length;
+		node.contexts[line] = context;
+	} //}}}
+
+	//{{{ rebuild() method
+	/**
+	 * Computes the summaries of all the nodes again.
+	 */
+	void rebuild()
+	{
+		rebuild(root);
+	} //}}}
+
+	//{{{ updateLine() method
+	/**
+	 * Sets the summary of a line and updates the nodes above it.
+	 */
+	void updateLine(int line, byte style, int length,
+		TokenMarker.LineContext context)
+	{
+		updateLine(root, line, style, length, context);
+	} //}}}
+
+	//{{{ linesInserted() method
+	/**
+	 * Makes room for new lines. Their summaries are empty until they are
+	 * set.
+	 */
+	void linesInserted(int startLine, int numLines)
+	{
+		if(numLines != 0)
+			root = group(insert(root, startLine, numLines));
+	} //}}}
+
+	//{{{ linesRemoved() method
+	void linesRemoved(int startLine, int numLines)
+	{
+		if(numLines == 0)
+			return;
+		remove(root, startLine, numLines);
+		while(!root.isLeaf() && root.childCount == 1)
+			root = root.children[0];
+		if(!root.isLeaf() && root.childCount == 0)
+			root = Node.leaf(0);
+	} //}}}
+
+	//{{{ getStyle() method
+	byte getStyle(int line)
+	{
+		Node leaf = findLeaf(line);
+		return leaf.styles[line - leafStart];
+	} //}}}
+
+	//{{{ getLength() method
+	int getLength(int line)
+	{
+		Node leaf = findLeaf(line);
+		return leaf.lengths[line - leafStart];
+	} //}}}
+
+	//{{{ getContext() method
+	/**
+	 * Returns the context at the end of a line when it was summarized,
+	 * or null if it was never summarized.
+	 */
+	TokenMarker.LineContext getContext(int line)
+	{
+		Node leaf = findLeaf(line);
+		return leaf.contexts[line - leafStart];
+	} //}}}
+
+	//{{{ summarize() method
+	/**
+	 * Summarizes a range of lines: the longest line, and the token type
+	 * most lines have, not counting lines with no type.
+	 * @param startLine the first line
+	 * @param endLine the line after the last one
+	 * @param summary receives the summary
+	 */
+	void summarize(int startLine, int endLine, Summary summary)
+	{
+		int[] counts = summary.counts;
+		for(int i = 0; i < counts.length; i++)
+			counts[i] = 0;
+		summary.length = 0;
+		summarize(root, 0, startLine, endLine, summary);
+
+		byte style = Token.NULL;
+		int max = 0;
+		for(int i = 0; i < counts.length; i++)
+		{
+			if(i != Token.NULL && counts[i] > max)
+			{
+				max = counts[i];
+				style = (byte)i;
+			}
+		}
+		summary.style = style;
+	} //}}}
+
+	//{{{ Summary class
+	/** The summary of a range of lines. */
+	static class Summary
+	{
+		/** The most frequent token type, or {@link Token#NULL}. */
+		byte style;
+		/** The longest line. */
+		int length;
+
+		final int[] counts = new int[Token.ID_COUNT];
+	} //}}}
+
+	//{{{ Private members
+	private Node root;
+	/** Set by findLeaf(), the first line of the leaf it returned. */
+	private int leafStart;
+
+	//{{{ findLeaf() method
+	private Node findLeaf(int line)
+	{
+		Node node = root;
+		int start = 0;
+		while(!node.isLeaf())
+		{
+			for(int i = 0; ; i++)
+			{
+				Node child = node.children[i];
+				if(line < start + child.lines || i == node.childCount - 1)
+				{
+					node = child;
+					break;
+				}
+				start += child.lines;
+			}
+		}
+		leafStart = start;
+		return node;
+	} //}}}
+
+	//{{{ rebuild() method
+	private static void rebuild(Node node)
+	{
+		if(!node.isLeaf())
+		{
+			for(int i = 0; i < node.childCount; i++)
+				rebuild(node.children[i]);
+		}
+		node.update();
+	} //}}}
+
+	//{{{ updateLine() method
+	/**
+	 * @return the previous style of the line
+	 */
+	private static byte updateLine(Node node, int line, byte style,
+		int length, TokenMarker.LineContext context)
+	{
+		byte oldStyle;
+		if(node.isLeaf())
+		{
+			oldStyle = node.styles[line];
+			node.styles[line] = style;
+			node.lengths[line] = length;
+			node.contexts[line] = context;
+			node.length = 0;
+			for(int i = 0; i < node.lines; i++)
+				node.length = Math.max(node.length, node.lengths[i]);
+		}
+		else
+		{
+			int i = 0;
+			while(line >= node.children[i].lines)
+			{
+				line -= node.children[i].lines;
+				i++;
+			}
+			oldStyle = updateLine(node.children[i], line, style, length,
+				context);
+			node.length = 0;
+			for(i = 0; i < node.childCount; i++)
+				node.length = Math.max(node.length, node.children[i].length);
+		}
+		node.counts[oldStyle]--;
+		node.counts[style]++;
+		return oldStyle;
+	} //}}}
+
+	//{{{ insert() method
+	/**
+	 * Inserts empty lines under a node.
+	 * @return the nodes replacing it, more than one if it was split
+	 */
+	private static List<Node> insert(Node node, int line, int numLines)
+	{
+		if(node.isLeaf())
+		{
+			int lines = node.lines + numLines;
+			byte[] styles = new byte[lines];
+			int[] lengths = new int[lines];
+			TokenMarker.LineContext[] contexts
+				= new TokenMarker.LineContext[lines];
+			System.arraycopy(node.styles, 0, styles, 0, line);
+			System.arraycopy(node.lengths, 0, lengths, 0, line);
+			System.arraycopy(node.contexts, 0, contexts, 0, line);
+			int rest = node.lines - line;
+			System.arraycopy(node.styles, line, styles, line + numLines, rest);
+			System.arraycopy(node.lengths, line, lengths, line + numLines, rest);
+			System.arraycopy(node.contexts, line, contexts, line + numLines, rest);
+			node.setLines(styles, lengths, contexts, 0, lines);
+			if(lines <= LEAF_SIZE)
+				return Collections.singletonList(node);
+
+			int count = (lines + LEAF_SIZE - 1) / LEAF_SIZE;
+			List<Node> leaves = new ArrayList<Node>(count);
+			for(int i = 0; i < count; i++)
+			{
+				int start = (int)((long)lines * i / count);
+				int end = (int)((long)lines * (i + 1) / count);
+				Node leaf = new Node();
+				leaf.setLines(styles, lengths, contexts, start, end);
+				leaves.add(leaf);
+			}
+			return leaves;
+		}
+
+		int i = 0;
+		while(line > node.children[i].lines && i < node.childCount - 1)
+		{
+			line -= node.children[i].lines;
+			i++;
+		}
+		List<Node> replaced = insert(node.children[i], line, numLines);
+		List<Node> children = new ArrayList<Node>(node.childCount
+			+ replaced.size() - 1);
+		for(int j = 0; j < node.childCount; j++)
+		{
+			if(j == i)
+				children.addAll(replaced);
+			else
+				children.add(node.children[j]);
+		}
+		if(children.size() <= FACTOR)
+		{
+			node.setChildren(children, 0, children.size());
+			return Collections.singletonList(node);
+		}
+		return split(children);
+	} //}}}
+
+	//{{{ remove() method
+	private static void remove(Node node, int line, int numLines)
+	{
+		if(node.isLeaf())
+		{
+			int lines = node.lines - numLines;
+			byte[] styles = new byte[lines];
+			int[] lengths = new int[lines];
+			TokenMarker.LineContext[] contexts
+				= new TokenMarker.LineContext[lines];
+			System.arraycopy(node.styles, 0, styles, 0, line);
+			System.arraycopy(node.lengths, 0, lengths, 0, line);
+			System.arraycopy(node.contexts, 0, contexts, 0, line);
+			int rest = lines - line;
+			System.arraycopy(node.styles, line + numLines, styles, line, rest);
+			System.arraycopy(node.lengths, line + numLines, lengths, line, rest);
+			System.arraycopy(node.contexts, line + numLines, contexts, line, rest);
+			node.setLines(styles, lengths, contexts, 0, lines);
+			return;
+		}
+
+		List<Node> children = new ArrayList<Node>(node.childCount);
+		int start = 0;
+		int end = line + numLines;
+		for(int i = 0; i < node.childCount; i++)
+		{
+			Node child = node.children[i];
+			int childEnd = start + child.lines;
+			if(childEnd <= line || start >= end)
+				children.add(child);
+			else if(start < line || childEnd > end)
+			{
+				int from = Math.max(line, start);
+				remove(child, from - start, Math.min(end, childEnd) - from);
+				merge(children, child);
+			}
+			// else the child is removed entirely
+			start = childEnd;
+		}
+		node.setChildren(children, 0, children.size());
+	} //}}}
+
+	//{{{ merge() method
+	/**
+	 * Adds a child that lost lines, merged with the previous child if
+	 * they fit in one node.
+	 */
+	private static void merge(List<Node> children, Node child)
+	{
+		if(child.lines == 0)
+			return;
+		Node previous = children.isEmpty() ? null
+			: children.get(children.size() - 1);
+		if(previous != null && previous.isLeaf() && child.isLeaf()
+			&& previous.lines + child.lines <= LEAF_SIZE)
+		{
+			int lines = previous.lines + child.lines;
+			byte[] styles = new byte[lines];
+			int[] lengths = new int[lines];
+			TokenMarker.LineContext[] contexts
+				= new TokenMarker.LineContext[lines];
+			System.arraycopy(previous.styles, 0, styles, 0, previous.lines);
+			System.arraycopy(previous.lengths, 0, lengths, 0, previous.lines);
+			System.arraycopy(previous.contexts, 0, contexts, 0, previous.lines);
+			System.arraycopy(child.styles, 0, styles, previous.lines, child.lines);
+			System.arraycopy(child.lengths, 0, lengths, previous.lines, child.lines);
+			System.arraycopy(child.contexts, 0, contexts, previous.lines, child.lines);
+			previous.setLines(styles, lengths, contexts, 0, lines);
+		}
+		else if(previous != null && !previous.isLeaf() && !child.isLeaf()
+			&& previous.childCount + child.childCount <= FACTOR)
+		{
+			List<Node> grandChildren = new ArrayList<Node>(FACTOR);
+			for(int i = 0; i < previous.childCount; i++)
+				grandChildren.add(previous.children[i]);
+			for(int i = 0; i < child.childCount; i++)
+				grandChildren.add(child.children[i]);
+			previous.setChildren(grandChildren, 0, grandChildren.size());
+		}
+		else
+			children.add(child);
+	} //}}}
+
+	//{{{ split() method
+	/**
+	 * Puts nodes under as few new inner nodes as possible.
+	 */
+	private static List<Node> split(List<Node> children)
+	{
+		int count = (children.size() + FACTOR - 1) / FACTOR;
+		List<Node> nodes = new ArrayList<Node>(count);
+		for(int i = 0; i < count; i++)
+		{
+			Node node = new Node();
+			node.setChildren(children, children.size() * i / count,
+				children.size() * (i + 1) / count);
+			nodes.add(node);
+		}
+		return nodes;
+	} //}}}
+
+	//{{{ group() method
+	/**
+	 * Returns the root of a tree with the given nodes at the bottom.
+	 */
+	private static Node group(List<Node> nodes)
+	{
+		while(nodes.size() > 1)
+			nodes = split(nodes);
+		return nodes.get(0);
+	} //}}}
+
+	//{{{ summarize() method
+	private static void summarize(Node node, int start, int startLine,
+		int endLine, Summary summary)
+	{
+		if(startLine <= start && start + node.lines <= endLine)
+		{
+			for(int i = 0; i < node.counts.length; i++)
+				summary.counts[i] += node.counts[i];
+			summary.length = Math.max(summary.length, node.length);
+		}
+		else if(node.isLeaf())
+		{
+			int end = Math.min(node.lines, endLine - start);
+			for(int i = Math.max(0, startLine - start); i < end; i++)
+			{
+				summary.counts[node.styles[i]]++;
+				summary.length = Math.max(summary.length, node.lengths[i]);
+			}
+		}
+		else
+		{
+			for(int i = 0; i < node.childCount && start < endLine; i++)
+			{
+				Node child = node.children[i];
+				if(start + child.lines > startLine)
+					summarize(child, start, startLine, endLine, summary);
+				start += child.lines;
+			}
+		}
+	} //}}}
+
+	//}}}
+
+	//{{{ Node class
+	private static class Node
+	{
+		int lines;
+		int length;
+		final int[] counts = new int[Token.ID_COUNT];
+
+		// leaves
+		byte[] styles;
+		int[] lengths;
+		TokenMarker.LineContext[] contexts;
+
+		// inner nodes
+		Node[] children;
+		int childCount;
+
+		static Node leaf(int lines)
+		{
+			Node node = new Node();
+			node.setLines(new byte[lines], new int[lines],
+				new TokenMarker.LineContext[lines], 0, lines);
+			return node;
+		}
+
+		boolean isLeaf()
+		{
+			return children == null;
+		}
+
+		void setLines(byte[] styles, int[] lengths,
+			TokenMarker.LineContext[] contexts, int start, int end)
+		{
+			if(start == 0 && end == styles.length)
+			{
+				this.styles = styles;
+				this.lengths = lengths;
+				this.contexts = contexts;
+			}
+			else
+			{
+				this.styles = new byte[end - start];
+				this.lengths = new int[end - start];
+				this.contexts = new TokenMarker.LineContext[end - start];
+				System.arraycopy(styles, start, this.styles, 0, end - start);
+				System.arraycopy(lengths, start, this.lengths, 0, end - start);
+				System.arraycopy(contexts, start, this.contexts, 0, end - start);
+			}
+			lines = end - start;
+			update();
+		}
+
+		void setChildren(List<Node> nodes, int start, int end)
+		{
+			children = new Node[FACTOR];
+			childCount = end - start;
+			for(int i = start; i < end; i++)
+				children[i - start] = nodes.get(i);
+			update();
+		}
+
+		/** Computes the summary again from the lines or children. */
+		void update()
+		{
+			for(int i = 0; i < counts.length; i++)
+				counts[i] = 0;
+			length = 0;
+			if(isLeaf())
+			{
+				for(int i = 0; i < lines; i++)
+				{
+					counts[styles[i]]++;
+					length = Math.max(length, lengths[i]);
+				}
+			}
+			else
+			{
+				lines = 0;
+				for(int i = 0; i < childCount; i++)
+				{
+					Node child = children[i];
+					lines += child.lines;
+					for(int j = 0; j < counts.length; j++)
+						counts[j] += child.counts[j];
+					length = Math.max(length, child.length);
+				}
+			}
+		}
+	} //}}}
+}
@@ -0,0 +1,669 @@
+/*
+ * Minimap.java - Overview of the whole buffer next to the scroll bar
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.textarea;
+
+//{{{ Imports
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.text.Segment;
+
+import org.gjt.sp.jedit.buffer.BufferAdapter;
+import org.gjt.sp.jedit.buffer.JEditBuffer;
+import org.gjt.sp.jedit.syntax.SyntaxStyle;
+import org.gjt.sp.jedit.syntax.Token;
+import org.gjt.sp.jedit.syntax.TokenHandler;
+import org.gjt.sp.jedit.syntax.TokenMarker;
+import org.gjt.sp.util.ThreadUtilities;
+//}}}
+
+/**
+ * A narrow overview of the whole buffer, shown left of the vertical scroll
+ * bar of a text area. Every line is drawn as a bar as long as the line and
+ * colored after its most frequent token type; the visible lines are
+ * outlined, and clicking or dragging scrolls the text area.<p>
+ *
+ * The lines are summarized in a {@link LineSummaryPyramid}. It is built
+ * in a background thread when a buffer is set or loaded, and updated from
+ * the buffer events afterwards: the lines inserted or removed by an edit
+ * are inserted or removed in the pyramid, and the lines it changed are
+ * tokenized again, with the following lines as long as the context at
+ * the end of a line differs from the one the minimap saw before. The
+ * minimap tokenizes lines itself and keeps its own contexts, so that the
+ * other views of the buffer do not hide changes from it. Painting
+ * summarizes the lines of each pixel row from the pyramid nodes covering
+ * them, so a frame costs about the same for a ten line file and for a
+ * million line file.
+ *
+ * @see TextArea#setMinimapEnabled(boolean)
+ * @since jEdit 5.4pre1
+ */
+public class Minimap extends JComponent
+{
+	//{{{ Minimap constructor
+	Minimap(TextArea textArea)
+	{
+		this.textArea = textArea;
+		bufferHandler = new MinimapBufferHandler();
+		tokenHandler = new SummaryTokenHandler();
+		rowSummary = new LineSummaryPyramid.Summary();
+		MouseHandler mouseHandler = new MouseHandler();
+		addMouseListener(mouseHandler);
+		addMouseMotionListener(mouseHandler);
+		scrollHandler = new ScrollListener()
+		{
+			@Override
+			public void scrolledVertically(TextArea textArea)
+			{
+				repaint();
+			}
+
+			@Override
+			public void scrolledHorizontally(TextArea textArea)
+			{
+			}
+		};
+		textArea.addScrollListener(scrollHandler);
+	} //}}}
+
+	//{{{ getPreferredSize() method
+	@Override
+	public Dimension getPreferredSize()
+	{
+		return new Dimension(WIDTH, 0);
+	} //}}}
+
+	//{{{ getMinimumSize() method
+	@Override
+	public Dimension getMinimumSize()
+	{
+		return getPreferredSize();
+	} //}}}
+
+	//{{{ paintComponent() method
+	@Override
+	public void paintComponent(Graphics gfx)
+	{
+		int width = getWidth();
+		int height = getHeight();
+		TextAreaPainter painter = textArea.getPainter();
+		gfx.setColor(painter.getBackground());
+		gfx.fillRect(0, 0, width, height);
+
+		LineSummaryPyramid summary = pyramid;
+		if(summary == null || height <= 0)
+			return;
+
+		int lineCount = summary.getLineCount();
+		SyntaxStyle[] styles = painter.getStyles();
+		Color defaultColor = painter.getForeground();
+
+		// each line gets LINE_HEIGHT pixels while they fit, otherwise
+		// each pixel row summarizes the lines it covers
+		boolean fits = lineCount * LINE_HEIGHT <= height;
+		int rows = fits ? lineCount : height;
+		int rowHeight = fits ? LINE_HEIGHT - 1 : 1;
+		for(int i = 0; i < rows; i++)
+		{
+			int y;
+			if(fits)
+			{
+				y = i * LINE_HEIGHT;
+				summary.summarize(i, i + 1, rowSummary);
+			}
+			else
+			{
+				y = i;
+				summary.summarize((int)((long)i * lineCount / height),
+					(int)((long)(i + 1) * lineCount / height), rowSummary);
+			}
+			int length = rowSummary.length;
+			if(length == 0)
+				continue;
+			byte style = rowSummary.style;
+			Color color = null;
+			if(style != Token.NULL && style < styles.length
+				&& styles[style] != null)
+			{
+				color = styles[style].getForegroundColor();
+			}
+			gfx.setColor(color == null ? defaultColor : color);
+			gfx.fillRect(MARGIN, y, Math.min(width - MARGIN * 2,
+				Math.max(1, length / COLUMNS_PER_PIXEL)), rowHeight);
+		}
+
+		// visible lines
+		int first = textArea.getFirstPhysicalLine();
+		int last = textArea.getLastPhysicalLine() + 1;
+		int y1 = lineToY(first, lineCount, height);
+		int y2 = Math.max(y1 + 2, lineToY(last, lineCount, height));
+		gfx.setColor(painter.getSelectionColor());
+		gfx.drawRect(0, y1, width - 1, y2 - y1 - 1);
+	} //}}}
+
+	//{{{ Package-private members
+
+	//{{{ setBuffer() method
+	void setBuffer(JEditBuffer newBuffer)
+	{
+		if(buffer != null)
+			buffer.removeBufferListener(bufferHandler);
+		buffer = newBuffer;
+		pyramid = null;
+		cancelBuild();
+		if(buffer != null)
+		{
+			buffer.addBufferListener(bufferHandler);
+			if(!buffer.isLoading())
+				rebuild();
+		}
+		repaint();
+	} //}}}
+
+	//{{{ propertiesChanged() method
+	/**
+	 * Builds the summary again if the edit mode of the buffer changed.
+	 */
+	void propertiesChanged()
+	{
+		if(buffer != null && !buffer.isLoading()
+			&& buffer.getTokenMarker() != tokenMarker)
+		{
+			rebuild();
+		}
+		repaint();
+	} //}}}
+
+	//{{{ dispose() method
+	void dispose()
+	{
+		textArea.removeScrollListener(scrollHandler);
+		setBuffer(null);
+	} //}}}
+
+	//}}}
+
+	//{{{ Private members
+	private static final int WIDTH = 80;
+	private static final int MARGIN = 2;
+	private static final int LINE_HEIGHT = 2;
+	private static final int COLUMNS_PER_PIXEL = 2;
+
+	/**
+	 * Beyond this number of lines changed by one transaction, tokenizing
+	 * them on the event dispatch thread is not worth it.
+	 */
+	private static final int MAX_INCREMENTAL_LINES = 1000;
+
+	/** Number of lines tokenized while holding the buffer read lock. */
+	private static final int LINES_PER_LOCK = 4096;
+
+	private final TextArea textArea;
+	private final MinimapBufferHandler bufferHandler;
+	private final SummaryTokenHandler tokenHandler;
+	private final LineSummaryPyramid.Summary rowSummary;
+	private final ScrollListener scrollHandler;
+	private JEditBuffer buffer;
+	private LineSummaryPyramid pyramid;
+	/** The token marker the summary was last built with. */
+	private TokenMarker tokenMarker;
+
+	/** The background build, if one is running. */
+	private volatile Build running;
+
+	/** Lines changed by the current transaction, or -1. */
+	private int firstDirtyLine = -1;
+	private int lastDirtyLine = -1;
+
+	//{{{ lineToY() method
+	private static int lineToY(int line, int lineCount, int height)
+	{
+		if(lineCount * LINE_HEIGHT <= height)
+			return line * LINE_HEIGHT;
+		return (int)((long)line * height / lineCount);
+	} //}}}
+
+	//{{{ yToLine() method
+	private int yToLine(int y)
+	{
+		int lineCount = buffer.getLineCount();
+		int height = getHeight();
+		int line;
+		if(lineCount * LINE_HEIGHT <= height)
+			line = y / LINE_HEIGHT;
+		else
+			line = (int)((long)y * lineCount / Math.max(1, height));
+		return Math.max(0, Math.min(lineCount - 1, line));
+	} //}}}
+
+	//{{{ rebuild() method
+	/**
+	 * Summarizes the whole buffer in a background thread. Only one build
+	 * runs at a time. The edits made meanwhile are applied to the running
+	 * build, so that typing does not keep starting it over; if it is
+	 * cancelled, it starts over when it is done.
+	 */
+	private void rebuild()
+	{
+		if(running != null)
+		{
+			running.cancelled = true;
+			return;
+		}
+		tokenMarker = buffer.getTokenMarker();
+		final Build build = new Build(buffer);
+		running = build;
+		ThreadUtilities.runInBackground(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				final LineSummaryPyramid result = build(build);
+				ThreadUtilities.runInDispatchThread(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						buildFinished(build, result);
+					}
+				});
+			}
+		});
+	} //}}}
+
+	//{{{ cancelBuild() method
+	/**
+	 * Makes the running build start over, for changes that can't be
+	 * applied to it.
+	 */
+	private void cancelBuild()
+	{
+		Build build = running;
+		if(build != null)
+			build.cancelled = true;
+	} //}}}
+
+	//{{{ build() method
+	/**
+	 * Runs in a background thread. The buffer is only read locked while
+	 * tokenizing a chunk of lines, so that edits are not blocked for long.
+	 * @return the summary, or null if the build was cancelled
+	 */
+	private static LineSummaryPyramid build(Build build)
+	{
+		JEditBuffer buildBuffer = build.buffer;
+		SummaryTokenHandler handler = new SummaryTokenHandler();
+		boolean done = false;
+		while(!done)
+		{
+			buildBuffer.readLock();
+			try
+			{
+				if(build.cancelled)
+					return null;
+				if(build.result == null)
+				{
+					build.result = new LineSummaryPyramid(
+						buildBuffer.getLineCount());
+				}
+				LineSummaryPyramid result = build.result;
+				int lineCount = result.getLineCount();
+				int end = Math.min(lineCount, build.line + LINES_PER_LOCK);
+				for(int line = build.line; line < end; line++)
+				{
+					handler.init();
+					build.context = buildBuffer.markTokens(line,
+						build.context, handler);
+					result.setLine(line, handler.getStyle(),
+						buildBuffer.getLineLength(line), build.context);
+				}
+				build.line = end;
+				done = end == lineCount;
+				// the edits made from now on are applied to the
+				// summary of the nodes too
+				if(done)
+					result.rebuild();
+			}
+			finally
+			{
+				buildBuffer.readUnlock();
+			}
+		}
+		return build.result;
+	} //}}}
+
+	//{{{ buildFinished() method
+	private void buildFinished(Build build, LineSummaryPyramid result)
+	{
+		running = null;
+		if(build.buffer != buffer || build.cancelled || result == null
+			|| result.getLineCount() != buffer.getLineCount())
+		{
+			if(buffer != null && !buffer.isLoading())
+				rebuild();
+			return;
+		}
+		pyramid = result;
+		if(build.firstDirtyLine != -1)
+		{
+			// the lines edited after they were summarized
+			linesChanged(build.firstDirtyLine, build.lastDirtyLine);
+			updateDirtyLines();
+		}
+		else
+			repaint();
+	} //}}}
+
+	//{{{ linesChanged() method
+	private void linesChanged(int startLine, int endLine)
+	{
+		if(firstDirtyLine == -1 || startLine < firstDirtyLine)
+			firstDirtyLine = startLine;
+		lastDirtyLine = Math.max(lastDirtyLine, endLine);
+	} //}}}
+
+	//{{{ updateDirtyLines() method
+	/**
+	 * Tokenizes the lines changed by the last transaction again, starting
+	 * from the context the minimap saw at the end of the line before. The
+	 * following lines are tokenized too while the context at the end of
+	 * the last changed line differs from the one the minimap saw there
+	 * (a comment was opened, for example). If that is too many lines, the
+	 * whole summary is built again in the background.
+	 */
+	private void updateDirtyLines()
+	{
+		int first = firstDirtyLine;
+		int last = Math.min(lastDirtyLine, buffer.getLineCount() - 1);
+		firstDirtyLine = lastDirtyLine = -1;
+		if(pyramid == null || first == -1)
+			return;
+		if(pyramid.getLineCount() != buffer.getLineCount()
+			|| buffer.getTokenMarker() != tokenMarker)
+		{
+			rebuild();
+			return;
+		}
+		if(last - first >= MAX_INCREMENTAL_LINES)
+		{
+			rebuildIfIdle();
+			return;
+		}
+
+		buffer.readLock();
+		try
+		{
+			int lineCount = buffer.getLineCount();
+			TokenMarker.LineContext context = first == 0 ? null
+				: pyramid.getContext(first - 1);
+			for(int line = first; line < lineCount; line++)
+			{
+				if(line - first >= MAX_INCREMENTAL_LINES)
+				{
+					rebuildIfIdle();
+					return;
+				}
+				TokenMarker.LineContext oldContext = pyramid.getContext(line);
+				tokenHandler.init();
+				context = buffer.markTokens(line, context, tokenHandler);
+				pyramid.updateLine(line, tokenHandler.getStyle(),
+					buffer.getLineLength(line), context);
+				if(line >= last && context.equals(oldContext))
+					break;
+			}
+		}
+		finally
+		{
+			buffer.readUnlock();
+		}
+		repaint();
+	} //}}}
+
+	//{{{ rebuildIfIdle() method
+	/**
+	 * Builds the summary again, unless a build is running: the edits
+	 * were applied to it already.
+	 */
+	private void rebuildIfIdle()
+	{
+		if(running == null)
+			rebuild();
+	} //}}}
+
+	//}}}
+
+	//{{{ Build class
+	/**
+	 * A summary being built in the background. The build thread uses it
+	 * with the buffer read locked, and the event dispatch thread applies
+	 * the edits to it with the buffer write locked.
+	 */
+	private static class Build
+	{
+		final JEditBuffer buffer;
+		volatile boolean cancelled;
+		LineSummaryPyramid result;
+		/** The next line to summarize. */
+		int line;
+		/** The context at the end of the line before. */
+		TokenMarker.LineContext context;
+		/** Lines edited after they were summarized, or -1. */
+		int firstDirtyLine = -1;
+		int lastDirtyLine = -1;
+
+		Build(JEditBuffer buffer)
+		{
+			this.buffer = buffer;
+		}
+
+		void linesInserted(int startLine, int numLines)
+		{
+			if(result == null)
+				return;
+			result.linesInserted(startLine + 1, numLines);
+			if(startLine >= line)
+				return;
+			line += numLines;
+			if(lastDirtyLine > startLine)
+				lastDirtyLine += numLines;
+			linesChanged(startLine, startLine + numLines);
+		}
+
+		void linesRemoved(int startLine, int numLines)
+		{
+			if(result == null)
+				return;
+			result.linesRemoved(startLine + 1, numLines);
+			if(startLine >= line)
+				return;
+			line -= Math.min(numLines, line - startLine - 1);
+			if(lastDirtyLine > startLine)
+				lastDirtyLine = Math.max(startLine, lastDirtyLine - numLines);
+			linesChanged(startLine, startLine);
+		}
+
+		private void linesChanged(int startLine, int endLine)
+		{
+			if(firstDirtyLine == -1 || startLine < firstDirtyLine)
+				firstDirtyLine = startLine;
+			lastDirtyLine = Math.max(lastDirtyLine, endLine);
+		}
+	} //}}}
+
+	//{{{ SummaryTokenHandler class
+	/**
+	 * Finds the token type covering the most characters of a line,
+	 * ignoring whitespace.
+	 */
+	private static class SummaryTokenHandler implements TokenHandler
+	{
+		private final int[] counts = new int[Token.ID_COUNT];
+
+		void init()
+		{
+			for(int i = 0; i < counts.length; i++)
+				counts[i] = 0;
+		}
+
+		byte getStyle()
+		{
+			byte style = Token.NULL;
+			int max = 0;
+			for(int i = 0; i < counts.length; i++)
+			{
+				if(counts[i] > max)
+				{
+					max = counts[i];
+					style = (byte)i;
+				}
+			}
+			return style;
+		}
+
+		@Override
+		public void handleToken(Segment seg, byte id, int offset, int length,
+			TokenMarker.LineContext context)
+		{
+			if(id == Token.END || id < 0 || id >= Token.ID_COUNT)
+				return;
+			int count = 0;
+			int start = seg.offset + offset;
+			for(int i = start; i < start + length; i++)
+			{
+				if(!Character.isWhitespace(seg.array[i]))
+					count++;
+			}
+			counts[id] += count;
+		}
+
+		@Override
+		public void setLineContext(TokenMarker.LineContext lineContext)
+		{
+		}
+	} //}}}
+
+	//{{{ MinimapBufferHandler class
+	private class MinimapBufferHandler extends BufferAdapter
+	{
+		@Override
+		public void contentInserted(JEditBuffer buffer, int startLine,
+			int offset, int numLines, int length)
+		{
+			if(buffer.isLoading())
+			{
+				cancelBuild();
+				return;
+			}
+			if(!SwingUtilities.isEventDispatchThread())
+			{
+				cancelBuild();
+				rebuildLater();
+				return;
+			}
+			Build build = running;
+			if(build != null && build.buffer == buffer)
+				build.linesInserted(startLine, numLines);
+			if(pyramid != null && numLines != 0)
+				pyramid.linesInserted(startLine + 1, numLines);
+			linesChanged(startLine, startLine + numLines);
+		}
+
+		@Override
+		public void contentRemoved(JEditBuffer buffer, int startLine,
+			int offset, int numLines, int length)
+		{
+			if(buffer.isLoading())
+			{
+				cancelBuild();
+				return;
+			}
+			if(!SwingUtilities.isEventDispatchThread())
+			{
+				cancelBuild();
+				rebuildLater();
+				return;
+			}
+			Build build = running;
+			if(build != null && build.buffer == buffer)
+				build.linesRemoved(startLine, numLines);
+			if(pyramid != null && numLines != 0)
+				pyramid.linesRemoved(startLine + 1, numLines);
+			linesChanged(startLine, startLine);
+		}
+
+		@Override
+		public void transactionComplete(JEditBuffer buffer)
+		{
+			if(SwingUtilities.isEventDispatchThread() && !buffer.isLoading())
+				updateDirtyLines();
+		}
+
+		@Override
+		public void bufferLoaded(JEditBuffer buffer)
+		{
+			rebuildLater();
+		}
+
+		private void rebuildLater()
+		{
+			ThreadUtilities.runInDispatchThread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					if(buffer != null && !buffer.isLoading())
+						rebuild();
+				}
+			});
+		}
+	} //}}}
+
+	//{{{ MouseHandler class
+	private class MouseHandler extends MouseAdapter
+	{
+		@Override
+		public void mousePressed(MouseEvent evt)
+		{
+			scrollTo(evt.getY());
+		}
+
+		@Override
+		public void mouseDragged(MouseEvent evt)
+		{
+			scrollTo(evt.getY());
+		}
+
+		private void scrollTo(int y)
+		{
+			if(buffer == null)
+				return;
+			int line = yToLine(y) - textArea.getVisibleLines() / 2;
+			textArea.setFirstPhysicalLine(Math.max(0, line));
+		}
+	} //}}}
+}
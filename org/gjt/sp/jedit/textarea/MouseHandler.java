@@ -98,6 +98,7 @@ public class MouseHandler extends TextAreaMouseHandler
 		}
 
 		dragged = false;
+		caretAdded = false;
 
 		textArea.blink = true;
 		textArea.invalidateLine(textArea.getCaretLine());
@@ -0,0 +1,254 @@
+/*
+ * MultiCaretEditor.java - Applies one edit to all selections at once
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.textarea;
+
+//{{{ Imports
+import java.util.List;
+
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+
+import org.gjt.sp.jedit.buffer.JEditBuffer;
+//}}}
+
+/**
+ * Applies a keystroke to every range selection and caret of a text area
+ * in one pass.<p>
+ *
+ * Carets are zero-width {@link Selection.Range} instances, see
+ * {@link TextArea#addCaret(int)}. Editing them one at a time costs, for
+ * every edit, an undo record, a caret update and a pass over all the
+ * other selections to shift their offsets, so N carets cost N² offset
+ * updates per keystroke.<p>
+ *
+ * This class instead hands all the ranges to
+ * {@link JEditBuffer#replace(int[],int[],CharSequence)}, which changes the
+ * content in one pass and fires one removal and one insertion, with one
+ * undo step and one repaint of the edited line range. While it runs,
+ * {@link BufferHandler} leaves the selections and the caret alone; the
+ * new offsets are computed here in one pass from the running length
+ * delta. When a text area has collapsed folds between the first and the
+ * last range, the ranges are edited one by one inside one compound edit,
+ * so that the folds stay collapsed.
+ *
+ * @since jEdit 5.4pre1
+ */
+class MultiCaretEditor
+{
+	//{{{ MultiCaretEditor constructor
+	MultiCaretEditor(TextArea textArea)
+	{
+		this.textArea = textArea;
+	} //}}}
+
+	//{{{ canEdit() method
+	/**
+	 * Returns true if there are several selections, they are all ranges,
+	 * and at least one of them is a caret. Rectangular selections, and
+	 * several range selections without a caret, are edited one by one as
+	 * before.
+	 */
+	boolean canEdit()
+	{
+		List<Selection> selection = textArea.selectionManager.selection;
+		if(selection.size() < 2)
+			return false;
+		boolean caret = false;
+		for(Selection s : selection)
+		{
+			if(!(s instanceof Selection.Range))
+				return false;
+			if(s.start == s.end)
+				caret = true;
+		}
+		return caret;
+	} //}}}
+
+	//{{{ replace() method
+	/**
+	 * Replaces every selection by the given text, or inserts it at every
+	 * caret. Every selection becomes a caret after its text.
+	 * @param text the text
+	 * @return the offset at the end of the last inserted text
+	 */
+	int replace(String text)
+	{
+		List<Selection> selection = textArea.selectionManager.selection;
+		int count = selection.size();
+		int[] starts = new int[count];
+		int[] ends = new int[count];
+		for(int i = 0; i < count; i++)
+		{
+			Selection s = selection.get(i);
+			starts[i] = s.start;
+			ends[i] = s.end;
+		}
+		return apply(starts, ends, text);
+	} //}}}
+
+	//{{{ delete() method
+	/**
+	 * Deletes every selection, and the code point before (or after) every
+	 * caret.
+	 * @param forward true to delete after the carets
+	 */
+	void delete(boolean forward)
+	{
+		JEditBuffer buffer = textArea.getBuffer();
+		List<Selection> selection = textArea.selectionManager.selection;
+		int count = selection.size();
+		int length = buffer.getLength();
+		int[] starts = new int[count];
+		int[] ends = new int[count];
+		int previousEnd = 0;
+		for(int i = 0; i < count; i++)
+		{
+			Selection s = selection.get(i);
+			int start = s.start;
+			int end = s.end;
+			if(start == end)
+			{
+				if(forward && end < length)
+				{
+					end += isSurrogatePair(buffer, end) ? 2 : 1;
+				}
+				else if(!forward && start > 0)
+				{
+					start -= start >= 2 && isSurrogatePair(buffer,
+						start - 2) ? 2 : 1;
+				}
+			}
+			// carets next to each other delete the same character
+			starts[i] = Math.max(start, previousEnd);
+			ends[i] = Math.max(end, starts[i]);
+			previousEnd = ends[i];
+		}
+		apply(starts, ends, null);
+	} //}}}
+
+	//{{{ Private members
+	private final TextArea textArea;
+	private final Segment seg = new Segment();
+
+	//{{{ isSurrogatePair() method
+	private boolean isSurrogatePair(JEditBuffer buffer, int offset)
+	{
+		if(offset + 2 > buffer.getLength())
+			return false;
+		buffer.getText(offset, 2, seg);
+		return Character.isHighSurrogate(seg.array[seg.offset])
+			&& Character.isLowSurrogate(seg.array[seg.offset + 1]);
+	} //}}}
+
+	//{{{ apply() method
+	/**
+	 * Replaces the given ranges, which are sorted and don't overlap, by
+	 * the given text, and turns the selection at the same index into a
+	 * caret after it.
+	 * @return the offset at the end of the last inserted text
+	 */
+	private int apply(int[] starts, int[] ends, String text)
+	{
+		JEditBuffer buffer = textArea.getBuffer();
+		List<Selection> selection = textArea.selectionManager.selection;
+		int textLength = text == null ? 0 : text.length();
+		int caret = textArea.getCaretPosition();
+		int newCaret = caret;
+		int newOffset = -1;
+
+		buffer.beginCompoundEdit();
+		buffer.writeLock();
+		try
+		{
+			textArea.batchEdit = true;
+
+			// the line at the top may be part of the change
+			Position first = buffer.createPosition(buffer.getLineStartOffset(
+				textArea.getFirstPhysicalLine()));
+
+			// the buffer replaces all the ranges in one pass, as
+			// one change of the lines between the first and the
+			// last one, which would expand the collapsed folds
+			// between them
+			boolean batch = DisplayManager.isRangeVisible(buffer,
+				buffer.getLineOfOffset(starts[0]),
+				buffer.getLineOfOffset(ends[ends.length - 1]));
+			if(batch)
+				buffer.replace(starts, ends, text);
+
+			int delta = 0;
+			for(int i = 0; i < starts.length; i++)
+			{
+				int start = starts[i] + delta;
+				int length = ends[i] - starts[i];
+				if(!batch)
+				{
+					if(length != 0)
+						buffer.remove(start, length);
+					if(textLength != 0)
+						buffer.insert(start, text);
+				}
+				newOffset = start + textLength;
+
+				if(caret >= ends[i])
+					newCaret = caret + delta + textLength - length;
+				else if(caret >= starts[i])
+					newCaret = newOffset;
+
+				Selection s = selection.get(i);
+				s.start = s.end = newOffset;
+				delta += textLength - length;
+			}
+
+			// carets that ended up at the same offset are merged, and
+			// the line numbers are only looked up once the buffer has
+			// its final content
+			int kept = 0;
+			for(int i = 0; i < selection.size(); i++)
+			{
+				Selection s = selection.get(i);
+				if(kept != 0 && selection.get(kept - 1).end == s.start)
+					continue;
+				s.startLine = s.endLine = buffer.getLineOfOffset(s.start);
+				selection.set(kept++, s);
+			}
+			selection.subList(kept, selection.size()).clear();
+
+			int newFirstLine = buffer.getLineOfOffset(first.getOffset());
+			if(newFirstLine != textArea.getFirstPhysicalLine())
+				textArea.setFirstPhysicalLine(newFirstLine);
+
+			textArea.moveCaretPosition(newCaret);
+		}
+		finally
+		{
+			textArea.batchEdit = false;
+			buffer.writeUnlock();
+			buffer.endCompoundEdit();
+		}
+
+		return newOffset;
+	} //}}}
+
+	//}}}
+}
@@ -0,0 +1,285 @@
+/*
+ * PaintProfiler.java - Records paint timings of text areas
+ * :tabSize=4:indentSize=4:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright (C) 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.textarea;
+
+//{{{ Imports
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+//}}}
+
+/**
+ * Records how long the different parts of a text area repaint take.<p>
+ *
+ * When enabled, {@link TextAreaPainter}, {@link Gutter} and their
+ * extension managers record one sample per frame and per section
+ * (tokenization, chunk layout, and every {@link TextAreaExtension}, which
+ * includes the built-in background, selection, text and caret layers).
+ * The samples are kept in a fixed size ring buffer that is written
+ * without locking; readers poll it with
+ * {@link #readSamples(long,SampleVisitor)}, keeping the sequence number
+ * returned by the previous call. This is how the <i>Paint Profiler</i>
+ * dockable gets its data, and how a plugin can forward the samples to an
+ * external event recorder such as Java Flight Recorder.<p>
+ *
+ * When disabled, the only cost on the paint path is reading one volatile
+ * field per section.
+ *
+ * @since jEdit 5.4pre1
+ */
+public final class PaintProfiler
+{
+	//{{{ Sections
+	/** Whole text area painter frame. */
+	public static final String FRAME = "frame";
+
+	/** Whole gutter frame. */
+	public static final String GUTTER_FRAME = "gutter frame";
+
+	/** Running the token marker over lines that have to be chunked. */
+	public static final String TOKENIZATION = "tokenization";
+
+	/** Creating and laying out the chunks of tokenized lines. */
+	public static final String CHUNK_LAYOUT = "chunk layout";
+	//}}}
+
+	//{{{ isEnabled() method
+	/**
+	 * Returns if paint timings are being recorded.
+	 */
+	public static boolean isEnabled()
+	{
+		return enabled;
+	} //}}}
+
+	//{{{ setEnabled() method
+	/**
+	 * Starts or stops recording paint timings.
+	 * @param enabled true to record
+	 */
+	public static void setEnabled(boolean enabled)
+	{
+		PaintProfiler.enabled = enabled;
+	} //}}}
+
+	//{{{ getFrameBudget() method
+	/**
+	 * Returns the time, in nanoseconds, a frame is allowed to take before
+	 * it is counted as over budget.
+	 */
+	public static long getFrameBudget()
+	{
+		return frameBudget;
+	} //}}}
+
+	//{{{ setFrameBudget() method
+	/**
+	 * Sets the frame budget.
+	 * @param nanos the budget in nanoseconds
+	 */
+	public static void setFrameBudget(long nanos)
+	{
+		frameBudget = nanos;
+	} //}}}
+
+	//{{{ getFrameCount() method
+	/**
+	 * Returns the number of frames recorded since the last
+	 * {@link #reset()}.
+	 */
+	public static long getFrameCount()
+	{
+		return frameCount.get();
+	} //}}}
+
+	//{{{ getOverBudgetFrameCount() method
+	/**
+	 * Returns the number of frames that took longer than the frame
+	 * budget since the last {@link #reset()}.
+	 */
+	public static long getOverBudgetFrameCount()
+	{
+		return overBudgetCount.get();
+	} //}}}
+
+	//{{{ getRequestedLineCount() method
+	/**
+	 * Returns the number of screen lines the text areas were asked to
+	 * repaint since the last {@link #reset()}, counting a line once per
+	 * request.
+	 */
+	public static long getRequestedLineCount()
+	{
+		return requestedLines.get();
+	} //}}}
+
+	//{{{ getDamagedLineCount() method
+	/**
+	 * Returns the number of requested screen lines that were not
+	 * already waiting for a repaint, and were handed to Swing.
+	 */
+	public static long getDamagedLineCount()
+	{
+		return damagedLines.get();
+	} //}}}
+
+	//{{{ getPaintedLineCount() method
+	/**
+	 * Returns the number of screen lines the text area painters
+	 * actually painted since the last {@link #reset()}.
+	 */
+	public static long getPaintedLineCount()
+	{
+		return paintedLines.get();
+	} //}}}
+
+	//{{{ reset() method
+	/**
+	 * Resets the frame counters. Samples already in the ring buffer are
+	 * kept, since readers keep their own position.
+	 */
+	public static void reset()
+	{
+		frameCount.set(0L);
+		overBudgetCount.set(0L);
+		requestedLines.set(0L);
+		damagedLines.set(0L);
+		paintedLines.set(0L);
+	} //}}}
+
+	//{{{ readSamples() method
+	/**
+	 * Visits the samples recorded since the given sequence number.
+	 * Samples that were overwritten before they could be read are
+	 * skipped.
+	 * @param from the sequence number returned by the previous call,
+	 * or 0 to read everything still in the buffer
+	 * @param visitor the visitor
+	 * @return the sequence number to pass to the next call
+	 */
+	public static long readSamples(long from, SampleVisitor visitor)
+	{
+		long end = cursor.get();
+		long start = Math.max(from, end - CAPACITY);
+		for(long seq = start; seq < end; seq++)
+		{
+			int slot = (int)(seq & MASK);
+			long stamp = stamps.get(slot);
+			if(stamp != seq + 1)
+				continue;
+			String section = sections[slot];
+			long nanos = durations[slot];
+			long time = times[slot];
+			// the writer may have reused the slot meanwhile
+			if(stamps.get(slot) != stamp)
+				continue;
+			visitor.visit(seq, section, nanos, time);
+		}
+		return end;
+	} //}}}
+
+	//{{{ SampleVisitor interface
+	/**
+	 * Receives the samples read by
+	 * {@link PaintProfiler#readSamples(long,SampleVisitor)}.
+	 */
+	public interface SampleVisitor
+	{
+		/**
+		 * @param sequence the sample sequence number
+		 * @param section one of the section constants of
+		 * {@link PaintProfiler}, or the class name of a text area
+		 * extension
+		 * @param nanos the time spent in the section
+		 * @param time the {@link System#currentTimeMillis()} of the sample
+		 */
+		void visit(long sequence, String section, long nanos, long time);
+	} //}}}
+
+	//{{{ Package-private members
+
+	//{{{ record() method
+	static void record(String section, long nanos)
+	{
+		long seq = cursor.getAndIncrement();
+		int slot = (int)(seq & MASK);
+		// mark the slot as being written
+		stamps.set(slot, 0L);
+		sections[slot] = section;
+		durations[slot] = nanos;
+		times[slot] = System.currentTimeMillis();
+		stamps.lazySet(slot, seq + 1);
+	} //}}}
+
+	//{{{ recordFrame() method
+	static void recordFrame(String section, long nanos)
+	{
+		record(section, nanos);
+		frameCount.incrementAndGet();
+		if(nanos > frameBudget)
+			overBudgetCount.incrementAndGet();
+	} //}}}
+
+	//{{{ countInvalidatedLines() method
+	static void countInvalidatedLines(int requested, int damaged)
+	{
+		requestedLines.addAndGet(requested);
+		damagedLines.addAndGet(damaged);
+	} //}}}
+
+	//{{{ countPaintedLines() method
+	static void countPaintedLines(int painted)
+	{
+		paintedLines.addAndGet(painted);
+	} //}}}
+
+	//}}}
+
+	//{{{ Private members
+	private static final int CAPACITY = 1 << 14;
+	private static final int MASK = CAPACITY - 1;
+
+	private static volatile boolean enabled;
+	private static volatile long frameBudget = 16L * 1000L * 1000L;
+
+	private static final AtomicLong frameCount = new AtomicLong();
+	private static final AtomicLong overBudgetCount = new AtomicLong();
+	private static final AtomicLong requestedLines = new AtomicLong();
+	private static final AtomicLong damagedLines = new AtomicLong();
+	private static final AtomicLong paintedLines = new AtomicLong();
+
+	/** Next sequence number to write. */
+	private static final AtomicLong cursor = new AtomicLong();
+	/**
+	 * For each slot, the sequence number + 1 of the sample it holds,
+	 * or 0 while it is being written.
+	 */
+	private static final AtomicLongArray stamps = new AtomicLongArray(CAPACITY);
+	private static final String[] sections = new String[CAPACITY];
+	private static final long[] durations = new long[CAPACITY];
+	private static final long[] times = new long[CAPACITY];
+
+	private PaintProfiler()
+	{
+	}
+	//}}}
+}
@@ -153,6 +153,37 @@ class SelectionManager
 		textArea.invalidateLineRange(addMe.startLine,addMe.endLine);
 	} //}}}
 
+	//{{{ addCaret() method
+	/**
+	 * Adds a caret, that is a zero-width range selection. Unlike
+	 * {@link #addToSelection(Selection)}, this finds its place with a
+	 * binary search, since there can be thousands of carets.
+	 * @param offset The caret offset
+	 * @return false if the offset is already in a selection
+	 */
+	boolean addCaret(int offset)
+	{
+		int low = 0;
+		int high = selection.size() - 1;
+		while(low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			Selection s = selection.get(mid);
+			if(s.end < offset)
+				low = mid + 1;
+			else if(s.start > offset)
+				high = mid - 1;
+			else
+				return false;
+		}
+
+		Selection.Range caret = new Selection.Range(offset,offset);
+		caret.startLine = caret.endLine = textArea.getLineOfOffset(offset);
+		selection.add(low,caret);
+		textArea.invalidateLine(caret.startLine);
+		return true;
+	} //}}}
+
 	//{{{ setSelection() method
 	/**
 	 * Sets the selection. Nested and overlapping selections are merged
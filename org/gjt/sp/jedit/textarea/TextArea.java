@@ -88,10 +88,13 @@ public abstract class TextArea extends JPanel
 
 		//{{{ Initialize some misc. stuff
 		selectionManager = new SelectionManager(this);
+		multiCaretEditor = new MultiCaretEditor(this);
 		chunkCache = new ChunkCache(this);
+		damageTracker = new DamageTracker();
 		painter = new TextAreaPainter(this);
 		gutter = new Gutter(this);
 		gutter.setMouseActionsProvider(new MouseActions(propertyManager, "gutter"));
+		mouseActions = new MouseActions(propertyManager, "textarea");
 		listenerList = new EventListenerList();
 		caretEvent = new MutableCaretEvent();
 		blink = true;
@@ -248,6 +251,8 @@ public abstract class TextArea extends JPanel
 	{
 		DisplayManager.textAreaDisposed(this);
 		gutter.dispose();
+		if(minimap != null)
+			minimap.dispose();
 	} //}}}
 
 	//{{{ getInputHandler() method
@@ -417,6 +422,8 @@ public abstract class TextArea extends JPanel
 
 			chunkCache.setBuffer(buffer);
 			gutter.setBuffer(buffer);
+			if(minimap != null)
+				minimap.setBuffer(buffer);
 			propertiesChanged();
 
 			if(displayManager != null)
@@ -1126,6 +1133,15 @@ public abstract class TextArea extends JPanel
 		if(chunkCache.needFullRepaint())
 			end = visibleLines;
 
+		boolean newDamage = damageTracker.add(start,end);
+		if(PaintProfiler.isEnabled())
+		{
+			PaintProfiler.countInvalidatedLines(end - start + 1,
+				newDamage ? end - start + 1 : 0);
+		}
+		if(!newDamage)
+			return;
+
 		int y = start * painter.getLineHeight();
 		int height = (end - start + 1) * painter.getLineHeight();
 		painter.repaint(0,y,painter.getWidth(),height);
@@ -1809,6 +1825,60 @@ forward_scan:	do
 		finishCaretUpdate(caretLine,NO_SCROLL,true);
 	} //}}}
 
+	//{{{ addCaret() method
+	/**
+	 * Adds a caret at the specified offset. Carets are zero-width range
+	 * selections; typing, backspace and delete are then applied to all
+	 * of them, and to all the range selections, as one edit with one undo
+	 * step. The range selections become carets after the text that
+	 * replaced them.<p>
+	 *
+	 * If there is no selection yet, a caret is also added at the caret
+	 * position.
+	 * @param offset The offset
+	 * @return false if there is already a caret or a selection at that
+	 * offset
+	 * @since jEdit 5.4pre1
+	 */
+	public boolean addCaret(int offset)
+	{
+		if(offset < 0 || offset > buffer.getLength())
+			throw new ArrayIndexOutOfBoundsException(offset);
+		if(getSelectionCount() == 0)
+			selectionManager.addCaret(caret);
+		return selectionManager.addCaret(offset);
+	} //}}}
+
+	//{{{ addCaretAbove() method
+	/**
+	 * Adds a caret on the visible line above the first caret or
+	 * selection, at the virtual column of the caret.
+	 * @see #addCaret(int)
+	 * @since jEdit 5.4pre1
+	 */
+	public void addCaretAbove()
+	{
+		Selection[] selection = getSelection();
+		int line = selection.length == 0 ? caretLine
+			: selection[0].getStartLine();
+		addCaretOnLine(displayManager.getPrevVisibleLine(line));
+	} //}}}
+
+	//{{{ addCaretBelow() method
+	/**
+	 * Adds a caret on the visible line below the last caret or
+	 * selection, at the virtual column of the caret.
+	 * @see #addCaret(int)
+	 * @since jEdit 5.4pre1
+	 */
+	public void addCaretBelow()
+	{
+		Selection[] selection = getSelection();
+		int line = selection.length == 0 ? caretLine
+			: selection[selection.length - 1].getEndLine();
+		addCaretOnLine(displayManager.getNextVisibleLine(line));
+	} //}}}
+
 	//{{{ getSelectionAtOffset() method
 	/**
 	 * Returns the selection containing the specific offset, or <code>null</code>
@@ -2042,7 +2112,9 @@ forward_scan:	do
 		int newCaret = replaceSelection(selectedText);
 		if(newCaret != -1)
 			moveCaretPosition(newCaret);
-		selectNone();
+		// the selections became carets, which are kept
+		if(!multiCaretEditor.canEdit())
+			selectNone();
 	}
 
 	/**
@@ -2058,7 +2130,9 @@ forward_scan:	do
 		int newCaret = replaceSelection(selectedText);
 		if(moveCaret && newCaret != -1)
 			moveCaretPosition(newCaret);
-		selectNone();
+		// the selections became carets, which are kept
+		if(!multiCaretEditor.canEdit())
+			selectNone();
 	} //}}}
 
 	//{{{ replaceSelection() method
@@ -2066,6 +2140,10 @@ forward_scan:	do
 	 * Set the selection, but does not deactivate it, and does not move the
 	 * caret.
 	 *
+	 * If there are carets (see {@link #addCaret(int)}), the text is
+	 * inserted at every caret and replaces every range selection, and the
+	 * selections all become carets after the new text.
+	 *
 	 * Please use {@link #setSelectedText(String)} instead.
 	 *
 	 * @param selectedText The new selection
@@ -2083,6 +2161,10 @@ forward_scan:	do
 			// for compatibility with older jEdit versions
 			buffer.insert(caret,selectedText);
 		}
+		else if(multiCaretEditor.canEdit())
+		{
+			newCaret = multiCaretEditor.replace(selectedText);
+		}
 		else
 		{
 			try
@@ -4671,6 +4753,43 @@ loop:		for(int i = lineNo - 1; i >= 0; i--)
 		verticalBox.remove(comp);
 	} //}}}
 
+	//{{{ isMinimapEnabled() method
+	/**
+	 * Returns if the minimap is shown left of the vertical scroll bar.
+	 * @since jEdit 5.4pre1
+	 */
+	public boolean isMinimapEnabled()
+	{
+		return minimap != null;
+	} //}}}
+
+	//{{{ setMinimapEnabled() method
+	/**
+	 * Shows or hides the minimap, an overview of the whole buffer left of
+	 * the vertical scroll bar.
+	 * @param enabled true to show the minimap
+	 * @see Minimap
+	 * @since jEdit 5.4pre1
+	 */
+	public void setMinimapEnabled(boolean enabled)
+	{
+		if(enabled == (minimap != null))
+			return;
+		if(enabled)
+		{
+			minimap = new Minimap(this);
+			minimap.setBuffer(buffer);
+			verticalBox.add(minimap, verticalBox.getComponentCount() - 1);
+		}
+		else
+		{
+			verticalBox.remove(minimap);
+			minimap.dispose();
+			minimap = null;
+		}
+		verticalBox.revalidate();
+	} //}}}
+
 	//{{{ addNotify() method
 	/**
 	 * Called by the AWT when this component is added to a parent.
@@ -4906,6 +5025,8 @@ loop:		for(int i = lineNo - 1; i >= 0; i--)
 		chunkCache.reset();
 		gutter.repaint();
 		painter.repaint();
+		if(minimap != null)
+			minimap.propertiesChanged();
 	} //}}}
 
 	//{{{ addActionSet() method
@@ -4946,9 +5067,19 @@ loop:		for(int i = lineNo - 1; i >= 0; i--)
 
 	//{{{ Instance variables
 	MouseInputAdapter mouseHandler;
+	/** Actions bound to clicks with modifiers, like add-caret. */
+	final MouseActionsProvider mouseActions;
 	final ChunkCache chunkCache;
+	/** Screen lines requested for repaint, not painted yet. */
+	final DamageTracker damageTracker;
+	final ElasticTabstopsTabExpander elasticTabstopsExpander = new ElasticTabstopsTabExpander(this);
 	DisplayManager displayManager;
 	final SelectionManager selectionManager;
+	/**
+	 * True while a multi-caret edit is being applied, the
+	 * {@link BufferHandler} must not update the selections then.
+	 */
+	boolean batchEdit;
 	/**
 	 * The action context.
 	 * It is used only when the textarea is standalone
@@ -5254,7 +5385,6 @@ loop:		for(int i = lineNo - 1; i >= 0; i--)
 	private final MutableCaretEvent caretEvent;
 
 	private boolean caretBlinks;
-	private final ElasticTabstopsTabExpander elasticTabstopsExpander = new ElasticTabstopsTabExpander(this);
 	protected InputHandlerProvider inputHandlerProvider;
 
 	private InputMethodSupport inputMethodSupport;
@@ -5277,6 +5407,8 @@ loop:		for(int i = lineNo - 1; i >= 0; i--)
 
 	// JDiff, error list add stuff here
 	private final Box verticalBox;
+	private final MultiCaretEditor multiCaretEditor;
+	private Minimap minimap;
 	private final JScrollBar vertical;
 	private final JScrollBar horizontal;
 
@@ -5329,6 +5461,25 @@ loop:		for(int i = lineNo - 1; i >= 0; i--)
 		setHorizontalOffset(horizontalOffset);
 	} //}}}
 
+	//{{{ addCaretOnLine() method
+	private void addCaretOnLine(int line)
+	{
+		if(line == -1)
+		{
+			getToolkit().beep();
+			return;
+		}
+
+		int column = buffer.getVirtualWidth(caretLine,
+			caret - getLineStartOffset(caretLine));
+		int offset = buffer.getOffsetOfVirtualColumn(line,column,null);
+		if(offset == -1)
+			offset = getLineLength(line);
+		offset += getLineStartOffset(line);
+		addCaret(offset);
+		scrollTo(offset,false);
+	} //}}}
+
 	//{{{ invalidateSelectedLines() method
 	/**
 	 * Repaints the lines containing the selection.
@@ -5899,7 +6050,11 @@ loop:		for(int i = lineNo - 1; i >= 0; i--)
 			return;
 		}
 
-		if(getSelectionCount() != 0)
+		if(multiCaretEditor.canEdit())
+		{
+			multiCaretEditor.delete(forward);
+		}
+		else if(getSelectionCount() != 0)
 		{
 			Selection[] selections = getSelection();
 			for (Selection s : selections)
@@ -87,6 +87,7 @@ public class TextAreaMouseHandler extends MouseInputAdapter
 		}
 
 		dragged = false;
+		caretAdded = false;
 
 		textArea.blink = true;
 		textArea.invalidateLine(textArea.getCaretLine());
@@ -128,6 +129,15 @@ public class TextAreaMouseHandler extends MouseInputAdapter
 	//{{{ doSingleClick() method
 	protected void doSingleClick(MouseEvent evt)
 	{
+		// alt-click by default, see TextArea.addCaret()
+		if(!quickCopyDrag && textArea.isEditable() && "add-caret".equals(
+			textArea.mouseActions.getActionForEvent(evt,"")))
+		{
+			textArea.addCaret(dragStart);
+			caretAdded = true;
+			return;
+		}
+
 		int x = evt.getX();
 
 		int extraEndVirt = 0;
@@ -293,6 +303,9 @@ public class TextAreaMouseHandler extends MouseInputAdapter
 			return;
 		}
 
+		if(caretAdded)
+			return;
+
 		if(textArea.getBuffer().isLoading())
 			return;
 
@@ -644,6 +657,8 @@ public class TextAreaMouseHandler extends MouseInputAdapter
 	/* with drag and drop on, a mouse down in a selection does not
 	immediately deselect */
 	protected boolean maybeDragAndDrop;
+	/* a click that added a caret does not select when dragged */
+	protected boolean caretAdded;
 
 	//{{{ showCursor() method
 	protected void showCursor()
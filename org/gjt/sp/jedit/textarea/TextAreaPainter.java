@@ -877,6 +877,9 @@ public class TextAreaPainter extends JComponent implements TabExpander
 		gfx.setRenderingHints(renderingHints);
 		fontRenderContext = gfx.getFontRenderContext();
 
+		boolean profile = PaintProfiler.isEnabled();
+		long frameTime = profile ? System.nanoTime() : 0L;
+
 		Rectangle clipRect = gfx.getClipBounds();
 		int lineHeight = getLineHeight();
 		int charHeight = getFontHeight();
@@ -884,6 +887,7 @@ public class TextAreaPainter extends JComponent implements TabExpander
 		{
 			gfx.setColor(getBackground());
 			gfx.fillRect(clipRect.x,clipRect.y,clipRect.width,clipRect.height);
+			textArea.damageTracker.clear();
 		}
 		else
 		{
@@ -900,6 +904,9 @@ public class TextAreaPainter extends JComponent implements TabExpander
 			long linesTime = System.nanoTime();
 			int numLines = lastLine - firstLine + 1;
 			int y = firstLine * lineHeight;
+			textArea.damageTracker.painted(firstLine,lastLine);
+			if(profile)
+				PaintProfiler.countPaintedLines(numLines);
 			gfx.fillRect(0,y,getWidth(),numLines * lineHeight);
 			extensionMgr.paintScreenLineRange(textArea,gfx,
 							  firstLine,lastLine,
@@ -911,6 +918,13 @@ public class TextAreaPainter extends JComponent implements TabExpander
 		}
 
 		textArea.updateMaxHorizontalScrollWidth();
+
+		if(profile)
+		{
+			textArea.chunkCache.recordPaintProfile();
+			PaintProfiler.recordFrame(PaintProfiler.FRAME,
+				System.nanoTime() - frameTime);
+		}
 	} //}}}
 
 	//{{{ nextTabStop() method
@@ -1185,6 +1199,12 @@ public class TextAreaPainter extends JComponent implements TabExpander
 			while(iter.hasNext())
 			{
 				Selection s = iter.next();
+				// selections are sorted, and there can be
+				// thousands of carets
+				if(s.startLine > physicalLine)
+					break;
+				if(s.endLine < physicalLine)
+					continue;
 				paintSelection(gfx,screenLine,physicalLine,y,s);
 			}
 		} //}}}
@@ -1203,7 +1223,16 @@ public class TextAreaPainter extends JComponent implements TabExpander
 			int x1 = selectionStartAndEnd[0];
 			int x2 = selectionStartAndEnd[1];
 
-			gfx.fillRect(x1, y, x2 - x1, getLineHeight());
+			if(x1 == x2 && s instanceof Selection.Range)
+			{
+				// extra caret added with TextArea.addCaret()
+				Color color = gfx.getColor();
+				gfx.setColor(caretColor);
+				gfx.fillRect(x1, y, 1, getLineHeight());
+				gfx.setColor(color);
+			}
+			else
+				gfx.fillRect(x1, y, x2 - x1, getLineHeight());
 		} //}}}
 	} //}}}
 
@@ -1228,6 +1257,10 @@ public class TextAreaPainter extends JComponent implements TabExpander
 			while(iter.hasNext())
 			{
 				Selection s = iter.next();
+				if(s.startLine > physicalLine)
+					break;
+				if(s.start == s.end)
+					continue;
 				paintSelection(gfx,screenLine,physicalLine,y,s);
 			}
 		} //}}}
@@ -0,0 +1,122 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.gjt.sp.jedit.bsh.EvalError;
+import org.gjt.sp.jedit.bsh.Interpreter;
+import org.gjt.sp.jedit.bsh.ParsedScript;
+import org.gjt.sp.jedit.io.FileVFS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class BeanShellScriptCacheTest
+{
+	private File dir;
+	private File scriptFile;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		dir = Files.createTempDirectory("scripts").toFile();
+		scriptFile = new File(dir, "script.bsh");
+	}
+
+	@After
+	public void tearDown()
+	{
+		FileVFS.recursiveDelete(dir);
+	}
+
+	@Test
+	public void parsedScriptShouldBeReused() throws Exception
+	{
+		String text = "int twice(int i) { return 2 * i; }\nresult = twice(result);\n";
+		Files.write(scriptFile.toPath(), text.getBytes("UTF-8"));
+		BeanShellScriptCache cache = new BeanShellScriptCache();
+		assertThat(cache.get(scriptFile), is(nullValue()));
+		ParsedScript script = cache.parse(scriptFile, scriptFile.length(),
+			scriptFile.lastModified(), text);
+		assertThat(script.getStatementCount(), is(2));
+		assertThat(cache.get(scriptFile), is(sameInstance(script)));
+
+		// the same nodes are evaluated each time
+		Interpreter interp = new Interpreter();
+		interp.set("result", 21);
+		interp.eval(script, interp.getNameSpace());
+		interp.eval(cache.get(scriptFile), interp.getNameSpace());
+		assertThat(interp.get("result"), is((Object)84));
+	}
+
+	@Test
+	public void changedScriptShouldBeParsedAgain() throws Exception
+	{
+		String text = "a = 1;\n";
+		Files.write(scriptFile.toPath(), text.getBytes("UTF-8"));
+		BeanShellScriptCache cache = new BeanShellScriptCache();
+		cache.parse(scriptFile, scriptFile.length(),
+			scriptFile.lastModified(), text);
+
+		Files.write(scriptFile.toPath(), "a = 12;\n".getBytes("UTF-8"));
+		assertThat(cache.get(scriptFile), is(nullValue()));
+	}
+
+	@Test(expected = EvalError.class)
+	public void syntaxErrorShouldBeReportedBeforeRunning() throws Exception
+	{
+		String text = "a = 1;\na = = 2;\n";
+		new BeanShellScriptCache().parse(scriptFile, 0L, 0L, text);
+	}
+
+	@Test
+	public void macrosShouldBeParsedWhole() throws Exception
+	{
+		File[] dirs = new File("macros").listFiles();
+		if(dirs == null)
+			return;
+		BeanShellScriptCache cache = new BeanShellScriptCache();
+		for (File macroDir : dirs)
+		{
+			File[] macros = macroDir.listFiles();
+			if(macros == null)
+				continue;
+			for (File macro : macros)
+			{
+				if(!macro.getName().endsWith(".bsh"))
+					continue;
+				String text = new String(Files.readAllBytes(macro.toPath()), "UTF-8");
+				cache.parse(macro, macro.length(), macro.lastModified(), text);
+				assertThat(cache.get(macro), is(notNullValue()));
+			}
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import org.gjt.sp.jedit.syntax.ModeProvider;
+import org.gjt.sp.jedit.syntax.TokenMarker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class DeferredBufferLoaderTest
+{
+	private File dir;
+	private File file;
+	private File autosave;
+
+	/**
+	 * jEdit is not started by the tests: sets up the properties the
+	 * buffers read, the buffer list and the default mode.
+	 */
+	@BeforeClass
+	public static void setUpJEdit() throws Exception
+	{
+		Field propMgr = jEdit.class.getDeclaredField("propMgr");
+		propMgr.setAccessible(true);
+		if (propMgr.get(null) == null)
+		{
+			PropertyManager manager = new PropertyManager();
+			Reader in = new InputStreamReader(new FileInputStream(
+				"org/gjt/sp/jedit/jedit.props"), "UTF-8");
+			try
+			{
+				manager.loadSystemProps(in);
+			}
+			finally
+			{
+				in.close();
+			}
+			propMgr.set(null, manager);
+		}
+		Field bufferHash = jEdit.class.getDeclaredField("bufferHash");
+		bufferHash.setAccessible(true);
+		if (bufferHash.get(null) == null)
+			bufferHash.set(null, new HashMap<String, Buffer>());
+		if (jEdit.getMode("text") == null)
+		{
+			Mode text = new Mode("text");
+			text.setTokenMarker(new TokenMarker());
+			ModeProvider.instance.addMode(text);
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException
+	{
+		dir = Files.createTempDirectory("deferred").toFile();
+		file = new File(dir, "test.txt");
+		Files.write(file.toPath(), "text\n".getBytes("UTF-8"));
+		autosave = new File(dir, "#test.txt#");
+		Files.write(autosave.toPath(), "unsaved text\n".getBytes("UTF-8"));
+	}
+
+	@After
+	public void tearDown()
+	{
+		jEdit.closeAllBuffers(null, true);
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
+	@Test
+	public void deferredBufferShouldNotBeLoaded()
+	{
+		Buffer buffer = jEdit.openDeferred(file.getPath());
+		assertThat(buffer.isLoadDeferred(), is(true));
+		assertThat(buffer.isLoaded(), is(false));
+		assertThat(buffer.isPerformingIO(), is(true));
+		assertThat(buffer.getLength(), is(0));
+		assertThat(jEdit.openDeferred(file.getPath()), is(sameInstance(buffer)));
+		assertThat(jEdit.getBuffer(file.getPath()), is(sameInstance(buffer)));
+	}
+
+	@Test
+	public void closingShouldKeepTheAutosaveFile()
+	{
+		Buffer buffer = jEdit.openDeferred(file.getPath());
+		buffer.close();
+		assertThat(buffer.isClosed(), is(true));
+		assertThat(autosave.exists(), is(true));
+
+		// a closed buffer is not loaded in the background
+		DeferredBufferLoader.start();
+		assertThat(buffer.isLoadDeferred(), is(true));
+	}
+
+	@Test
+	public void exitShouldCloseDeferredBuffers()
+	{
+		jEdit.setBooleanProperty("restore", false);
+		try
+		{
+			Buffer buffer = jEdit.openDeferred(file.getPath());
+			assertThat(jEdit.closeAllBuffers(null, true), is(true));
+			assertThat(buffer.isClosed(), is(true));
+			assertThat(jEdit.getBufferCount(), is(0));
+			assertThat(autosave.exists(), is(true));
+			// never loaded, so its history did not change
+			assertThat(BufferHistory.getEntry(file.getPath()), is(nullValue()));
+		}
+		finally
+		{
+			jEdit.unsetProperty("restore");
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class EditBusMetricsTest
+{
+	@Test
+	public void bucketsShouldCoverEveryTime()
+	{
+		int previous = 0;
+		for (long nanos = 0L; nanos < 100000000L; nanos += 997L)
+		{
+			int bucket = EditBusMetrics.getBucket(nanos);
+			assertThat(bucket >= previous, is(true));
+			assertThat(nanos <= EditBusMetrics.getUpperBound(bucket), is(true));
+			if (bucket > 0)
+				assertThat(nanos > EditBusMetrics.getUpperBound(bucket - 1), is(true));
+			previous = bucket;
+		}
+		// no overflow for absurd times
+		EditBusMetrics.getUpperBound(EditBusMetrics.getBucket(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void percentilesShouldBeWithinAQuarter()
+	{
+		EditBusMetrics.Stats stats = new EditBusMetrics.Stats("Message", "Component", null);
+		// 1 to 1000 microseconds
+		for (int i = 1; i <= 1000; i++)
+			stats.record(i * 1000L, false);
+		assertThat(stats.getCount(), is(1000L));
+		assertThat(stats.getMax(), is(1000000L));
+		assertThat(stats.getTotal(), is(500500000L));
+		long median = stats.getPercentile(50.0);
+		assertThat(median >= 500000L && median <= 625000L, is(true));
+		long p99 = stats.getPercentile(99.0);
+		assertThat(p99 >= 990000L && p99 <= 1000000L, is(true));
+		assertThat(stats.getPercentile(100.0), is(1000000L));
+		assertThat(stats.getOverBudgetCount(), is(0L));
+
+		stats.clear();
+		assertThat(stats.getCount(), is(0L));
+		assertThat(stats.getPercentile(50.0), is(0L));
+	}
+
+	@Test
+	public void slowHandlerShouldBeOverBudget()
+	{
+		long budget = EditBusMetrics.getBudget();
+		Object slow = new SlowHandler();
+		EditBus.addToBus(slow);
+		try
+		{
+			EditBusMetrics.setBudget(1000000L);
+			EditBus.send(new SlowMessage(this));
+			EditBus.send(new SlowMessage(this));
+		}
+		finally
+		{
+			EditBus.removeFromBus(slow);
+			EditBusMetrics.setBudget(budget);
+		}
+		EditBusMetrics.Stats stats = EditBusMetrics.get(SlowMessage.class, slow);
+		assertThat(stats.getCount(), is(2L));
+		assertThat(stats.getOverBudgetCount(), is(2L));
+		assertThat(stats.getMax() >= 5000000L, is(true));
+		assertThat(stats.getPlugin(), is(nullValue()));
+		assertThat(EditBusMetrics.getStats().contains(stats), is(true));
+	}
+
+	@Test
+	public void reloadedClassShouldHaveItsOwnStats() throws Exception
+	{
+		Object handler = new SlowHandler();
+		Object reloaded = new ReloadingClassLoader()
+			.reload(SlowHandler.class).newInstance();
+		assertThat(reloaded.getClass().getName(),
+			is(SlowHandler.class.getName()));
+		EditBusMetrics.Stats stats = EditBusMetrics.get(SlowMessage.class, handler);
+		assertThat(EditBusMetrics.get(SlowMessage.class, handler) == stats, is(true));
+		assertThat(EditBusMetrics.get(SlowMessage.class, reloaded) == stats, is(false));
+	}
+
+	private static class ReloadingClassLoader extends ClassLoader
+	{
+		ReloadingClassLoader()
+		{
+			super(EditBusMetricsTest.class.getClassLoader());
+		}
+
+		Class<?> reload(Class<?> clazz) throws IOException
+		{
+			String name = clazz.getName();
+			InputStream in = clazz.getResourceAsStream(
+				name.substring(name.lastIndexOf('.') + 1) + ".class");
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try
+			{
+				byte[] buf = new byte[4096];
+				int n;
+				while ((n = in.read(buf)) != -1)
+					out.write(buf, 0, n);
+			}
+			finally
+			{
+				in.close();
+			}
+			byte[] bytes = out.toByteArray();
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+	private static class SlowMessage extends EBMessage
+	{
+		SlowMessage(Object source)
+		{
+			super(source);
+		}
+	}
+
+	public static class SlowHandler
+	{
+		@EditBus.EBHandler
+		public void handleSlowMessage(SlowMessage message)
+			throws InterruptedException
+		{
+			Thread.sleep(5L);
+		}
+	}
+}
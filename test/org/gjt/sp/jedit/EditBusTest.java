@@ -0,0 +1,238 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class EditBusTest
+{
+	@Test
+	public void handlersShouldReceiveTheMessageTypesTheyExpect()
+	{
+		Receiver receiver = new Receiver();
+		EditBus.addToBus(receiver);
+		try
+		{
+			EditBus.send(new Sub(this));
+			assertThat(receiver.received, is(equalTo(Arrays.asList(
+				"sub", "base", "any"))));
+
+			receiver.received.clear();
+			EditBus.send(new Base(this));
+			// the handlers of one type are called in no given order
+			Collections.sort(receiver.received);
+			assertThat(receiver.received, is(equalTo(Arrays.asList(
+				"any", "base", "base exact"))));
+
+			receiver.received.clear();
+			EditBus.send(new Other(this));
+			assertThat(receiver.received, is(equalTo(Arrays.asList(
+				"any"))));
+		}
+		finally
+		{
+			EditBus.removeFromBus(receiver);
+		}
+		receiver.received.clear();
+		EditBus.send(new Sub(this));
+		assertThat(receiver.received.isEmpty(), is(true));
+	}
+
+	@Test
+	public void componentsAddedWhileSendingShouldGetTheNextMessage()
+	{
+		final Receiver late = new Receiver();
+		Object adder = new Object()
+		{
+			@EditBus.EBHandler
+			public void handleBase(Base message)
+			{
+				EditBus.addToBus(late);
+			}
+		};
+		EditBus.addToBus(adder);
+		try
+		{
+			EditBus.send(new Base(this));
+			assertThat(late.received.isEmpty(), is(true));
+			EditBus.removeFromBus(adder);
+			EditBus.send(new Base(this));
+			Collections.sort(late.received);
+			assertThat(late.received, is(equalTo(Arrays.asList(
+				"any", "base", "base exact"))));
+		}
+		finally
+		{
+			EditBus.removeFromBus(adder);
+			EditBus.removeFromBus(late);
+		}
+	}
+
+	@Test
+	public void threadSafeHandlersShouldGetTheMessagesInOrder()
+		throws InterruptedException
+	{
+		final int count = 100;
+		final CountDownLatch done = new CountDownLatch(count);
+		final List<Integer> received = Collections.synchronizedList(
+			new ArrayList<Integer>());
+		final List<Boolean> inDispatchThread = Collections.synchronizedList(
+			new ArrayList<Boolean>());
+		Object comp = new Object()
+		{
+			@EditBus.EBHandler(threadSafe = true)
+			public void handleNumber(Number message)
+			{
+				inDispatchThread.add(EventQueue.isDispatchThread());
+				received.add(message.value);
+				done.countDown();
+			}
+		};
+		EditBus.addToBus(comp);
+		try
+		{
+			for (int i = 0; i < count; i++)
+				EditBus.send(new Number(this, i));
+			assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+		}
+		finally
+		{
+			EditBus.removeFromBus(comp);
+		}
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < count; i++)
+			expected.add(i);
+		assertThat(received, is(equalTo(expected)));
+		assertThat(inDispatchThread.contains(true), is(false));
+	}
+
+	@Test
+	public void removedComponentsShouldNotGetQueuedMessages()
+		throws InterruptedException
+	{
+		final CountDownLatch handling = new CountDownLatch(1);
+		final CountDownLatch removed = new CountDownLatch(1);
+		final List<Integer> received = Collections.synchronizedList(
+			new ArrayList<Integer>());
+		Object comp = new Object()
+		{
+			@EditBus.EBHandler(threadSafe = true)
+			public void handleNumber(Number message)
+				throws InterruptedException
+			{
+				received.add(message.value);
+				handling.countDown();
+				removed.await(10, TimeUnit.SECONDS);
+			}
+		};
+		EditBus.addToBus(comp);
+		try
+		{
+			for (int i = 0; i < 10; i++)
+				EditBus.send(new Number(this, i));
+			assertThat(handling.await(10, TimeUnit.SECONDS), is(true));
+		}
+		finally
+		{
+			EditBus.removeFromBus(comp);
+			removed.countDown();
+		}
+		Thread.sleep(200L);
+		assertThat(received, is(equalTo(Arrays.asList(0))));
+	}
+
+	private static class Base extends EBMessage
+	{
+		Base(Object source)
+		{
+			super(source);
+		}
+	}
+
+	private static class Sub extends Base
+	{
+		Sub(Object source)
+		{
+			super(source);
+		}
+	}
+
+	private static class Other extends EBMessage
+	{
+		Other(Object source)
+		{
+			super(source);
+		}
+	}
+
+	private static class Number extends EBMessage
+	{
+		final int value;
+
+		Number(Object source, int value)
+		{
+			super(source);
+			this.value = value;
+		}
+	}
+
+	// not public, so the handlers are not accessible from the bus
+	private static class Receiver implements EBComponent
+	{
+		final List<String> received = new ArrayList<String>();
+
+		@EditBus.EBHandler
+		public void handleSub(Sub message)
+		{
+			received.add("sub");
+		}
+
+		@EditBus.EBHandler
+		public void handleBase(Base message)
+		{
+			received.add("base");
+		}
+
+		@EditBus.EBHandler(exact = true)
+		public void handleBaseExact(Base message)
+		{
+			received.add("base exact");
+		}
+
+		public void handleMessage(EBMessage message)
+		{
+			received.add("any");
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.gjt.sp.jedit.io.FileVFS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PluginSummaryIndexTest
+{
+	private File dir;
+	private File index;
+	private File first;
+	private File second;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		dir = Files.createTempDirectory("summaries").toFile();
+		index = new File(dir, PluginSummaryIndex.FILE_NAME);
+		first = new File(dir, "First.jar");
+		second = new File(dir, "Second.jar");
+		Files.write(first.toPath(), new byte[100]);
+		Files.write(second.toPath(), new byte[200]);
+	}
+
+	@After
+	public void tearDown()
+	{
+		FileVFS.recursiveDelete(dir);
+	}
+
+	@Test
+	public void summariesShouldBeReadBack()
+	{
+		PluginSummaryIndex summaries = new PluginSummaryIndex(index);
+		assertThat(summaries.get(first), is(nullValue()));
+		summaries.put(first, new byte[] { 1, 2, 3 });
+		summaries.put(second, new byte[] { 4 });
+		summaries.save();
+		assertThat(index.exists(), is(true));
+		assertThat(new File(index.getPath() + ".tmp").exists(), is(false));
+
+		summaries = new PluginSummaryIndex(index);
+		assertThat(Arrays.equals(summaries.get(first), new byte[] { 1, 2, 3 }), is(true));
+		assertThat(Arrays.equals(summaries.get(second), new byte[] { 4 }), is(true));
+	}
+
+	@Test
+	public void changedOrRemovedJARsShouldBeIgnored() throws IOException
+	{
+		PluginSummaryIndex summaries = new PluginSummaryIndex(index);
+		summaries.put(first, new byte[] { 1 });
+		summaries.put(second, new byte[] { 2 });
+		summaries.save();
+
+		Files.write(first.toPath(), new byte[101]);
+		second.delete();
+		summaries = new PluginSummaryIndex(index);
+		assertThat(summaries.get(first), is(nullValue()));
+		summaries.save();
+		assertThat(new PluginSummaryIndex(index).size(), is(1));
+	}
+
+	@Test
+	public void damagedSummaryShouldBeDropped() throws IOException
+	{
+		PluginSummaryIndex summaries = new PluginSummaryIndex(index);
+		summaries.put(first, new byte[] { 1, 2, 3 });
+		summaries.put(second, new byte[] { 4, 5, 6 });
+		summaries.save();
+
+		// flip the last byte, in the summary of the second JAR
+		RandomAccessFile file = new RandomAccessFile(index, "rw");
+		try
+		{
+			file.seek(file.length() - 1);
+			file.write(99);
+		}
+		finally
+		{
+			file.close();
+		}
+		summaries = new PluginSummaryIndex(index);
+		assertThat(Arrays.equals(summaries.get(first), new byte[] { 1, 2, 3 }), is(true));
+		assertThat(summaries.get(second), is(nullValue()));
+	}
+
+	@Test
+	public void truncatedOrForeignIndexShouldBeRecovered() throws IOException
+	{
+		PluginSummaryIndex summaries = new PluginSummaryIndex(index);
+		summaries.put(first, new byte[] { 1 });
+		summaries.put(second, new byte[] { 2 });
+		summaries.save();
+
+		byte[] bytes = Files.readAllBytes(index.toPath());
+		Files.write(index.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+		summaries = new PluginSummaryIndex(index);
+		assertThat(summaries.size(), is(1));
+		summaries.save();
+		assertThat(new PluginSummaryIndex(index).size(), is(1));
+
+		Files.write(index.toPath(), "not an index".getBytes("UTF-8"));
+		summaries = new PluginSummaryIndex(index);
+		assertThat(summaries.size(), is(0));
+		summaries.put(first, new byte[] { 1 });
+		summaries.save();
+		assertThat(new PluginSummaryIndex(index).size(), is(1));
+	}
+}
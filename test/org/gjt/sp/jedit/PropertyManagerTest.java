@@ -0,0 +1,133 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class PropertyManagerTest
+{
+	private PropertyManager manager;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		manager = new PropertyManager();
+		manager.loadSystemProps(new StringReader("a=system\nb=system\nc=system\n"
+			+ "size=12\ncolor=#ff0000\nflag=yes\n"
+			+ "font=Monospaced\nfontsize=12\nfontstyle=0\n"));
+		manager.loadLocalizationProps(new StringReader("b=localization\n"));
+	}
+
+	@Test
+	public void lookupOrderShouldBeKept()
+	{
+		Properties first = new Properties();
+		first.setProperty("c", "first plugin");
+		Properties second = new Properties();
+		second.setProperty("c", "second plugin");
+		second.setProperty("d", "second plugin");
+		manager.addPluginProps(first);
+		manager.addPluginProps(second);
+		assertThat(manager.getProperty("a"), is("system"));
+		assertThat(manager.getProperty("b"), is("localization"));
+		assertThat(manager.getProperty("c"), is("first plugin"));
+		assertThat(manager.getProperty("d"), is("second plugin"));
+		assertThat(manager.getProperty("e"), is(nullValue()));
+		assertThat(manager.getProperties().getProperty("c"), is("first plugin"));
+
+		manager.removePluginProps(first);
+		assertThat(manager.getProperty("c"), is("second plugin"));
+		manager.removePluginProps(second);
+		assertThat(manager.getProperty("d"), is(nullValue()));
+	}
+
+	@Test
+	public void changesShouldBeSeen()
+	{
+		assertThat(manager.getProperty("a"), is("system"));
+		manager.setProperty("a", "user");
+		assertThat(manager.getProperty("a"), is("user"));
+		manager.unsetProperty("a");
+		assertThat(manager.getProperty("a"), is(""));
+		manager.resetProperty("a");
+		assertThat(manager.getProperty("a"), is("system"));
+		manager.setProperty("e", "user");
+		manager.unsetProperty("e");
+		assertThat(manager.getProperty("e"), is(nullValue()));
+		manager.setTemporaryProperty("e", "temporary");
+		assertThat(manager.getProperty("e"), is("temporary"));
+	}
+
+	@Test
+	public void typedValuesShouldBeCachedUntilChanged()
+	{
+		assertThat(manager.getIntegerProperty("size", 0), is(12));
+		assertThat(manager.getBooleanProperty("flag", false), is(true));
+		assertThat(manager.getColorProperty("color", null), is(Color.red));
+		Font font = manager.getFontProperty("font", null);
+		assertThat(font, is(new Font("Monospaced", Font.PLAIN, 12)));
+		assertThat(manager.getFontProperty("font", null), is(sameInstance(font)));
+
+		manager.setProperty("size", " 14 ");
+		manager.setProperty("flag", "maybe");
+		manager.setProperty("color", "not a color");
+		manager.setProperty("fontsize", "14");
+		assertThat(manager.getIntegerProperty("size", 0), is(14));
+		assertThat(manager.getBooleanProperty("flag", false), is(false));
+		assertThat(manager.getBooleanProperty("flag", true), is(true));
+		assertThat(manager.getColorProperty("color", Color.blue), is(Color.blue));
+		assertThat(manager.getFontProperty("font", null).getSize(), is(14));
+
+		manager.setProperty("fontstyle", "bold");
+		assertThat(manager.getFontProperty("font", null), is(nullValue()));
+		assertThat(manager.getIntegerProperty("missing", 3), is(3));
+	}
+
+	@Test
+	public void generationShouldChangeWithProperties() throws IOException
+	{
+		long generation = manager.getGeneration();
+		manager.getProperty("a");
+		assertThat(manager.getGeneration(), is(generation));
+		manager.setProperty("a", "user");
+		assertThat(manager.getGeneration(), is(greaterThan(generation)));
+
+		generation = manager.getGeneration();
+		manager.loadPluginLocalizationProps(new StringReader("a=plugin\n"));
+		assertThat(manager.getGeneration(), is(greaterThan(generation)));
+		// the user properties come first
+		assertThat(manager.getProperty("a"), is("user"));
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class StartupSchedulerTest
+{
+	private final List<String> ran = new ArrayList<String>();
+
+	@Test
+	public void tasksShouldRunAfterTheirDependencies()
+	{
+		add("a", "c");
+		add("b");
+		add("c", "b", "never added");
+		add("d", "a");
+		StartupScheduler.runNow("d");
+		assertThat(ran, is(equalTo(Arrays.asList("b", "c", "a", "d"))));
+
+		// each task runs once
+		add("e", "d");
+		StartupScheduler.runAll();
+		StartupScheduler.runNow("a");
+		assertThat(ran, is(equalTo(Arrays.asList("b", "c", "a", "d", "e"))));
+	}
+
+	@Test
+	public void cycleShouldNotRunForever()
+	{
+		add("x", "y");
+		add("y", "x");
+		StartupScheduler.runAll();
+		assertThat(ran, is(equalTo(Arrays.asList("y", "x"))));
+	}
+
+	@Test
+	public void threadsShouldWaitForATaskRunningElsewhere()
+		throws InterruptedException
+	{
+		final AtomicInteger runs = new AtomicInteger();
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		StartupScheduler.add("slow", new Runnable()
+		{
+			public void run()
+			{
+				runs.incrementAndGet();
+				started.countDown();
+				try
+				{
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, Collections.<String>emptyList());
+
+		Thread first = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				StartupScheduler.runNow("slow");
+			}
+		};
+		first.start();
+		assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+
+		final AtomicBoolean waited = new AtomicBoolean();
+		Thread second = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				StartupScheduler.runNow("slow");
+				// returns once the task is done
+				waited.set(release.getCount() == 0);
+			}
+		};
+		second.start();
+		for (int i = 0; i < 100; i++)
+			StartupScheduler.pluginStarted("Plugin" + i, i);
+		Thread.sleep(100L);
+		release.countDown();
+		first.join(10000L);
+		second.join(10000L);
+		assertThat(runs.get(), is(1));
+		assertThat(waited.get(), is(true));
+	}
+
+	private void add(final String name, String... after)
+	{
+		StartupScheduler.add(name, new Runnable()
+		{
+			public void run()
+			{
+				ran.add(name);
+			}
+		}, after.length == 0 ? Collections.<String>emptyList() : Arrays.asList(after));
+	}
+}
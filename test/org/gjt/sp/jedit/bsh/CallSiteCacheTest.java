@@ -0,0 +1,59 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.bsh;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class CallSiteCacheTest
+{
+	@Test
+	public void callSiteShouldFollowArgumentAndTargetTypes() throws EvalError
+	{
+		Interpreter interp = new Interpreter();
+		interp.eval("values = new Object[] { new Integer(1), \"s\", new Character('c'), new StringBuilder(\"b\") };"
+			+ "result = new StringBuilder();"
+			+ "for (int i = 0; i < 8; i++) {"
+			+ "  v = values[i % 4];"
+			+ "  result.append(String.valueOf(v)).append(v.toString().length());"
+			+ "}"
+			+ "result = result.toString();");
+		assertThat(interp.get("result"), is((Object)"11s1c1b111s1c1b1"));
+	}
+
+	@Test
+	public void callSiteShouldBeDroppedWithTheClassManagerCaches() throws EvalError
+	{
+		Interpreter interp = new Interpreter();
+		BshClassManager bcm = interp.getClassManager();
+		interp.eval("f() { return Math.max(1, 2) + \"x\".length(); }");
+		assertThat(interp.eval("f()"), is(equalTo((Object)3)));
+		int generation = bcm.getGeneration();
+		bcm.reset();
+		assertThat(bcm.getGeneration(), is(greaterThan(generation)));
+		assertThat(interp.eval("f()"), is(equalTo((Object)3)));
+	}
+}
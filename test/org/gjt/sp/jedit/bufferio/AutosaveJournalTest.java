@@ -0,0 +1,343 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.bufferio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.gjt.sp.jedit.buffer.JEditBuffer;
+import org.gjt.sp.jedit.buffer.KillRing;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class AutosaveJournalTest
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final String ALPHABET = "abc xyz\n\té€";
+
+	private File dir;
+	private File snapshot;
+
+	@BeforeClass
+	public static void setUpKillRing()
+	{
+		// removals are added to the kill ring
+		KillRing.getInstance().propertiesChanged(10);
+	}
+
+	@Before
+	public void setUp() throws IOException
+	{
+		dir = Files.createTempDirectory("journal").toFile();
+		snapshot = new File(dir, "#test.txt#");
+	}
+
+	@After
+	public void tearDown()
+	{
+		for (File file : dir.listFiles())
+			file.delete();
+		dir.delete();
+	}
+
+	@Test
+	public void replayShouldRestoreEdits() throws IOException
+	{
+		JEditBuffer buffer = bufferWith("hello\nworld\n");
+		AutosaveJournal journal = new AutosaveJournal(snapshot);
+		buffer.addBufferListener(journal);
+		writeSnapshot(journal, buffer);
+
+		buffer.insert(5, ", dear");
+		buffer.remove(0, 1);
+		buffer.insert(0, "H");
+		assertThat(journal.append(), is(true));
+
+		JEditBuffer recovered = recover();
+		assertThat(recovered.getText(0, recovered.getLength()), is(equalTo("Hello, dear\nworld\n")));
+	}
+
+	@Test
+	public void journalShouldAskForSnapshotFirst() throws IOException
+	{
+		JEditBuffer buffer = bufferWith("text");
+		AutosaveJournal journal = new AutosaveJournal(snapshot);
+		buffer.addBufferListener(journal);
+		buffer.insert(0, "more ");
+		assertThat(journal.append(), is(false));
+		writeSnapshot(journal, buffer);
+		assertThat(journal.append(), is(true));
+	}
+
+	/**
+	 * Simulates a crash at every byte of the journal: replay must always
+	 * give the state after the last complete record.
+	 */
+	@Test
+	public void tornJournalShouldReplayCompleteRecords() throws IOException
+	{
+		Random random = new Random(42L);
+		JEditBuffer buffer = bufferWith("initial\ncontent\n");
+		AutosaveJournal journal = new AutosaveJournal(snapshot);
+		buffer.addBufferListener(journal);
+		writeSnapshot(journal, buffer);
+		String base = text(buffer);
+
+		File journalFile = AutosaveJournal.getJournalFile(snapshot);
+		long header = journalFile.length();
+		List<String> states = new ArrayList<String>();
+		List<Long> ends = new ArrayList<Long>();
+		for (int i = 0; i < 15; i++)
+		{
+			randomEdit(buffer, random);
+			assertThat(journal.append(), is(true));
+			states.add(text(buffer));
+			ends.add(journalFile.length());
+		}
+
+		byte[] bytes = Files.readAllBytes(journalFile.toPath());
+		for (int n = 0; n <= bytes.length; n++)
+		{
+			Files.write(journalFile.toPath(), Arrays.copyOf(bytes, n));
+			JEditBuffer recovered = bufferWith(base);
+			int count = AutosaveJournal.replay(snapshot, recovered);
+			if (n < header)
+			{
+				assertThat(count, is(-1));
+				assertThat(text(recovered), is(equalTo(base)));
+				continue;
+			}
+			int complete = 0;
+			while (complete < ends.size() && ends.get(complete) <= n)
+				complete++;
+			assertThat(count, is(complete));
+			assertThat(text(recovered), is(equalTo(
+				complete == 0 ? base : states.get(complete - 1))));
+		}
+	}
+
+	@Test
+	public void corruptRecordShouldStopReplay() throws IOException
+	{
+		Random random = new Random(7L);
+		JEditBuffer buffer = bufferWith("0123456789\n");
+		AutosaveJournal journal = new AutosaveJournal(snapshot);
+		buffer.addBufferListener(journal);
+		writeSnapshot(journal, buffer);
+
+		File journalFile = AutosaveJournal.getJournalFile(snapshot);
+		List<String> states = new ArrayList<String>();
+		List<Long> ends = new ArrayList<Long>();
+		for (int i = 0; i < 5; i++)
+		{
+			randomEdit(buffer, random);
+			journal.append();
+			states.add(text(buffer));
+			ends.add(journalFile.length());
+		}
+
+		// garbage written in the middle of the third record
+		RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+		try
+		{
+			file.seek((ends.get(1) + ends.get(2)) / 2);
+			int b = file.read();
+			file.seek((ends.get(1) + ends.get(2)) / 2);
+			file.write(b ^ 0x5a);
+		}
+		finally
+		{
+			file.close();
+		}
+
+		JEditBuffer recovered = recover();
+		assertThat(text(recovered), is(equalTo(states.get(1))));
+	}
+
+	/**
+	 * A crash right after a new snapshot replaced the old one, before the
+	 * journal was started again, leaves a journal of the old snapshot.
+	 */
+	@Test
+	public void journalOfOlderSnapshotShouldBeIgnored() throws IOException
+	{
+		JEditBuffer buffer = bufferWith("first\n");
+		AutosaveJournal journal = new AutosaveJournal(snapshot);
+		buffer.addBufferListener(journal);
+		writeSnapshot(journal, buffer);
+		buffer.insert(0, "edit ");
+		journal.append();
+
+		// same length, different content
+		Files.write(snapshot.toPath(), "edit first\n".getBytes(UTF8));
+		buffer.remove(0, 5);
+		journal.append();
+
+		JEditBuffer recovered = bufferWith("edit first\n");
+		assertThat(AutosaveJournal.replay(snapshot, recovered), is(-1));
+		assertThat(text(recovered), is(equalTo("edit first\n")));
+	}
+
+	/**
+	 * Kills a process that keeps editing and autosaving, and checks that
+	 * what is on disk recovers to one of the states it went through.
+	 */
+	@Test
+	public void killedWriterShouldLeaveRecoverableJournal() throws Exception
+	{
+		long seed = 1234L;
+		String java = System.getProperty("java.home") + File.separator + "bin"
+			+ File.separator + "java";
+		Process process = new ProcessBuilder(java, "-Djava.awt.headless=true",
+			"-cp", System.getProperty("java.class.path"),
+			AutosaveJournalTest.class.getName(), snapshot.getPath(),
+			String.valueOf(seed)).redirectErrorStream(true).start();
+		File journalFile = AutosaveJournal.getJournalFile(snapshot);
+		try
+		{
+			long deadline = System.currentTimeMillis() + 20000L;
+			while (journalFile.length() == 0L
+				&& System.currentTimeMillis() < deadline)
+			{
+				Thread.sleep(20L);
+			}
+			Thread.sleep(700L);
+			assertThat(isRunning(process), is(true));
+		}
+		finally
+		{
+			process.destroy();
+			process.waitFor();
+		}
+		assertThat(snapshot.exists(), is(true));
+
+		JEditBuffer recovered = recover();
+		String expected = text(recovered);
+
+		JEditBuffer replica = bufferWith("");
+		Random random = new Random(seed);
+		boolean found = expected.isEmpty();
+		for (int i = 0; i < 1000000 && !found; i++)
+		{
+			randomEdit(replica, random);
+			found = replica.getLength() == expected.length()
+				&& text(replica).equals(expected);
+		}
+		assertThat(found, is(true));
+	}
+
+	/**
+	 * The process killed by
+	 * {@link #killedWriterShouldLeaveRecoverableJournal()}.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		setUpKillRing();
+		File snapshot = new File(args[0]);
+		Random random = new Random(Long.parseLong(args[1]));
+		JEditBuffer buffer = bufferWith("");
+		AutosaveJournal journal = new AutosaveJournal(snapshot);
+		buffer.addBufferListener(journal);
+		for (int i = 0; i < 1000000; i++)
+		{
+			randomEdit(buffer, random);
+			if (i % 3 == 0 && !journal.append())
+				writeSnapshot(journal, buffer);
+		}
+	}
+
+	private static boolean isRunning(Process process)
+	{
+		try
+		{
+			process.exitValue();
+			return false;
+		}
+		catch (IllegalThreadStateException e)
+		{
+			return true;
+		}
+	}
+
+	private JEditBuffer recover() throws IOException
+	{
+		String base = new String(Files.readAllBytes(snapshot.toPath()), UTF8);
+		JEditBuffer recovered = bufferWith(base);
+		AutosaveJournal.replay(snapshot, recovered);
+		return recovered;
+	}
+
+	private static void writeSnapshot(AutosaveJournal journal, JEditBuffer buffer)
+		throws IOException
+	{
+		byte[] bytes = text(buffer).getBytes(UTF8);
+		File temp = journal.getSnapshotTempFile();
+		Files.write(temp.toPath(), bytes);
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		journal.commitSnapshot(temp, crc.getValue(), buffer.getLength());
+	}
+
+	private static void randomEdit(JEditBuffer buffer, Random random)
+	{
+		int length = buffer.getLength();
+		if (length > 2000 || (length > 0 && random.nextInt(3) == 0))
+		{
+			int offset = random.nextInt(length);
+			buffer.remove(offset, 1 + random.nextInt(Math.min(100, length - offset)));
+		}
+		else
+		{
+			StringBuilder text = new StringBuilder();
+			int count = 1 + random.nextInt(200);
+			for (int i = 0; i < count; i++)
+				text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			buffer.insert(random.nextInt(length + 1), text.toString());
+		}
+	}
+
+	private static JEditBuffer bufferWith(String text)
+	{
+		JEditBuffer buffer = new JEditBuffer();
+		buffer.insert(0, text);
+		return buffer;
+	}
+
+	private static String text(JEditBuffer buffer)
+	{
+		return buffer.getText(0, buffer.getLength());
+	}
+}
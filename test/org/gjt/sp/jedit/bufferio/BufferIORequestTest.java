@@ -0,0 +1,275 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.bufferio;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.UnmappableCharacterException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.gjt.sp.jedit.buffer.JEditBuffer;
+import org.gjt.sp.jedit.io.CharsetEncoding;
+import org.gjt.sp.jedit.io.Encoding;
+import org.gjt.sp.jedit.io.EncodingWithBOM;
+import org.gjt.sp.util.ProgressObserver;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class BufferIORequestTest
+{
+	/** More than two chunks of the bulk save path. */
+	private static final int LENGTH = BufferIORequest.IOBUFSIZE * 5;
+	private static final String PAIR = "😀";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	@Test
+	public void separatorsShouldBeConverted() throws Exception
+	{
+		String text = lines(LENGTH);
+		for (String newline : new String[] { "\n", "\r\n", "\r" })
+		{
+			for (boolean trailingEOL : new boolean[] { false, true })
+			{
+				byte[] bytes = writeBulk(text, new CharsetEncoding("UTF-8"),
+					newline, trailingEOL);
+				assertThat(Arrays.equals(bytes, writeLines(text,
+					new CharsetEncoding("UTF-8"), newline, trailingEOL)),
+					is(true));
+				String expected = text.replace("\n", newline)
+					+ (trailingEOL ? newline : "");
+				assertThat(new String(bytes, UTF8), is(equalTo(expected)));
+			}
+		}
+	}
+
+	@Test
+	public void surrogatePairsShouldNotBeSplitBetweenChunks() throws Exception
+	{
+		// chunks are IOBUFSIZE * 2 characters long
+		StringBuilder text = new StringBuilder(lines(LENGTH));
+		for (int end = BufferIORequest.IOBUFSIZE * 2; end < LENGTH;
+			end += BufferIORequest.IOBUFSIZE * 2)
+		{
+			text.replace(end - 1, end + 1, PAIR);
+		}
+		for (String encodingName : new String[] { "UTF-8", "UTF-16LE" })
+		{
+			for (String newline : new String[] { "\n", "\r\n" })
+			{
+				Encoding encoding = new CharsetEncoding(encodingName);
+				byte[] bytes = writeBulk(text.toString(), encoding,
+					newline, false);
+				assertThat(read(bytes, encoding), is(equalTo(
+					text.toString().replace("\n", newline))));
+			}
+		}
+	}
+
+	@Test
+	public void byteOrderMarkShouldBeWritten() throws Exception
+	{
+		String text = lines(LENGTH) + PAIR;
+		for (String encodingName : new String[] { "UTF-8", "UTF-16BE",
+			"UTF-32LE" })
+		{
+			EncodingWithBOM encoding = new EncodingWithBOM(encodingName);
+			byte[] bytes = writeBulk(text, encoding, "\r\n", true);
+			byte[] bom = encoding.getByteOrderMark();
+			assertThat(Arrays.equals(Arrays.copyOf(bytes, bom.length), bom),
+				is(true));
+			assertThat(Arrays.equals(bytes, writeLines(text, encoding,
+				"\r\n", true)), is(true));
+			// the reader of the encoding checks the mark
+			assertThat(read(bytes, encoding), is(equalTo(
+				text.replace("\n", "\r\n") + "\r\n")));
+		}
+	}
+
+	@Test
+	public void fileChannelShouldGiveTheSameBytes() throws Exception
+	{
+		String text = lines(LENGTH) + PAIR;
+		Encoding encoding = new EncodingWithBOM("UTF-8");
+		File file = File.createTempFile("bulk", ".txt");
+		try
+		{
+			FileOutputStream out = new FileOutputStream(file);
+			try
+			{
+				write(bufferWith(text), out, encoding, "\r\n", true);
+			}
+			finally
+			{
+				out.close();
+			}
+			assertThat(Arrays.equals(Files.readAllBytes(file.toPath()),
+				writeBulk(text, encoding, "\r\n", true)), is(true));
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+
+	@Test
+	public void encodingErrorShouldGiveTheBufferOffset() throws Exception
+	{
+		Encoding latin1 = new CharsetEncoding("ISO-8859-1");
+		String text = lines(LENGTH);
+		int[] offsets = { 0, 5, BufferIORequest.IOBUFSIZE * 2 - 1,
+			BufferIORequest.IOBUFSIZE * 2, LENGTH - 1 };
+		for (int offset : offsets)
+		{
+			String bad = text.substring(0, offset) + "€"
+				+ text.substring(offset + 1);
+			for (String newline : new String[] { "\n", "\r\n" })
+			{
+				try
+				{
+					writeBulk(bad, latin1, newline, false);
+					throw new AssertionError("no error at " + offset);
+				}
+				catch (BufferIORequest.EncodingErrorException e)
+				{
+					assertThat(e.getOffset(), is(offset));
+					assertThat(e.getCause()
+						instanceof UnmappableCharacterException,
+						is(true));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void unpairedSurrogateShouldBeAnEncodingError() throws Exception
+	{
+		String text = lines(100) + "\uD83D";
+		try
+		{
+			writeBulk(text, new CharsetEncoding("UTF-8"), "\n", true);
+			throw new AssertionError("no error");
+		}
+		catch (BufferIORequest.EncodingErrorException e)
+		{
+			assertThat(e.getOffset(), is(100));
+		}
+	}
+
+	/** Lines of increasing length, some of them empty. */
+	private static String lines(int length)
+	{
+		StringBuilder text = new StringBuilder(length);
+		int line = 0;
+		while (text.length() < length)
+		{
+			for (int i = 0; i < line % 97 && text.length() < length; i++)
+				text.append((char) ('a' + (line + i) % 26));
+			if (text.length() < length)
+				text.append('\n');
+			line++;
+		}
+		return text.toString();
+	}
+
+	private static byte[] writeBulk(String text, Encoding encoding,
+		String newline, boolean trailingEOL) throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(bufferWith(text), out, encoding, newline, trailingEOL);
+		return out.toByteArray();
+	}
+
+	private static void write(JEditBuffer buffer, OutputStream out,
+		Encoding encoding, String newline, boolean trailingEOL)
+		throws Exception
+	{
+		Charset charset;
+		byte[] bom = null;
+		if (encoding instanceof EncodingWithBOM)
+		{
+			charset = ((EncodingWithBOM) encoding).getCharset();
+			bom = ((EncodingWithBOM) encoding).getByteOrderMark();
+		}
+		else
+			charset = ((CharsetEncoding) encoding).getCharset();
+		BufferIORequest.writeBulk(buffer, out, charset, bom, newline,
+			trailingEOL, new NullProgress());
+	}
+
+	/** What the line based save path writes. */
+	private static byte[] writeLines(String text, Encoding encoding,
+		String newline, boolean trailingEOL) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Writer writer = encoding.getTextWriter(out);
+		writer.write(text.replace("\n", newline));
+		if (trailingEOL)
+			writer.write(newline);
+		writer.close();
+		return out.toByteArray();
+	}
+
+	private static String read(byte[] bytes, Encoding encoding)
+		throws IOException
+	{
+		Reader reader = encoding.getTextReader(new ByteArrayInputStream(bytes));
+		StringBuilder text = new StringBuilder();
+		char[] chars = new char[4096];
+		int count;
+		while ((count = reader.read(chars)) != -1)
+			text.append(chars, 0, count);
+		return text.toString();
+	}
+
+	private static JEditBuffer bufferWith(String text)
+	{
+		JEditBuffer buffer = new JEditBuffer();
+		buffer.insert(0, text);
+		return buffer;
+	}
+
+	private static class NullProgress implements ProgressObserver
+	{
+		public void setValue(long value)
+		{
+		}
+
+		public void setMaximum(long value)
+		{
+		}
+
+		public void setStatus(String status)
+		{
+		}
+	}
+}
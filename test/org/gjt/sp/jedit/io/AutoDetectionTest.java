@@ -0,0 +1,131 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.gjt.sp.jedit.bufferio.BufferIORequest;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class AutoDetectionTest
+{
+	@Test
+	public void sampleShouldBeBoundedAndRewound() throws IOException
+	{
+		byte[] contents = new byte[BufferIORequest.getByteIOBufferSize() * 3];
+		for (int i = 0; i < contents.length; i++)
+			contents[i] = (byte) i;
+		BufferedInputStream marked = AutoDetection.getMarkedStream(
+			new ByteArrayInputStream(contents));
+		byte[] sample = AutoDetection.readSample(marked);
+		assertThat(sample.length, is(BufferIORequest.getByteIOBufferSize()));
+		assertThat(Arrays.equals(sample, Arrays.copyOf(contents, sample.length)), is(true));
+		assertThat(marked.read(), is(0));
+		assertThat(marked.read(), is(1));
+	}
+
+	@Test
+	public void shortStreamShouldBeSampledWhole() throws IOException
+	{
+		byte[] sample = AutoDetection.readSample(AutoDetection.getMarkedStream(
+			new ByteArrayInputStream("abc".getBytes("UTF-8"))));
+		assertThat(new String(sample, "UTF-8"), is("abc"));
+	}
+
+	@Test
+	public void detectorsShouldShareTheSample() throws IOException
+	{
+		byte[] sample = "<?xml version=\"1.0\" encoding=\"ISO-8859-15\"?>\n<a/>"
+			.getBytes("UTF-8");
+		final List<Integer> seen = new ArrayList<Integer>();
+		EncodingDetector counting = new EncodingDetector()
+		{
+			public String detectEncoding(InputStream sample) throws IOException
+			{
+				int n = 0;
+				while (sample.read() != -1)
+					n++;
+				seen.add(n);
+				return null;
+			}
+		};
+		List<EncodingDetector> detectors = Arrays.asList(counting,
+			new XMLEncodingDetector(), counting, new XMLEncodingDetector());
+		List<String> encodings = AutoDetection.getDetectedEncodings(sample,
+			detectors, true);
+		assertThat(encodings, is(equalTo(Collections.singletonList("ISO-8859-15"))));
+		assertThat(seen, is(equalTo(Arrays.asList(sample.length, sample.length))));
+	}
+
+	@Test
+	public void detectionShouldStopAtTheFirstEncodingFound() throws IOException
+	{
+		byte[] sample = "<?xml version=\"1.0\" encoding=\"ISO-8859-15\"?>\n<a/>"
+			.getBytes("UTF-8");
+		final List<Integer> seen = new ArrayList<Integer>();
+		EncodingDetector counting = new EncodingDetector()
+		{
+			public String detectEncoding(InputStream sample) throws IOException
+			{
+				seen.add(sample.available());
+				return null;
+			}
+		};
+		List<EncodingDetector> detectors = Arrays.asList(counting,
+			new XMLEncodingDetector(), counting);
+		List<String> encodings = AutoDetection.getDetectedEncodings(sample,
+			detectors, false);
+		assertThat(encodings, is(equalTo(Collections.singletonList("ISO-8859-15"))));
+		assertThat(seen, is(equalTo(Collections.singletonList(sample.length))));
+	}
+
+	@Test
+	public void summaryShouldBeCachedByLengthAndDate()
+	{
+		AutoDetection.Summary summary = new AutoDetection.Summary(false,
+			Collections.singletonList("UTF-8"), null, false);
+		AutoDetection.cacheSummary("/tmp/cached.txt", 10L, 1000L, summary);
+		assertThat(AutoDetection.getCachedSummary("/tmp/cached.txt", 10L, 1000L),
+			is(summary));
+		assertThat(AutoDetection.getCachedSummary("/tmp/cached.txt", 11L, 1000L),
+			is(nullValue()));
+		assertThat(AutoDetection.getCachedSummary("/tmp/cached.txt", 10L, 2000L),
+			is(nullValue()));
+
+		// unknown date, the changes could not be seen
+		AutoDetection.cacheSummary("/tmp/undated.txt", 10L, 0L, summary);
+		assertThat(AutoDetection.getCachedSummary("/tmp/undated.txt", 10L, 0L),
+			is(nullValue()));
+	}
+}
@@ -0,0 +1,194 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ByteClassifierTest
+{
+	@Test
+	public void asciiShouldNotBeGuessed() throws IOException
+	{
+		ByteClassifier c = ByteClassifier.classify(bytes("plain\ttext\r\nwith an \u001b[0m escape\f", "US-ASCII"));
+		assertThat(c.isASCII(), is(true));
+		assertThat(c.isValidUTF8(), is(true));
+		assertThat(c.getControlCount(), is(0));
+		assertThat(c.getGuessedEncoding(), is(nullValue()));
+		assertThat(c.isBinary(100, 1), is(false));
+	}
+
+	@Test
+	public void utf8ShouldBeValidated() throws IOException
+	{
+		String text = "prénom, €, 日本語, 😀 and more ASCII text";
+		ByteClassifier c = ByteClassifier.classify(bytes(text, "UTF-8"));
+		assertThat(c.isASCII(), is(false));
+		assertThat(c.isValidUTF8(), is(true));
+		assertThat(c.getGuessedEncoding(), is("UTF-8"));
+
+		c = ByteClassifier.classify(bytes(text, "ISO-8859-1"));
+		assertThat(c.isValidUTF8(), is(false));
+		assertThat(c.getGuessedEncoding(), is("ISO-8859-1"));
+	}
+
+	@Test
+	public void malformedUTF8ShouldBeRejected()
+	{
+		// overlong, surrogate, above U+10FFFF, lone continuation
+		int[][] malformed = { { 0xC0, 0xAF }, { 0xE0, 0x80, 0xAF },
+			{ 0xED, 0xA0, 0x80 }, { 0xF4, 0x90, 0x80, 0x80 },
+			{ 0x80 }, { 0xC3, 'a' } };
+		for (int[] sequence : malformed)
+		{
+			byte[] sample = new byte[20];
+			for (int i = 0; i < sample.length; i++)
+				sample[i] = 'x';
+			for (int i = 0; i < sequence.length; i++)
+				sample[9 + i] = (byte) sequence[i];
+			assertThat(ByteClassifier.classify(sample).isValidUTF8(), is(false));
+		}
+
+		// cut by the end of the sample
+		byte[] cut = { 'a', 'b', (byte) 0xE2, (byte) 0x82 };
+		assertThat(ByteClassifier.classify(cut).isValidUTF8(), is(true));
+	}
+
+	@Test
+	public void utf16WithoutBOMShouldBeText() throws IOException
+	{
+		String text = "Some text in UTF-16, long enough to count bytes.\n";
+		ByteClassifier le = ByteClassifier.classify(bytes(text, "UTF-16LE"));
+		assertThat(le.getGuessedEncoding(), is("UTF-16LE"));
+		assertThat(le.isBinary(100, 1), is(false));
+		ByteClassifier be = ByteClassifier.classify(bytes(text, "UTF-16BE"));
+		assertThat(be.getGuessedEncoding(), is("UTF-16BE"));
+		assertThat(be.isBinary(100, 1), is(false));
+
+		// odd offset of the range
+		byte[] shifted = new byte[97];
+		System.arraycopy(bytes(text, "UTF-16LE"), 0, shifted, 1, 96);
+		assertThat(ByteClassifier.classify(shifted, 1, 96).getGuessedEncoding(),
+			is("UTF-16LE"));
+	}
+
+	@Test
+	public void byteOrderMarkShouldBeFound()
+	{
+		byte[] utf8 = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF, 'a' };
+		assertThat(ByteClassifier.classify(utf8).getBOMEncoding(), is("UTF-8Y"));
+		byte[] utf16 = { (byte) 0xFF, (byte) 0xFE, 'a', 0 };
+		assertThat(ByteClassifier.classify(utf16).getGuessedEncoding(), is("x-UTF-16LE-BOM"));
+	}
+
+	@Test
+	public void binaryDataShouldBeFound()
+	{
+		byte[] zip = { 'P', 'K', 3, 4, 20, 0, 0, 0, 8, 0, 'x', 'y', 'z', 1, 2, 3, 4, 5 };
+		ByteClassifier c = ByteClassifier.classify(zip);
+		assertThat(c.getNulCount(), is(4));
+		assertThat(c.isBinary(100, 1), is(true));
+		assertThat(c.isBinary(100, 5), is(true)); // control bytes
+		assertThat(c.getGuessedEncoding(), is(nullValue()));
+
+		// NUL after the checked length, few control bytes
+		byte[] late = new byte[200];
+		for (int i = 0; i < late.length; i++)
+			late[i] = 'a';
+		late[150] = 0;
+		assertThat(ByteClassifier.classify(late).isBinary(100, 1), is(false));
+		assertThat(ByteClassifier.classify(late).isBinary(200, 1), is(true));
+	}
+
+	@Test
+	public void fewControlBytesShouldBeText()
+	{
+		byte[][] text = { { 7 }, { 'a', 8 }, { 'a', 'b', 'c', 1, 2, 3 } };
+		for (byte[] sample : text)
+		{
+			ByteClassifier c = ByteClassifier.classify(sample);
+			assertThat(c.getControlCount() > 0, is(true));
+			assertThat(c.isBinary(100, 1), is(false));
+		}
+
+		byte[] controls = { 1, 2, 3, 4 };
+		assertThat(ByteClassifier.classify(controls).isBinary(100, 1), is(true));
+		byte[] sparse = new byte[40];
+		for (int i = 0; i < sparse.length; i++)
+			sparse[i] = (byte) (i % 10 == 0 ? 1 : 'a');
+		assertThat(ByteClassifier.classify(sparse).isBinary(100, 1), is(false));
+	}
+
+	@Test
+	public void wordsShouldMatchBytes()
+	{
+		Random random = new Random(7L);
+		for (int n = 0; n < 2000; n++)
+		{
+			byte[] sample = new byte[random.nextInt(40)];
+			for (int i = 0; i < sample.length; i++)
+			{
+				int r = random.nextInt(10);
+				sample[i] = (byte) (r == 0 ? random.nextInt(0x20)
+					: r == 1 ? 0x80 + random.nextInt(0x80) : 'a');
+			}
+			ByteClassifier c = ByteClassifier.classify(sample);
+			int nuls = 0;
+			int controls = 0;
+			for (byte b : sample)
+			{
+				if (b == 0)
+					nuls++;
+				else if (b > 0 && b < 0x20 && b != 9 && b != 10
+					&& b != 12 && b != 13 && b != 0x1B)
+					controls++;
+			}
+			assertThat(c.getNulCount(), is(nuls));
+			assertThat(c.getControlCount(), is(controls));
+			assertThat(c.isValidUTF8(), is(isUTF8(sample)));
+		}
+	}
+
+	private static byte[] bytes(String text, String encoding) throws IOException
+	{
+		return text.getBytes(encoding);
+	}
+
+	private static boolean isUTF8(byte[] sample)
+	{
+		// not the end of input: trailing cut sequences are accepted
+		// as they are by the classifier
+		CoderResult result = Charset.forName("UTF-8").newDecoder().decode(
+			ByteBuffer.wrap(sample), CharBuffer.allocate(sample.length), false);
+		return !result.isError();
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+import java.awt.Component;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CachingVFSTest
+{
+	@Test
+	public void listingShouldBeCached() throws IOException
+	{
+		CountingVFS vfs = new CountingVFS();
+		CachingVFS cache = new CachingVFS(vfs, 60000L, 1L << 20);
+		cache._listFiles(null, "remote://host/dir", null);
+		VFSFile[] files = cache._listFiles(null, "remote://host/dir/", null);
+		assertThat(vfs.listings, is(1));
+		assertThat(files.length, is(3));
+	}
+
+	@Test
+	public void entriesShouldExpire() throws Exception
+	{
+		CountingVFS vfs = new CountingVFS();
+		CachingVFS cache = new CachingVFS(vfs, 50L, 1L << 20);
+		cache._getFile(null, "remote://host/dir/a", null);
+		cache._getFile(null, "remote://host/dir/a", null);
+		assertThat(vfs.files, is(1));
+		Thread.sleep(100L);
+		cache._getFile(null, "remote://host/dir/a", null);
+		assertThat(vfs.files, is(2));
+	}
+
+	@Test
+	public void missingFilesShouldBeCached() throws IOException
+	{
+		CountingVFS vfs = new CountingVFS();
+		CachingVFS cache = new CachingVFS(vfs, 60000L, 1L << 20);
+		assertThat(cache._getFile(null, "remote://host/dir/missing", null), is(nullValue()));
+		assertThat(cache._getFile(null, "remote://host/dir/missing", null), is(nullValue()));
+		assertThat(vfs.files, is(1));
+	}
+
+	@Test
+	public void invalidateShouldDropParentAndSubdirectories() throws IOException
+	{
+		CountingVFS vfs = new CountingVFS();
+		CachingVFS cache = new CachingVFS(vfs, 60000L, 1L << 20);
+		cache._listFiles(null, "remote://host/dir", null);
+		cache._listFiles(null, "remote://host/dir/sub", null);
+		cache._listFiles(null, "remote://host/other", null);
+		cache._getFile(null, "remote://host/dir/a", null);
+
+		cache.invalidate("remote://host/dir/a");
+		cache._listFiles(null, "remote://host/dir", null);
+		cache._getFile(null, "remote://host/dir/a", null);
+		cache._listFiles(null, "remote://host/dir/sub", null);
+		assertThat(vfs.listings, is(4));
+		assertThat(vfs.files, is(2));
+
+		cache.invalidate("remote://host/dir");
+		cache._listFiles(null, "remote://host/dir/sub", null);
+		cache._listFiles(null, "remote://host/other", null);
+		assertThat(vfs.listings, is(5));
+	}
+
+	@Test
+	public void invalidateShouldNotDropSiblingsWithTheSamePrefix()
+		throws IOException
+	{
+		CountingVFS vfs = new CountingVFS();
+		CachingVFS cache = new CachingVFS(vfs, 60000L, 1L << 20);
+		cache._listFiles(null, "remote://host/dir/sub", null);
+		cache._listFiles(null, "remote://host/dir2", null);
+		cache._getFile(null, "remote://host/dir2/a", null);
+
+		cache.invalidate("remote://host/dir");
+		cache._listFiles(null, "remote://host/dir2", null);
+		cache._getFile(null, "remote://host/dir2/a", null);
+		assertThat(vfs.listings, is(2));
+		assertThat(vfs.files, is(1));
+	}
+
+	@Test
+	public void changeDuringFetchShouldNotBeCached() throws IOException
+	{
+		final CountingVFS vfs = new CountingVFS();
+		final CachingVFS cache = new CachingVFS(vfs, 60000L, 1L << 20);
+		vfs.whileListing = new Runnable()
+		{
+			public void run()
+			{
+				cache.invalidate("remote://host/dir/new");
+			}
+		};
+		cache._listFiles(null, "remote://host/dir", null);
+		vfs.whileListing = null;
+		cache._listFiles(null, "remote://host/dir", null);
+		cache._listFiles(null, "remote://host/dir", null);
+		assertThat(vfs.listings, is(2));
+
+		vfs.whileGettingFile = new Runnable()
+		{
+			public void run()
+			{
+				cache.invalidate("remote://host/dir");
+			}
+		};
+		cache._getFile(null, "remote://host/dir/a", null);
+		vfs.whileGettingFile = null;
+		cache._getFile(null, "remote://host/dir/a", null);
+		cache._getFile(null, "remote://host/dir/a", null);
+		assertThat(vfs.files, is(2));
+	}
+
+	@Test
+	public void changesThroughCacheShouldInvalidate() throws IOException
+	{
+		CountingVFS vfs = new CountingVFS();
+		CachingVFS cache = new CachingVFS(vfs, 60000L, 1L << 20);
+		cache._listFiles(null, "remote://host/dir", null);
+		cache._delete(null, "remote://host/dir/a", null);
+		cache._listFiles(null, "remote://host/dir", null);
+		assertThat(vfs.listings, is(2));
+	}
+
+	@Test
+	public void sizeShouldBeBounded() throws IOException
+	{
+		CountingVFS vfs = new CountingVFS();
+		CachingVFS cache = new CachingVFS(vfs, 60000L, 4096L);
+		for (int i = 0; i < 100; i++)
+			cache._listFiles(null, "remote://host/dir" + i, null);
+		// the most recent ones are still there, the first ones not
+		cache._listFiles(null, "remote://host/dir99", null);
+		assertThat(vfs.listings, is(100));
+		cache._listFiles(null, "remote://host/dir0", null);
+		assertThat(vfs.listings, is(101));
+	}
+
+	@Test
+	public void stoppedListingShouldNotBeCached() throws IOException
+	{
+		CountingVFS vfs = new CountingVFS();
+		CachingVFS cache = new CachingVFS(vfs, 60000L, 1L << 20);
+		VFS.FileListConsumer stop = new VFS.FileListConsumer()
+		{
+			public boolean filesListed(VFSFile[] files)
+			{
+				return false;
+			}
+		};
+		cache._listFiles(null, "remote://host/dir", null, stop);
+		cache._listFiles(null, "remote://host/dir", null, stop);
+		assertThat(vfs.listings, is(2));
+	}
+
+	/**
+	 * A remote file system whose directories all have the same three
+	 * files.
+	 */
+	private static class CountingVFS extends VFS
+	{
+		int listings;
+		int files;
+		/** Called in the middle of the requests, if not null. */
+		Runnable whileListing;
+		Runnable whileGettingFile;
+
+		CountingVFS()
+		{
+			super("remote", READ_CAP | BROWSE_CAP | DELETE_CAP);
+		}
+
+		@Override
+		public VFSFile[] _listFiles(Object session, String directory,
+			Component comp)
+		{
+			listings++;
+			if (whileListing != null)
+				whileListing.run();
+			return new VFSFile[] { file(directory, "a"),
+				file(directory, "b"), file(directory, "sub") };
+		}
+
+		@Override
+		public VFSFile _getFile(Object session, String path, Component comp)
+		{
+			files++;
+			if (whileGettingFile != null)
+				whileGettingFile.run();
+			return path.endsWith("missing") ? null : file(getParentOfPath(path),
+				getFileName(path));
+		}
+
+		@Override
+		public boolean _delete(Object session, String path, Component comp)
+		{
+			return true;
+		}
+
+		private VFSFile file(String directory, String name)
+		{
+			String path = constructPath(directory, name);
+			return new VFSFile(name, path, path, VFSFile.FILE, 10L, false);
+		}
+	}
+}
@@ -0,0 +1,245 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class FileVFSTest
+{
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		dir = Files.createTempDirectory("listing").toFile();
+		for (int i = 0; i < 1000; i++)
+			Files.write(new File(dir, "file" + i).toPath(), new byte[i]);
+		new File(dir, "subdir").mkdir();
+		new File(dir, ".hidden").createNewFile();
+	}
+
+	@After
+	public void tearDown()
+	{
+		FileVFS.recursiveDelete(dir);
+	}
+
+	@Test
+	public void streamingListingShouldMatchListFiles() throws IOException
+	{
+		FileVFS vfs = new FileVFS();
+		final List<VFSFile> streamed = new ArrayList<VFSFile>();
+		final List<Integer> batches = new ArrayList<Integer>();
+		boolean listed = vfs._listFiles(null, dir.getPath(), null,
+			new VFS.FileListConsumer()
+			{
+				public boolean filesListed(VFSFile[] files)
+				{
+					batches.add(files.length);
+					Collections.addAll(streamed, files);
+					return true;
+				}
+			});
+		assertThat(listed, is(true));
+		assertThat(batches.get(0), is(Math.min(256, streamed.size())));
+
+		VFSFile[] files = vfs._listFiles(null, dir.getPath(), null);
+		assertThat(describe(streamed), is(equalTo(describe(files))));
+	}
+
+	@Test
+	public void brokenLinkShouldBeListedAsFile() throws IOException
+	{
+		File link = new File(dir, "link");
+		try
+		{
+			Files.createSymbolicLink(link.toPath(), new File(dir, "missing").toPath());
+		}
+		catch (UnsupportedOperationException e)
+		{
+			return;
+		}
+		final List<VFSFile> streamed = new ArrayList<VFSFile>();
+		new FileVFS()._listFiles(null, dir.getPath(), null,
+			new VFS.FileListConsumer()
+			{
+				public boolean filesListed(VFSFile[] files)
+				{
+					Collections.addAll(streamed, files);
+					return true;
+				}
+			});
+		boolean found = false;
+		for (VFSFile file : streamed)
+		{
+			if (file.getName().equals("link"))
+			{
+				found = true;
+				assertThat(file.getType(), is(VFSFile.FILE));
+			}
+		}
+		assertThat(found, is(true));
+	}
+
+	@Test
+	public void consumerShouldStopListing() throws IOException
+	{
+		final int[] calls = new int[1];
+		boolean listed = new FileVFS()._listFiles(null, dir.getPath(), null,
+			new VFS.FileListConsumer()
+			{
+				public boolean filesListed(VFSFile[] files)
+				{
+					calls[0]++;
+					return false;
+				}
+			});
+		assertThat(listed, is(true));
+		assertThat(calls[0], is(1));
+	}
+
+	@Test
+	public void recursiveListingShouldSkipIgnoredFiles() throws IOException
+	{
+		File sub = new File(dir, "subdir");
+		for (int i = 0; i < 20; i++)
+		{
+			File d = new File(sub, "d" + i);
+			d.mkdir();
+			new File(d, "a.txt").createNewFile();
+			new File(d, "a.o").createNewFile();
+		}
+		new File(sub, "d3/build").mkdir();
+		new File(sub, "d3/build/b.txt").createNewFile();
+		new File(sub, ".git").mkdir();
+		new File(sub, ".git/config").createNewFile();
+		Files.write(new File(dir, ".gitignore").toPath(), "*.o\nbuild/\nfile1*\n".getBytes("UTF-8"));
+		Files.write(new File(sub, "d5/.gitignore").toPath(), "!a.o\n".getBytes("UTF-8"));
+
+		final List<String> streamed = Collections.synchronizedList(new ArrayList<String>());
+		String[] files = new FileVFS()._listDirectory(null, dir.getPath(),
+			new GlobVFSFileFilter("*"), true, null, false, false, true,
+			new VFS.FileListConsumer()
+			{
+				public boolean filesListed(VFSFile[] files)
+				{
+					for (VFSFile file : files)
+						streamed.add(file.getPath());
+					return true;
+				}
+			});
+
+		List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 1000; i++)
+		{
+			if (!String.valueOf(i).startsWith("1"))
+				expected.add(new File(dir, "file" + i).getPath());
+		}
+		expected.add(new File(dir, ".hidden").getPath());
+		expected.add(new File(dir, ".gitignore").getPath());
+		for (int i = 0; i < 20; i++)
+			expected.add(new File(sub, "d" + i + "/a.txt").getPath());
+		expected.add(new File(sub, "d5/a.o").getPath());
+		expected.add(new File(sub, "d5/.gitignore").getPath());
+		Collections.sort(expected);
+
+		List<String> listed = new ArrayList<String>(Arrays.asList(files));
+		Collections.sort(listed);
+		assertThat(listed, is(equalTo(expected)));
+		Collections.sort(streamed);
+		assertThat(streamed, is(equalTo(expected)));
+
+		// everything, as before
+		files = new FileVFS()._listDirectory(null, dir.getPath(),
+			new GlobVFSFileFilter("*"), true, null, false, false);
+		assertThat(files.length, is(1000 + 2 + 40 + 3));
+	}
+
+	@Test
+	public void streamedFilesShouldBeInTheOrderOfTheListing() throws IOException
+	{
+		File sub = new File(dir, "subdir");
+		String[] names = { "a", "a-c", "A2", "a9", "a10", "b" };
+		for (String name : names)
+		{
+			File d = new File(sub, name);
+			d.mkdir();
+			for (String child : names)
+			{
+				new File(d, child + ".txt").createNewFile();
+				new File(d, child).mkdir();
+				new File(d, child + "/x").createNewFile();
+			}
+			new File(sub, name + ".txt").createNewFile();
+		}
+
+		for (int run = 0; run < 5; run++)
+		{
+			final List<String> streamed = new ArrayList<String>();
+			String[] files = new FileVFS()._listDirectory(null, dir.getPath(),
+				new GlobVFSFileFilter("*"), true, null, false, false, false,
+				new VFS.FileListConsumer()
+				{
+					public boolean filesListed(VFSFile[] files)
+					{
+						for (VFSFile file : files)
+							streamed.add(file.getPath());
+						return true;
+					}
+				});
+			assertThat(files.length, is(1001 + 6 * (1 + 6 * 2)));
+			assertThat(streamed, is(equalTo(Arrays.asList(files))));
+		}
+	}
+
+	private static List<String> describe(List<VFSFile> files)
+	{
+		return describe(files.toArray(new VFSFile[files.size()]));
+	}
+
+	private static List<String> describe(VFSFile[] files)
+	{
+		List<String> list = new ArrayList<String>();
+		for (VFSFile file : files)
+		{
+			list.add(file.getPath() + ' ' + file.getType() + ' '
+				+ file.isHidden() + ' ' + file.getLength() + ' '
+				+ file.getModified());
+		}
+		Collections.sort(list);
+		return list;
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class FileWatcherTest
+{
+	private FileWatcher watcher;
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		watcher = FileWatcher.getInstance();
+		dir = Files.createTempDirectory("watched").toFile();
+		watcher.watch(dir.getPath());
+		watcher.takeChanges();
+	}
+
+	@After
+	public void tearDown()
+	{
+		watcher.unwatch(dir.getPath());
+		for (File file : dir.listFiles())
+			file.delete();
+		dir.delete();
+	}
+
+	@Test
+	public void ownFilesShouldBeIgnored() throws Exception
+	{
+		if (!watcher.isWatched(dir.getPath()))
+			return;
+		watcher.setBackupNames("", "~");
+		touch("#test.txt#");
+		touch("#test.txt#journal#");
+		touch("test.txt~");
+		touch("test.txt~2~");
+		touch("test.txt");
+
+		File file = new File(dir, "test.txt");
+		Set<String> changes = new HashSet<String>();
+		long deadline = System.currentTimeMillis() + 10000L;
+		while (!changes.contains(file.getPath())
+			&& System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(50L);
+			changes.addAll(watcher.takeChanges());
+		}
+		Thread.sleep(300L);
+		changes.addAll(watcher.takeChanges());
+		assertThat(changes.contains(file.getPath()), is(true));
+		assertThat(changes.size(), is(1));
+	}
+
+	@Test
+	public void changesShouldBeBoundedUntilTaken() throws Exception
+	{
+		if (!watcher.isWatched(dir.getPath()))
+			return;
+		int count = 5000;
+		// in small batches, so that the watch service doesn't overflow
+		for (int i = 0; i < count; i++)
+		{
+			touch("file" + i);
+			if (i % 200 == 0)
+				Thread.sleep(50L);
+		}
+		Thread.sleep(1500L);
+
+		Set<String> changes = watcher.takeChanges();
+		assertThat(changes.size() < count, is(true));
+		assertThat(changes.contains(dir.getPath()), is(true));
+	}
+
+	private void touch(String name) throws IOException
+	{
+		Files.write(new File(dir, name).toPath(), new byte[] { 'x' });
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.io;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class IgnoreRulesTest
+{
+	@Test
+	public void namePatternsShouldMatchAtAnyDepth() throws IOException
+	{
+		IgnoreRules rules = rules(null, "/p", "# comment\n\n*.o\nbuild/\n");
+		assertThat(rules.isIgnored("/p/a.o", false), is(true));
+		assertThat(rules.isIgnored("/p/src/deep/a.o", false), is(true));
+		assertThat(rules.isIgnored("/p/a.c", false), is(false));
+		assertThat(rules.isIgnored("/p/src/build", true), is(true));
+		// directory only
+		assertThat(rules.isIgnored("/p/src/build", false), is(false));
+	}
+
+	@Test
+	public void slashShouldAnchorPattern() throws IOException
+	{
+		IgnoreRules rules = rules(null, "/p", "/todo.txt\ndoc/*.html\n");
+		assertThat(rules.isIgnored("/p/todo.txt", false), is(true));
+		assertThat(rules.isIgnored("/p/sub/todo.txt", false), is(false));
+		assertThat(rules.isIgnored("/p/doc/index.html", false), is(true));
+		assertThat(rules.isIgnored("/p/doc/api/index.html", false), is(false));
+		assertThat(rules.isIgnored("/p/sub/doc/index.html", false), is(false));
+	}
+
+	@Test
+	public void doubleStarShouldMatchDirectories() throws IOException
+	{
+		IgnoreRules rules = rules(null, "/p", "**/logs\nout/**\na/**/b\n");
+		assertThat(rules.isIgnored("/p/logs", true), is(true));
+		assertThat(rules.isIgnored("/p/x/y/logs", true), is(true));
+		assertThat(rules.isIgnored("/p/out/x/y", false), is(true));
+		assertThat(rules.isIgnored("/p/out", true), is(false));
+		assertThat(rules.isIgnored("/p/a/b", false), is(true));
+		assertThat(rules.isIgnored("/p/a/x/y/b", false), is(true));
+	}
+
+	@Test
+	public void lastMatchingRuleShouldWin() throws IOException
+	{
+		IgnoreRules rules = rules(null, "/p", "*.log\n!keep.log\n");
+		assertThat(rules.isIgnored("/p/a.log", false), is(true));
+		assertThat(rules.isIgnored("/p/keep.log", false), is(false));
+	}
+
+	@Test
+	public void deeperFileShouldOverride() throws IOException
+	{
+		IgnoreRules top = rules(null, "/p", "*.gen\n*.tmp\n");
+		IgnoreRules sub = rules(top, "/p/sub", "!*.gen\n");
+		assertThat(sub.isIgnored("/p/sub/a.gen", false), is(false));
+		assertThat(sub.isIgnored("/p/sub/a.tmp", false), is(true));
+		assertThat(top.isIgnored("/p/a.gen", false), is(true));
+	}
+
+	@Test
+	public void globSyntaxShouldBeTranslated() throws IOException
+	{
+		IgnoreRules rules = rules(null, "/p", "file?.[ch]\n[!a]x\n\\#hash\nspace\\ \n");
+		assertThat(rules.isIgnored("/p/file1.c", false), is(true));
+		assertThat(rules.isIgnored("/p/file12.c", false), is(false));
+		assertThat(rules.isIgnored("/p/file1.o", false), is(false));
+		assertThat(rules.isIgnored("/p/bx", false), is(true));
+		assertThat(rules.isIgnored("/p/ax", false), is(false));
+		assertThat(rules.isIgnored("/p/#hash", false), is(true));
+		assertThat(rules.isIgnored("/p/space ", false), is(true));
+	}
+
+	@Test
+	public void windowsSeparatorShouldBeSupported() throws IOException
+	{
+		IgnoreRules rules = new IgnoreRules(null, "C:\\p", '\\',
+			new StringReader("doc/*.html\n"));
+		assertThat(rules.isIgnored("C:\\p\\doc\\a.html", false), is(true));
+	}
+
+	private static IgnoreRules rules(IgnoreRules parent, String dir, String text)
+		throws IOException
+	{
+		return new IgnoreRules(parent, dir, '/', new StringReader(text));
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.textarea;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+public class ColumnWidthTreeTest
+{
+	@Test
+	public void maxWidthShouldBeWidestLine()
+	{
+		ColumnWidthTree tree = new ColumnWidthTree(new float[] { 3f, 9f, 4f });
+		assertThat(tree.getMaxWidth(), is(equalTo(9f)));
+		assertThat(tree.getWidth(2), is(equalTo(4f)));
+	}
+
+	@Test
+	public void growingLineShouldChangeMaxWidth()
+	{
+		ColumnWidthTree tree = new ColumnWidthTree(new float[] { 3f, 9f, 4f });
+		assertThat(tree.setWidth(2, 12f), is(true));
+		assertThat(tree.getMaxWidth(), is(equalTo(12f)));
+	}
+
+	@Test
+	public void shrinkingWidestLineShouldChangeMaxWidth()
+	{
+		ColumnWidthTree tree = new ColumnWidthTree(new float[] { 3f, 9f, 4f, 1f, 2f });
+		assertThat(tree.setWidth(1, 1f), is(true));
+		assertThat(tree.getMaxWidth(), is(equalTo(4f)));
+	}
+
+	@Test
+	public void changingNarrowLineShouldKeepMaxWidth()
+	{
+		ColumnWidthTree tree = new ColumnWidthTree(new float[] { 3f, 9f, 4f });
+		assertThat(tree.setWidth(0, 5f), is(false));
+		assertThat(tree.setWidth(2, 9f), is(false));
+		assertThat(tree.getMaxWidth(), is(equalTo(9f)));
+	}
+
+	@Test
+	public void randomEditsShouldMatchFullScan()
+	{
+		Random random = new Random(42L);
+		float[] widths = new float[1000];
+		for (int i = 0; i < widths.length; i++)
+			widths[i] = random.nextInt(100);
+		ColumnWidthTree tree = new ColumnWidthTree(widths);
+		for (int edit = 0; edit < 10000; edit++)
+		{
+			int line = random.nextInt(widths.length);
+			widths[line] = random.nextInt(100);
+			tree.setWidth(line, widths[line]);
+			assertThat(tree.getMaxWidth(), is(equalTo(max(widths))));
+		}
+	}
+
+	private static float max(float[] widths)
+	{
+		float max = 0f;
+		for (float width : widths)
+			max = Math.max(max, width);
+		return max;
+	}
+}
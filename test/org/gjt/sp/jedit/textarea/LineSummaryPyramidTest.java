@@ -0,0 +1,182 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.textarea;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.gjt.sp.jedit.syntax.Token;
+import org.gjt.sp.jedit.syntax.TokenMarker;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class LineSummaryPyramidTest
+{
+	@Test
+	public void rangeShouldKeepLongestLineAndMostFrequentStyle()
+	{
+		LineSummaryPyramid pyramid = new LineSummaryPyramid(4);
+		pyramid.setLine(0, Token.COMMENT1, 10, null);
+		pyramid.setLine(1, Token.KEYWORD1, 3, null);
+		pyramid.setLine(2, Token.KEYWORD1, 40, null);
+		pyramid.setLine(3, Token.NULL, 0, null);
+		pyramid.rebuild();
+		LineSummaryPyramid.Summary summary = new LineSummaryPyramid.Summary();
+		pyramid.summarize(0, 4, summary);
+		assertThat(summary.length, is(equalTo(40)));
+		assertThat(summary.style, is(equalTo(Token.KEYWORD1)));
+		pyramid.summarize(0, 1, summary);
+		assertThat(summary.length, is(equalTo(10)));
+		assertThat(summary.style, is(equalTo(Token.COMMENT1)));
+		pyramid.summarize(3, 4, summary);
+		assertThat(summary.style, is(equalTo(Token.NULL)));
+	}
+
+	@Test
+	public void editsInLargePyramidShouldOnlyTouchTheirLines()
+	{
+		LineSummaryPyramid pyramid = new LineSummaryPyramid(1000000);
+		pyramid.updateLine(999999, Token.KEYWORD1, 7, null);
+		pyramid.linesInserted(500000, 3);
+		pyramid.updateLine(500001, Token.COMMENT1, 99, null);
+		pyramid.linesRemoved(10, 20);
+		assertThat(pyramid.getLineCount(), is(equalTo(999983)));
+		assertThat(pyramid.getStyle(499981), is(equalTo(Token.COMMENT1)));
+		assertThat(pyramid.getLength(999982), is(equalTo(7)));
+		LineSummaryPyramid.Summary summary = new LineSummaryPyramid.Summary();
+		pyramid.summarize(0, pyramid.getLineCount(), summary);
+		assertThat(summary.length, is(equalTo(99)));
+	}
+
+	@Test
+	public void contextsShouldMoveWithTheirLines()
+	{
+		TokenMarker.LineContext context = new TokenMarker.LineContext();
+		LineSummaryPyramid pyramid = new LineSummaryPyramid(200);
+		pyramid.updateLine(150, Token.KEYWORD1, 5, context);
+		pyramid.linesInserted(100, 70);
+		assertThat(pyramid.getContext(220), is(sameInstance(context)));
+		assertThat(pyramid.getContext(150), is(nullValue()));
+		pyramid.linesRemoved(0, 120);
+		assertThat(pyramid.getContext(100), is(sameInstance(context)));
+	}
+
+	@Test
+	public void incrementalEditsShouldMatchFreshPyramid()
+	{
+		Random random = new Random(42L);
+		List<int[]> lines = new ArrayList<int[]>();
+		for (int i = 0; i < 500; i++)
+			lines.add(randomLine(random));
+		LineSummaryPyramid pyramid = build(lines);
+
+		for (int edit = 0; edit < 2000; edit++)
+		{
+			int line = random.nextInt(lines.size());
+			switch (random.nextInt(4))
+			{
+			case 0:
+				int[] summary = randomLine(random);
+				lines.set(line, summary);
+				pyramid.updateLine(line, (byte) summary[0], summary[1], null);
+				break;
+			case 1:
+				// sometimes more than a leaf
+				int count = 1 + random.nextInt(random.nextInt(10) == 0 ? 300 : 5);
+				pyramid.linesInserted(line, count);
+				for (int i = 0; i < count; i++)
+				{
+					int[] inserted = randomLine(random);
+					lines.add(line + i, inserted);
+					pyramid.updateLine(line + i, (byte) inserted[0], inserted[1], null);
+				}
+				break;
+			case 2:
+				// at the end
+				pyramid.linesInserted(lines.size(), 1);
+				lines.add(new int[] { Token.NULL, 0 });
+				break;
+			default:
+				int removed = Math.min(lines.size() - 1 - line,
+					random.nextInt(random.nextInt(10) == 0 ? 300 : 5));
+				pyramid.linesRemoved(line, removed);
+				for (int i = 0; i < removed; i++)
+					lines.remove(line);
+				break;
+			}
+			assertSameSummaries(pyramid, lines, random);
+		}
+	}
+
+	private static int[] randomLine(Random random)
+	{
+		return new int[] { random.nextInt(Token.ID_COUNT), random.nextInt(120) };
+	}
+
+	private static LineSummaryPyramid build(List<int[]> lines)
+	{
+		LineSummaryPyramid pyramid = new LineSummaryPyramid(lines.size());
+		for (int i = 0; i < lines.size(); i++)
+			pyramid.setLine(i, (byte) lines.get(i)[0], lines.get(i)[1], null);
+		pyramid.rebuild();
+		return pyramid;
+	}
+
+	private static void assertSameSummaries(LineSummaryPyramid actual, List<int[]> lines,
+		Random random)
+	{
+		assertThat(actual.getLineCount(), is(equalTo(lines.size())));
+		for (int i = 0; i < lines.size(); i++)
+		{
+			assertThat((int) actual.getStyle(i), is(equalTo(lines.get(i)[0])));
+			assertThat(actual.getLength(i), is(equalTo(lines.get(i)[1])));
+		}
+		LineSummaryPyramid.Summary summary = new LineSummaryPyramid.Summary();
+		for (int i = 0; i < 5; i++)
+		{
+			int start = random.nextInt(lines.size());
+			int end = start + 1 + random.nextInt(lines.size() - start);
+			actual.summarize(start, end, summary);
+			int[] counts = new int[Token.ID_COUNT];
+			int length = 0;
+			for (int[] line : lines.subList(start, end))
+			{
+				counts[line[0]]++;
+				length = Math.max(length, line[1]);
+			}
+			int style = Token.NULL;
+			for (int s = 0; s < counts.length; s++)
+			{
+				if (s != Token.NULL && counts[s] > (style == Token.NULL ? 0 : counts[style]))
+					style = s;
+			}
+			assertThat(summary.length, is(equalTo(length)));
+			assertThat((int) summary.style, is(equalTo(style)));
+		}
+	}
+}
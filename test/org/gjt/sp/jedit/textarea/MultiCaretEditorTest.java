@@ -0,0 +1,331 @@
+/*
+ * jEdit - Programmer's Text Editor
+ * :tabSize=8:indentSize=8:noTabs=false:
+ * :folding=explicit:collapseFolds=1:
+ *
+ * Copyright © 2026 jEdit contributors
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or any later version.
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ */
+
+package org.gjt.sp.jedit.textarea;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+import javax.swing.text.Position;
+
+import org.gjt.sp.jedit.IPropertyManager;
+import org.gjt.sp.jedit.buffer.BufferAdapter;
+import org.gjt.sp.jedit.buffer.JEditBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class MultiCaretEditorTest
+{
+	private static final String PAIR = "😀";
+
+	private TextArea textArea;
+	private JEditBuffer buffer;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		final Properties props = new Properties();
+		InputStream in = new FileInputStream("org/gjt/sp/jedit/jedit.props");
+		try
+		{
+			props.load(in);
+		}
+		finally
+		{
+			in.close();
+		}
+		props.setProperty("view.antiAlias", "none");
+		textArea = new StandaloneTextArea(new IPropertyManager()
+		{
+			public String getProperty(String name)
+			{
+				return props.getProperty(name);
+			}
+		});
+		buffer = new JEditBuffer();
+		textArea.setBuffer(buffer);
+	}
+
+	@Test
+	public void typingShouldInsertAtEveryCaret()
+	{
+		setText("abc\ndef\nghi\n");
+		textArea.setCaretPosition(1);
+		textArea.addCaret(5);
+		textArea.addCaret(9);
+
+		textArea.userInput('X');
+
+		assertThat(getText(), is("aXbc\ndXef\ngXhi\n"));
+		assertCarets(2, 7, 12);
+		assertThat(textArea.getCaretPosition(), is(2));
+		Selection[] selection = textArea.getSelection();
+		for (int i = 0; i < selection.length; i++)
+		{
+			assertThat(selection[i].getStartLine(), is(i));
+			assertThat(selection[i].getEndLine(), is(i));
+		}
+	}
+
+	@Test
+	public void selectionsShouldShiftTheCaretsAfterThem()
+	{
+		setText("one two three");
+		textArea.setCaretPosition(7);
+		textArea.addToSelection(new Selection.Range(0, 3));
+		textArea.addCaret(7);
+		textArea.addToSelection(new Selection.Range(8, 13));
+
+		textArea.replaceSelection("ab");
+
+		// -1 after the first selection, +2 at the caret
+		assertThat(getText(), is("ab twoab ab"));
+		assertCarets(2, 8, 11);
+		assertThat(textArea.getCaretPosition(), is(8));
+	}
+
+	@Test
+	public void setSelectedTextShouldKeepTheCarets()
+	{
+		setText("one two three");
+		textArea.setCaretPosition(3);
+		textArea.addCaret(7);
+		textArea.addToSelection(new Selection.Range(8, 13));
+
+		textArea.setSelectedText("!");
+		assertThat(getText(), is("one! two! !"));
+		assertCarets(4, 9, 11);
+
+		textArea.setSelectedText("?", false);
+		assertThat(getText(), is("one!? two!? !?"));
+		assertCarets(5, 11, 14);
+	}
+
+	@Test
+	public void caretsShouldBeAddedAboveAndBelowAtTheCaretColumn()
+	{
+		buffer.setIntegerProperty("tabSize", 4);
+		setText("abcdef\n\tx\nab\nabcdef\nabcdefgh");
+		textArea.setCaretPosition(18);
+
+		textArea.addCaretAbove();
+		textArea.addCaretAbove();
+		textArea.addCaretAbove();
+		textArea.addCaretBelow();
+
+		// virtual column 5 is after the end of "ab" and of "\tx"
+		assertCarets(5, 9, 12, 18, 25);
+		assertThat(textArea.getCaretPosition(), is(18));
+	}
+
+	@Test
+	public void caretsShouldBeMergedWhenTheyMeet()
+	{
+		setText("abcd");
+		textArea.setCaretPosition(1);
+		textArea.addCaret(2);
+		textArea.addCaret(3);
+
+		textArea.backspace();
+
+		assertThat(getText(), is("d"));
+		assertCarets(0);
+		assertThat(textArea.getCaretPosition(), is(0));
+	}
+
+	@Test
+	public void deleteShouldRemoveSelectionsAndCharactersAfterCarets()
+	{
+		setText("abcd");
+		textArea.addToSelection(new Selection.Range(2, 4));
+		textArea.addCaret(1);
+
+		textArea.delete();
+
+		assertThat(getText(), is("a"));
+		assertCarets(1);
+	}
+
+	@Test
+	public void backspaceShouldRemoveWholeSurrogatePairs()
+	{
+		setText("a" + PAIR + "b" + PAIR + "c");
+		textArea.setCaretPosition(3);
+		textArea.addCaret(6);
+
+		textArea.backspace();
+
+		assertThat(getText(), is("abc"));
+		assertCarets(1, 2);
+	}
+
+	@Test
+	public void deleteShouldRemoveWholeSurrogatePairs()
+	{
+		setText("a" + PAIR + "b" + PAIR + "c");
+		textArea.setCaretPosition(1);
+		textArea.addCaret(4);
+
+		textArea.delete();
+
+		assertThat(getText(), is("abc"));
+		assertCarets(1, 2);
+	}
+
+	@Test
+	public void oneUndoShouldRevertEveryCaret()
+	{
+		setText("abc\ndef\nghi\n");
+		textArea.setCaretPosition(0);
+		textArea.addCaret(4);
+		textArea.addCaret(8);
+
+		textArea.userInput('X');
+		textArea.userInput('Y');
+		assertThat(getText(), is("XYabc\nXYdef\nXYghi\n"));
+
+		buffer.undo(textArea);
+		assertThat(getText(), is("Xabc\nXdef\nXghi\n"));
+		buffer.undo(textArea);
+		assertThat(getText(), is("abc\ndef\nghi\n"));
+	}
+
+	@Test
+	public void positionsShouldMoveAsIfRangesWereEditedOneByOne()
+	{
+		Random random = new Random(7L);
+		for (int round = 0; round < 200; round++)
+		{
+			StringBuilder text = new StringBuilder();
+			for (int i = 0; i < 30; i++)
+				text.append(random.nextInt(4) == 0 ? '\n' : 'a');
+			int count = 1 + random.nextInt(5);
+			int[] starts = new int[count];
+			int[] ends = new int[count];
+			int offset = 0;
+			for (int i = 0; i < count; i++)
+			{
+				starts[i] = offset + random.nextInt(3);
+				ends[i] = Math.min(starts[i] + random.nextInt(3), text.length());
+				starts[i] = Math.min(starts[i], ends[i]);
+				offset = ends[i];
+			}
+			String insert = random.nextBoolean() ? "" : "x\ny".substring(random.nextInt(3));
+
+			// one position per buffer, since positions removed
+			// together share an offset and hide each other
+			for (int position = 0; position <= text.length(); position++)
+			{
+				JEditBuffer batch = new JEditBuffer();
+				batch.insert(0, text.toString());
+				Position batchPosition = batch.createPosition(position);
+				JEditBuffer oneByOne = new JEditBuffer();
+				oneByOne.insert(0, text.toString());
+				Position oneByOnePosition = oneByOne.createPosition(position);
+
+				batch.replace(starts, ends, insert);
+				int delta = 0;
+				for (int i = 0; i < count; i++)
+				{
+					oneByOne.remove(starts[i] + delta, ends[i] - starts[i]);
+					oneByOne.insert(starts[i] + delta, insert);
+					delta += insert.length() - (ends[i] - starts[i]);
+				}
+
+				assertThat(batch.getText(), is(oneByOne.getText()));
+				assertThat(batch.getLineCount(), is(oneByOne.getLineCount()));
+				for (int line = 0; line < batch.getLineCount(); line++)
+					assertThat(batch.getLineEndOffset(line), is(oneByOne.getLineEndOffset(line)));
+				assertThat(batchPosition.getOffset(), is(oneByOnePosition.getOffset()));
+			}
+		}
+	}
+
+	@Test
+	public void tenThousandCaretsShouldBeOneBufferChange()
+	{
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 10000; i++)
+			text.append("line\n");
+		setText(text.toString());
+		textArea.setCaretPosition(0);
+		for (int i = 1; i < 10000; i++)
+			textArea.addCaret(i * 5);
+		final int[] events = new int[1];
+		buffer.addBufferListener(new BufferAdapter()
+		{
+			@Override
+			public void contentInserted(JEditBuffer buffer, int startLine,
+				int offset, int numLines, int length)
+			{
+				events[0]++;
+			}
+
+			@Override
+			public void contentRemoved(JEditBuffer buffer, int startLine,
+				int offset, int numLines, int length)
+			{
+				events[0]++;
+			}
+		});
+
+		for (int i = 0; i < 10; i++)
+			textArea.userInput('X');
+
+		assertThat(events[0], is(20));
+		assertThat(buffer.getLineText(9999), is("XXXXXXXXXXline"));
+		assertThat(textArea.getSelectionCount(), is(10000));
+		for (int i = 0; i < 10; i++)
+			buffer.undo(textArea);
+		assertThat(getText(), is(text.toString()));
+	}
+
+	private void setText(String text)
+	{
+		buffer.insert(0, text);
+		// keep the setup out of the undo history
+		buffer.setUndoLimit(0);
+		buffer.setUndoLimit(100);
+	}
+
+	private String getText()
+	{
+		return buffer.getText(0, buffer.getLength());
+	}
+
+	private void assertCarets(int... offsets)
+	{
+		Selection[] selection = textArea.getSelection();
+		int[] actual = new int[selection.length];
+		for (int i = 0; i < selection.length; i++)
+		{
+			assertThat(selection[i].getStart(), is(selection[i].getEnd()));
+			actual[i] = selection[i].getStart();
+		}
+		assertThat(Arrays.toString(actual), is(Arrays.toString(offsets)));
+	}
+}